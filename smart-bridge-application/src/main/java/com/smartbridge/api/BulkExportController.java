@@ -0,0 +1,158 @@
+package com.smartbridge.api;
+
+import ca.uhn.fhir.parser.DataFormatException;
+import com.smartbridge.core.export.BulkExportJob;
+import com.smartbridge.core.export.BulkExportService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.hl7.fhir.r4.model.InstantType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Asynchronous export API following the FHIR Bulk Data kick-off/status/download flow.
+ * Kick-off returns 202 with a Content-Location status URL; polling the status URL returns
+ * 202 while the export runs and the output manifest once it is complete.
+ */
+@RestController
+@RequestMapping("/api/export")
+public class BulkExportController {
+    private static final Logger logger = LoggerFactory.getLogger(BulkExportController.class);
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/fhir+ndjson");
+
+    private final BulkExportService bulkExportService;
+
+    public BulkExportController(BulkExportService bulkExportService) {
+        this.bulkExportService = bulkExportService;
+    }
+
+    @GetMapping("/$export")
+    public ResponseEntity<Map<String, Object>> kickOff(
+            @RequestParam(value = "_type", required = false) String types,
+            @RequestParam(value = "_since", required = false) String since,
+            HttpServletRequest request) {
+        List<String> requestedTypes = types == null ? List.of() : Arrays.stream(types.split(","))
+            .map(String::trim)
+            .filter(type -> !type.isEmpty())
+            .collect(Collectors.toList());
+
+        BulkExportJob job;
+        try {
+            Date sinceDate = since != null ? new InstantType(since).getValue() : null;
+            job = bulkExportService.kickOff(requestedTypes, sinceDate);
+        } catch (IllegalArgumentException | DataFormatException e) {
+            return ResponseEntity.badRequest().body(operationOutcome(e.getMessage()));
+        }
+
+        logger.info("Bulk export {} kicked off by {}", job.getId(), request.getRemoteAddr());
+        String statusUrl = baseUrl() + "/api/export/status/" + job.getId();
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+            .header(HttpHeaders.CONTENT_LOCATION, statusUrl)
+            .build();
+    }
+
+    @GetMapping("/status/{jobId}")
+    public ResponseEntity<Map<String, Object>> status(@PathVariable String jobId) {
+        BulkExportJob job = bulkExportService.getJob(jobId);
+        if (job == null || job.getState() == BulkExportJob.State.CANCELLED) {
+            return ResponseEntity.notFound().build();
+        }
+
+        switch (job.getState()) {
+            case COMPLETED:
+                return ResponseEntity.ok(manifest(job));
+            case FAILED:
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(operationOutcome(job.getError()));
+            default:
+                String progress = job.getCurrentType() != null
+                    ? "Exporting " + job.getCurrentType() + ": " + job.getExported() + " resources"
+                    : "Queued";
+                return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .header("X-Progress", progress)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .build();
+        }
+    }
+
+    @DeleteMapping("/status/{jobId}")
+    public ResponseEntity<Void> delete(@PathVariable String jobId) {
+        if (!bulkExportService.delete(jobId)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).build();
+    }
+
+    @GetMapping("/files/{jobId}/{fileName:.+}")
+    public ResponseEntity<Resource> download(@PathVariable String jobId, @PathVariable String fileName) {
+        Path file = bulkExportService.resolveOutputFile(jobId, fileName);
+        if (file == null || !Files.exists(file)) {
+            return ResponseEntity.notFound().build();
+        }
+        // Shards are stored gzip-compressed and sent as-is
+        return ResponseEntity.ok()
+            .contentType(NDJSON)
+            .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+            .body(new FileSystemResource(file));
+    }
+
+    private Map<String, Object> manifest(BulkExportJob job) {
+        String filesUrl = baseUrl() + "/api/export/files/" + job.getId() + "/";
+        List<Map<String, Object>> output = job.getOutputs().stream().map(file -> {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("type", file.getType());
+            entry.put("url", filesUrl + file.getFileName());
+            entry.put("count", file.getCount());
+            return entry;
+        }).collect(Collectors.toList());
+
+        Map<String, Object> manifest = new LinkedHashMap<>();
+        manifest.put("transactionTime", job.getTransactionTime().toString());
+        manifest.put("request", requestDescription(job));
+        manifest.put("requiresAccessToken", false);
+        manifest.put("output", output);
+        manifest.put("error", List.of());
+        return manifest;
+    }
+
+    private String requestDescription(BulkExportJob job) {
+        StringBuilder request = new StringBuilder(baseUrl()).append("/api/export/$export?_type=")
+            .append(String.join(",", job.getTypes()));
+        if (job.getSince() != null) {
+            request.append("&_since=").append(new InstantType(job.getSince()).getValueAsString());
+        }
+        return request.toString();
+    }
+
+    private Map<String, Object> operationOutcome(String message) {
+        Map<String, Object> issue = new LinkedHashMap<>();
+        issue.put("severity", "error");
+        issue.put("code", "processing");
+        issue.put("diagnostics", message);
+
+        Map<String, Object> outcome = new LinkedHashMap<>();
+        outcome.put("resourceType", "OperationOutcome");
+        outcome.put("issue", List.of(issue));
+        return outcome;
+    }
+
+    private String baseUrl() {
+        return ServletUriComponentsBuilder.fromCurrentContextPath().toUriString();
+    }
+}
@@ -1,33 +1,152 @@
 package com.smartbridge.api;
 
-import com.smartbridge.core.sync.BulkSyncService;
+import com.smartbridge.core.sync.SyncJob;
+import com.smartbridge.core.sync.SyncJobConflictException;
+import com.smartbridge.core.sync.SyncJobManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
 @RestController
 @RequestMapping("/api/sync")
 public class SyncController {
     private static final Logger logger = LoggerFactory.getLogger(SyncController.class);
-    
-    private final BulkSyncService bulkSyncService;
-    
-    public SyncController(BulkSyncService bulkSyncService) {
-        this.bulkSyncService = bulkSyncService;
+
+    private final SyncJobManager syncJobManager;
+
+    public SyncController(SyncJobManager syncJobManager) {
+        this.syncJobManager = syncJobManager;
     }
-    
+
     @PostMapping("/bulk")
-    public ResponseEntity<String> triggerBulkSync() {
+    public ResponseEntity<Map<String, Object>> triggerBulkSync() {
         logger.info("Manual bulk sync triggered");
-        bulkSyncService.bulkSync();
-        return ResponseEntity.ok("Bulk sync started");
+        return submit(SyncJob.Type.BULK);
     }
-    
+
     @PostMapping("/incremental")
-    public ResponseEntity<String> triggerIncrementalSync() {
+    public ResponseEntity<Map<String, Object>> triggerIncrementalSync() {
         logger.info("Manual incremental sync triggered");
-        bulkSyncService.incrementalSync();
-        return ResponseEntity.ok("Incremental sync started");
+        return submit(SyncJob.Type.INCREMENTAL);
+    }
+
+    @PostMapping("/import")
+    public ResponseEntity<Map<String, Object>> triggerImport(@RequestParam("file") String fileName,
+                                                             @RequestParam(value = "restart", defaultValue = "false") boolean restart) {
+        logger.info("Manual NDJSON import triggered for {}", fileName);
+        try {
+            return accepted(syncJobManager.submitImport(fileName, restart));
+        } catch (SyncJobConflictException e) {
+            return conflict(e);
+        } catch (IllegalStateException e) {
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        } catch (IllegalArgumentException | IOException e) {
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    @GetMapping("/jobs")
+    public ResponseEntity<List<Map<String, Object>>> listJobs() {
+        return ResponseEntity.ok(syncJobManager.getJobs().stream()
+            .map(this::toStatus)
+            .collect(Collectors.toList()));
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<Map<String, Object>> getJob(@PathVariable String jobId) {
+        SyncJob job = syncJobManager.getJob(jobId);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(toStatus(job));
+    }
+
+    @PostMapping("/jobs/{jobId}/pause")
+    public ResponseEntity<Map<String, Object>> pauseJob(@PathVariable String jobId) {
+        return control(jobId, SyncJob::pause, "pause");
+    }
+
+    @PostMapping("/jobs/{jobId}/resume")
+    public ResponseEntity<Map<String, Object>> resumeJob(@PathVariable String jobId) {
+        return control(jobId, SyncJob::resume, "resume");
+    }
+
+    @PostMapping("/jobs/{jobId}/cancel")
+    public ResponseEntity<Map<String, Object>> cancelJob(@PathVariable String jobId) {
+        return control(jobId, SyncJob::cancel, "cancel");
+    }
+
+    private ResponseEntity<Map<String, Object>> submit(SyncJob.Type type) {
+        try {
+            return accepted(syncJobManager.submit(type));
+        } catch (SyncJobConflictException e) {
+            return conflict(e);
+        }
+    }
+
+    private ResponseEntity<Map<String, Object>> accepted(SyncJob job) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+            .header("Location", "/api/sync/jobs/" + job.getId())
+            .body(toStatus(job));
+    }
+
+    private ResponseEntity<Map<String, Object>> conflict(SyncJobConflictException e) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("error", e.getMessage());
+        response.put("activeJobId", e.getActiveJobId());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+    }
+
+    private ResponseEntity<Map<String, Object>> control(String jobId, Predicate<SyncJob> action, String actionName) {
+        SyncJob job = syncJobManager.getJob(jobId);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!action.test(job)) {
+            Map<String, Object> response = toStatus(job);
+            response.put("error", "Cannot " + actionName + " a job in state " + job.getState());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        }
+        logger.info("Sync job {}: {} requested", jobId, actionName);
+        return ResponseEntity.ok(toStatus(job));
+    }
+
+    private Map<String, Object> toStatus(SyncJob job) {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("jobId", job.getId());
+        status.put("type", job.getType());
+        if (job.getSource() != null) {
+            status.put("source", job.getSource());
+        }
+        status.put("state", job.getState());
+        status.put("createdAt", job.getCreatedAt());
+        status.put("startedAt", job.getStartedAt());
+        status.put("finishedAt", job.getFinishedAt());
+        status.put("fetched", job.getFetched());
+        status.put("processed", job.getProcessed());
+        status.put("succeeded", job.getSucceeded());
+        status.put("unchanged", job.getSkipped());
+        status.put("failed", job.getFailed());
+        status.put("total", job.getTotal());
+        status.put("pages", job.getPages());
+        status.put("throughputPerSecond", Math.round(job.getThroughputPerSecond() * 10) / 10.0);
+        status.put("etaSeconds", job.getEstimatedSecondsRemaining());
+        status.put("cursor", job.getCursor());
+        status.put("checkpointVersion", job.getCheckpointVersion());
+        status.put("error", job.getError());
+        return status;
     }
 }
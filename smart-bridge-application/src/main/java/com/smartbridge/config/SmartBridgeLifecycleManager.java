@@ -1,6 +1,7 @@
 package com.smartbridge.config;
 
 import com.smartbridge.core.client.FHIRChangeDetectionService;
+import com.smartbridge.core.concurrency.DownstreamLimitedExecutor;
 import com.smartbridge.core.resilience.NetworkMonitor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -101,6 +102,17 @@ public class SmartBridgeLifecycleManager {
             } catch (Exception e) {
                 logger.warn("Error shutting down {} executor: {}", name, e.getMessage());
             }
+        } else if (executor instanceof DownstreamLimitedExecutor limitedExecutor) {
+            try {
+                int pending = limitedExecutor.getActiveCount() + limitedExecutor.getWaitingCount();
+                if (pending > 0) {
+                    logger.info("Waiting for {} active and waiting {} tasks to complete", pending, name);
+                }
+                limitedExecutor.shutdown(SHUTDOWN_TIMEOUT_SECONDS);
+                logger.info("{} executor shut down", name);
+            } catch (Exception e) {
+                logger.warn("Error shutting down {} executor: {}", name, e.getMessage());
+            }
         }
     }
 
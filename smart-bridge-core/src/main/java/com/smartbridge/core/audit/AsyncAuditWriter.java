@@ -0,0 +1,378 @@
+package com.smartbridge.core.audit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Takes audit logging off the request path. Producers append records to a bounded
+ * lock-free ring buffer; a single writer thread drains it in batches, formats the
+ * records and hands each batch to the sinks (by default the audit and security logs).
+ *
+ * When the buffer is full the overflow policy decides what the producer does:
+ * <ul>
+ *   <li>BLOCK: wait for the writer to free a slot, so no record is lost</li>
+ *   <li>DROP: discard the record and count it</li>
+ *   <li>SPILL: append the record to a spill file, which the writer replays once it has caught up</li>
+ * </ul>
+ * A spill file is renamed to <code>.replaying</code> before replay and deleted only once every
+ * record in it has reached every sink. A replay cut short by a crash or a failing sink is
+ * repeated from the start of that file, so spilled records may be written twice but are not lost.
+ * The time from recording an event to its batch being written is published as audit lag.
+ */
+public class AsyncAuditWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncAuditWriter.class);
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    public enum OverflowPolicy {
+        BLOCK,
+        DROP,
+        SPILL
+    }
+
+    private final AuditRingBuffer buffer;
+    private final int batchSize;
+    private final OverflowPolicy overflowPolicy;
+    private final Path spillFile;
+    private final Path replayFile;
+    private final List<AuditSink> sinks = new CopyOnWriteArrayList<>();
+
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder spilled = new LongAdder();
+    private final LongAdder failedBatches = new LongAdder();
+    private volatile long lastLagNanos;
+
+    private final Object spillLock = new Object();
+    private BufferedWriter spillWriter;
+    private volatile boolean spillPending;
+
+    private volatile Thread writerThread;
+    private volatile boolean running;
+    private volatile boolean writerParked;
+
+    private volatile Counter droppedCounter;
+    private volatile Counter spilledCounter;
+    private volatile Timer lagTimer;
+
+    /**
+     * @param capacity       Ring buffer slots, rounded up to a power of two
+     * @param batchSize      Records drained and written per batch
+     * @param overflowPolicy What producers do when the buffer is full
+     * @param spillFile      Spill file for the SPILL policy, may be null otherwise
+     */
+    public AsyncAuditWriter(int capacity, int batchSize, OverflowPolicy overflowPolicy, Path spillFile) {
+        if (overflowPolicy == OverflowPolicy.SPILL && spillFile == null) {
+            throw new IllegalArgumentException("SPILL overflow policy requires a spill file");
+        }
+        this.buffer = new AuditRingBuffer(capacity);
+        this.batchSize = Math.max(1, batchSize);
+        this.overflowPolicy = overflowPolicy;
+        this.spillFile = spillFile;
+        this.replayFile = spillFile != null ? spillFile.resolveSibling(spillFile.getFileName() + ".replaying") : null;
+        this.spillPending = spillFile != null && (Files.exists(spillFile) || Files.exists(replayFile));
+    }
+
+    /**
+     * Add a sink receiving every written batch. Sinks must be added before {@link #start()}.
+     */
+    public void addSink(AuditSink sink) {
+        sinks.add(sink);
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        if (sinks.isEmpty()) {
+            sinks.add(AsyncAuditWriter::writeToLogs);
+        }
+        running = true;
+        Thread thread = new Thread(this::runWriter, "audit-writer");
+        thread.setDaemon(true);
+        writerThread = thread;
+        thread.start();
+        logger.info("Async audit writer started: capacity={}, batchSize={}, overflowPolicy={}",
+            buffer.capacity(), batchSize, overflowPolicy);
+    }
+
+    /**
+     * Stop the writer after it has written everything appended so far, including spilled records.
+     */
+    public void stop() {
+        Thread thread;
+        synchronized (this) {
+            running = false;
+            thread = writerThread;
+        }
+        if (thread == null) {
+            return;
+        }
+        LockSupport.unpark(thread);
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (spillLock) {
+            closeSpillWriter();
+        }
+        logger.info("Async audit writer stopped: written={}, dropped={}, spilled={}",
+            written.sum(), dropped.sum(), spilled.sum());
+    }
+
+    /**
+     * Append a record for the writer. Never formats or performs IO on the caller's thread,
+     * except under the SPILL policy when the buffer is full.
+     */
+    public void append(AuditRecord record) {
+        if (!buffer.offer(record)) {
+            overflow(record);
+            return;
+        }
+        if (writerParked) {
+            LockSupport.unpark(writerThread);
+        }
+    }
+
+    /**
+     * Publish buffer depth, dropped and spilled records, and audit lag.
+     */
+    public void bindTo(MeterRegistry meterRegistry) {
+        Gauge.builder("smart_bridge_audit_buffer_depth", buffer, AuditRingBuffer::size)
+            .description("Audit records waiting for the writer")
+            .register(meterRegistry);
+        Gauge.builder("smart_bridge_audit_lag_ms", this, AsyncAuditWriter::getLastLagMs)
+            .description("Age of the oldest record in the last audit batch written")
+            .register(meterRegistry);
+        lagTimer = Timer.builder("smart_bridge_audit_lag")
+            .description("Time from recording an audit event to writing it")
+            .register(meterRegistry);
+        droppedCounter = Counter.builder("smart_bridge_audit_dropped_total")
+            .description("Audit records discarded because the buffer was full")
+            .register(meterRegistry);
+        spilledCounter = Counter.builder("smart_bridge_audit_spilled_total")
+            .description("Audit records spilled to disk because the buffer was full")
+            .register(meterRegistry);
+    }
+
+    public OverflowPolicy getOverflowPolicy() { return overflowPolicy; }
+    public int getBufferDepth() { return buffer.size(); }
+    public int getCapacity() { return buffer.capacity(); }
+    public long getWrittenCount() { return written.sum(); }
+    public long getDroppedCount() { return dropped.sum(); }
+    public long getSpilledCount() { return spilled.sum(); }
+    public long getFailedBatchCount() { return failedBatches.sum(); }
+
+    /**
+     * @return Age of the oldest record in the last batch when it was written, in milliseconds
+     */
+    public double getLastLagMs() {
+        return lastLagNanos / 1_000_000.0;
+    }
+
+    private void overflow(AuditRecord record) {
+        switch (overflowPolicy) {
+            case BLOCK:
+                while (!buffer.offer(record)) {
+                    if (!running) {
+                        // No writer to wait for
+                        writeBatch(List.of(record));
+                        return;
+                    }
+                    LockSupport.unpark(writerThread);
+                    LockSupport.parkNanos(BLOCK_PARK_NANOS);
+                }
+                break;
+            case SPILL:
+                spill(record);
+                break;
+            default:
+                dropped.increment();
+                Counter counter = droppedCounter;
+                if (counter != null) {
+                    counter.increment();
+                }
+        }
+    }
+
+    private void runWriter() {
+        List<AuditRecord> batch = new ArrayList<>(batchSize);
+        while (true) {
+            AuditRecord record;
+            while (batch.size() < batchSize && (record = buffer.poll()) != null) {
+                batch.add(record);
+            }
+            if (!batch.isEmpty()) {
+                writeBatch(batch);
+                batch.clear();
+                continue;
+            }
+            if (spillPending) {
+                replaySpill();
+                continue;
+            }
+            if (!running && buffer.isEmpty()) {
+                return;
+            }
+            writerParked = true;
+            if (buffer.isEmpty() && running) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+            writerParked = false;
+        }
+    }
+
+    /**
+     * @return false if any sink failed to write the batch
+     */
+    private boolean writeBatch(List<AuditRecord> batch) {
+        boolean allWritten = true;
+        for (AuditSink sink : sinks) {
+            try {
+                sink.write(batch);
+            } catch (Exception e) {
+                allWritten = false;
+                failedBatches.increment();
+                logger.error("Audit sink failed to write {} records", batch.size(), e);
+            }
+        }
+        written.add(batch.size());
+
+        long now = System.nanoTime();
+        lastLagNanos = now - batch.get(0).getCreatedNanos();
+        Timer timer = lagTimer;
+        if (timer != null) {
+            for (AuditRecord record : batch) {
+                timer.record(now - record.getCreatedNanos(), TimeUnit.NANOSECONDS);
+            }
+        }
+        return allWritten;
+    }
+
+    private void spill(AuditRecord record) {
+        synchronized (spillLock) {
+            try {
+                if (spillWriter == null) {
+                    spillWriter = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                }
+                spillWriter.write(record.getType().name());
+                spillWriter.write('\t');
+                spillWriter.write(record.getLine().replace('\n', ' '));
+                spillWriter.newLine();
+                spillWriter.flush();
+                spillPending = true;
+                spilled.increment();
+                Counter counter = spilledCounter;
+                if (counter != null) {
+                    counter.increment();
+                }
+            } catch (IOException e) {
+                // Losing the record is preferable to failing the request it audits
+                logger.error("Failed to spill audit record to {}: {}", spillFile, record.getLine(), e);
+                dropped.increment();
+            }
+        }
+    }
+
+    /**
+     * Write the records spilled while the buffer was full in batches, then remove the spill file.
+     * Records spilled meanwhile go to a new spill file, replayed on the next pass.
+     */
+    private void replaySpill() {
+        synchronized (spillLock) {
+            spillPending = false;
+            closeSpillWriter();
+            try {
+                // A replay that failed or was cut short by a crash is finished before newer spills
+                if (!Files.exists(replayFile)) {
+                    if (!Files.exists(spillFile)) {
+                        return;
+                    }
+                    Files.move(spillFile, replayFile, StandardCopyOption.ATOMIC_MOVE);
+                }
+            } catch (IOException e) {
+                logger.error("Failed to replay audit spill file {}", spillFile, e);
+                return;
+            }
+        }
+
+        long replayed = 0;
+        try (BufferedReader reader = Files.newBufferedReader(replayFile, StandardCharsets.UTF_8)) {
+            List<AuditRecord> batch = new ArrayList<>(batchSize);
+            boolean endOfFile = false;
+            while (!endOfFile) {
+                String line = reader.readLine();
+                endOfFile = line == null;
+                int separator = endOfFile ? -1 : line.indexOf('\t');
+                if (separator >= 0) {
+                    batch.add(AuditRecord.spilled(AuditRecord.Type.valueOf(line.substring(0, separator)),
+                        line.substring(separator + 1)));
+                }
+                if (batch.size() == batchSize || (endOfFile && !batch.isEmpty())) {
+                    if (!writeBatch(batch)) {
+                        logger.error("Audit sink failed during spill replay, keeping {} for the next replay", replayFile);
+                        return;
+                    }
+                    replayed += batch.size();
+                    batch.clear();
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Failed to replay audit spill file {}", replayFile, e);
+            return;
+        }
+
+        synchronized (spillLock) {
+            try {
+                Files.delete(replayFile);
+            } catch (IOException e) {
+                logger.error("Failed to remove replayed audit spill file {}", replayFile, e);
+                return;
+            }
+            spillPending = spillPending || Files.exists(spillFile);
+        }
+        logger.info("Replayed {} spilled audit records", replayed);
+    }
+
+    private void closeSpillWriter() {
+        if (spillWriter != null) {
+            try {
+                spillWriter.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close audit spill file {}", spillFile, e);
+            }
+            spillWriter = null;
+        }
+    }
+
+    /**
+     * Default sink: the audit and security logs, as written synchronously by {@link AuditLogger}.
+     */
+    static void writeToLogs(List<AuditRecord> batch) {
+        for (AuditRecord record : batch) {
+            AuditLogger.log(record);
+        }
+    }
+}
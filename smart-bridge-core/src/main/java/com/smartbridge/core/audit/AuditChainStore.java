@@ -0,0 +1,84 @@
+package com.smartbridge.core.audit;
+
+/**
+ * Storage for the audit hash chain kept by {@link AuditService}.
+ * Entries are appended with consecutive sequence numbers from a single writer at a time;
+ * reads may run concurrently with appends.
+ */
+public interface AuditChainStore {
+
+    /** Previous hash of the first entry in the chain. */
+    String GENESIS_HASH = "GENESIS";
+
+    /**
+     * Append the next entry of the chain.
+     *
+     * @param seqNum Sequence number, one more than {@link #getLastSequence()}
+     * @param hash   Base64 SHA-256 chain hash of the entry
+     * @param entry  Audit entry the hash was computed over
+     */
+    void append(long seqNum, String hash, String entry);
+
+    /**
+     * @return The entry with the given sequence number, or null if it does not exist or is no longer retained
+     */
+    Entry read(long seqNum);
+
+    /**
+     * @return Hash of the given entry, or null if it does not exist or is no longer retained.
+     *         Stores that delete old entries still return the hash of the entry just before
+     *         {@link #getFirstSequence()}, so the oldest retained entries can be verified.
+     */
+    default String getHash(long seqNum) {
+        Entry entry = read(seqNum);
+        return entry != null ? entry.getHash() : null;
+    }
+
+    /**
+     * Store the signed checkpoint of an entry that is already in the chain.
+     */
+    void putCheckpoint(long seqNum, String signature);
+
+    /**
+     * @return Checkpoint signature of the given entry, or null if none was stored or it is no longer retained
+     */
+    String getCheckpoint(long seqNum);
+
+    /**
+     * @return Sequence number of the oldest retained entry, or 1 when the chain is empty
+     */
+    long getFirstSequence();
+
+    /**
+     * @return Sequence number of the newest entry, or 0 when the chain is empty
+     */
+    long getLastSequence();
+
+    /**
+     * @return Hash of the newest entry, or {@link #GENESIS_HASH} when the chain is empty
+     */
+    default String getLastHash() {
+        long last = getLastSequence();
+        String hash = last > 0 ? getHash(last) : null;
+        return hash != null ? hash : GENESIS_HASH;
+    }
+
+    /**
+     * One entry of the chain.
+     */
+    final class Entry {
+        private final long seqNum;
+        private final String hash;
+        private final String entry;
+
+        public Entry(long seqNum, String hash, String entry) {
+            this.seqNum = seqNum;
+            this.hash = hash;
+            this.entry = entry;
+        }
+
+        public long getSeqNum() { return seqNum; }
+        public String getHash() { return hash; }
+        public String getEntry() { return entry; }
+    }
+}
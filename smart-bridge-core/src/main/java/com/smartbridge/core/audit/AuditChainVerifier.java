@@ -0,0 +1,170 @@
+package com.smartbridge.core.audit;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.LongStream;
+
+/**
+ * Computes audit chain hashes, signs checkpoints and verifies ranges of the chain.
+ *
+ * Every <code>checkpointInterval</code>th entry gets a checkpoint: an HMAC-SHA256 over
+ * its sequence number and chain hash. Someone able to rewrite the stored chain can
+ * recompute every hash after a change, but not the checkpoints without the key.
+ *
+ * Checkpoints also split the chain into independent chunks: the chunk after a
+ * checkpoint starts from the hash the checkpoint signs, so a range is verified by
+ * re-hashing only the chunks it touches, in parallel on the verification pool.
+ */
+class AuditChainVerifier {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final AuditChainStore store;
+    private final SecretKeySpec checkpointKey;
+    private final int checkpointInterval;
+    private final ForkJoinPool pool;
+
+    /**
+     * @param checkpointKey      HMAC key for checkpoint signatures
+     * @param checkpointInterval Entries between checkpoints
+     * @param parallelism        Threads verifying chunks, 0 for one per processor
+     */
+    AuditChainVerifier(AuditChainStore store, byte[] checkpointKey, int checkpointInterval, int parallelism) {
+        if (checkpointInterval < 1) {
+            throw new IllegalArgumentException("Audit checkpoint interval must be positive");
+        }
+        this.store = store;
+        this.checkpointKey = new SecretKeySpec(checkpointKey, HMAC_ALGORITHM);
+        this.checkpointInterval = checkpointInterval;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Compute SHA-256 hash for audit trail integrity.
+     */
+    static String computeHash(long seqNum, String auditEntry, String previousHash) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            String dataToHash = seqNum + "|" + auditEntry + "|" + previousHash;
+            byte[] hashBytes = digest.digest(dataToHash.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hashBytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 algorithm not available", e);
+        }
+    }
+
+    int getCheckpointInterval() {
+        return checkpointInterval;
+    }
+
+    boolean isCheckpoint(long seqNum) {
+        return seqNum % checkpointInterval == 0;
+    }
+
+    /**
+     * Sign the chain hash of a checkpoint entry.
+     */
+    String sign(long seqNum, String hash) {
+        return sign(newMac(), seqNum, hash);
+    }
+
+    /**
+     * Verify entries startSeqNum to endSeqNum, which must exist in the store.
+     */
+    AuditVerificationReport verify(long startSeqNum, long endSeqNum) {
+        long startNanos = System.nanoTime();
+        long firstChunk = chunkOf(startSeqNum);
+        long lastChunk = chunkOf(endSeqNum);
+        int chunks = (int) (lastChunk - firstChunk + 1);
+
+        boolean valid;
+        if (chunks == 1 || pool.getParallelism() == 1) {
+            valid = LongStream.rangeClosed(firstChunk, lastChunk)
+                .allMatch(chunk -> verifyChunk(chunk, startSeqNum, endSeqNum));
+        } else {
+            try {
+                valid = pool.submit(() -> LongStream.rangeClosed(firstChunk, lastChunk).parallel()
+                    .allMatch(chunk -> verifyChunk(chunk, startSeqNum, endSeqNum))).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while verifying audit chain", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Failed to verify audit chain", e.getCause());
+            }
+        }
+        return new AuditVerificationReport(valid, startSeqNum, endSeqNum, chunks, System.nanoTime() - startNanos);
+    }
+
+    void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Re-hash the part of a chunk inside the range, starting from the hash before it and
+     * checking every checkpoint met on the way, including the one the chunk starts from.
+     */
+    private boolean verifyChunk(long chunk, long startSeqNum, long endSeqNum) {
+        long from = Math.max(startSeqNum, chunk * checkpointInterval + 1);
+        long to = Math.min(endSeqNum, (chunk + 1) * checkpointInterval);
+        Mac mac = newMac();
+
+        String previous;
+        if (from == 1) {
+            previous = AuditChainStore.GENESIS_HASH;
+        } else {
+            previous = store.getHash(from - 1);
+            if (previous == null || (isCheckpoint(from - 1) && !checkpointMatches(mac, from - 1, previous))) {
+                return false;
+            }
+        }
+
+        for (long seq = from; seq <= to; seq++) {
+            AuditChainStore.Entry entry = store.read(seq);
+            if (entry == null || !entry.getHash().equals(computeHash(seq, entry.getEntry(), previous))) {
+                return false;
+            }
+            if (isCheckpoint(seq) && !checkpointMatches(mac, seq, entry.getHash())) {
+                return false;
+            }
+            previous = entry.getHash();
+        }
+        return true;
+    }
+
+    private boolean checkpointMatches(Mac mac, long seqNum, String hash) {
+        String signature = store.getCheckpoint(seqNum);
+        return signature != null && MessageDigest.isEqual(
+            signature.getBytes(StandardCharsets.US_ASCII),
+            sign(mac, seqNum, hash).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Chunk k holds entries k * interval + 1 to (k + 1) * interval, ending at a checkpoint.
+     */
+    private long chunkOf(long seqNum) {
+        return (seqNum - 1) / checkpointInterval;
+    }
+
+    private static String sign(Mac mac, long seqNum, String hash) {
+        mac.reset();
+        byte[] signature = mac.doFinal((seqNum + "|" + hash).getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().encodeToString(signature);
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(checkpointKey);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(HMAC_ALGORITHM + " not available", e);
+        }
+    }
+}
@@ -1,18 +1,37 @@
 package com.smartbridge.core.audit;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.nio.file.Path;
+
 /**
  * Configuration for audit logging infrastructure.
- * Registers audit interceptor for automatic context capture.
+ * Registers audit interceptor for automatic context capture and the asynchronous audit writer.
  */
 @Configuration
 public class AuditConfig implements WebMvcConfigurer {
 
     private final AuditInterceptor auditInterceptor;
 
+    @Value("${smartbridge.audit.async.buffer-capacity:65536}")
+    private int bufferCapacity;
+
+    @Value("${smartbridge.audit.async.batch-size:512}")
+    private int batchSize;
+
+    @Value("${smartbridge.audit.async.overflow-policy:BLOCK}")
+    private AsyncAuditWriter.OverflowPolicy overflowPolicy;
+
+    @Value("${smartbridge.audit.async.spill-file:data/audit-spill.log}")
+    private String spillFile;
+
     public AuditConfig(AuditInterceptor auditInterceptor) {
         this.auditInterceptor = auditInterceptor;
     }
@@ -23,4 +42,20 @@ public class AuditConfig implements WebMvcConfigurer {
                 .addPathPatterns("/**")
                 .excludePathPatterns("/actuator/**", "/health/**");
     }
+
+    /**
+     * Writer taking audit log formatting and IO off the request path.
+     * Without it, AuditLogger writes synchronously.
+     */
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    @ConditionalOnProperty(name = "smartbridge.audit.async.enabled", havingValue = "true", matchIfMissing = true)
+    public AsyncAuditWriter asyncAuditWriter(ObjectProvider<MeterRegistry> meterRegistry) {
+        Path spillPath = Path.of(spillFile).toAbsolutePath();
+        if (overflowPolicy == AsyncAuditWriter.OverflowPolicy.SPILL && spillPath.getParent() != null) {
+            spillPath.getParent().toFile().mkdirs();
+        }
+        AsyncAuditWriter writer = new AsyncAuditWriter(bufferCapacity, batchSize, overflowPolicy, spillPath);
+        meterRegistry.ifAvailable(writer::bindTo);
+        return writer;
+    }
 }
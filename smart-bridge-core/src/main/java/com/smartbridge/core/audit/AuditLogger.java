@@ -6,21 +6,23 @@ import org.springframework.stereotype.Component;
 import io.micrometer.core.instrument.Counter;
 import org.springframework.beans.factory.annotation.Autowired;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
  * Audit logging service for Smart Bridge operations.
  * Provides comprehensive audit trails for compliance and debugging purposes.
  * Logs all data transformations, system interactions, and security events.
+ *
+ * Events are captured as {@link AuditRecord}s. When an {@link AsyncAuditWriter} is
+ * configured they are handed to it and formatted and written on its thread;
+ * otherwise they are written synchronously.
  */
 @Component
 public class AuditLogger {
 
     private static final Logger auditLog = LoggerFactory.getLogger("com.smartbridge.audit");
     private static final Logger securityLog = LoggerFactory.getLogger("com.smartbridge.security");
-    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
 
     @Autowired(required = false)
     private Counter auditLogCounter;
@@ -28,22 +30,16 @@ public class AuditLogger {
     @Autowired(required = false)
     private Counter securityEventCounter;
 
+    @Autowired(required = false)
+    private AsyncAuditWriter asyncAuditWriter;
+
     /**
      * Log data transformation operations.
      */
     public void logTransformation(String sourceSystem, String targetSystem, String operation, 
                                 String sourceId, String targetId, boolean success, String details) {
-        String timestamp = LocalDateTime.now().format(TIMESTAMP_FORMAT);
-        String logEntry = String.format(
-            "TRANSFORMATION | %s | %s->%s | %s | SourceId=%s | TargetId=%s | Success=%s | Details=%s",
-            timestamp, sourceSystem, targetSystem, operation, sourceId, targetId, success, details
-        );
-        
-        auditLog.info(logEntry);
-        
-        if (auditLogCounter != null) {
-            auditLogCounter.increment();
-        }
+        record(new AuditRecord(AuditRecord.Type.TRANSFORMATION,
+            sourceSystem, targetSystem, operation, sourceId, targetId, success, details));
     }
 
     /**
@@ -51,17 +47,8 @@ public class AuditLogger {
      */
     public void logMediatorOperation(String mediatorName, String operation, String requestId, 
                                    boolean success, long durationMs, String details) {
-        String timestamp = LocalDateTime.now().format(TIMESTAMP_FORMAT);
-        String logEntry = String.format(
-            "MEDIATOR | %s | %s | %s | RequestId=%s | Success=%s | Duration=%dms | Details=%s",
-            timestamp, mediatorName, operation, requestId, success, durationMs, details
-        );
-        
-        auditLog.info(logEntry);
-        
-        if (auditLogCounter != null) {
-            auditLogCounter.increment();
-        }
+        record(new AuditRecord(AuditRecord.Type.MEDIATOR,
+            mediatorName, operation, requestId, success, durationMs, details));
     }
 
     /**
@@ -69,17 +56,8 @@ public class AuditLogger {
      */
     public void logFHIROperation(String operation, String resourceType, String resourceId, 
                                String fhirServer, boolean success, String details) {
-        String timestamp = LocalDateTime.now().format(TIMESTAMP_FORMAT);
-        String logEntry = String.format(
-            "FHIR | %s | %s | %s | ResourceId=%s | Server=%s | Success=%s | Details=%s",
-            timestamp, operation, resourceType, resourceId, fhirServer, success, details
-        );
-        
-        auditLog.info(logEntry);
-        
-        if (auditLogCounter != null) {
-            auditLogCounter.increment();
-        }
+        record(new AuditRecord(AuditRecord.Type.FHIR,
+            operation, resourceType, resourceId, fhirServer, success, details));
     }
 
     /**
@@ -87,17 +65,8 @@ public class AuditLogger {
      */
     public void logSecurityEvent(String eventType, String userId, String sourceIp, 
                                 boolean success, String details) {
-        String timestamp = LocalDateTime.now().format(TIMESTAMP_FORMAT);
-        String logEntry = String.format(
-            "SECURITY | %s | %s | UserId=%s | SourceIP=%s | Success=%s | Details=%s",
-            timestamp, eventType, userId, sourceIp, success, details
-        );
-        
-        securityLog.info(logEntry);
-        
-        if (securityEventCounter != null) {
-            securityEventCounter.increment();
-        }
+        record(new AuditRecord(AuditRecord.Type.SECURITY,
+            eventType, userId, sourceIp, success, details));
     }
 
     /**
@@ -105,17 +74,8 @@ public class AuditLogger {
      */
     public void logDataAccess(String userId, String patientId, String dataType, 
                             String operation, String sourceSystem, String details) {
-        String timestamp = LocalDateTime.now().format(TIMESTAMP_FORMAT);
-        String logEntry = String.format(
-            "DATA_ACCESS | %s | UserId=%s | PatientId=%s | DataType=%s | Operation=%s | Source=%s | Details=%s",
-            timestamp, userId, patientId, dataType, operation, sourceSystem, details
-        );
-        
-        auditLog.info(logEntry);
-        
-        if (auditLogCounter != null) {
-            auditLogCounter.increment();
-        }
+        record(new AuditRecord(AuditRecord.Type.DATA_ACCESS,
+            userId, patientId, dataType, operation, sourceSystem, details));
     }
 
     /**
@@ -123,23 +83,10 @@ public class AuditLogger {
      */
     public void logError(String component, String operation, String errorCode, 
                         String errorMessage, Map<String, String> context) {
-        String timestamp = LocalDateTime.now().format(TIMESTAMP_FORMAT);
-        StringBuilder contextStr = new StringBuilder();
-        
-        if (context != null && !context.isEmpty()) {
-            context.forEach((key, value) -> contextStr.append(key).append("=").append(value).append(" "));
-        }
-        
-        String logEntry = String.format(
-            "ERROR | %s | %s | %s | ErrorCode=%s | Message=%s | Context=%s",
-            timestamp, component, operation, errorCode, errorMessage, contextStr.toString().trim()
-        );
-        
-        auditLog.error(logEntry);
-        
-        if (auditLogCounter != null) {
-            auditLogCounter.increment();
-        }
+        // Copied: the caller may reuse the map before the writer formats it
+        Map<String, String> contextCopy = context != null ? new LinkedHashMap<>(context) : Map.of();
+        record(new AuditRecord(AuditRecord.Type.ERROR,
+            component, operation, errorCode, errorMessage, contextCopy));
     }
 
     /**
@@ -147,16 +94,37 @@ public class AuditLogger {
      */
     public void logPerformanceAlert(String component, String metric, double value, 
                                   double threshold, String details) {
-        String timestamp = LocalDateTime.now().format(TIMESTAMP_FORMAT);
-        String logEntry = String.format(
-            "PERFORMANCE_ALERT | %s | %s | Metric=%s | Value=%.2f | Threshold=%.2f | Details=%s",
-            timestamp, component, metric, value, threshold, details
-        );
-        
-        auditLog.warn(logEntry);
-        
-        if (auditLogCounter != null) {
-            auditLogCounter.increment();
+        record(new AuditRecord(AuditRecord.Type.PERFORMANCE_ALERT,
+            component, metric, value, threshold, details));
+    }
+
+    private void record(AuditRecord record) {
+        if (asyncAuditWriter != null) {
+            asyncAuditWriter.append(record);
+        } else {
+            log(record);
+        }
+
+        Counter counter = record.getType().isSecurity() ? securityEventCounter : auditLogCounter;
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    /**
+     * Write a record to the security or audit log at its level.
+     */
+    static void log(AuditRecord record) {
+        Logger log = record.getType().isSecurity() ? securityLog : auditLog;
+        switch (record.getType().getLevel()) {
+            case ERROR:
+                log.error(record.getLine());
+                break;
+            case WARN:
+                log.warn(record.getLine());
+                break;
+            default:
+                log.info(record.getLine());
         }
     }
-}
\ No newline at end of file
+}
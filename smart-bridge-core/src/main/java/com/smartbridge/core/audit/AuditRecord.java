@@ -0,0 +1,105 @@
+package com.smartbridge.core.audit;
+
+import org.slf4j.event.Level;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+
+/**
+ * One structured audit event as captured by {@link AuditLogger}.
+ * Producers only store the event type and its raw values; the log line is formatted
+ * lazily, on the audit writer thread when audit logging is asynchronous.
+ */
+public final class AuditRecord {
+
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+
+    /**
+     * Event types with their log line layout, target log and level.
+     */
+    public enum Type {
+        TRANSFORMATION("TRANSFORMATION | %s | %s->%s | %s | SourceId=%s | TargetId=%s | Success=%s | Details=%s",
+            false, Level.INFO),
+        MEDIATOR("MEDIATOR | %s | %s | %s | RequestId=%s | Success=%s | Duration=%dms | Details=%s",
+            false, Level.INFO),
+        FHIR("FHIR | %s | %s | %s | ResourceId=%s | Server=%s | Success=%s | Details=%s",
+            false, Level.INFO),
+        SECURITY("SECURITY | %s | %s | UserId=%s | SourceIP=%s | Success=%s | Details=%s",
+            true, Level.INFO),
+        DATA_ACCESS("DATA_ACCESS | %s | UserId=%s | PatientId=%s | DataType=%s | Operation=%s | Source=%s | Details=%s",
+            false, Level.INFO),
+        ERROR("ERROR | %s | %s | %s | ErrorCode=%s | Message=%s | Context=%s",
+            false, Level.ERROR),
+        PERFORMANCE_ALERT("PERFORMANCE_ALERT | %s | %s | Metric=%s | Value=%.2f | Threshold=%.2f | Details=%s",
+            false, Level.WARN);
+
+        private final String pattern;
+        private final boolean security;
+        private final Level level;
+
+        Type(String pattern, boolean security, Level level) {
+            this.pattern = pattern;
+            this.security = security;
+            this.level = level;
+        }
+
+        /** @return true for events written to the security log rather than the audit log */
+        public boolean isSecurity() { return security; }
+        public Level getLevel() { return level; }
+    }
+
+    private final Type type;
+    private final long createdMillis;
+    private final long createdNanos;
+    private final Object[] values;
+    private String line;
+
+    AuditRecord(Type type, Object... values) {
+        this.type = type;
+        this.createdMillis = System.currentTimeMillis();
+        this.createdNanos = System.nanoTime();
+        this.values = values;
+    }
+
+    /**
+     * Recreate a record from a line spilled to disk, keeping its original timestamp in the text.
+     */
+    static AuditRecord spilled(Type type, String line) {
+        AuditRecord record = new AuditRecord(type);
+        record.line = line;
+        return record;
+    }
+
+    public Type getType() { return type; }
+    public long getCreatedMillis() { return createdMillis; }
+
+    /**
+     * @return Monotonic creation time, for measuring how long the event took to be written
+     */
+    public long getCreatedNanos() { return createdNanos; }
+
+    /**
+     * @return The formatted log line, timestamped with the time the event was recorded
+     */
+    public String getLine() {
+        if (line == null) {
+            Object[] args = new Object[values.length + 1];
+            args[0] = LocalDateTime.ofInstant(Instant.ofEpochMilli(createdMillis), ZoneId.systemDefault())
+                .format(TIMESTAMP_FORMAT);
+            for (int i = 0; i < values.length; i++) {
+                args[i + 1] = values[i] instanceof Map ? formatContext((Map<?, ?>) values[i]) : values[i];
+            }
+            line = String.format(type.pattern, args);
+        }
+        return line;
+    }
+
+    private static String formatContext(Map<?, ?> context) {
+        StringBuilder contextStr = new StringBuilder();
+        context.forEach((key, value) -> contextStr.append(key).append("=").append(value).append(" "));
+        return contextStr.toString().trim();
+    }
+}
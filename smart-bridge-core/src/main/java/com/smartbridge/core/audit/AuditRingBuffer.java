@@ -0,0 +1,90 @@
+package com.smartbridge.core.audit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free ring buffer of audit records: many producers, one consumer.
+ * Each slot carries a sequence number telling producers whether it is free for their lap
+ * and the consumer whether it has been filled, so producers only contend on one CAS
+ * of the tail and never wait for each other.
+ */
+class AuditRingBuffer {
+
+    private final AuditRecord[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    /**
+     * @param capacity Number of slots, rounded up to a power of two
+     */
+    AuditRingBuffer(int capacity) {
+        int size = capacity <= 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.slots = new AuditRecord[size];
+        this.sequences = new AtomicLongArray(size);
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Append a record. Safe to call from any thread.
+     *
+     * @return false if the buffer is full
+     */
+    boolean offer(AuditRecord record) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots[index] = record;
+                    // Publishes the record to the consumer
+                    sequences.lazySet(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                // The slot still holds a record from the previous lap
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Take the oldest record. Must only be called from the single consumer thread.
+     *
+     * @return The record, or null if the buffer is empty
+     */
+    AuditRecord poll() {
+        long position = head;
+        int index = (int) position & mask;
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+        AuditRecord record = slots[index];
+        slots[index] = null;
+        // Frees the slot for the producers' next lap
+        sequences.lazySet(index, position + slots.length);
+        head = position + 1;
+        return record;
+    }
+
+    int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+}
@@ -1,31 +1,96 @@
 package com.smartbridge.core.audit;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.SecureRandom;
 import java.time.Instant;
 import java.util.Base64;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Comprehensive audit service for Smart Bridge operations.
  * Provides audit logging with integrity verification and tamper detection.
+ *
+ * The hash chain is kept in an {@link AuditChainStore}: on disk when a persistent store
+ * is configured, so the chain survives restarts and does not grow the heap, otherwise in memory.
+ * Every <code>checkpoint-interval</code>th entry is signed with an HMAC checkpoint, which
+ * detects a rewritten chain and lets ranges be verified in parallel per checkpoint interval.
  * 
  * Requirements: 8.3, 8.5
  */
 @Service
 public class AuditService {
 
+    private static final Logger logger = LoggerFactory.getLogger(AuditService.class);
+    static final int DEFAULT_CHECKPOINT_INTERVAL = 1024;
+
     private final AuditLogger auditLogger;
-    private final AtomicLong sequenceNumber = new AtomicLong(0);
-    private final Map<Long, String> auditChain = new ConcurrentHashMap<>();
-    private volatile String previousHash = "GENESIS";
+    private final AuditChainStore chainStore;
+    private final Object chainLock = new Object();
+    private final AtomicLong sequenceNumber;
+    private String previousHash;
+    private volatile AuditChainVerifier verifier;
+    private volatile double lastVerificationEntriesPerSecond;
+
+    @Value("${smartbridge.audit.chain.checkpoint-interval:1024}")
+    private int checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL;
+
+    @Value("${smartbridge.audit.chain.checkpoint-key:}")
+    private String checkpointKey;
+
+    // Kept outside the data directory, so a copy or rewrite of the audit data does not carry the key
+    @Value("${smartbridge.audit.chain.checkpoint-key-file:keys/audit-checkpoint.key}")
+    private String checkpointKeyFile;
+
+    @Value("${smartbridge.audit.chain.directory:data/audit-chain}")
+    private String chainDirectory;
+
+    @Value("${smartbridge.audit.verification.parallelism:0}")
+    private int verificationParallelism;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    private Timer verificationTimer;
+    private Counter verifiedEntriesCounter;
 
     public AuditService(AuditLogger auditLogger) {
+        this(auditLogger, null);
+    }
+
+    @Autowired
+    public AuditService(AuditLogger auditLogger, @Nullable AuditChainStore chainStore) {
         this.auditLogger = auditLogger;
+        this.chainStore = chainStore != null ? chainStore : new InMemoryAuditChainStore();
+        // Continue the chain where the store left off
+        this.sequenceNumber = new AtomicLong(this.chainStore.getLastSequence());
+        this.previousHash = this.chainStore.getLastHash();
     }
 
     /**
@@ -55,10 +120,9 @@ public class AuditService {
             details
         );
         
-        long seqNum = sequenceNumber.incrementAndGet();
-        String hash = computeHash(seqNum, auditEntry, previousHash);
-        auditChain.put(seqNum, hash);
-        previousHash = hash;
+        AuditChainStore.Entry chained = appendToChain(auditEntry);
+        long seqNum = chained.getSeqNum();
+        String hash = chained.getHash();
         
         auditLogger.logDataAccess(userId, patientId, dataType, operation, sourceSystem, 
             String.format("%s | SeqNum=%d | Hash=%s", details, seqNum, hash));
@@ -82,10 +146,9 @@ public class AuditService {
             details
         );
         
-        long seqNum = sequenceNumber.incrementAndGet();
-        String hash = computeHash(seqNum, auditEntry, previousHash);
-        auditChain.put(seqNum, hash);
-        previousHash = hash;
+        AuditChainStore.Entry chained = appendToChain(auditEntry);
+        long seqNum = chained.getSeqNum();
+        String hash = chained.getHash();
         
         auditLogger.logTransformation(sourceSystem, targetSystem, operation, sourceId, targetId, 
             success, String.format("%s | UserId=%s | SeqNum=%d | Hash=%s", details, userId, seqNum, hash));
@@ -108,10 +171,9 @@ public class AuditService {
             details
         );
         
-        long seqNum = sequenceNumber.incrementAndGet();
-        String hash = computeHash(seqNum, auditEntry, previousHash);
-        auditChain.put(seqNum, hash);
-        previousHash = hash;
+        AuditChainStore.Entry chained = appendToChain(auditEntry);
+        long seqNum = chained.getSeqNum();
+        String hash = chained.getHash();
         
         auditLogger.logMediatorOperation(mediatorName, operation, requestId, success, durationMs,
             String.format("%s | UserId=%s | SeqNum=%d | Hash=%s", details, userId, seqNum, hash));
@@ -134,10 +196,9 @@ public class AuditService {
             details
         );
         
-        long seqNum = sequenceNumber.incrementAndGet();
-        String hash = computeHash(seqNum, auditEntry, previousHash);
-        auditChain.put(seqNum, hash);
-        previousHash = hash;
+        AuditChainStore.Entry chained = appendToChain(auditEntry);
+        long seqNum = chained.getSeqNum();
+        String hash = chained.getHash();
         
         auditLogger.logFHIROperation(operation, resourceType, resourceId, fhirServer, success,
             String.format("%s | UserId=%s | SeqNum=%d | Hash=%s", details, userId, seqNum, hash));
@@ -160,10 +221,9 @@ public class AuditService {
             details
         );
         
-        long seqNum = sequenceNumber.incrementAndGet();
-        String hash = computeHash(seqNum, auditEntry, previousHash);
-        auditChain.put(seqNum, hash);
-        previousHash = hash;
+        AuditChainStore.Entry chained = appendToChain(auditEntry);
+        long seqNum = chained.getSeqNum();
+        String hash = chained.getHash();
         
         auditLogger.logSecurityEvent(eventType, userId, sourceIp, success,
             String.format("%s | UserName=%s | SeqNum=%d | Hash=%s", details, userName, seqNum, hash));
@@ -188,26 +248,40 @@ public class AuditService {
     }
 
     /**
-     * Verify audit trail integrity by checking hash chain.
+     * Verify audit trail integrity by recomputing the hash chain and checking its checkpoints.
      * 
      * @param startSeqNum Starting sequence number
      * @param endSeqNum Ending sequence number
      * @return true if integrity is intact, false if tampering detected
      */
     public boolean verifyAuditIntegrity(long startSeqNum, long endSeqNum) {
-        if (startSeqNum < 1 || endSeqNum > sequenceNumber.get() || startSeqNum > endSeqNum) {
-            return false;
+        return verifyAuditTrail(startSeqNum, endSeqNum).isValid();
+    }
+
+    /**
+     * Verify a range of the audit trail, re-hashing only the checkpoint intervals it
+     * touches, in parallel, and report the verification throughput.
+     */
+    public AuditVerificationReport verifyAuditTrail(long startSeqNum, long endSeqNum) {
+        // Entries before the first sequence were deleted by retention and cannot be verified
+        if (startSeqNum < chainStore.getFirstSequence() || endSeqNum > sequenceNumber.get() || startSeqNum > endSeqNum) {
+            return AuditVerificationReport.invalidRange(startSeqNum, endSeqNum);
         }
         
-        // Verify all hashes exist in the chain
-        for (long seq = startSeqNum; seq <= endSeqNum; seq++) {
-            String currentHash = auditChain.get(seq);
-            if (currentHash == null) {
-                return false;
-            }
+        AuditVerificationReport report = verifier().verify(startSeqNum, endSeqNum);
+        lastVerificationEntriesPerSecond = report.getEntriesPerSecond();
+        if (verificationTimer != null) {
+            verificationTimer.record(report.getDurationNanos(), TimeUnit.NANOSECONDS);
+            verifiedEntriesCounter.increment(report.getEntryCount());
         }
         
-        return true;
+        if (report.isValid()) {
+            logger.info("Verified audit entries {} to {} in {} chunks at {} entries/sec",
+                startSeqNum, endSeqNum, report.getChunks(), Math.round(report.getEntriesPerSecond()));
+        } else {
+            logger.warn("Audit trail integrity check failed for entries {} to {}", startSeqNum, endSeqNum);
+        }
+        return report;
     }
 
     /**
@@ -217,11 +291,36 @@ public class AuditService {
         return sequenceNumber.get();
     }
 
+    /**
+     * Entries per second achieved by the last range verification.
+     */
+    public double getLastVerificationEntriesPerSecond() {
+        return lastVerificationEntriesPerSecond;
+    }
+
     /**
      * Get hash for a specific sequence number.
      */
     public String getHashForSequence(long seqNum) {
-        return auditChain.get(seqNum);
+        return chainStore.getHash(seqNum);
+    }
+
+    /**
+     * Assign the next sequence number to an entry and link it into the hash chain.
+     */
+    private AuditChainStore.Entry appendToChain(String auditEntry) {
+        synchronized (chainLock) {
+            long seqNum = sequenceNumber.get() + 1;
+            String hash = AuditChainVerifier.computeHash(seqNum, auditEntry, previousHash);
+            chainStore.append(seqNum, hash, auditEntry);
+            AuditChainVerifier chainVerifier = verifier();
+            if (chainVerifier.isCheckpoint(seqNum)) {
+                chainStore.putCheckpoint(seqNum, chainVerifier.sign(seqNum, hash));
+            }
+            previousHash = hash;
+            sequenceNumber.set(seqNum);
+            return new AuditChainStore.Entry(seqNum, hash, auditEntry);
+        }
     }
 
     /**
@@ -245,17 +344,116 @@ public class AuditService {
         );
     }
 
+    @PreDestroy
+    public void shutdown() {
+        AuditChainVerifier chainVerifier = verifier;
+        if (chainVerifier != null) {
+            chainVerifier.shutdown();
+        }
+    }
+
+    private AuditChainVerifier verifier() {
+        AuditChainVerifier chainVerifier = verifier;
+        if (chainVerifier == null) {
+            synchronized (chainLock) {
+                chainVerifier = verifier;
+                if (chainVerifier == null) {
+                    chainVerifier = new AuditChainVerifier(chainStore, resolveCheckpointKey(),
+                        checkpointInterval, verificationParallelism);
+                    registerVerificationMetrics();
+                    verifier = chainVerifier;
+                }
+            }
+        }
+        return chainVerifier;
+    }
+
+    /**
+     * The configured checkpoint key, else the key in the key file, created on first use.
+     * Without either, a random key is used, so checkpoints only verify within this process.
+     */
+    private byte[] resolveCheckpointKey() {
+        if (checkpointKey != null && !checkpointKey.isEmpty()) {
+            return checkpointKey.getBytes(StandardCharsets.UTF_8);
+        }
+        byte[] key = new byte[32];
+        if (checkpointKeyFile == null || checkpointKeyFile.isEmpty()) {
+            new SecureRandom().nextBytes(key);
+            return key;
+        }
+        Path keyFile = Paths.get(checkpointKeyFile);
+        if (chainDirectory != null && !chainDirectory.isEmpty()
+                && keyFile.toAbsolutePath().normalize().startsWith(Paths.get(chainDirectory).toAbsolutePath().normalize())) {
+            logger.warn("Audit checkpoint key file {} is inside the audit chain directory {}; anyone who can "
+                + "rewrite the chain can also re-sign it", keyFile, chainDirectory);
+        }
+        try {
+            if (Files.exists(keyFile)) {
+                return readCheckpointKey(keyFile);
+            }
+            new SecureRandom().nextBytes(key);
+            if (keyFile.getParent() != null) {
+                Files.createDirectories(keyFile.getParent());
+            }
+            try {
+                writeNewKeyFile(keyFile, Base64.getEncoder().encode(key));
+            } catch (FileAlreadyExistsException e) {
+                // Another instance created it first
+                return readCheckpointKey(keyFile);
+            }
+            logger.warn("Generated audit checkpoint key in {}; set smartbridge.audit.chain.checkpoint-key "
+                + "to keep the key away from the audit host", keyFile);
+            return key;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load audit checkpoint key from " + keyFile, e);
+        }
+    }
+
+    private static byte[] readCheckpointKey(Path keyFile) throws IOException {
+        byte[] key = Base64.getDecoder().decode(Files.readString(keyFile, StandardCharsets.US_ASCII).trim());
+        if (key.length == 0) {
+            throw new IllegalStateException("Audit checkpoint key file is empty: " + keyFile);
+        }
+        return key;
+    }
+
     /**
-     * Compute SHA-256 hash for audit trail integrity.
+     * Create the key file, failing if it exists. On POSIX file systems it is created
+     * readable and writable by the owner only, so the key is never exposed, not even briefly.
      */
-    private String computeHash(long seqNum, String auditEntry, String previousHash) {
+    private static void writeNewKeyFile(Path keyFile, byte[] content) throws IOException {
+        Set<StandardOpenOption> options = EnumSet.of(StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        FileChannel channel;
         try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            String dataToHash = seqNum + "|" + auditEntry + "|" + previousHash;
-            byte[] hashBytes = digest.digest(dataToHash.getBytes());
-            return Base64.getEncoder().encodeToString(hashBytes);
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("SHA-256 algorithm not available", e);
+            FileAttribute<Set<PosixFilePermission>> ownerOnly = PosixFilePermissions.asFileAttribute(
+                EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE));
+            channel = FileChannel.open(keyFile, options, ownerOnly);
+        } catch (UnsupportedOperationException e) {
+            logger.debug("Cannot restrict permissions of {} on this file system", keyFile);
+            channel = FileChannel.open(keyFile, options);
+        }
+        try (FileChannel out = channel) {
+            ByteBuffer buffer = ByteBuffer.wrap(content);
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            out.force(true);
+        }
+    }
+
+    private void registerVerificationMetrics() {
+        if (meterRegistry == null) {
+            return;
         }
+        verificationTimer = Timer.builder("smart_bridge_audit_verification_duration")
+            .description("Time to verify a range of the audit trail")
+            .register(meterRegistry);
+        verifiedEntriesCounter = Counter.builder("smart_bridge_audit_verified_entries_total")
+            .description("Audit entries verified")
+            .register(meterRegistry);
+        Gauge.builder("smart_bridge_audit_verification_entries_per_second", this,
+                AuditService::getLastVerificationEntriesPerSecond)
+            .description("Throughput of the last audit trail verification")
+            .register(meterRegistry);
     }
 }
@@ -0,0 +1,12 @@
+package com.smartbridge.core.audit;
+
+import java.util.List;
+
+/**
+ * Destination for audit records written by the {@link AsyncAuditWriter}.
+ * Called only from the single writer thread, one batch at a time, in the order records were appended.
+ */
+public interface AuditSink {
+
+    void write(List<AuditRecord> batch) throws Exception;
+}
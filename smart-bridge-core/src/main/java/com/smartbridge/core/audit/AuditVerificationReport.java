@@ -0,0 +1,51 @@
+package com.smartbridge.core.audit;
+
+/**
+ * Outcome and cost of verifying a range of the audit hash chain.
+ */
+public final class AuditVerificationReport {
+
+    private final boolean valid;
+    private final long startSeqNum;
+    private final long endSeqNum;
+    private final int chunks;
+    private final long durationNanos;
+
+    AuditVerificationReport(boolean valid, long startSeqNum, long endSeqNum, int chunks, long durationNanos) {
+        this.valid = valid;
+        this.startSeqNum = startSeqNum;
+        this.endSeqNum = endSeqNum;
+        this.chunks = chunks;
+        this.durationNanos = durationNanos;
+    }
+
+    static AuditVerificationReport invalidRange(long startSeqNum, long endSeqNum) {
+        return new AuditVerificationReport(false, startSeqNum, endSeqNum, 0, 0);
+    }
+
+    /** @return true if every entry in the range and every checkpoint in it is intact */
+    public boolean isValid() { return valid; }
+    public long getStartSeqNum() { return startSeqNum; }
+    public long getEndSeqNum() { return endSeqNum; }
+
+    /** @return Checkpoint intervals the range was split into and verified independently */
+    public int getChunks() { return chunks; }
+    public long getDurationNanos() { return durationNanos; }
+
+    public long getEntryCount() {
+        return chunks > 0 ? endSeqNum - startSeqNum + 1 : 0;
+    }
+
+    /**
+     * @return Entries in the range per second of verification time
+     */
+    public double getEntriesPerSecond() {
+        return durationNanos > 0 ? getEntryCount() * 1_000_000_000.0 / durationNanos : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("AuditVerificationReport{valid=%s, range=%d-%d, chunks=%d, durationMs=%.1f, entriesPerSecond=%.0f}",
+            valid, startSeqNum, endSeqNum, chunks, durationNanos / 1_000_000.0, getEntriesPerSecond());
+    }
+}
@@ -0,0 +1,45 @@
+package com.smartbridge.core.audit;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Heap-only audit chain, lost on restart. Used when no persistent store is configured.
+ */
+class InMemoryAuditChainStore implements AuditChainStore {
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<Long, String> checkpoints = new ConcurrentHashMap<>();
+    private volatile long lastSequence;
+
+    @Override
+    public void append(long seqNum, String hash, String entry) {
+        entries.put(seqNum, new Entry(seqNum, hash, entry));
+        lastSequence = seqNum;
+    }
+
+    @Override
+    public Entry read(long seqNum) {
+        return entries.get(seqNum);
+    }
+
+    @Override
+    public void putCheckpoint(long seqNum, String signature) {
+        checkpoints.put(seqNum, signature);
+    }
+
+    @Override
+    public String getCheckpoint(long seqNum) {
+        return checkpoints.get(seqNum);
+    }
+
+    @Override
+    public long getFirstSequence() {
+        return 1;
+    }
+
+    @Override
+    public long getLastSequence() {
+        return lastSequence;
+    }
+}
@@ -0,0 +1,501 @@
+package com.smartbridge.core.audit;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Persistent audit hash chain in append-only, fixed-size memory-mapped segment files.
+ *
+ * Each segment holds the entries from its base sequence number onwards:
+ * <pre>
+ *   header (64 bytes)  magic, version, base sequence, entry capacity, entry count, end of data, creation time
+ *   index              offset of every {@value #INDEX_INTERVAL}th entry
+ *   data               [int entry length][long sequence][32 byte hash][UTF-8 entry] ...
+ * </pre>
+ * A lookup finds the segment by its base sequence, jumps to the nearest indexed entry and
+ * skips at most {@value #INDEX_INTERVAL} - 1 records, so reads cost the same however long
+ * the chain is. Entries live in the page cache rather than on the heap. The entry count in
+ * the header is written last, so an append cut short by a crash is ignored on restart.
+ *
+ * Checkpoint signatures are few (one per checkpoint interval) and are kept in a small
+ * text file next to the segment holding the entry they sign, and in memory.
+ *
+ * A new segment is started when the current one is out of entries or space. Old segments
+ * are deleted once there are more than <code>max-segments</code>, or once they were
+ * superseded longer than <code>retention-days</code> ago. The hash of the last deleted entry
+ * and its checkpoint, if it has one, are kept in an anchor file, so the oldest retained
+ * entries can still be verified from the entry before them.
+ */
+@Component
+@ConditionalOnProperty(name = "smartbridge.audit.chain.persistent", havingValue = "true", matchIfMissing = true)
+public class SegmentedAuditChainStore implements AuditChainStore, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SegmentedAuditChainStore.class);
+
+    static final int INDEX_INTERVAL = 64;
+    private static final int MAGIC = 0x53424143;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HASH_BYTES = 32;
+    private static final int RECORD_OVERHEAD = 4 + 8 + HASH_BYTES;
+    private static final String FILE_PREFIX = "audit-chain-";
+    private static final String FILE_SUFFIX = ".seg";
+    private static final String CHECKPOINT_SUFFIX = ".chk";
+    private static final String ANCHOR_FILE = "audit-chain.anchor";
+    private static final String NO_CHECKPOINT = "-";
+
+    private static final int HEADER_BYTES = 64;
+    private static final int OFFSET_MAGIC = 0;
+    private static final int OFFSET_VERSION = 4;
+    private static final int OFFSET_BASE_SEQ = 8;
+    private static final int OFFSET_CAPACITY = 16;
+    private static final int OFFSET_COUNT = 20;
+    private static final int OFFSET_DATA_END = 24;
+    private static final int OFFSET_CREATED = 32;
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final int entriesPerSegment;
+    private final int maxSegments;
+    private final Duration retention;
+
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<Long, String> checkpoints = new ConcurrentSkipListMap<>();
+    private final Object appendLock = new Object();
+    private volatile Segment active;
+    private volatile Entry anchor;
+
+    @Autowired
+    public SegmentedAuditChainStore(
+            @Value("${smartbridge.audit.chain.directory:data/audit-chain}") String directory,
+            @Value("${smartbridge.audit.chain.segment-size-mb:64}") int segmentSizeMb,
+            @Value("${smartbridge.audit.chain.entries-per-segment:262144}") int entriesPerSegment,
+            @Value("${smartbridge.audit.chain.max-segments:0}") int maxSegments,
+            @Value("${smartbridge.audit.chain.retention-days:0}") int retentionDays) {
+        this(Paths.get(directory), segmentSizeMb * 1024 * 1024, entriesPerSegment, maxSegments,
+            retentionDays > 0 ? Duration.ofDays(retentionDays) : null);
+    }
+
+    /**
+     * @param segmentBytes      Size of each segment file
+     * @param entriesPerSegment Entries per segment before rolling, if space allows
+     * @param maxSegments       Segments to keep, 0 for no limit
+     * @param retention         How long to keep superseded segments, null for no limit
+     */
+    SegmentedAuditChainStore(Path directory, int segmentBytes, int entriesPerSegment,
+                             int maxSegments, Duration retention) {
+        this.directory = directory;
+        this.entriesPerSegment = Math.max(INDEX_INTERVAL, entriesPerSegment);
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = maxSegments;
+        this.retention = retention;
+        if (segmentBytes <= Segment.dataStart(this.entriesPerSegment) + RECORD_OVERHEAD) {
+            throw new IllegalArgumentException("Audit chain segment size " + segmentBytes
+                + " is too small for " + this.entriesPerSegment + " entries");
+        }
+        try {
+            Files.createDirectories(directory);
+            load();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open audit chain in " + directory, e);
+        }
+        applyRetention();
+    }
+
+    @Override
+    public void append(long seqNum, String hash, String entry) {
+        byte[] hashBytes = Base64.getDecoder().decode(hash);
+        if (hashBytes.length != HASH_BYTES) {
+            throw new IllegalArgumentException("Audit chain hash must be " + HASH_BYTES + " bytes");
+        }
+        byte[] entryBytes = entry.getBytes(StandardCharsets.UTF_8);
+        if ((long) RECORD_OVERHEAD + entryBytes.length > segmentBytes - Segment.dataStart(entriesPerSegment)) {
+            throw new IllegalArgumentException("Audit entry of " + entryBytes.length
+                + " bytes does not fit in a segment of " + segmentBytes + " bytes");
+        }
+
+        synchronized (appendLock) {
+            long expected = getLastSequence() + 1;
+            if (seqNum != expected) {
+                throw new IllegalArgumentException("Audit chain expected sequence " + expected + " but got " + seqNum);
+            }
+            Segment segment = active;
+            if (segment == null || !segment.tryAppend(seqNum, hashBytes, entryBytes)) {
+                roll(seqNum).tryAppend(seqNum, hashBytes, entryBytes);
+            }
+        }
+    }
+
+    @Override
+    public Entry read(long seqNum) {
+        Map.Entry<Long, Segment> floor = segments.floorEntry(seqNum);
+        return floor != null ? floor.getValue().read(seqNum) : null;
+    }
+
+    /**
+     * Also returns the hash of the last entry deleted by retention, which the oldest
+     * retained entry links to.
+     */
+    @Override
+    public String getHash(long seqNum) {
+        Entry boundary = anchor;
+        if (boundary != null && boundary.getSeqNum() == seqNum) {
+            return boundary.getHash();
+        }
+        return AuditChainStore.super.getHash(seqNum);
+    }
+
+    @Override
+    public void putCheckpoint(long seqNum, String signature) {
+        synchronized (appendLock) {
+            Map.Entry<Long, Segment> floor = segments.floorEntry(seqNum);
+            if (floor == null || seqNum > getLastSequence()) {
+                throw new IllegalArgumentException("Audit chain has no entry " + seqNum + " to checkpoint");
+            }
+            Path file = checkpointFile(floor.getValue());
+            try {
+                Files.writeString(file, seqNum + " " + signature + "\n", StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write audit chain checkpoint to " + file, e);
+            }
+            checkpoints.put(seqNum, signature);
+        }
+    }
+
+    @Override
+    public String getCheckpoint(long seqNum) {
+        return checkpoints.get(seqNum);
+    }
+
+    @Override
+    public long getFirstSequence() {
+        Map.Entry<Long, Segment> first = segments.firstEntry();
+        return first != null ? first.getKey() : 1;
+    }
+
+    @Override
+    public long getLastSequence() {
+        Segment segment = active;
+        return segment != null ? segment.lastSequence() : 0;
+    }
+
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Flush appended entries from the page cache to disk.
+     */
+    @Scheduled(fixedDelayString = "${smartbridge.audit.chain.flush-interval-ms:1000}")
+    public void flush() {
+        Segment segment = active;
+        if (segment != null) {
+            segment.force();
+        }
+    }
+
+    @Override
+    @PreDestroy
+    public void close() {
+        synchronized (appendLock) {
+            flush();
+        }
+    }
+
+    private Segment roll(long baseSeq) {
+        Segment previous = active;
+        if (previous != null) {
+            previous.force();
+        }
+        Path file = directory.resolve(String.format("%s%020d%s", FILE_PREFIX, baseSeq, FILE_SUFFIX));
+        try {
+            Segment segment = Segment.create(file, baseSeq, entriesPerSegment, segmentBytes);
+            segments.put(baseSeq, segment);
+            active = segment;
+            logger.info("Started audit chain segment {} at sequence {}", file.getFileName(), baseSeq);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create audit chain segment " + file, e);
+        }
+        applyRetention();
+        return active;
+    }
+
+    private void load() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, FILE_PREFIX + "*" + FILE_SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        for (Path file : files) {
+            Segment segment = Segment.open(file);
+            if (segment == null) {
+                logger.warn("Deleting incomplete audit chain segment {}", file.getFileName());
+                Files.delete(file);
+                continue;
+            }
+            segments.put(segment.baseSeq, segment);
+            loadCheckpoints(segment);
+        }
+        loadAnchor();
+        Map.Entry<Long, Segment> last = segments.lastEntry();
+        if (last != null) {
+            active = last.getValue();
+            logger.info("Opened audit chain in {}: {} segments, sequences {} to {}",
+                directory, segments.size(), getFirstSequence(), getLastSequence());
+        }
+    }
+
+    private void loadCheckpoints(Segment segment) throws IOException {
+        Path file = checkpointFile(segment);
+        if (!Files.exists(file)) {
+            return;
+        }
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            int separator = line.indexOf(' ');
+            // A line cut short by a crash is skipped; its checkpoint fails verification
+            if (separator > 0 && line.length() > separator + 1) {
+                try {
+                    checkpoints.put(Long.parseLong(line.substring(0, separator)), line.substring(separator + 1));
+                } catch (NumberFormatException e) {
+                    logger.warn("Skipping malformed audit chain checkpoint in {}", file.getFileName());
+                }
+            }
+        }
+    }
+
+    private void loadAnchor() throws IOException {
+        Path file = directory.resolve(ANCHOR_FILE);
+        if (!Files.exists(file) || segments.isEmpty()) {
+            return;
+        }
+        String[] fields = Files.readString(file, StandardCharsets.UTF_8).trim().split(" ");
+        try {
+            long seqNum = Long.parseLong(fields[0]);
+            // An anchor written before a deletion that did not complete no longer matches the first segment
+            if (fields.length != 3 || seqNum != getFirstSequence() - 1) {
+                return;
+            }
+            anchor = new Entry(seqNum, fields[1], null);
+            if (!NO_CHECKPOINT.equals(fields[2])) {
+                checkpoints.put(seqNum, fields[2]);
+            }
+        } catch (NumberFormatException e) {
+            logger.warn("Ignoring malformed audit chain anchor {}", file);
+        }
+    }
+
+    /**
+     * Record the hash and checkpoint of the entry before the oldest retained one.
+     * Written before the segment holding it is deleted.
+     */
+    private void saveAnchor(long seqNum, String hash, String checkpoint) throws IOException {
+        Path file = directory.resolve(ANCHOR_FILE);
+        Path tempFile = directory.resolve(ANCHOR_FILE + ".tmp");
+        Files.writeString(tempFile, seqNum + " " + hash + " " + (checkpoint != null ? checkpoint : NO_CHECKPOINT) + "\n",
+            StandardCharsets.UTF_8);
+        try {
+            Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        anchor = new Entry(seqNum, hash, null);
+    }
+
+    private static Path checkpointFile(Segment segment) {
+        String name = segment.file.getFileName().toString();
+        return segment.file.resolveSibling(name.substring(0, name.length() - FILE_SUFFIX.length()) + CHECKPOINT_SUFFIX);
+    }
+
+    private void applyRetention() {
+        while (maxSegments > 0 && segments.size() > maxSegments) {
+            if (!deleteOldest()) {
+                return;
+            }
+        }
+        if (retention != null) {
+            long cutoff = System.currentTimeMillis() - retention.toMillis();
+            // A segment is complete once its successor exists, so it ages from the successor's creation
+            while (segments.size() > 1) {
+                Map.Entry<Long, Segment> successor = segments.higherEntry(segments.firstKey());
+                if (successor.getValue().createdMillis >= cutoff || !deleteOldest()) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private boolean deleteOldest() {
+        Map.Entry<Long, Segment> oldest = segments.firstEntry();
+        if (oldest == null || oldest.getValue() == active) {
+            return false;
+        }
+        long boundary = oldest.getValue().lastSequence();
+        try {
+            saveAnchor(boundary, oldest.getValue().read(boundary).getHash(), checkpoints.get(boundary));
+        } catch (IOException e) {
+            logger.warn("Failed to save audit chain anchor, keeping segment {}", oldest.getValue().file, e);
+            return false;
+        }
+        segments.remove(oldest.getKey());
+        checkpoints.headMap(boundary).clear();
+        try {
+            Files.deleteIfExists(checkpointFile(oldest.getValue()));
+            Files.deleteIfExists(oldest.getValue().file);
+            logger.info("Deleted audit chain segment {} by retention policy", oldest.getValue().file.getFileName());
+        } catch (IOException e) {
+            logger.warn("Failed to delete audit chain segment {}", oldest.getValue().file, e);
+        }
+        return true;
+    }
+
+    /**
+     * One mapped segment file. Appends come from one thread at a time; reads only see
+     * entries published through the volatile count.
+     */
+    private static final class Segment {
+        private final Path file;
+        private final MappedByteBuffer buffer;
+        private final long baseSeq;
+        private final int capacity;
+        private final int dataStart;
+        private final long createdMillis;
+        private volatile int count;
+        private int dataEnd;
+
+        private Segment(Path file, MappedByteBuffer buffer) {
+            this.file = file;
+            this.buffer = buffer;
+            this.baseSeq = buffer.getLong(OFFSET_BASE_SEQ);
+            this.capacity = buffer.getInt(OFFSET_CAPACITY);
+            this.dataStart = dataStart(capacity);
+            this.createdMillis = buffer.getLong(OFFSET_CREATED);
+            this.dataEnd = buffer.getInt(OFFSET_DATA_END);
+            this.count = buffer.getInt(OFFSET_COUNT);
+        }
+
+        static int dataStart(int capacity) {
+            int indexSlots = (capacity + INDEX_INTERVAL - 1) / INDEX_INTERVAL;
+            return HEADER_BYTES + indexSlots * 4;
+        }
+
+        static Segment create(Path file, long baseSeq, int capacity, int size) throws IOException {
+            MappedByteBuffer buffer;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            }
+            buffer.putInt(OFFSET_VERSION, FORMAT_VERSION);
+            buffer.putLong(OFFSET_BASE_SEQ, baseSeq);
+            buffer.putInt(OFFSET_CAPACITY, capacity);
+            buffer.putInt(OFFSET_COUNT, 0);
+            buffer.putInt(OFFSET_DATA_END, dataStart(capacity));
+            buffer.putLong(OFFSET_CREATED, System.currentTimeMillis());
+            // Written last: a file without it was never fully initialised
+            buffer.putInt(OFFSET_MAGIC, MAGIC);
+            buffer.force();
+            return new Segment(file, buffer);
+        }
+
+        /**
+         * @return The segment, or null if the file was never fully initialised
+         */
+        static Segment open(Path file) throws IOException {
+            MappedByteBuffer buffer;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            }
+            if (buffer.capacity() < HEADER_BYTES || buffer.getInt(OFFSET_MAGIC) == 0) {
+                // Creation was cut short before the header was complete
+                return null;
+            }
+            if (buffer.getInt(OFFSET_MAGIC) != MAGIC) {
+                throw new IOException("Not an audit chain segment: " + file);
+            }
+            if (buffer.getInt(OFFSET_VERSION) != FORMAT_VERSION) {
+                throw new IOException("Unsupported audit chain segment version in " + file);
+            }
+            Segment segment = new Segment(file, buffer);
+            if (segment.count < 0 || segment.count > segment.capacity
+                    || segment.dataEnd < segment.dataStart || segment.dataEnd > buffer.capacity()) {
+                throw new IOException("Corrupt audit chain segment header in " + file);
+            }
+            return segment;
+        }
+
+        long lastSequence() {
+            return baseSeq + count - 1;
+        }
+
+        boolean tryAppend(long seqNum, byte[] hash, byte[] entry) {
+            int index = count;
+            int length = RECORD_OVERHEAD + entry.length;
+            if (index >= capacity || (long) dataEnd + length > buffer.capacity()) {
+                return false;
+            }
+            int offset = dataEnd;
+            buffer.putInt(offset, entry.length);
+            buffer.putLong(offset + 4, seqNum);
+            buffer.put(offset + 12, hash);
+            buffer.put(offset + RECORD_OVERHEAD, entry);
+            if (index % INDEX_INTERVAL == 0) {
+                buffer.putInt(HEADER_BYTES + (index / INDEX_INTERVAL) * 4, offset);
+            }
+            dataEnd = offset + length;
+            buffer.putInt(OFFSET_DATA_END, dataEnd);
+            buffer.putInt(OFFSET_COUNT, index + 1);
+            count = index + 1;
+            return true;
+        }
+
+        Entry read(long seqNum) {
+            long index = seqNum - baseSeq;
+            if (index < 0 || index >= count) {
+                return null;
+            }
+            int offset = buffer.getInt(HEADER_BYTES + (int) (index / INDEX_INTERVAL) * 4);
+            for (long skip = index % INDEX_INTERVAL; skip > 0; skip--) {
+                offset += RECORD_OVERHEAD + buffer.getInt(offset);
+            }
+            if (buffer.getLong(offset + 4) != seqNum) {
+                throw new IllegalStateException("Audit chain segment " + file + " is corrupt at sequence " + seqNum);
+            }
+            byte[] hash = new byte[HASH_BYTES];
+            buffer.get(offset + 12, hash);
+            byte[] entry = new byte[buffer.getInt(offset)];
+            buffer.get(offset + RECORD_OVERHEAD, entry);
+            return new Entry(seqNum, Base64.getEncoder().encodeToString(hash), new String(entry, StandardCharsets.UTF_8));
+        }
+
+        void force() {
+            buffer.force();
+        }
+    }
+}
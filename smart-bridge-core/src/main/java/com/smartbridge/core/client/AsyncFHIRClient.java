@@ -0,0 +1,290 @@
+package com.smartbridge.core.client;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.rest.api.MethodOutcome;
+import ca.uhn.fhir.rest.server.exceptions.BaseServerResponseException;
+import com.smartbridge.core.fhir.FHIRRuntime;
+import com.smartbridge.core.resilience.AsyncResilientExecutor;
+import com.smartbridge.core.resilience.CircuitBreaker;
+import com.smartbridge.core.resilience.RetryPolicy;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.IdType;
+import org.hl7.fhir.r4.model.Patient;
+import org.hl7.fhir.r4.model.Resource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.format.DateTimeFormatter;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Non-blocking FHIR client: the asynchronous counterpart of {@link FHIRClientService}
+ * wrapped in the same circuit breaker and retry policy as {@link com.smartbridge.core.resilience.ResilientFHIRClient}.
+ *
+ * Requests go over the JDK HTTP client, whose callbacks run on a small fixed pool, so
+ * thousands of requests can be in flight without a thread each. At most
+ * <code>maxInFlight</code> requests (and so connections) are open at once; further
+ * requests wait in a queue without holding a thread, and retries wait out their backoff
+ * on a timer rather than a sleeping thread.
+ *
+ * Error responses fail the future with the HAPI exception for their status code
+ * (e.g. {@link ca.uhn.fhir.rest.server.exceptions.PreconditionFailedException} for 412),
+ * matching what the blocking client throws. Only IO errors, timeouts, 408, 429 and 5xx
+ * responses are retried and count against the circuit breaker.
+ */
+public class AsyncFHIRClient implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncFHIRClient.class);
+    private static final String FHIR_JSON = "application/fhir+json";
+
+    private final String serverBaseUrl;
+    private final FHIRRuntime fhirRuntime;
+    private final String authorization;
+    private final Duration requestTimeout;
+    private final ExecutorService executor;
+    private final HttpClient httpClient;
+    private final AsyncResilientExecutor resilience;
+
+    public AsyncFHIRClient(String serverBaseUrl, FhirContext fhirContext, String authorization,
+                           Duration requestTimeout, int threads, int maxInFlight, int maxQueued,
+                           CircuitBreaker circuitBreaker, RetryPolicy retryPolicy) {
+        this(serverBaseUrl, new FHIRRuntime(fhirContext), authorization, requestTimeout, threads,
+            maxInFlight, maxQueued, circuitBreaker, retryPolicy);
+    }
+
+    /**
+     * @param serverBaseUrl  FHIR server base URL
+     * @param fhirRuntime    Runtime whose pooled parsers encode requests and parse responses
+     * @param authorization  Authorization header value, or null
+     * @param requestTimeout Timeout of a single attempt
+     * @param threads        Threads running response callbacks and retries
+     * @param maxInFlight    Requests allowed to be open at once
+     * @param maxQueued      Requests allowed to wait for a slot before new ones are rejected
+     */
+    public AsyncFHIRClient(String serverBaseUrl, FHIRRuntime fhirRuntime, String authorization,
+                           Duration requestTimeout, int threads, int maxInFlight, int maxQueued,
+                           CircuitBreaker circuitBreaker, RetryPolicy retryPolicy) {
+        this.serverBaseUrl = serverBaseUrl.endsWith("/")
+            ? serverBaseUrl.substring(0, serverBaseUrl.length() - 1) : serverBaseUrl;
+        this.fhirRuntime = fhirRuntime;
+        this.authorization = authorization;
+        this.requestTimeout = requestTimeout;
+
+        AtomicInteger counter = new AtomicInteger(1);
+        int poolSize = Math.max(1, threads);
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "async-fhir-" + counter.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+        this.httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(requestTimeout)
+            .executor(executor)
+            .build();
+        this.resilience = new AsyncResilientExecutor("FHIR", circuitBreaker, retryPolicy,
+            AsyncFHIRClient::isTransient, maxInFlight, maxQueued, executor);
+
+        logger.info("Async FHIR client configured for server: {}, threads={}, maxInFlight={}",
+            this.serverBaseUrl, poolSize, maxInFlight);
+    }
+
+    /**
+     * Basic authentication header value for the given credentials.
+     */
+    public static String basicAuthorization(String username, String password) {
+        String credentials = username + ":" + password;
+        return "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // ========== Patient Operations ==========
+
+    public CompletableFuture<MethodOutcome> createPatient(Patient patient) {
+        return create(patient);
+    }
+
+    public CompletableFuture<Patient> getPatient(String patientId) {
+        return read(Patient.class, patientId);
+    }
+
+    public CompletableFuture<MethodOutcome> updatePatient(Patient patient) {
+        return update(patient, null);
+    }
+
+    /**
+     * Update a Patient only if the server still holds the given version, as
+     * {@link FHIRClientService#updatePatient(Patient, String)} does.
+     */
+    public CompletableFuture<MethodOutcome> updatePatient(Patient patient, String expectedVersionId) {
+        return update(patient, expectedVersionId);
+    }
+
+    /**
+     * Search for Patients updated at or after a specific date (first page only, like the blocking client).
+     */
+    public CompletableFuture<List<Patient>> searchPatientsUpdatedAfter(Date lastUpdated) {
+        String since = DateTimeFormatter.ISO_INSTANT.format(lastUpdated.toInstant());
+        URI uri = URI.create(serverBaseUrl + "/Patient?_lastUpdated="
+            + URLEncoder.encode("ge" + since, StandardCharsets.UTF_8));
+        return send(() -> request(uri).GET().build(), "searchPatients")
+            .thenApply(response -> parse(Bundle.class, response.body()).getEntry().stream()
+                .map(Bundle.BundleEntryComponent::getResource)
+                .filter(Patient.class::isInstance)
+                .map(Patient.class::cast)
+                .toList());
+    }
+
+    // ========== Generic Operations ==========
+
+    /**
+     * Create a resource of any type.
+     */
+    public CompletableFuture<MethodOutcome> create(Resource resource) {
+        String type = resource.fhirType();
+        URI uri = URI.create(serverBaseUrl + "/" + type);
+        String body = encode(resource);
+        return send(() -> request(uri).POST(HttpRequest.BodyPublishers.ofString(body)).build(), "create" + type)
+            .thenApply(response -> toMethodOutcome(response, type));
+    }
+
+    /**
+     * Read a resource by type and id.
+     */
+    public <T extends Resource> CompletableFuture<T> read(Class<T> resourceClass, String id) {
+        // Accepts a bare id as well as "Type/id" or a versioned reference
+        URI uri = URI.create(serverBaseUrl + "/" + resourceClass.getSimpleName() + "/" + new IdType(id).getIdPart());
+        return send(() -> request(uri).GET().build(), "get" + resourceClass.getSimpleName())
+            .thenApply(response -> parse(resourceClass, response.body()));
+    }
+
+    /**
+     * Update a resource, conditional on its current version when one is given.
+     */
+    public CompletableFuture<MethodOutcome> update(Resource resource, String expectedVersionId) {
+        if (resource.getIdElement() == null || resource.getIdElement().getIdPart() == null) {
+            return CompletableFuture.failedFuture(
+                new IllegalArgumentException(resource.fhirType() + " must have an ID for update operation"));
+        }
+        String type = resource.fhirType();
+        URI uri = URI.create(serverBaseUrl + "/" + type + "/" + resource.getIdElement().getIdPart());
+        String body = encode(resource);
+        return send(() -> {
+            HttpRequest.Builder builder = request(uri).PUT(HttpRequest.BodyPublishers.ofString(body));
+            if (expectedVersionId != null && !expectedVersionId.isEmpty()) {
+                builder.header("If-Match", "W/\"" + expectedVersionId + "\"");
+            }
+            return builder.build();
+        }, "update" + type).thenApply(response -> toMethodOutcome(response, type));
+    }
+
+    /**
+     * Execute a batch or transaction Bundle in a single request.
+     */
+    public CompletableFuture<Bundle> executeBatch(Bundle bundle) {
+        String body = encode(bundle);
+        URI uri = URI.create(serverBaseUrl);
+        return send(() -> request(uri).POST(HttpRequest.BodyPublishers.ofString(body)).build(), "executeBatch")
+            .thenApply(response -> parse(Bundle.class, response.body()));
+    }
+
+    // ========== Monitoring ==========
+
+    public String getServerBaseUrl() { return serverBaseUrl; }
+    public int getInFlightCount() { return resilience.getInFlightCount(); }
+    public int getQueuedCount() { return resilience.getQueuedCount(); }
+    public long getRetryCount() { return resilience.getRetryCount(); }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    // ========== Utility Methods ==========
+
+    /**
+     * Send a request built fresh for each attempt, failing on any non-2xx status.
+     */
+    private CompletableFuture<HttpResponse<String>> send(Supplier<HttpRequest> requestFactory, String operationName) {
+        return resilience.execute(() -> httpClient.sendAsync(requestFactory.get(), HttpResponse.BodyHandlers.ofString())
+            .thenApply(response -> {
+                if (response.statusCode() / 100 != 2) {
+                    throw BaseServerResponseException.newInstance(response.statusCode(),
+                        operationName + " failed with HTTP " + response.statusCode() + ": " + response.body());
+                }
+                return response;
+            }), operationName);
+    }
+
+    private HttpRequest.Builder request(URI uri) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+            .timeout(requestTimeout)
+            .header("Accept", FHIR_JSON)
+            .header("Content-Type", FHIR_JSON);
+        if (authorization != null) {
+            builder.header("Authorization", authorization);
+        }
+        return builder;
+    }
+
+    private MethodOutcome toMethodOutcome(HttpResponse<String> response, String type) {
+        MethodOutcome outcome = new MethodOutcome();
+        outcome.setCreated(response.statusCode() == 201);
+        String body = response.body();
+        Resource returned = body == null || body.isBlank() ? null : parse(Resource.class, body);
+        if (returned != null && type.equals(returned.fhirType())) {
+            outcome.setResource(returned);
+        }
+        // The Location header carries the id and version even when the server returns no body
+        String location = response.headers().firstValue("Location")
+            .or(() -> response.headers().firstValue("Content-Location"))
+            .orElse(null);
+        if (location != null) {
+            outcome.setId(new IdType(location));
+        } else if (returned != null && type.equals(returned.fhirType())) {
+            outcome.setId(returned.getIdElement());
+        }
+        return outcome;
+    }
+
+    // Parsers are not thread-safe, so each call borrows one from the runtime's pool
+    private String encode(Resource resource) {
+        return fhirRuntime.encodeToJson(resource);
+    }
+
+    private <T extends Resource> T parse(Class<T> resourceClass, String body) {
+        if (resourceClass == Resource.class) {
+            return resourceClass.cast(fhirRuntime.parseJson(body));
+        }
+        return fhirRuntime.parseJson(resourceClass, body);
+    }
+
+    private static boolean isTransient(Throwable error) {
+        if (error instanceof IOException) {
+            // Includes HttpTimeoutException and refused or reset connections
+            return true;
+        }
+        if (error instanceof BaseServerResponseException) {
+            int status = ((BaseServerResponseException) error).getStatusCode();
+            return status >= 500 || status == 408 || status == 429;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,301 @@
+package com.smartbridge.core.client;
+
+import ca.uhn.fhir.rest.api.MethodOutcome;
+import com.smartbridge.core.resilience.ResilientFHIRClient;
+import com.smartbridge.core.transformation.UCSToFHIRTransformer;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.IdType;
+import org.hl7.fhir.r4.model.Identifier;
+import org.hl7.fhir.r4.model.OperationOutcome;
+import org.hl7.fhir.r4.model.Patient;
+import org.hl7.fhir.r4.model.Resource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Coalesces resource creates from concurrent callers into FHIR batch or transaction Bundles.
+ * A Bundle is sent when it reaches the configured size or when the oldest pending
+ * entry has waited for the linger time, whichever comes first. Each caller receives a
+ * future completed from its own entry in the response Bundle.
+ *
+ * With {@link Bundle.BundleType#BATCH} entries succeed or fail individually; with
+ * {@link Bundle.BundleType#TRANSACTION} one invalid entry fails every caller in the Bundle.
+ *
+ * Patient creates are conditional on the Patient's identifier (<code>ifNoneExist</code>),
+ * so when a Bundle is retried after the server already applied it, the retry finds the
+ * Patients instead of creating duplicates.
+ *
+ * Callers must not wait for their future while holding up other submits: a Bundle only
+ * fills from writes that are pending at the same time.
+ */
+public class BatchingFHIRWriter implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchingFHIRWriter.class);
+
+    private final ResilientFHIRClient resilientFHIRClient;
+    private final int maxBatchSize;
+    private final long lingerMillis;
+    private final Bundle.BundleType bundleType;
+
+    private final ScheduledExecutorService lingerScheduler;
+    private final ExecutorService flushExecutor;
+
+    private final Object lock = new Object();
+    private List<PendingWrite> pending = new ArrayList<>();
+    private ScheduledFuture<?> lingerFlush;
+    private volatile boolean closed;
+
+    public BatchingFHIRWriter(ResilientFHIRClient resilientFHIRClient, int maxBatchSize,
+                              Duration linger, Bundle.BundleType bundleType, int maxConcurrentBatches) {
+        if (maxBatchSize < 1 || maxConcurrentBatches < 1) {
+            throw new IllegalArgumentException("Batch size and concurrency must be at least 1");
+        }
+        if (bundleType != Bundle.BundleType.BATCH && bundleType != Bundle.BundleType.TRANSACTION) {
+            throw new IllegalArgumentException("Bundle type must be batch or transaction: " + bundleType);
+        }
+        this.resilientFHIRClient = resilientFHIRClient;
+        this.maxBatchSize = maxBatchSize;
+        this.lingerMillis = Math.max(0L, linger.toMillis());
+        this.bundleType = bundleType;
+        this.lingerScheduler = Executors.newSingleThreadScheduledExecutor(namedThreadFactory("fhir-batch-linger-"));
+        this.flushExecutor = Executors.newFixedThreadPool(maxConcurrentBatches, namedThreadFactory("fhir-batch-"));
+    }
+
+    /**
+     * Queue a Patient create for the next Bundle.
+     *
+     * @param patient The Patient to create
+     * @return Future completed with the outcome of this Patient's entry
+     */
+    public CompletableFuture<MethodOutcome> createPatient(Patient patient) {
+        return submit(patient);
+    }
+
+    /**
+     * Queue a create of any resource type for the next Bundle.
+     */
+    public CompletableFuture<MethodOutcome> submit(Resource resource) {
+        PendingWrite write = new PendingWrite(resource);
+        if (closed) {
+            write.future.completeExceptionally(new IllegalStateException("BatchingFHIRWriter is closed"));
+            return write.future;
+        }
+
+        List<PendingWrite> batch = null;
+        synchronized (lock) {
+            pending.add(write);
+            if (pending.size() >= maxBatchSize) {
+                batch = drainPending();
+            } else if (pending.size() == 1) {
+                lingerFlush = lingerScheduler.schedule(this::flush, lingerMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        if (batch != null) {
+            dispatch(batch);
+        }
+        return write.future;
+    }
+
+    /**
+     * Send whatever is pending without waiting for the batch to fill.
+     */
+    public void flush() {
+        List<PendingWrite> batch;
+        synchronized (lock) {
+            batch = drainPending();
+        }
+        dispatch(batch);
+    }
+
+    /**
+     * @return Number of writes waiting for the next Bundle
+     */
+    public int getPendingCount() {
+        synchronized (lock) {
+            return pending.size();
+        }
+    }
+
+    /**
+     * Flush pending writes and stop accepting new ones.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        flush();
+        lingerScheduler.shutdownNow();
+        flushExecutor.shutdown();
+        try {
+            if (!flushExecutor.awaitTermination(30, TimeUnit.SECONDS)) {
+                flushExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            flushExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Must be called while holding the lock.
+     */
+    private List<PendingWrite> drainPending() {
+        if (lingerFlush != null) {
+            lingerFlush.cancel(false);
+            lingerFlush = null;
+        }
+        List<PendingWrite> batch = pending;
+        pending = new ArrayList<>();
+        return batch;
+    }
+
+    private void dispatch(List<PendingWrite> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            flushExecutor.execute(() -> send(batch));
+        } catch (RuntimeException e) {
+            // Executor already shut down; send on the caller's thread so no future is left hanging
+            send(batch);
+        }
+    }
+
+    private void send(List<PendingWrite> batch) {
+        Bundle request = new Bundle();
+        request.setType(bundleType);
+        for (PendingWrite write : batch) {
+            Bundle.BundleEntryRequestComponent entryRequest = request.addEntry()
+                .setFullUrl(write.fullUrl)
+                .setResource(write.resource)
+                .getRequest()
+                    .setMethod(Bundle.HTTPVerb.POST)
+                    .setUrl(write.resource.fhirType());
+            String condition = ifNoneExist(write.resource);
+            if (condition != null) {
+                entryRequest.setIfNoneExist(condition);
+            }
+        }
+
+        Bundle response;
+        try {
+            response = resilientFHIRClient.executeBatch(request);
+        } catch (Exception e) {
+            logger.error("FHIR {} Bundle with {} entries failed", bundleType.toCode(), batch.size(), e);
+            batch.forEach(write -> write.future.completeExceptionally(e));
+            return;
+        }
+
+        List<Bundle.BundleEntryComponent> entries = response != null ? response.getEntry() : List.of();
+        if (entries.size() != batch.size()) {
+            FHIRClientException mismatch = new FHIRClientException(
+                "Bundle response has " + entries.size() + " entries for " + batch.size() + " requests");
+            batch.forEach(write -> write.future.completeExceptionally(mismatch));
+            return;
+        }
+
+        int failures = 0;
+        // Batch and transaction responses list entries in request order
+        for (int i = 0; i < batch.size(); i++) {
+            if (!completeEntry(batch.get(i), entries.get(i))) {
+                failures++;
+            }
+        }
+        logger.debug("FHIR {} Bundle completed: entries={}, failures={}", bundleType.toCode(), batch.size(), failures);
+    }
+
+    private boolean completeEntry(PendingWrite write, Bundle.BundleEntryComponent entry) {
+        Bundle.BundleEntryResponseComponent response = entry.getResponse();
+        String status = response != null ? response.getStatus() : null;
+
+        if (status == null || !status.startsWith("2")) {
+            write.future.completeExceptionally(new FHIRClientException(
+                "Failed to create " + write.resource.fhirType() + ": " + status + describeOutcome(response)));
+            return false;
+        }
+
+        MethodOutcome outcome = new MethodOutcome();
+        outcome.setCreated(status.startsWith("201"));
+        if (response.hasLocation()) {
+            outcome.setId(new IdType(response.getLocation()));
+        } else if (entry.hasResource() && entry.getResource().hasIdElement()) {
+            outcome.setId(entry.getResource().getIdElement());
+        }
+        if (entry.hasResource()) {
+            outcome.setResource(entry.getResource());
+        }
+        write.future.complete(outcome);
+        return true;
+    }
+
+    /**
+     * Search that finds an already created copy of the resource, preferring the OpenSRP id.
+     *
+     * @return The conditional create query, or null if the resource has no usable identifier
+     */
+    static String ifNoneExist(Resource resource) {
+        if (!(resource instanceof Patient)) {
+            return null;
+        }
+        Identifier match = null;
+        for (Identifier identifier : ((Patient) resource).getIdentifier()) {
+            if (!identifier.hasSystem() || !identifier.hasValue()) {
+                continue;
+            }
+            if (UCSToFHIRTransformer.OPENSRP_ID_SYSTEM.equals(identifier.getSystem())) {
+                match = identifier;
+                break;
+            }
+            if (match == null) {
+                match = identifier;
+            }
+        }
+        if (match == null) {
+            return null;
+        }
+        return "identifier=" + URLEncoder.encode(match.getSystem(), StandardCharsets.UTF_8)
+            + "|" + URLEncoder.encode(match.getValue(), StandardCharsets.UTF_8);
+    }
+
+    private String describeOutcome(Bundle.BundleEntryResponseComponent response) {
+        if (response == null || !(response.getOutcome() instanceof OperationOutcome)) {
+            return "";
+        }
+        OperationOutcome outcome = (OperationOutcome) response.getOutcome();
+        return outcome.getIssue().isEmpty() ? "" : " - " + outcome.getIssueFirstRep().getDiagnostics();
+    }
+
+    private static ThreadFactory namedThreadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger(1);
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static class PendingWrite {
+        final Resource resource;
+        final String fullUrl = "urn:uuid:" + UUID.randomUUID();
+        final CompletableFuture<MethodOutcome> future = new CompletableFuture<>();
+
+        PendingWrite(Resource resource) {
+            this.resource = resource;
+        }
+    }
+}
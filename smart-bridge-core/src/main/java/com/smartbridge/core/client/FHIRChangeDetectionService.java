@@ -1,11 +1,14 @@
 package com.smartbridge.core.client;
 
 import ca.uhn.fhir.rest.api.MethodOutcome;
+import com.smartbridge.core.scheduling.AdaptivePollingScheduler;
+import com.smartbridge.core.scheduling.PollOutcome;
+import jakarta.annotation.PostConstruct;
 import org.hl7.fhir.r4.model.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
@@ -27,6 +30,11 @@ public class FHIRChangeDetectionService {
     @Autowired
     private FHIRClientService fhirClientService;
     
+    @Autowired(required = false)
+    private AdaptivePollingScheduler pollingScheduler;
+    
+    private AdaptivePollingScheduler.PollingTask patientPollingTask;
+    
     // Track last update timestamps for polling
     private final Map<String, Date> lastUpdateTimestamps = new ConcurrentHashMap<>();
     
@@ -38,14 +46,37 @@ public class FHIRChangeDetectionService {
     
     // Polling configuration
     private boolean pollingEnabled = false;
+    @Value("${fhir.polling.interval:30000}")
     private long pollingIntervalMs = 30000; // 30 seconds default
     
+    @Value("${fhir.polling.min-interval:5000}")
+    private long minPollingIntervalMs = 5000;
+    
+    @Value("${fhir.polling.max-interval:300000}")
+    private long maxPollingIntervalMs = 300000;
+    
+    /**
+     * Register Patient polling with the adaptive scheduler. The polling interval is the
+     * starting point; it shortens during bursts of changes and lengthens while idle.
+     */
+    @PostConstruct
+    public void registerPolling() {
+        if (pollingScheduler != null) {
+            patientPollingTask = pollingScheduler.register("fhir-patient-polling",
+                pollingIntervalMs, Math.min(minPollingIntervalMs, pollingIntervalMs),
+                Math.max(maxPollingIntervalMs, pollingIntervalMs), this::pollPatientChanges);
+        }
+    }
+    
     /**
      * Enable polling-based change detection
      */
     public void enablePolling(long intervalMs) {
         this.pollingEnabled = true;
         this.pollingIntervalMs = intervalMs;
+        if (patientPollingTask != null) {
+            patientPollingTask.resetInterval(intervalMs);
+        }
         logger.info("Polling enabled with interval: {} ms", intervalMs);
     }
     
@@ -78,10 +109,16 @@ public class FHIRChangeDetectionService {
     /**
      * Poll for Patient changes using _lastUpdated parameter
      */
-    @Scheduled(fixedDelayString = "${fhir.polling.interval:30000}")
     public void pollForPatientChanges() {
+        pollPatientChanges();
+    }
+    
+    /**
+     * Poll for Patient changes and report how many were found, for the adaptive scheduler
+     */
+    PollOutcome pollPatientChanges() {
         if (!pollingEnabled || !fhirClientService.isConfigured()) {
-            return;
+            return PollOutcome.skipped();
         }
         
         try {
@@ -103,8 +140,10 @@ public class FHIRChangeDetectionService {
                 
                 lastUpdateTimestamps.put("Patient", latestUpdate);
             }
+            return PollOutcome.of(updatedPatients.size(), 0);
         } catch (Exception e) {
             logger.error("Error polling for Patient changes", e);
+            return PollOutcome.failed();
         }
     }
     
@@ -295,12 +334,7 @@ public class FHIRChangeDetectionService {
                 Resource resource = entry.getResource();
                 
                 if (resource != null) {
-                    String resourceType = resource.getResourceType().name();
-                    logger.debug("Webhook notification for {} resource: {}", 
-                        resourceType, resource.getIdElement().getIdPart());
-                    
-                    // Notify listeners
-                    notifyListeners(resourceType, Collections.singletonList(resource));
+                    handleWebhookEntry(resource);
                 }
             }
         } catch (Exception e) {
@@ -308,6 +342,23 @@ public class FHIRChangeDetectionService {
         }
     }
     
+    /**
+     * Handle one entry resource of a webhook notification Bundle.
+     * Used by the webhook endpoint, which streams the entries instead of parsing the whole Bundle.
+     */
+    public void handleWebhookEntry(Resource resource) {
+        if (resource == null) {
+            return;
+        }
+        
+        String resourceType = resource.getResourceType().name();
+        logger.debug("Webhook notification for {} resource: {}", 
+            resourceType, resource.getIdElement().getIdPart());
+        
+        // Notify listeners
+        notifyListeners(resourceType, Collections.singletonList(resource));
+    }
+    
     /**
      * Handle single resource webhook notification
      */
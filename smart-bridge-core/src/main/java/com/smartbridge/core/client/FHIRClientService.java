@@ -3,10 +3,14 @@ package com.smartbridge.core.client;
 import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.rest.api.MethodOutcome;
 import ca.uhn.fhir.rest.client.api.IGenericClient;
-import ca.uhn.fhir.rest.client.api.ServerValidationModeEnum;
 import ca.uhn.fhir.rest.client.interceptor.BearerTokenAuthInterceptor;
 import ca.uhn.fhir.rest.client.interceptor.BasicAuthInterceptor;
+import ca.uhn.fhir.rest.gclient.IQuery;
+import ca.uhn.fhir.rest.gclient.TokenClientParam;
+import ca.uhn.fhir.rest.param.DateParam;
 import ca.uhn.fhir.rest.param.DateRangeParam;
+import ca.uhn.fhir.rest.param.ParamPrefixEnum;
+import com.smartbridge.core.fhir.FHIRRuntime;
 import org.hl7.fhir.r4.model.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,6 +18,8 @@ import org.springframework.stereotype.Service;
 
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
 
 /**
  * FHIR client service for interacting with HAPI FHIR server.
@@ -36,9 +42,15 @@ public class FHIRClientService {
     }
 
     public FHIRClientService() {
-        this.fhirContext = FhirContext.forR4();
-        // Disable server validation for faster startup
-        this.fhirContext.getRestfulClientFactory().setServerValidationMode(ServerValidationModeEnum.NEVER);
+        this(FHIRRuntime.getDefault());
+    }
+
+    /**
+     * Create a client service on the shared FHIR runtime, whose context has server
+     * validation disabled for faster startup.
+     */
+    public FHIRClientService(FHIRRuntime fhirRuntime) {
+        this.fhirContext = fhirRuntime.getContext();
         this.authenticationType = AuthenticationType.NONE;
     }
 
@@ -147,6 +159,126 @@ public class FHIRClientService {
         }
     }
 
+    /**
+     * Update an existing Patient resource only if the server still holds the given version.
+     * Sends <code>If-Match: W/"version"</code>; the server answers 412 if the Patient changed since.
+     * A null version performs an unconditional update.
+     */
+    public MethodOutcome updatePatient(Patient patient, String expectedVersionId) {
+        if (expectedVersionId == null || expectedVersionId.isEmpty()) {
+            return updatePatient(patient);
+        }
+        validateClient();
+        
+        if (patient.getId() == null || patient.getId().isEmpty()) {
+            throw new IllegalArgumentException("Patient must have an ID for update operation");
+        }
+        
+        logger.debug("Updating Patient with ID: {} at version {}", patient.getId(), expectedVersionId);
+        
+        try {
+            MethodOutcome outcome = client.update()
+                .resource(patient)
+                .withAdditionalHeader("If-Match", "W/\"" + expectedVersionId + "\"")
+                .execute();
+            
+            logger.info("Patient updated: {}", patient.getId());
+            return outcome;
+        } catch (Exception e) {
+            logger.error("Error updating Patient with ID: {}", patient.getId(), e);
+            throw new FHIRClientException("Failed to update Patient: " + patient.getId(), e);
+        }
+    }
+
+    /**
+     * Page through all Patients carrying an identifier in the given system.
+     * Only identifiers and meta are requested, so each page stays small.
+     *
+     * @return Number of Patients passed to the consumer
+     */
+    public int scanPatientsByIdentifierSystem(String system, int pageSize, Consumer<Patient> consumer) {
+        validateClient();
+        logger.debug("Scanning Patients with identifier system: {}", system);
+        
+        try {
+            Bundle bundle = client.search()
+                .forResource(Patient.class)
+                .where(Patient.IDENTIFIER.hasSystemWithAnyCode(system))
+                .elementsSubset("identifier")
+                .count(pageSize)
+                .returnBundle(Bundle.class)
+                .execute();
+            
+            int count = 0;
+            while (bundle != null) {
+                for (Patient patient : extractResources(bundle, Patient.class)) {
+                    consumer.accept(patient);
+                    count++;
+                }
+                bundle = bundle.getLink(Bundle.LINK_NEXT) != null
+                    ? client.loadPage().next(bundle).execute()
+                    : null;
+            }
+            
+            logger.info("Scanned {} Patients with identifier system {}", count, system);
+            return count;
+        } catch (Exception e) {
+            logger.error("Error scanning Patients by identifier system: {}", system, e);
+            throw new FHIRClientException("Failed to scan Patients by identifier system: " + system, e);
+        }
+    }
+
+    /**
+     * Page through all resources of a type updated after the given instant.
+     * Used by the bulk export; pages are handed to the consumer as they arrive.
+     *
+     * @param resourceClass Resource type to scan
+     * @param identifierSystem If not null, only resources with an identifier in this system
+     * @param since If not null, only resources with <code>_lastUpdated</code> after this instant
+     * @param pageSize Resources per search page
+     * @return Number of resources passed to the consumer
+     */
+    public <T extends Resource> int scanResourcesUpdatedSince(Class<T> resourceClass, String identifierSystem,
+                                                              Date since, int pageSize, Consumer<T> consumer) {
+        validateClient();
+        String resourceType = resourceClass.getSimpleName();
+        logger.debug("Scanning {} resources updated since {}", resourceType, since);
+        
+        try {
+            IQuery<Bundle> query = client.search()
+                .forResource(resourceClass)
+                .count(pageSize)
+                .returnBundle(Bundle.class);
+            if (identifierSystem != null) {
+                query = query.where(new TokenClientParam("identifier").hasSystemWithAnyCode(identifierSystem));
+            }
+            if (since != null) {
+                query = query.lastUpdated(new DateRangeParam(new DateParam(ParamPrefixEnum.GREATERTHAN, since), null));
+            }
+            
+            Bundle bundle = query.execute();
+            int count = 0;
+            while (bundle != null) {
+                for (T resource : extractResources(bundle, resourceClass)) {
+                    consumer.accept(resource);
+                    count++;
+                }
+                bundle = bundle.getLink(Bundle.LINK_NEXT) != null
+                    ? client.loadPage().next(bundle).execute()
+                    : null;
+            }
+            
+            logger.info("Scanned {} {} resources updated since {}", count, resourceType, since);
+            return count;
+        } catch (CancellationException e) {
+            // The consumer aborted the scan, e.g. because the export was cancelled
+            throw e;
+        } catch (Exception e) {
+            logger.error("Error scanning {} resources", resourceType, e);
+            throw new FHIRClientException("Failed to scan " + resourceType + " resources", e);
+        }
+    }
+
     /**
      * Search for Patients updated after a specific date
      */
@@ -485,6 +617,30 @@ public class FHIRClientService {
         }
     }
 
+    // ========== Bundle Operations ==========
+
+    /**
+     * Execute a batch or transaction Bundle in a single request.
+     * The Bundle type decides the server semantics: entries of a batch succeed or fail
+     * individually, a transaction is applied atomically.
+     */
+    public Bundle executeBatch(Bundle bundle) {
+        validateClient();
+        logger.debug("Executing {} Bundle with {} entries", bundle.getType(), bundle.getEntry().size());
+        
+        try {
+            Bundle response = client.transaction()
+                .withBundle(bundle)
+                .execute();
+            
+            logger.info("{} Bundle executed with {} entries", bundle.getType(), bundle.getEntry().size());
+            return response;
+        } catch (Exception e) {
+            logger.error("Error executing {} Bundle", bundle.getType(), e);
+            throw new FHIRClientException("Failed to execute " + bundle.getType() + " Bundle", e);
+        }
+    }
+
     // ========== Utility Methods ==========
 
     /**
@@ -517,6 +673,10 @@ public class FHIRClientService {
         return authenticationType;
     }
 
+    public FhirContext getFhirContext() {
+        return fhirContext;
+    }
+
     public boolean isConfigured() {
         return client != null;
     }
@@ -1,17 +1,19 @@
 package com.smartbridge.core.client;
 
-import ca.uhn.fhir.context.FhirContext;
-import ca.uhn.fhir.parser.IParser;
-import org.hl7.fhir.r4.model.Bundle;
+import com.smartbridge.core.fhir.FHIRRuntime;
+import com.smartbridge.core.fhir.StreamingBundleReader;
 import org.hl7.fhir.r4.model.Resource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.InputStream;
+
 /**
  * REST controller for handling FHIR webhook notifications.
  * Receives notifications from FHIR server subscriptions and forwards them
@@ -22,35 +24,41 @@ import org.springframework.web.bind.annotation.*;
 public class FHIRWebhookController {
 
     private static final Logger logger = LoggerFactory.getLogger(FHIRWebhookController.class);
+    private static final int DEFAULT_MAX_ENTRY_BYTES = 1024 * 1024;
     
     @Autowired
     private FHIRChangeDetectionService changeDetectionService;
     
-    private final FhirContext fhirContext;
-    private final IParser jsonParser;
+    // Parsers are not thread-safe; each request borrows one from the runtime's pool
+    private final FHIRRuntime fhirRuntime;
+    private final StreamingBundleReader bundleReader;
     
     public FHIRWebhookController() {
-        this.fhirContext = FhirContext.forR4();
-        this.jsonParser = fhirContext.newJsonParser();
+        this(FHIRRuntime.getDefault(), DEFAULT_MAX_ENTRY_BYTES);
+    }
+
+    @Autowired
+    public FHIRWebhookController(
+            FHIRRuntime fhirRuntime,
+            @Value("${smartbridge.fhir.webhook.max-entry-bytes:1048576}") int maxEntryBytes) {
+        this.fhirRuntime = fhirRuntime;
+        this.bundleReader = new StreamingBundleReader(fhirRuntime, maxEntryBytes);
     }
     
     /**
-     * Handle webhook notification with Bundle payload
+     * Handle webhook notification with Bundle payload.
+     * The body is read entry by entry and each entry is processed as soon as it is parsed,
+     * so large notifications are never held in memory as a whole.
      */
     @PostMapping(value = "/notification", 
                  consumes = {MediaType.APPLICATION_JSON_VALUE, "application/fhir+json"})
-    public ResponseEntity<String> handleBundleNotification(@RequestBody String bundleJson) {
+    public ResponseEntity<String> handleBundleNotification(InputStream bundleJson) {
         logger.info("Received webhook notification");
         
         try {
-            // Parse the incoming bundle
-            Bundle bundle = jsonParser.parseResource(Bundle.class, bundleJson);
-            
-            // Process the notification
-            changeDetectionService.handleWebhookNotification(bundle);
+            int entries = bundleReader.read(bundleJson, changeDetectionService::handleWebhookEntry);
             
-            logger.info("Successfully processed webhook notification with {} entries", 
-                bundle.getEntry().size());
+            logger.info("Successfully processed webhook notification with {} entries", entries);
             
             return ResponseEntity.ok("Notification processed successfully");
             
@@ -74,7 +82,7 @@ public class FHIRWebhookController {
         
         try {
             // Parse the incoming resource
-            Resource resource = (Resource) jsonParser.parseResource(resourceJson);
+            Resource resource = (Resource) fhirRuntime.parseJson(resourceJson);
             
             // Verify resource type matches
             if (!resource.getResourceType().name().equals(resourceType)) {
@@ -0,0 +1,488 @@
+package com.smartbridge.core.client;
+
+import com.smartbridge.core.transformation.UCSToFHIRTransformer;
+import jakarta.annotation.PreDestroy;
+import org.hl7.fhir.r4.model.IdType;
+import org.hl7.fhir.r4.model.Identifier;
+import org.hl7.fhir.r4.model.Patient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persistent index from Patient business identifiers (opensrp-id, national-id) to FHIR
+ * logical id and version. Lets ingestion send a direct versioned update for clients that
+ * already exist on the FHIR server instead of creating a duplicate or searching first.
+ *
+ * The index is an in-memory map backed by an append-only log. On startup the log is
+ * replayed and compacted; if there is no log the index is rebuilt from a paged FHIR
+ * identifier scan in the background. Ingestion refuses to write until the index is ready.
+ * A failed scan leaves the index not ready and is retried with backoff; a marker file next
+ * to the log records that the log is incomplete, so a restart mid-rebuild scans again.
+ *
+ * Appends reach the OS on every write but are only fsynced by {@link #checkpoint()}, which
+ * sync and import call before persisting their own progress, so a crash never leaves a
+ * saved cursor ahead of the index entries of the Patients it covers.
+ */
+@Component
+public class PatientIdentifierIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(PatientIdentifierIndex.class);
+    private static final String FIELD_SEPARATOR = "\t";
+    private static final String TOMBSTONE = "-";
+    private static final String REBUILDING_SUFFIX = ".rebuilding";
+    private static final long INITIAL_REBUILD_RETRY_MS = 5_000;
+    private static final long MAX_REBUILD_RETRY_MS = 300_000;
+
+    static final List<String> INDEXED_SYSTEMS = List.of(
+        UCSToFHIRTransformer.OPENSRP_ID_SYSTEM,
+        UCSToFHIRTransformer.NATIONAL_ID_SYSTEM
+    );
+
+    private final FHIRClientService fhirClient;
+    private final Path logFile;
+    private final Path rebuildMarker;
+    private final int scanPageSize;
+
+    private final Map<String, IndexEntry> entries = new ConcurrentHashMap<>();
+    private final Object logLock = new Object();
+    private final CountDownLatch ready = new CountDownLatch(1);
+    private FileChannel logChannel;
+    private BufferedWriter logWriter;
+    private volatile boolean closed;
+
+    public PatientIdentifierIndex(
+            FHIRClientService fhirClient,
+            @Value("${smartbridge.fhir.identifier-index.file:data/patient-identifier-index.log}") String logFile,
+            @Value("${smartbridge.fhir.identifier-index.scan-page-size:500}") int scanPageSize) {
+        this.fhirClient = fhirClient;
+        this.logFile = Paths.get(logFile);
+        this.rebuildMarker = this.logFile.resolveSibling(this.logFile.getFileName() + REBUILDING_SUFFIX);
+        this.scanPageSize = scanPageSize;
+    }
+
+    /**
+     * Load the index once the application is up. Replays a complete log synchronously;
+     * otherwise starts a background rebuild from the FHIR server, retried until it succeeds.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        boolean logComplete = Files.exists(logFile) && !Files.exists(rebuildMarker);
+        if (Files.exists(logFile)) {
+            replayLog();
+        }
+
+        if (logComplete) {
+            compact();
+            ready.countDown();
+            logger.info("Patient identifier index loaded: {} identifiers", entries.size());
+            return;
+        }
+
+        if (!fhirClient.isConfigured()) {
+            logger.warn("FHIR client not configured, patient identifier index starts with {} identifiers",
+                entries.size());
+            if (compact()) {
+                clearRebuildMarker();
+            }
+            ready.countDown();
+            return;
+        }
+
+        Thread rebuild = new Thread(this::rebuildUntilReady, "patient-identifier-index-rebuild");
+        rebuild.setDaemon(true);
+        rebuild.start();
+    }
+
+    /**
+     * Rebuild the index from a full identifier scan of the FHIR server.
+     * Entries recorded concurrently by ingestion are kept if they are newer, and are
+     * appended to the log whatever the outcome of the scan.
+     *
+     * @return true if the scan completed and the index is ready, false if it failed and
+     *         the index stays not ready
+     */
+    public boolean rebuildFromServer() {
+        long startTime = System.currentTimeMillis();
+        logger.info("Rebuilding patient identifier index from FHIR server");
+        markRebuilding();
+        synchronized (logLock) {
+            if (logWriter == null) {
+                compact();
+            }
+        }
+        try {
+            for (String system : INDEXED_SYSTEMS) {
+                fhirClient.scanPatientsByIdentifierSystem(system, scanPageSize, this::indexScannedPatient);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to rebuild patient identifier index after {} identifiers, ingestion stays blocked",
+                entries.size(), e);
+            return false;
+        }
+        if (compact()) {
+            clearRebuildMarker();
+        }
+        ready.countDown();
+        logger.info("Patient identifier index rebuilt: {} identifiers in {}ms",
+            entries.size(), System.currentTimeMillis() - startTime);
+        return true;
+    }
+
+    private void rebuildUntilReady() {
+        long delay = INITIAL_REBUILD_RETRY_MS;
+        while (!closed && !rebuildFromServer()) {
+            logger.warn("Retrying patient identifier index rebuild in {}ms", delay);
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            delay = Math.min(delay * 2, MAX_REBUILD_RETRY_MS);
+        }
+    }
+
+    /**
+     * Wait until the index has been loaded or rebuilt.
+     *
+     * @return true if the index is ready, false if the timeout elapsed first
+     */
+    public boolean awaitReady(long timeoutMillis) {
+        try {
+            return ready.await(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public boolean isReady() {
+        return ready.getCount() == 0;
+    }
+
+    /**
+     * Find the FHIR Patient for any of the indexed identifiers of the given Patient.
+     *
+     * @return The indexed entry, or null if none of its identifiers is known
+     */
+    public IndexEntry lookup(Patient patient) {
+        for (Identifier identifier : patient.getIdentifier()) {
+            if (isIndexed(identifier)) {
+                IndexEntry entry = entries.get(key(identifier.getSystem(), identifier.getValue()));
+                if (entry != null) {
+                    return entry;
+                }
+            }
+        }
+        return null;
+    }
+
+    public IndexEntry lookup(String system, String value) {
+        return entries.get(key(system, value));
+    }
+
+    /**
+     * Record the FHIR id and version of a Patient under all of its indexed identifiers.
+     */
+    public void record(Patient patient, IdType fhirId) {
+        if (fhirId == null || fhirId.getIdPart() == null) {
+            return;
+        }
+        IndexEntry entry = new IndexEntry(fhirId.getIdPart(), fhirId.getVersionIdPart());
+        for (Identifier identifier : patient.getIdentifier()) {
+            if (isIndexed(identifier)) {
+                put(key(identifier.getSystem(), identifier.getValue()), entry);
+            }
+        }
+    }
+
+    /**
+     * Drop all identifiers of a Patient, e.g. after the server reported it as deleted.
+     */
+    public void remove(Patient patient) {
+        for (Identifier identifier : patient.getIdentifier()) {
+            if (isIndexed(identifier)) {
+                String key = key(identifier.getSystem(), identifier.getValue());
+                synchronized (logLock) {
+                    if (entries.remove(key) != null) {
+                        append(key, null);
+                    }
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Force every appended entry to disk.
+     */
+    public void checkpoint() {
+        synchronized (logLock) {
+            if (logChannel == null) {
+                return;
+            }
+            try {
+                logWriter.flush();
+                logChannel.force(false);
+            } catch (IOException e) {
+                logger.error("Failed to sync patient identifier index log", e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        closed = true;
+        synchronized (logLock) {
+            checkpoint();
+            try {
+                closeLogWriter();
+            } catch (IOException e) {
+                logger.error("Failed to close patient identifier index log", e);
+            }
+        }
+    }
+
+    private void indexScannedPatient(Patient patient) {
+        IdType id = patient.getIdElement();
+        if (id == null || id.getIdPart() == null) {
+            return;
+        }
+        String version = id.hasVersionIdPart() ? id.getVersionIdPart() : patient.getMeta().getVersionId();
+        IndexEntry scanned = new IndexEntry(id.getIdPart(), version);
+        for (Identifier identifier : patient.getIdentifier()) {
+            if (isIndexed(identifier)) {
+                // Ingestion may have recorded a newer version while the scan was running
+                entries.merge(key(identifier.getSystem(), identifier.getValue()), scanned,
+                    (current, incoming) -> incoming.isNewerThan(current) ? incoming : current);
+            }
+        }
+    }
+
+    private void put(String key, IndexEntry entry) {
+        // Keep map and log order consistent when two ingestions touch the same identifier
+        synchronized (logLock) {
+            IndexEntry previous = entries.put(key, entry);
+            if (!entry.equals(previous)) {
+                append(key, entry);
+            }
+        }
+    }
+
+    private boolean isIndexed(Identifier identifier) {
+        return identifier.hasValue() && INDEXED_SYSTEMS.contains(identifier.getSystem());
+    }
+
+    private static String key(String system, String value) {
+        return system + "|" + value;
+    }
+
+    private void append(String key, IndexEntry entry) {
+        synchronized (logLock) {
+            // Before the first load or rebuild opens the log; the compaction that opens it persists the map
+            if (logWriter == null) {
+                return;
+            }
+            try {
+                logWriter.write(formatLine(key, entry));
+                logWriter.flush();
+            } catch (IOException e) {
+                logger.error("Failed to append to patient identifier index log", e);
+            }
+        }
+    }
+
+    private void replayLog() {
+        int lines = 0;
+        try (BufferedReader reader = Files.newBufferedReader(logFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(FIELD_SEPARATOR, -1);
+                if (fields.length != 3) {
+                    continue;
+                }
+                lines++;
+                if (TOMBSTONE.equals(fields[1])) {
+                    entries.remove(fields[0]);
+                } else {
+                    entries.put(fields[0], new IndexEntry(fields[1], fields[2].isEmpty() ? null : fields[2]));
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Failed to read patient identifier index log, continuing with {} entries", lines, e);
+        }
+    }
+
+    /**
+     * Rewrite the log as one line per live entry and reopen it for appending.
+     *
+     * @return false if the log could not be rewritten
+     */
+    private boolean compact() {
+        synchronized (logLock) {
+            try {
+                closeLogWriter();
+                Path directory = logFile.toAbsolutePath().getParent();
+                if (directory != null) {
+                    Files.createDirectories(directory);
+                }
+                Path tempFile = logFile.resolveSibling(logFile.getFileName() + ".tmp");
+                try (FileChannel channel = FileChannel.open(tempFile,
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    BufferedWriter writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8));
+                    for (Map.Entry<String, IndexEntry> entry : entries.entrySet()) {
+                        writer.write(formatLine(entry.getKey(), entry.getValue()));
+                    }
+                    writer.flush();
+                    channel.force(true);
+                }
+                try {
+                    Files.move(tempFile, logFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tempFile, logFile, StandardCopyOption.REPLACE_EXISTING);
+                }
+                if (directory != null) {
+                    syncDirectory(directory);
+                }
+                openLogWriter();
+                return true;
+            } catch (IOException e) {
+                logger.error("Failed to compact patient identifier index log", e);
+                return false;
+            }
+        }
+    }
+
+    private void markRebuilding() {
+        try {
+            Path directory = rebuildMarker.toAbsolutePath().getParent();
+            if (directory != null) {
+                Files.createDirectories(directory);
+            }
+            if (!Files.exists(rebuildMarker)) {
+                Files.createFile(rebuildMarker);
+                if (directory != null) {
+                    syncDirectory(directory);
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Failed to mark patient identifier index as rebuilding", e);
+        }
+    }
+
+    private void clearRebuildMarker() {
+        try {
+            Files.deleteIfExists(rebuildMarker);
+        } catch (IOException e) {
+            logger.error("Failed to clear patient identifier index rebuild marker", e);
+        }
+    }
+
+    private void openLogWriter() throws IOException {
+        Path directory = logFile.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        logChannel = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.APPEND);
+        logWriter = new BufferedWriter(Channels.newWriter(logChannel, StandardCharsets.UTF_8));
+    }
+
+    private void closeLogWriter() throws IOException {
+        if (logWriter != null) {
+            logWriter.close();
+            logWriter = null;
+            logChannel = null;
+        }
+    }
+
+    /**
+     * Flush the directory entry so the rename survives a power loss.
+     * Not every platform allows opening a directory; that case is ignored.
+     */
+    private void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            logger.trace("Directory fsync not supported for {}", directory);
+        }
+    }
+
+    private static String formatLine(String key, IndexEntry entry) {
+        if (entry == null) {
+            return key + FIELD_SEPARATOR + TOMBSTONE + FIELD_SEPARATOR + "\n";
+        }
+        String version = entry.getVersionId() != null ? entry.getVersionId() : "";
+        return key + FIELD_SEPARATOR + entry.getFhirId() + FIELD_SEPARATOR + version + "\n";
+    }
+
+    /**
+     * FHIR logical id and last known version of an indexed Patient.
+     */
+    public static class IndexEntry {
+        private final String fhirId;
+        private final String versionId;
+
+        public IndexEntry(String fhirId, String versionId) {
+            this.fhirId = fhirId;
+            this.versionId = versionId;
+        }
+
+        public String getFhirId() { return fhirId; }
+        public String getVersionId() { return versionId; }
+
+        boolean isNewerThan(IndexEntry other) {
+            // Duplicate Patients sharing an identifier: keep the one already indexed
+            if (!fhirId.equals(other.fhirId) || versionId == null) {
+                return false;
+            }
+            if (other.versionId == null) {
+                return true;
+            }
+            try {
+                return Long.parseLong(versionId) > Long.parseLong(other.versionId);
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof IndexEntry)) return false;
+            IndexEntry that = (IndexEntry) o;
+            return fhirId.equals(that.fhirId) && Objects.equals(versionId, that.versionId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(fhirId, versionId);
+        }
+    }
+}
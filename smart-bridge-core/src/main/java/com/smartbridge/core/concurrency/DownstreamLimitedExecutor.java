@@ -0,0 +1,140 @@
+package com.smartbridge.core.concurrency;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executor that caps how many tasks run at once against one downstream system.
+ * Tasks start on the delegate immediately and wait for a permit there, which costs
+ * nothing on a virtual thread. The cap then reflects what the remote FHIR server or
+ * UCS can take, not how many threads the pool happens to have.
+ *
+ * At most <code>queueCapacity</code> tasks wait for a permit. Beyond that, like the
+ * CallerRuns policy of the platform pools, the task runs on the submitting thread once
+ * a permit frees up, which slows the producer down instead of queueing without bound.
+ * A task submitted from inside a running task of the same executor already holds a
+ * permit, so it runs in that thread right away; waiting for a second permit there could
+ * leave every permit holder blocked on the others.
+ */
+public class DownstreamLimitedExecutor implements Executor {
+
+    private static final Logger logger = LoggerFactory.getLogger(DownstreamLimitedExecutor.class);
+
+    private final String downstream;
+    private final int maxConcurrency;
+    private final int queueCapacity;
+    private final Semaphore permits;
+    private final Semaphore admissions;
+    private final ExecutorService delegate;
+    private final ThreadLocal<Boolean> holdingPermit = new ThreadLocal<>();
+
+    /**
+     * @param downstream     Name of the downstream system, used in messages
+     * @param maxConcurrency Tasks allowed to run against the downstream at once
+     * @param queueCapacity  Tasks allowed to wait for a permit before callers run them
+     * @param delegate       Starts the admitted tasks, typically one virtual thread per task
+     */
+    public DownstreamLimitedExecutor(String downstream, int maxConcurrency, int queueCapacity,
+                                     ExecutorService delegate) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency must be positive for " + downstream);
+        }
+        if (queueCapacity < 0) {
+            throw new IllegalArgumentException("queueCapacity must not be negative for " + downstream);
+        }
+        this.downstream = downstream;
+        this.maxConcurrency = maxConcurrency;
+        this.queueCapacity = queueCapacity;
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.admissions = new Semaphore(maxConcurrency + queueCapacity);
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (delegate.isShutdown()) {
+            throw new RejectedExecutionException("Executor for " + downstream + " is shut down");
+        }
+        if (!admissions.tryAcquire()) {
+            logger.warn("Executor for {} at capacity ({} running, {} waiting), running task in caller's thread",
+                downstream, getActiveCount(), getWaitingCount());
+            runWithPermit(task);
+            return;
+        }
+        try {
+            delegate.execute(() -> {
+                try {
+                    runWithPermit(task);
+                } finally {
+                    admissions.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            admissions.release();
+            throw e;
+        }
+    }
+
+    private void runWithPermit(Runnable task) {
+        if (Boolean.TRUE.equals(holdingPermit.get())) {
+            task.run();
+            return;
+        }
+        // An interrupt, e.g. from shutdownNow, must not drop the task: it still runs, with the
+        // interrupt status set, so its own I/O fails fast and completes whatever waits on it
+        permits.acquireUninterruptibly();
+        holdingPermit.set(Boolean.TRUE);
+        try {
+            task.run();
+        } finally {
+            holdingPermit.remove();
+            permits.release();
+        }
+    }
+
+    public String getDownstream() { return downstream; }
+    public int getMaxConcurrency() { return maxConcurrency; }
+    public int getQueueCapacity() { return queueCapacity; }
+
+    /**
+     * @return Tasks currently running against the downstream
+     */
+    public int getActiveCount() {
+        return maxConcurrency - permits.availablePermits();
+    }
+
+    /**
+     * @return Tasks started but waiting for a permit
+     */
+    public int getWaitingCount() {
+        return permits.getQueueLength();
+    }
+
+    /**
+     * Stop accepting tasks and wait for running and waiting ones. Invoked by Spring on context close.
+     */
+    public void shutdown() {
+        shutdown(30);
+    }
+
+    /**
+     * Stop accepting tasks and wait up to the timeout for running and waiting ones, then interrupt them.
+     */
+    public void shutdown(long timeoutSeconds) {
+        delegate.shutdown();
+        try {
+            if (!delegate.awaitTermination(timeoutSeconds, TimeUnit.SECONDS)) {
+                delegate.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            delegate.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package com.smartbridge.core.concurrency;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the results of processing a source of items, in completion order, with
+ * demand-based backpressure.
+ *
+ * Items are pulled from the source only when the subscriber has requested results for
+ * them, and at most <code>maxInFlight</code> items are started and not yet delivered.
+ * Every started item therefore has a result slot waiting, and memory stays bounded
+ * however long the source is. A failed item is delivered as a result built by the
+ * failure mapper, so the subscriber can act on it immediately and the stream continues.
+ * The stream completes after the last result, or fails with the source's exception if
+ * the source itself throws.
+ *
+ * Like {@link java.util.concurrent.SubmissionPublisher}, the publisher reads the source,
+ * starts items and signals the subscriber only on tasks run by its executor, one at a
+ * time, never on the thread completing an item or calling
+ * {@link Flow.Subscription#request(long)}. Cancelling stops pulling items; items already
+ * started run to completion and their results are dropped. The publisher reads its
+ * source once and accepts one subscriber.
+ *
+ * @param <S> Source item
+ * @param <R> Result
+ */
+public class StreamingResultPublisher<S, R> implements Flow.Publisher<R> {
+
+    private static final Logger logger = LoggerFactory.getLogger(StreamingResultPublisher.class);
+
+    /**
+     * Starts the processing of one item.
+     */
+    @FunctionalInterface
+    public interface Stage<S, R> {
+        CompletableFuture<R> start(long index, S item);
+    }
+
+    /**
+     * Builds the result reported for an item whose processing failed.
+     */
+    @FunctionalInterface
+    public interface FailureMapper<S, R> {
+        R map(long index, S item, Throwable error);
+    }
+
+    private final String name;
+    private final Iterator<? extends S> source;
+    private final int maxInFlight;
+    private final Stage<S, R> stage;
+    private final FailureMapper<S, R> failureMapper;
+    private final Executor executor;
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    /**
+     * @param name          Name used in log messages
+     * @param source        Items to process, read once
+     * @param maxInFlight   Items allowed to be started and not yet delivered
+     * @param stage         Starts the processing of an item
+     * @param failureMapper Result for an item whose stage threw or failed
+     * @param executor      Runs the source reads, item starts and subscriber signals
+     */
+    public StreamingResultPublisher(String name, Iterator<? extends S> source, int maxInFlight,
+                                    Stage<S, R> stage, FailureMapper<S, R> failureMapper, Executor executor) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("Maximum in-flight items must be positive");
+        }
+        if (executor == null) {
+            throw new NullPointerException("Executor cannot be null");
+        }
+        this.name = name;
+        this.source = source;
+        this.maxInFlight = maxInFlight;
+        this.stage = stage;
+        this.failureMapper = failureMapper;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super R> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("Subscriber cannot be null");
+        }
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException(name + " publisher allows only one subscriber"));
+            return;
+        }
+        ResultSubscription subscription = new ResultSubscription(subscriber);
+        subscription.signal();
+    }
+
+    private final class ResultSubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super R> subscriber;
+        private final Queue<Completion<S, R>> completed = new ConcurrentLinkedQueue<>();
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile Throwable invalidRequest;
+
+        // Owned by the task in drain()
+        private boolean subscribedSignalled;
+        private long nextIndex;
+        private int inFlight;
+        private boolean sourceDone;
+        private Throwable sourceError;
+        private boolean terminated;
+
+        ResultSubscription(Flow.Subscriber<? super R> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("Requested " + n + " results, must be positive");
+            } else {
+                requested.getAndAccumulate(n, (current, add) -> current + add < 0 ? Long.MAX_VALUE : current + add);
+            }
+            signal();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            signal();
+        }
+
+        /**
+         * Schedule a drain on the executor unless one is already scheduled or running.
+         */
+        void signal() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // This thread still owns the drain and the subscriber is not signalled elsewhere
+                logger.error("{} executor rejected the stream, terminating it", name, e);
+                terminated = true;
+                if (!subscribedSignalled) {
+                    subscribedSignalled = true;
+                    subscriber.onSubscribe(this);
+                }
+                subscriber.onError(e);
+            }
+        }
+
+        private void drain() {
+            int missed = 1;
+            do {
+                if (!terminated) {
+                    drainOnce();
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void drainOnce() {
+            if (!subscribedSignalled) {
+                subscribedSignalled = true;
+                // request() and cancel() made in onSubscribe are picked up by the next pass
+                subscriber.onSubscribe(this);
+            }
+            if (cancelled) {
+                terminated = true;
+                completed.clear();
+                return;
+            }
+            if (invalidRequest != null) {
+                terminated = true;
+                completed.clear();
+                subscriber.onError(invalidRequest);
+                return;
+            }
+
+            Completion<S, R> completion;
+            while ((completion = completed.poll()) != null) {
+                inFlight--;
+                R result = completion.error == null ? completion.result
+                    : failureMapper.map(completion.index, completion.item, completion.error);
+                if (requested.get() != Long.MAX_VALUE) {
+                    requested.decrementAndGet();
+                }
+                try {
+                    subscriber.onNext(result);
+                } catch (RuntimeException e) {
+                    logger.warn("{} subscriber failed in onNext, cancelling", name, e);
+                    cancelled = true;
+                }
+                if (cancelled) {
+                    terminated = true;
+                    completed.clear();
+                    return;
+                }
+            }
+
+            // Started items never exceed the outstanding demand, so each result has a slot
+            while (!sourceDone && inFlight < maxInFlight && inFlight < requested.get()) {
+                S item;
+                try {
+                    if (!source.hasNext()) {
+                        sourceDone = true;
+                        break;
+                    }
+                    item = source.next();
+                } catch (RuntimeException e) {
+                    logger.error("{} source failed after {} items", name, nextIndex, e);
+                    sourceDone = true;
+                    sourceError = e;
+                    break;
+                }
+                inFlight++;
+                start(nextIndex++, item);
+            }
+
+            if (sourceDone && inFlight == 0 && completed.isEmpty()) {
+                terminated = true;
+                if (sourceError != null) {
+                    subscriber.onError(sourceError);
+                } else {
+                    subscriber.onComplete();
+                }
+            }
+        }
+
+        private void start(long index, S item) {
+            CompletableFuture<R> future;
+            try {
+                future = stage.start(index, item);
+            } catch (RuntimeException e) {
+                future = CompletableFuture.failedFuture(e);
+            }
+            // Completes inline for finished futures; the running drain picks the result up in its next pass
+            future.whenComplete((result, error) -> {
+                if (error == null && result == null) {
+                    error = new NullPointerException(name + " stage completed without a result");
+                }
+                completed.offer(new Completion<>(index, item, result, error == null ? null : unwrap(error)));
+                signal();
+            });
+        }
+    }
+
+    /**
+     * Outcome of one item, mapped to its result by the drain.
+     */
+    private static final class Completion<S, R> {
+        private final long index;
+        private final S item;
+        private final R result;
+        private final Throwable error;
+
+        Completion(long index, S item, R result, Throwable error) {
+            this.index = index;
+            this.item = item;
+            this.result = result;
+            this.error = error;
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        if ((error instanceof CompletionException || error instanceof ExecutionException) && error.getCause() != null) {
+            return error.getCause();
+        }
+        return error;
+    }
+}
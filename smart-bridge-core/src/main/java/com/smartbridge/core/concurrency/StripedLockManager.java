@@ -0,0 +1,256 @@
+package com.smartbridge.core.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Per-key mutual exclusion over a fixed set of lock stripes.
+ * Work for the same key (e.g. one client or Patient) is serialized, while work for
+ * different keys only contends when their keys hash to the same stripe, which becomes
+ * rare as the stripe count grows. Memory use is fixed regardless of the number of keys.
+ *
+ * A stripe is not owned by a thread, so work that completes asynchronously can hold it
+ * until its future completes ({@link #withLockAsync}); blocking and asynchronous callers
+ * of the same key are served in arrival order. Locks are not reentrant.
+ *
+ * Acquisitions that find their stripe held are counted as contended, together with the
+ * time spent waiting, so a hot key or too few stripes show up in the metrics.
+ */
+public class StripedLockManager {
+
+    /** Work run while holding a key's lock. */
+    @FunctionalInterface
+    public interface LockedAction<T, E extends Exception> {
+        T run() throws E;
+    }
+
+    private final String name;
+    private final Stripe[] stripes;
+    private final int mask;
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder contended = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+
+    private volatile Counter uncontendedCounter;
+    private volatile Counter contendedCounter;
+    private volatile Timer waitTimer;
+
+    /**
+     * @param name    Name used in metrics
+     * @param stripes Number of stripes, rounded up to a power of two
+     */
+    public StripedLockManager(String name, int stripes) {
+        int size = stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.name = name;
+        this.stripes = new Stripe[size];
+        this.mask = this.stripes.length - 1;
+        for (int i = 0; i < this.stripes.length; i++) {
+            this.stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Run an action while holding the lock for a key. A null key runs the action without locking.
+     */
+    public <T, E extends Exception> T withLock(Object key, LockedAction<T, E> action) throws E {
+        if (key == null) {
+            return action.run();
+        }
+        Stripe stripe = stripeFor(key);
+        acquire(stripe);
+        try {
+            return action.run();
+        } finally {
+            stripe.release();
+        }
+    }
+
+    /**
+     * Start an asynchronous action while holding the lock for a key, and hold it until the
+     * action's future completes. No thread waits for a held lock: the action is started on
+     * the executor once the lock is handed over. A null key starts the action without locking.
+     *
+     * @param executor Starts the action when the lock was not free immediately
+     * @return Future completed with the action's outcome, after the lock is released
+     */
+    public <T> CompletableFuture<T> withLockAsync(Object key, Supplier<CompletableFuture<T>> action,
+                                                  Executor executor) {
+        if (key == null) {
+            return start(action);
+        }
+        Stripe stripe = stripeFor(key);
+        acquisitions.increment();
+        long startNanos = System.nanoTime();
+        CompletableFuture<Void> handover = stripe.acquire();
+        if (handover == null) {
+            recordUncontended();
+            return runLocked(stripe, action);
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        handover.thenRun(() -> {
+            recordContended(System.nanoTime() - startNanos);
+            try {
+                executor.execute(() -> runLocked(stripe, action).whenComplete((value, error) -> {
+                    if (error != null) {
+                        result.completeExceptionally(error);
+                    } else {
+                        result.complete(value);
+                    }
+                }));
+            } catch (RejectedExecutionException e) {
+                stripe.release();
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Publish acquisitions by contention and the time contended acquisitions waited.
+     */
+    public void bindTo(MeterRegistry meterRegistry) {
+        uncontendedCounter = Counter.builder("smart_bridge_lock_acquisitions_total")
+            .description("Striped lock acquisitions")
+            .tag("lock", name)
+            .tag("contended", "false")
+            .register(meterRegistry);
+        contendedCounter = Counter.builder("smart_bridge_lock_acquisitions_total")
+            .description("Striped lock acquisitions")
+            .tag("lock", name)
+            .tag("contended", "true")
+            .register(meterRegistry);
+        waitTimer = Timer.builder("smart_bridge_lock_wait")
+            .description("Time spent waiting for a contended striped lock")
+            .tag("lock", name)
+            .register(meterRegistry);
+    }
+
+    public String getName() { return name; }
+    public int getStripeCount() { return stripes.length; }
+    public long getAcquisitions() { return acquisitions.sum(); }
+    public long getContendedAcquisitions() { return contended.sum(); }
+
+    /**
+     * @return Fraction of acquisitions that had to wait
+     */
+    public double getContentionRatio() {
+        long total = acquisitions.sum();
+        return total == 0 ? 0 : (double) contended.sum() / total;
+    }
+
+    /**
+     * @return Total time contended acquisitions spent waiting, in milliseconds
+     */
+    public double getTotalWaitMs() {
+        return waitNanos.sum() / 1_000_000.0;
+    }
+
+    Stripe stripeFor(Object key) {
+        int hash = key.hashCode();
+        // Spread the hash so keys differing only in high bits use different stripes
+        hash ^= (hash >>> 16);
+        hash *= 0x45d9f3b;
+        hash ^= (hash >>> 16);
+        return stripes[hash & mask];
+    }
+
+    private void acquire(Stripe stripe) {
+        acquisitions.increment();
+        CompletableFuture<Void> handover = stripe.acquire();
+        if (handover == null) {
+            recordUncontended();
+            return;
+        }
+
+        long start = System.nanoTime();
+        handover.join();
+        recordContended(System.nanoTime() - start);
+    }
+
+    private <T> CompletableFuture<T> runLocked(Stripe stripe, Supplier<CompletableFuture<T>> action) {
+        CompletableFuture<T> future;
+        try {
+            future = start(action);
+        } catch (Error e) {
+            stripe.release();
+            throw e;
+        }
+        return future.whenComplete((result, error) -> stripe.release());
+    }
+
+    private static <T> CompletableFuture<T> start(Supplier<CompletableFuture<T>> action) {
+        try {
+            return action.get();
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private void recordUncontended() {
+        Counter counter = uncontendedCounter;
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    private void recordContended(long waitedNanos) {
+        contended.increment();
+        waitNanos.add(waitedNanos);
+        Counter counter = contendedCounter;
+        if (counter != null) {
+            counter.increment();
+        }
+        Timer timer = waitTimer;
+        if (timer != null) {
+            timer.record(waitedNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * FIFO mutex whose ownership is handed directly to the next waiter on release.
+     */
+    static final class Stripe {
+        private final Queue<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+        private boolean locked;
+
+        /**
+         * @return null if the stripe was free and is now held, otherwise a future completed
+         *         once the stripe has been handed over to this caller
+         */
+        synchronized CompletableFuture<Void> acquire() {
+            if (!locked) {
+                locked = true;
+                return null;
+            }
+            CompletableFuture<Void> handover = new CompletableFuture<>();
+            waiters.add(handover);
+            return handover;
+        }
+
+        void release() {
+            CompletableFuture<Void> next;
+            synchronized (this) {
+                next = waiters.poll();
+                if (next == null) {
+                    locked = false;
+                    return;
+                }
+            }
+            next.complete(null);
+        }
+
+        synchronized boolean isLocked() {
+            return locked;
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package com.smartbridge.core.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Coalesces rapid successive updates to the same key so only the latest state is written.
+ * Per key at most one write is in flight and at most one update is pending. An update that
+ * arrives while a write is in flight, or within the quiet period after the first pending
+ * update arrived, replaces the pending one; the replaced update's caller is completed with
+ * the result of the write that carried the newer state.
+ *
+ * The quiet period is measured from the first pending update rather than restarted by each
+ * new one, so a key that keeps changing is still written at least once per period. With a
+ * quiet period of zero, updates are written immediately and only coalesce while a write for
+ * the same key is in flight. Null keys are never coalesced.
+ *
+ * A write that becomes due later, after the quiet period or because an earlier write for
+ * its key completed, is scheduled on the coalescer's own timer thread and started on the
+ * flush executor, never on the thread that completed the earlier write, so a writer that
+ * blocks on a bounded stage cannot wait on itself. The writer may block on the flush
+ * executor without holding up due writes of other keys; without one it runs on the timer.
+ *
+ * @param <K> Key identifying the record, e.g. a client or resource id
+ * @param <V> Update payload
+ * @param <R> Write result
+ */
+public class UpdateCoalescer<K, V, R> {
+
+    private final String name;
+    private final Function<V, CompletableFuture<R>> writer;
+    private final Map<K, Slot<V, R>> slots = new ConcurrentHashMap<>();
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private volatile long quietPeriodMs;
+    private volatile Executor flushExecutor;
+    private volatile Counter coalescedCounter;
+    private volatile boolean shutdown;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param name   Name used in metrics and thread names
+     * @param writer Starts the write of one update and returns its completion
+     */
+    public UpdateCoalescer(String name, Function<V, CompletableFuture<R>> writer) {
+        this.name = name;
+        this.writer = writer;
+    }
+
+    /**
+     * Submit an update for a key.
+     *
+     * @return Future completed with the result of the write that carried this update or a newer one
+     */
+    public CompletableFuture<R> submit(K key, V update) {
+        submitted.increment();
+        if (shutdown) {
+            return CompletableFuture.failedFuture(shutdownException());
+        }
+        if (key == null) {
+            return write(update);
+        }
+
+        CompletableFuture<R> future = new CompletableFuture<>();
+        long quietNanos = TimeUnit.MILLISECONDS.toNanos(quietPeriodMs);
+        boolean[] schedule = new boolean[1];
+        slots.compute(key, (k, slot) -> {
+            if (slot == null) {
+                slot = new Slot<>();
+            }
+            if (slot.pending != null) {
+                // The pending update never gets written, this one takes its place
+                coalesced.increment();
+                Counter counter = coalescedCounter;
+                if (counter != null) {
+                    counter.increment();
+                }
+            } else {
+                slot.dueAtNanos = System.nanoTime() + quietNanos;
+                // An in-flight write dispatches its successor when it completes
+                schedule[0] = !slot.inFlight;
+            }
+            slot.pending = update;
+            slot.waiters.add(future);
+            return slot;
+        });
+
+        if (schedule[0]) {
+            schedule(key, quietNanos);
+        }
+        return future;
+    }
+
+    /**
+     * Set the quiet period applied to updates submitted from now on.
+     */
+    public void setQuietPeriodMs(long quietPeriodMs) {
+        this.quietPeriodMs = Math.max(0, quietPeriodMs);
+    }
+
+    public long getQuietPeriodMs() {
+        return quietPeriodMs;
+    }
+
+    /**
+     * Set the executor that starts writes once they are due, e.g. the flow's executor.
+     */
+    public void setFlushExecutor(Executor flushExecutor) {
+        this.flushExecutor = flushExecutor;
+    }
+
+    /**
+     * @return true while the key has a write in flight or an update pending
+     */
+    public boolean isActive(K key) {
+        return key != null && slots.containsKey(key);
+    }
+
+    /**
+     * @return Number of keys with a write in flight or an update pending
+     */
+    public int getActiveKeyCount() {
+        return slots.size();
+    }
+
+    public long getSubmittedCount() { return submitted.sum(); }
+    public long getCoalescedCount() { return coalesced.sum(); }
+
+    /**
+     * Publish coalesced-away updates and keys with a pending or in-flight write, tagged with the flow name.
+     */
+    public void bindTo(MeterRegistry meterRegistry) {
+        coalescedCounter = Counter.builder("smart_bridge_updates_coalesced_total")
+            .description("Updates replaced by a newer update for the same record before being written")
+            .tag("flow", name)
+            .register(meterRegistry);
+        Gauge.builder("smart_bridge_updates_active_keys", slots, Map::size)
+            .description("Records with a write in flight or an update waiting to be written")
+            .tag("flow", name)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Stop the quiet-period timer and reject further updates. Updates not yet written fail
+     * their callers; writes already in flight still complete theirs.
+     */
+    public void shutdown() {
+        synchronized (this) {
+            shutdown = true;
+            if (scheduler != null) {
+                scheduler.shutdownNow();
+            }
+        }
+        for (K key : slots.keySet()) {
+            failPending(key);
+        }
+    }
+
+    private void schedule(K key, long delayNanos) {
+        if (delayNanos <= 0) {
+            flush(key);
+        } else {
+            dispatch(key, delayNanos);
+        }
+    }
+
+    private void dispatch(K key, long delayNanos) {
+        ScheduledExecutorService executor = scheduler();
+        if (executor == null) {
+            failPending(key);
+            return;
+        }
+        try {
+            executor.schedule(() -> handOff(key), delayNanos, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            failPending(key);
+        }
+    }
+
+    private void handOff(K key) {
+        Executor executor = flushExecutor;
+        if (executor == null) {
+            flush(key);
+            return;
+        }
+        try {
+            executor.execute(() -> flush(key));
+        } catch (RejectedExecutionException e) {
+            failPending(key);
+        }
+    }
+
+    private void flush(K key) {
+        if (shutdown) {
+            failPending(key);
+            return;
+        }
+        List<CompletableFuture<R>> waiters = new ArrayList<>();
+        List<V> taken = new ArrayList<>(1);
+        slots.computeIfPresent(key, (k, slot) -> {
+            if (slot.inFlight || slot.pending == null) {
+                return slot;
+            }
+            taken.add(slot.pending);
+            waiters.addAll(slot.waiters);
+            slot.pending = null;
+            slot.waiters.clear();
+            slot.inFlight = true;
+            return slot;
+        });
+        if (taken.isEmpty()) {
+            return;
+        }
+
+        write(taken.get(0)).whenComplete((result, error) -> {
+            for (CompletableFuture<R> waiter : waiters) {
+                if (error != null) {
+                    waiter.completeExceptionally(error);
+                } else {
+                    waiter.complete(result);
+                }
+            }
+            completeWrite(key);
+        });
+    }
+
+    private void completeWrite(K key) {
+        long[] delayNanos = {-1};
+        slots.computeIfPresent(key, (k, slot) -> {
+            slot.inFlight = false;
+            if (slot.pending == null) {
+                return null;
+            }
+            delayNanos[0] = Math.max(0, slot.dueAtNanos - System.nanoTime());
+            return slot;
+        });
+        if (delayNanos[0] >= 0) {
+            // Runs on the thread that completed the write, so the next one is handed off
+            dispatch(key, delayNanos[0]);
+        }
+    }
+
+    private void failPending(K key) {
+        List<CompletableFuture<R>> waiters = new ArrayList<>();
+        slots.computeIfPresent(key, (k, slot) -> {
+            waiters.addAll(slot.waiters);
+            slot.waiters.clear();
+            slot.pending = null;
+            return slot.inFlight ? slot : null;
+        });
+        for (CompletableFuture<R> waiter : waiters) {
+            waiter.completeExceptionally(shutdownException());
+        }
+    }
+
+    private IllegalStateException shutdownException() {
+        return new IllegalStateException(name + " coalescer is shut down, update was not written");
+    }
+
+    private CompletableFuture<R> write(V update) {
+        try {
+            return writer.apply(update);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private synchronized ScheduledExecutorService scheduler() {
+        if (shutdown) {
+            return null;
+        }
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "coalescer-" + name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return scheduler;
+    }
+
+    private static class Slot<V, R> {
+        V pending;
+        final List<CompletableFuture<R>> waiters = new ArrayList<>();
+        long dueAtNanos;
+        boolean inFlight;
+    }
+}
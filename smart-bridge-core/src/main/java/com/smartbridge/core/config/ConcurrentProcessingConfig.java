@@ -1,5 +1,7 @@
 package com.smartbridge.core.config;
 
+import com.smartbridge.core.concurrency.DownstreamLimitedExecutor;
+import com.smartbridge.core.concurrency.VirtualThreads;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.context.properties.ConfigurationProperties;
@@ -16,6 +18,9 @@ import java.util.concurrent.ThreadPoolExecutor;
  * Provides thread pool configuration for transformation services with proper
  * resource management and synchronization.
  * 
+ * With virtualThreadsEnabled on Java 21, both executors run tasks on virtual threads and
+ * concurrency is capped per downstream system (FHIR server, UCS) instead of by pool size.
+ * 
  * Requirements: 7.2 - Concurrent processing capability
  */
 @Configuration
@@ -37,12 +42,25 @@ public class ConcurrentProcessingConfig {
     private int reverseSyncKeepAliveSeconds = 60;
     private String reverseSyncThreadNamePrefix = "reverse-sync-";
 
+    // Opt-in, requires Java 21; falls back to the platform pools otherwise
+    private boolean virtualThreadsEnabled = false;
+    private int fhirMaxConcurrency = 64;
+    private int ucsMaxConcurrency = 32;
+
     /**
      * Thread pool executor for transformation operations.
      * Handles concurrent UCS to FHIR and FHIR to UCS transformations.
      */
     @Bean(name = "transformationExecutor")
     public Executor transformationExecutor() {
+        if (useVirtualThreads()) {
+            // Transformation tasks end in FHIR writes, so the FHIR server bounds them
+            logger.info("Initializing transformation executor on virtual threads: fhirMaxConcurrency={}, queueCapacity={}",
+                fhirMaxConcurrency, transformationQueueCapacity);
+            return new DownstreamLimitedExecutor("fhir", fhirMaxConcurrency, transformationQueueCapacity,
+                VirtualThreads.newVirtualThreadPerTaskExecutor(transformationThreadNamePrefix));
+        }
+
         logger.info("Initializing transformation thread pool: corePoolSize={}, maxPoolSize={}, queueCapacity={}",
             transformationCorePoolSize, transformationMaxPoolSize, transformationQueueCapacity);
 
@@ -67,6 +85,14 @@ public class ConcurrentProcessingConfig {
      */
     @Bean(name = "reverseSyncExecutor")
     public Executor reverseSyncExecutor() {
+        if (useVirtualThreads()) {
+            // Reverse sync tasks end in UCS REST calls, so UCS bounds them
+            logger.info("Initializing reverse sync executor on virtual threads: ucsMaxConcurrency={}, queueCapacity={}",
+                ucsMaxConcurrency, reverseSyncQueueCapacity);
+            return new DownstreamLimitedExecutor("ucs", ucsMaxConcurrency, reverseSyncQueueCapacity,
+                VirtualThreads.newVirtualThreadPerTaskExecutor(reverseSyncThreadNamePrefix));
+        }
+
         logger.info("Initializing reverse sync thread pool: corePoolSize={}, maxPoolSize={}, queueCapacity={}",
             reverseSyncCorePoolSize, reverseSyncMaxPoolSize, reverseSyncQueueCapacity);
 
@@ -85,6 +111,18 @@ public class ConcurrentProcessingConfig {
         return executor;
     }
 
+    private boolean useVirtualThreads() {
+        if (!virtualThreadsEnabled) {
+            return false;
+        }
+        if (!VirtualThreads.isSupported()) {
+            logger.warn("Virtual threads requested but not supported on Java {}, using platform thread pools",
+                Runtime.version().feature());
+            return false;
+        }
+        return true;
+    }
+
     /**
      * Custom rejected execution handler for transformation tasks.
      * Logs rejection and applies CallerRuns policy as fallback.
@@ -207,4 +245,28 @@ public class ConcurrentProcessingConfig {
     public void setReverseSyncThreadNamePrefix(String reverseSyncThreadNamePrefix) {
         this.reverseSyncThreadNamePrefix = reverseSyncThreadNamePrefix;
     }
+
+    public boolean isVirtualThreadsEnabled() {
+        return virtualThreadsEnabled;
+    }
+
+    public void setVirtualThreadsEnabled(boolean virtualThreadsEnabled) {
+        this.virtualThreadsEnabled = virtualThreadsEnabled;
+    }
+
+    public int getFhirMaxConcurrency() {
+        return fhirMaxConcurrency;
+    }
+
+    public void setFhirMaxConcurrency(int fhirMaxConcurrency) {
+        this.fhirMaxConcurrency = fhirMaxConcurrency;
+    }
+
+    public int getUcsMaxConcurrency() {
+        return ucsMaxConcurrency;
+    }
+
+    public void setUcsMaxConcurrency(int ucsMaxConcurrency) {
+        this.ucsMaxConcurrency = ucsMaxConcurrency;
+    }
 }
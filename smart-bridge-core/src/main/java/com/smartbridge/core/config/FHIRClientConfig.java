@@ -1,11 +1,21 @@
 package com.smartbridge.core.config;
 
+import com.smartbridge.core.client.AsyncFHIRClient;
+import com.smartbridge.core.client.BatchingFHIRWriter;
 import com.smartbridge.core.client.FHIRClientService;
+import com.smartbridge.core.fhir.FHIRRuntime;
+import com.smartbridge.core.resilience.CircuitBreaker;
+import com.smartbridge.core.resilience.ResilientFHIRClient;
+import com.smartbridge.core.resilience.RetryPolicy;
+import org.hl7.fhir.r4.model.Bundle;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 /**
  * Configuration for FHIR client service.
  * Supports configuration via application properties.
@@ -28,9 +38,33 @@ public class FHIRClientConfig {
     @Value("${smartbridge.fhir.auth-token:}")
     private String bearerToken;
 
+    @Value("${smartbridge.fhir.batch.max-size:100}")
+    private int batchMaxSize;
+
+    @Value("${smartbridge.fhir.batch.linger-ms:50}")
+    private long batchLingerMs;
+
+    @Value("${smartbridge.fhir.batch.type:batch}")
+    private String batchType;
+
+    @Value("${smartbridge.fhir.batch.max-concurrent:4}")
+    private int batchMaxConcurrent;
+
+    @Value("${smartbridge.fhir.timeout:30000}")
+    private long timeoutMs;
+
+    @Value("${smartbridge.fhir.async.threads:4}")
+    private int asyncThreads;
+
+    @Value("${smartbridge.fhir.async.max-in-flight:256}")
+    private int asyncMaxInFlight;
+
+    @Value("${smartbridge.fhir.async.max-queued:10000}")
+    private int asyncMaxQueued;
+
     @Bean
-    public FHIRClientService fhirClientService() {
-        FHIRClientService clientService = new FHIRClientService();
+    public FHIRClientService fhirClientService(FHIRRuntime fhirRuntime) {
+        FHIRClientService clientService = new FHIRClientService(fhirRuntime);
         
         // Configure server URL
         if (fhirServerUrl != null && !fhirServerUrl.isEmpty()) {
@@ -46,4 +80,49 @@ public class FHIRClientConfig {
         
         return clientService;
     }
+
+    /**
+     * Batching write path for ingestion. When enabled, Patient creates from concurrent
+     * ingestions are sent to the FHIR server as batch or transaction Bundles.
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "smartbridge.fhir.batch.enabled", havingValue = "true")
+    public BatchingFHIRWriter batchingFHIRWriter(ResilientFHIRClient resilientFHIRClient) {
+        return new BatchingFHIRWriter(
+            resilientFHIRClient,
+            batchMaxSize,
+            Duration.ofMillis(batchLingerMs),
+            Bundle.BundleType.fromCode(batchType.toLowerCase()),
+            batchMaxConcurrent
+        );
+    }
+
+    /**
+     * Non-blocking FHIR client for the ingestion flow. When enabled, asynchronous ingestions
+     * write to the FHIR server without holding a thread per request. Shares the FHIR
+     * circuit breaker and retry policy with the blocking resilient client.
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "smartbridge.fhir.async.enabled", havingValue = "true")
+    public AsyncFHIRClient asyncFHIRClient(FHIRRuntime fhirRuntime,
+                                           @Qualifier("fhirCircuitBreaker") CircuitBreaker fhirCircuitBreaker,
+                                           @Qualifier("fhirRetryPolicy") RetryPolicy fhirRetryPolicy) {
+        String authorization = null;
+        if ("basic".equalsIgnoreCase(authType)) {
+            authorization = AsyncFHIRClient.basicAuthorization(username, password);
+        } else if ("bearer".equalsIgnoreCase(authType)) {
+            authorization = "Bearer " + bearerToken;
+        }
+        return new AsyncFHIRClient(
+            fhirServerUrl,
+            fhirRuntime,
+            authorization,
+            Duration.ofMillis(timeoutMs),
+            asyncThreads,
+            asyncMaxInFlight,
+            asyncMaxQueued,
+            fhirCircuitBreaker,
+            fhirRetryPolicy
+        );
+    }
 }
@@ -0,0 +1,56 @@
+package com.smartbridge.core.config;
+
+import ca.uhn.fhir.context.FhirContext;
+import com.smartbridge.core.fhir.FHIRRuntime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the FHIR runtime shared by the validator, the FHIR clients, the webhook
+ * controller and the bulk export.
+ *
+ * The warm-up starts when the runtime is created, in parallel with the rest of the context
+ * startup. An application runner waits for it; Spring Boot only reports readiness once all
+ * runners have completed, so no traffic is routed before the definitions are loaded.
+ */
+@Configuration
+public class FHIRRuntimeConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(FHIRRuntimeConfig.class);
+
+    @Value("${smartbridge.fhir.runtime.parser-pool-size:0}")
+    private int parserPoolSize;
+
+    @Value("${smartbridge.fhir.runtime.warm-up.enabled:true}")
+    private boolean warmUpEnabled;
+
+    @Value("${smartbridge.fhir.runtime.warm-up.timeout-ms:60000}")
+    private long warmUpTimeoutMs;
+
+    @Bean
+    public FHIRRuntime fhirRuntime() {
+        FHIRRuntime runtime = new FHIRRuntime(FhirContext.forR4(), parserPoolSize);
+        if (warmUpEnabled) {
+            runtime.startWarmUp();
+        }
+        return runtime;
+    }
+
+    @Bean
+    public ApplicationRunner fhirRuntimeWarmUpRunner(FHIRRuntime fhirRuntime) {
+        return args -> {
+            if (!warmUpEnabled) {
+                return;
+            }
+            if (!fhirRuntime.awaitWarmUp(Duration.ofMillis(warmUpTimeoutMs))) {
+                logger.warn("FHIR runtime warm-up did not finish within {} ms, continuing startup", warmUpTimeoutMs);
+            }
+        };
+    }
+}
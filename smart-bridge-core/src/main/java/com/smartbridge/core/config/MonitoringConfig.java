@@ -125,6 +125,18 @@ public class MonitoringConfig {
                 .register(meterRegistry);
     }
 
+    /**
+     * Counter for UCS clients skipped because their mapped fields were unchanged.
+     */
+    @Bean
+    public Counter ingestionUnchangedSkippedCounter(MeterRegistry meterRegistry) {
+        return Counter.builder("smart_bridge_ingestion_unchanged_skipped_total")
+                .description("Total number of UCS clients skipped because their mapped content was unchanged")
+                .tag("operation", "ingestion")
+                .tag("status", "skipped")
+                .register(meterRegistry);
+    }
+
     /**
      * Timer for measuring mediator operation duration.
      */
@@ -0,0 +1,131 @@
+package com.smartbridge.core.export;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * State of a single FHIR Bulk Data export request.
+ * The transaction time is fixed when the job starts, so a client can pass it as
+ * <code>_since</code> to the next export and receive only what changed in between.
+ */
+public class BulkExportJob {
+
+    public enum State { ACCEPTED, IN_PROGRESS, COMPLETED, FAILED, CANCELLED }
+
+    private final String id;
+    private final List<String> types;
+    private final Date since;
+    private final Instant requestedAt = Instant.now();
+    private final List<ExportFile> outputs = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicLong exported = new AtomicLong();
+
+    private volatile State state = State.ACCEPTED;
+    private volatile Instant transactionTime;
+    private volatile Instant finishedAt;
+    private volatile String currentType;
+    private volatile String error;
+
+    public BulkExportJob(String id, List<String> types, Date since) {
+        this.id = id;
+        this.types = List.copyOf(types);
+        this.since = since;
+    }
+
+    public String getId() { return id; }
+    public List<String> getTypes() { return types; }
+    public Date getSince() { return since; }
+    public Instant getRequestedAt() { return requestedAt; }
+    public State getState() { return state; }
+    public Instant getTransactionTime() { return transactionTime; }
+    public Instant getFinishedAt() { return finishedAt; }
+    public String getCurrentType() { return currentType; }
+    public String getError() { return error; }
+    public long getExported() { return exported.get(); }
+
+    public List<ExportFile> getOutputs() {
+        synchronized (outputs) {
+            return new ArrayList<>(outputs);
+        }
+    }
+
+    public boolean isFinished() {
+        State current = state;
+        return current == State.COMPLETED || current == State.FAILED || current == State.CANCELLED;
+    }
+
+    /**
+     * Ask a running export to stop; its files are deleted.
+     *
+     * @return false if the export had already finished
+     */
+    public synchronized boolean cancel() {
+        if (isFinished()) {
+            return false;
+        }
+        state = State.CANCELLED;
+        finishedAt = Instant.now();
+        return true;
+    }
+
+    synchronized boolean markStarted(Instant transactionTime) {
+        if (state != State.ACCEPTED) {
+            return false;
+        }
+        this.transactionTime = transactionTime;
+        state = State.IN_PROGRESS;
+        return true;
+    }
+
+    synchronized void markCompleted() {
+        if (state == State.IN_PROGRESS) {
+            state = State.COMPLETED;
+            finishedAt = Instant.now();
+        }
+    }
+
+    synchronized void markFailed(String error) {
+        if (state == State.IN_PROGRESS) {
+            this.error = error;
+            state = State.FAILED;
+            finishedAt = Instant.now();
+        }
+    }
+
+    void setCurrentType(String type) {
+        currentType = type;
+    }
+
+    void recordExported() {
+        exported.incrementAndGet();
+    }
+
+    void addOutput(ExportFile file) {
+        outputs.add(file);
+    }
+
+    /**
+     * One completed, gzip-compressed NDJSON shard.
+     */
+    public static class ExportFile {
+        private final String type;
+        private final String fileName;
+        private final long count;
+        private final long sizeBytes;
+
+        public ExportFile(String type, String fileName, long count, long sizeBytes) {
+            this.type = type;
+            this.fileName = fileName;
+            this.count = count;
+            this.sizeBytes = sizeBytes;
+        }
+
+        public String getType() { return type; }
+        public String getFileName() { return fileName; }
+        public long getCount() { return count; }
+        public long getSizeBytes() { return sizeBytes; }
+    }
+}
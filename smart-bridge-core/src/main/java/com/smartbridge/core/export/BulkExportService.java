@@ -0,0 +1,258 @@
+package com.smartbridge.core.export;
+
+import ca.uhn.fhir.parser.IParser;
+import com.smartbridge.core.client.FHIRClientService;
+import com.smartbridge.core.fhir.FHIRRuntime;
+import com.smartbridge.core.transformation.UCSToFHIRTransformer;
+import jakarta.annotation.PreDestroy;
+import org.hl7.fhir.r4.model.Resource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * FHIR Bulk Data style export of the resources Smart Bridge has synced.
+ * Downstream analytics kick off an export instead of paging through FHIR searches;
+ * the export scans the FHIR server once per resource type and writes gzip-compressed
+ * NDJSON shards that are then downloaded as files.
+ *
+ * Exports honour <code>_since</code>: only resources with <code>_lastUpdated</code> after
+ * it are exported, so passing the transaction time of the previous export yields an
+ * incremental export. Patients are limited to those carrying a UCS opensrp identifier.
+ */
+@Service
+public class BulkExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkExportService.class);
+
+    private final FHIRClientService fhirClient;
+    private final FHIRRuntime fhirRuntime;
+    private final Path exportDirectory;
+    private final List<String> supportedTypes;
+    private final long maxShardBytes;
+    private final int pageSize;
+    private final Duration retention;
+    private final ExecutorService executor;
+    private final Map<String, BulkExportJob> jobs = new ConcurrentHashMap<>();
+
+    public BulkExportService(FHIRClientService fhirClient, String exportDirectory, String supportedTypes,
+                             long maxShardBytes, int pageSize, long retentionHours, int maxConcurrent) {
+        this(fhirClient, FHIRRuntime.getDefault(), exportDirectory, supportedTypes, maxShardBytes, pageSize,
+            retentionHours, maxConcurrent);
+    }
+
+    @Autowired
+    public BulkExportService(
+            FHIRClientService fhirClient,
+            FHIRRuntime fhirRuntime,
+            @Value("${smartbridge.export.directory:data/export}") String exportDirectory,
+            @Value("${smartbridge.export.types:Patient}") String supportedTypes,
+            @Value("${smartbridge.export.max-shard-bytes:67108864}") long maxShardBytes,
+            @Value("${smartbridge.export.page-size:500}") int pageSize,
+            @Value("${smartbridge.export.retention-hours:24}") long retentionHours,
+            @Value("${smartbridge.export.max-concurrent:1}") int maxConcurrent) {
+        this.fhirClient = fhirClient;
+        this.fhirRuntime = fhirRuntime;
+        this.exportDirectory = Paths.get(exportDirectory).toAbsolutePath().normalize();
+        this.supportedTypes = Arrays.stream(supportedTypes.split(","))
+            .map(String::trim)
+            .filter(type -> !type.isEmpty())
+            .collect(Collectors.toList());
+        this.maxShardBytes = maxShardBytes;
+        this.pageSize = pageSize;
+        this.retention = Duration.ofHours(retentionHours);
+
+        AtomicInteger counter = new AtomicInteger(1);
+        this.executor = Executors.newFixedThreadPool(Math.max(1, maxConcurrent), runnable -> {
+            Thread thread = new Thread(runnable, "bulk-export-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Start an export in the background.
+     *
+     * @param types Resource types to export, or null/empty for all supported types
+     * @param since Only export resources updated after this instant, or null for everything
+     * @return The accepted job
+     * @throws IllegalArgumentException if a requested type is not exported by Smart Bridge
+     */
+    public BulkExportJob kickOff(List<String> types, Date since) {
+        List<String> requested = types == null || types.isEmpty() ? supportedTypes : types;
+        for (String type : requested) {
+            if (!supportedTypes.contains(type)) {
+                throw new IllegalArgumentException("Resource type " + type + " is not exported, supported: " + supportedTypes);
+            }
+        }
+
+        BulkExportJob job = new BulkExportJob(UUID.randomUUID().toString(), requested, since);
+        jobs.put(job.getId(), job);
+        executor.execute(() -> run(job));
+        logger.info("Accepted bulk export {} for {} since {}", job.getId(), requested, since);
+        return job;
+    }
+
+    /**
+     * @return The job, or null if unknown or expired
+     */
+    public BulkExportJob getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    /**
+     * Cancel an export if it is still running and delete its files.
+     *
+     * @return false if the job is unknown
+     */
+    public boolean delete(String jobId) {
+        BulkExportJob job = jobs.remove(jobId);
+        if (job == null) {
+            return false;
+        }
+        job.cancel();
+        deleteFiles(job);
+        logger.info("Deleted bulk export {}", jobId);
+        return true;
+    }
+
+    /**
+     * Resolve an output file of a completed export for download.
+     *
+     * @return The file, or null if the job is unknown, not complete, or did not produce this file
+     */
+    public Path resolveOutputFile(String jobId, String fileName) {
+        BulkExportJob job = jobs.get(jobId);
+        if (job == null || job.getState() != BulkExportJob.State.COMPLETED) {
+            return null;
+        }
+        // Only names from the manifest are served, so the path cannot escape the job directory
+        boolean listed = job.getOutputs().stream().anyMatch(file -> file.getFileName().equals(fileName));
+        return listed ? jobDirectory(job).resolve(fileName) : null;
+    }
+
+    public List<String> getSupportedTypes() {
+        return supportedTypes;
+    }
+
+    /**
+     * Delete finished exports older than the retention period.
+     */
+    @Scheduled(fixedDelayString = "${smartbridge.export.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        Instant cutoff = Instant.now().minus(retention);
+        Iterator<BulkExportJob> iterator = jobs.values().iterator();
+        while (iterator.hasNext()) {
+            BulkExportJob job = iterator.next();
+            if (job.isFinished() && job.getFinishedAt() != null && job.getFinishedAt().isBefore(cutoff)) {
+                iterator.remove();
+                deleteFiles(job);
+                logger.info("Purged expired bulk export {}", job.getId());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobs.values().forEach(BulkExportJob::cancel);
+        executor.shutdownNow();
+    }
+
+    private void run(BulkExportJob job) {
+        // Resources updated after this instant may or may not be included; the next _since picks them up
+        if (!job.markStarted(Instant.now())) {
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        Path directory = jobDirectory(job);
+        IParser parser = fhirRuntime.borrowJsonParser();
+
+        try {
+            Files.createDirectories(directory);
+            for (String type : job.getTypes()) {
+                job.setCurrentType(type);
+                exportType(job, type, directory, parser);
+            }
+            job.markCompleted();
+            logger.info("Bulk export {} completed: {} resources in {} files in {}ms", job.getId(),
+                job.getExported(), job.getOutputs().size(), System.currentTimeMillis() - startTime);
+        } catch (CancellationException e) {
+            logger.info("Bulk export {} cancelled after {} resources", job.getId(), job.getExported());
+            deleteFiles(job);
+        } catch (Exception e) {
+            logger.error("Bulk export {} failed", job.getId(), e);
+            deleteFiles(job);
+            job.markFailed(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        } finally {
+            job.setCurrentType(null);
+            fhirRuntime.releaseJsonParser(parser);
+        }
+    }
+
+    private void exportType(BulkExportJob job, String type, Path directory, IParser parser) throws IOException {
+        Class<? extends Resource> resourceClass =
+            fhirRuntime.getContext().getResourceDefinition(type).getImplementingClass().asSubclass(Resource.class);
+        String identifierSystem = "Patient".equals(type) ? UCSToFHIRTransformer.OPENSRP_ID_SYSTEM : null;
+
+        try (NdjsonShardWriter writer = new NdjsonShardWriter(directory, type, maxShardBytes, job::addOutput)) {
+            fhirClient.scanResourcesUpdatedSince(resourceClass, identifierSystem, job.getSince(), pageSize, resource -> {
+                if (job.getState() == BulkExportJob.State.CANCELLED) {
+                    throw new CancellationException();
+                }
+                try {
+                    writer.write(parser.encodeResourceToString(resource));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                job.recordExported();
+            });
+        }
+    }
+
+    private Path jobDirectory(BulkExportJob job) {
+        return exportDirectory.resolve(job.getId());
+    }
+
+    private void deleteFiles(BulkExportJob job) {
+        Path directory = jobDirectory(job);
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    logger.warn("Could not delete export file {}", path, e);
+                }
+            });
+        } catch (IOException e) {
+            logger.warn("Could not delete export directory {}", directory, e);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.smartbridge.core.export;
+
+import com.smartbridge.core.export.BulkExportJob.ExportFile;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes NDJSON lines for one resource type into gzip-compressed shards.
+ * A new shard is started once the current one holds <code>maxShardBytes</code> of
+ * uncompressed NDJSON. Shards are written under a <code>.part</code> name and renamed
+ * when complete, so a download never sees a partial file.
+ */
+class NdjsonShardWriter implements Closeable {
+
+    private static final byte[] NEWLINE = {'\n'};
+
+    private final Path directory;
+    private final String resourceType;
+    private final long maxShardBytes;
+    private final Consumer<ExportFile> onShardCompleted;
+
+    private int shardNumber;
+    private Path partFile;
+    private OutputStream out;
+    private long shardBytes;
+    private long shardCount;
+
+    NdjsonShardWriter(Path directory, String resourceType, long maxShardBytes, Consumer<ExportFile> onShardCompleted) {
+        this.directory = directory;
+        this.resourceType = resourceType;
+        this.maxShardBytes = maxShardBytes;
+        this.onShardCompleted = onShardCompleted;
+    }
+
+    /**
+     * Append one resource, serialized as single-line JSON.
+     */
+    void write(String json) throws IOException {
+        if (out == null) {
+            openShard();
+        }
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        out.write(bytes);
+        out.write(NEWLINE);
+        shardBytes += bytes.length + 1;
+        shardCount++;
+        if (shardBytes >= maxShardBytes) {
+            closeShard();
+        }
+    }
+
+    /**
+     * Complete the current shard. Types without resources produce no file.
+     */
+    @Override
+    public void close() throws IOException {
+        closeShard();
+    }
+
+    private void openShard() throws IOException {
+        shardNumber++;
+        partFile = directory.resolve(fileName() + ".part");
+        out = new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(partFile), 64 * 1024));
+        shardBytes = 0;
+        shardCount = 0;
+    }
+
+    private void closeShard() throws IOException {
+        if (out == null) {
+            return;
+        }
+        out.close();
+        out = null;
+        Path shardFile = directory.resolve(fileName());
+        Files.move(partFile, shardFile, StandardCopyOption.REPLACE_EXISTING);
+        onShardCompleted.accept(new ExportFile(resourceType, shardFile.getFileName().toString(),
+            shardCount, Files.size(shardFile)));
+    }
+
+    private String fileName() {
+        return String.format("%s-%03d.ndjson.gz", resourceType, shardNumber);
+    }
+}
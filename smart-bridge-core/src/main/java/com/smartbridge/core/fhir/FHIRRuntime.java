@@ -0,0 +1,213 @@
+package com.smartbridge.core.fhir;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.parser.IParser;
+import ca.uhn.fhir.rest.client.api.ServerValidationModeEnum;
+import ca.uhn.fhir.validation.FhirValidator;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.MedicationRequest;
+import org.hl7.fhir.r4.model.Observation;
+import org.hl7.fhir.r4.model.OperationOutcome;
+import org.hl7.fhir.r4.model.Patient;
+import org.hl7.fhir.r4.model.Resource;
+import org.hl7.fhir.r4.model.Subscription;
+import org.hl7.fhir.r4.model.Task;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * The FHIR R4 runtime shared by the application: one {@link FhirContext}, a pool of JSON
+ * parsers and the HAPI validator.
+ *
+ * A FhirContext holds the model metadata of every resource type it has seen and is expensive
+ * to build and to fill, so the application uses a single one. Parsers are cheap but not
+ * thread-safe; pooled parsers are handed to one thread at a time and must be returned with
+ * their default settings.
+ *
+ * The warm-up routine loads the definitions of the resource types the bridge exchanges and
+ * runs them through a parser and the validator, so the first requests do not pay for it.
+ */
+public class FHIRRuntime {
+
+    private static final Logger logger = LoggerFactory.getLogger(FHIRRuntime.class);
+
+    /** Resource types loaded by {@link #warmUp()}. */
+    static final List<Class<? extends Resource>> WARM_UP_TYPES = List.of(
+        Patient.class, Observation.class, Task.class, Bundle.class,
+        MedicationRequest.class, Subscription.class, OperationOutcome.class);
+
+    private final FhirContext fhirContext;
+    private final BlockingQueue<IParser> jsonParsers;
+    private final Object lock = new Object();
+
+    private volatile FhirValidator validator;
+    private volatile CompletableFuture<Void> warmUp;
+
+    /**
+     * @param fhirContext    R4 context to share
+     * @param parserPoolSize Idle JSON parsers kept for reuse, 0 for two per processor
+     */
+    public FHIRRuntime(FhirContext fhirContext, int parserPoolSize) {
+        this.fhirContext = fhirContext;
+        // Skip the capability statement fetch when generic clients are created
+        this.fhirContext.getRestfulClientFactory().setServerValidationMode(ServerValidationModeEnum.NEVER);
+        int poolSize = parserPoolSize > 0 ? parserPoolSize : 2 * Runtime.getRuntime().availableProcessors();
+        this.jsonParsers = new ArrayBlockingQueue<>(poolSize);
+    }
+
+    public FHIRRuntime(FhirContext fhirContext) {
+        this(fhirContext, 0);
+    }
+
+    /**
+     * Runtime shared by components created outside the Spring context, e.g. through their
+     * no-argument constructors in tests and tools.
+     */
+    public static FHIRRuntime getDefault() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    private static final class DefaultHolder {
+        private static final FHIRRuntime INSTANCE = new FHIRRuntime(FhirContext.forR4());
+    }
+
+    public FhirContext getContext() {
+        return fhirContext;
+    }
+
+    /**
+     * Take a JSON parser from the pool, or a new one if the pool is empty.
+     * Return it with {@link #releaseJsonParser(IParser)} without changing its settings.
+     */
+    public IParser borrowJsonParser() {
+        IParser parser = jsonParsers.poll();
+        return parser != null ? parser : fhirContext.newJsonParser();
+    }
+
+    /**
+     * Return a parser taken with {@link #borrowJsonParser()}. Parsers beyond the pool size are dropped.
+     */
+    public void releaseJsonParser(IParser parser) {
+        if (parser != null) {
+            jsonParsers.offer(parser);
+        }
+    }
+
+    /**
+     * Run an action with a pooled JSON parser.
+     */
+    public <T> T withJsonParser(Function<IParser, T> action) {
+        IParser parser = borrowJsonParser();
+        try {
+            return action.apply(parser);
+        } finally {
+            releaseJsonParser(parser);
+        }
+    }
+
+    public String encodeToJson(IBaseResource resource) {
+        return withJsonParser(parser -> parser.encodeResourceToString(resource));
+    }
+
+    public <T extends IBaseResource> T parseJson(Class<T> resourceType, String json) {
+        return withJsonParser(parser -> parser.parseResource(resourceType, json));
+    }
+
+    public IBaseResource parseJson(String json) {
+        return withJsonParser(parser -> parser.parseResource(json));
+    }
+
+    /**
+     * @return The shared, thread-safe HAPI validator, created on first use
+     */
+    public FhirValidator getValidator() {
+        FhirValidator current = validator;
+        if (current == null) {
+            synchronized (lock) {
+                current = validator;
+                if (current == null) {
+                    current = fhirContext.newValidator();
+                    validator = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Load the definitions of the exchanged resource types, round-trip each through a pooled
+     * parser and create the validator.
+     */
+    public void warmUp() {
+        long startNanos = System.nanoTime();
+        for (Class<? extends Resource> type : WARM_UP_TYPES) {
+            fhirContext.getResourceDefinition(type);
+            try {
+                Resource sample = type.getDeclaredConstructor().newInstance();
+                parseJson(type, encodeToJson(sample));
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Cannot instantiate " + type.getSimpleName(), e);
+            }
+        }
+        getValidator();
+        logger.info("FHIR runtime warmed up in {} ms ({} resource types)",
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos), WARM_UP_TYPES.size());
+    }
+
+    /**
+     * Start {@link #warmUp()} on a background thread, once.
+     */
+    public CompletableFuture<Void> startWarmUp() {
+        synchronized (lock) {
+            if (warmUp == null) {
+                warmUp = CompletableFuture.runAsync(this::warmUp, runnable -> {
+                    Thread thread = new Thread(runnable, "fhir-runtime-warmup");
+                    thread.setDaemon(true);
+                    thread.start();
+                });
+            }
+            return warmUp;
+        }
+    }
+
+    /**
+     * Wait for a started warm-up to finish.
+     *
+     * @return true if the warm-up completed, false if it was not started or did not finish in time
+     * @throws IllegalStateException if the warm-up failed
+     */
+    public boolean awaitWarmUp(Duration timeout) throws InterruptedException {
+        CompletableFuture<Void> current = warmUp;
+        if (current == null) {
+            return false;
+        }
+        try {
+            current.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("FHIR runtime warm-up failed", e.getCause());
+        }
+    }
+
+    public boolean isWarmedUp() {
+        CompletableFuture<Void> current = warmUp;
+        return current != null && current.isDone() && !current.isCompletedExceptionally();
+    }
+
+    int getIdleParserCount() {
+        return jsonParsers.size();
+    }
+}
@@ -0,0 +1,159 @@
+package com.smartbridge.core.fhir;
+
+import ca.uhn.fhir.parser.DataFormatException;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import org.hl7.fhir.r4.model.Resource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Reads a JSON Bundle entry by entry from a stream.
+ *
+ * Only one entry resource is held at a time: its JSON is copied token by token into a
+ * buffer of at most <code>maxEntryBytes</code>, parsed with a pooled parser of the
+ * {@link FHIRRuntime} and handed to the consumer before the next entry is read. Memory
+ * per request is therefore bounded by the largest entry, not by the Bundle. All other
+ * Bundle elements are skipped.
+ *
+ * The Bundle's <code>resourceType</code> must come before its <code>entry</code> array,
+ * as in every FHIR server's output, so entries are never dispatched for other resources.
+ */
+public class StreamingBundleReader {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final FHIRRuntime fhirRuntime;
+    private final int maxEntryBytes;
+
+    /**
+     * @param fhirRuntime   Runtime whose parsers parse the entry resources
+     * @param maxEntryBytes Largest JSON size accepted for a single entry resource
+     */
+    public StreamingBundleReader(FHIRRuntime fhirRuntime, int maxEntryBytes) {
+        if (maxEntryBytes <= 0) {
+            throw new IllegalArgumentException("Maximum entry size must be positive");
+        }
+        this.fhirRuntime = fhirRuntime;
+        this.maxEntryBytes = maxEntryBytes;
+    }
+
+    /**
+     * Read a Bundle and pass each entry resource to the consumer as soon as it is parsed.
+     * Entries without a resource, such as deletions in a history Bundle, are skipped.
+     *
+     * @param in       Bundle JSON, not closed by this method
+     * @param consumer Receives the entry resources in document order
+     * @return Number of entry resources passed to the consumer
+     * @throws DataFormatException if the stream is not a Bundle or an entry is invalid or too large
+     * @throws IOException         if the stream cannot be read
+     */
+    public int read(InputStream in, Consumer<Resource> consumer) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new DataFormatException("Bundle must be a JSON object");
+            }
+
+            EntryBuffer buffer = new EntryBuffer(maxEntryBytes);
+            boolean bundle = false;
+            int count = 0;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("resourceType".equals(field)) {
+                    if (!"Bundle".equals(parser.getValueAsString())) {
+                        throw new DataFormatException("Expected a Bundle but found " + parser.getValueAsString());
+                    }
+                    bundle = true;
+                } else if ("entry".equals(field)) {
+                    if (!bundle) {
+                        throw new DataFormatException("Bundle resourceType must precede its entries");
+                    }
+                    if (value != JsonToken.START_ARRAY) {
+                        throw new DataFormatException("Bundle.entry must be an array");
+                    }
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        count += readEntry(parser, buffer, consumer);
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (!bundle) {
+                throw new DataFormatException("Missing Bundle resourceType");
+            }
+            return count;
+        } catch (JsonProcessingException e) {
+            throw new DataFormatException("Invalid Bundle JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    private int readEntry(JsonParser parser, EntryBuffer buffer, Consumer<Resource> consumer) throws IOException {
+        int count = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if ("resource".equals(field) && value == JsonToken.START_OBJECT) {
+                consumer.accept(parseResource(parser, buffer));
+                count++;
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return count;
+    }
+
+    private Resource parseResource(JsonParser parser, EntryBuffer buffer) throws IOException {
+        buffer.reset();
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(buffer)) {
+            generator.copyCurrentStructure(parser);
+        }
+        return (Resource) fhirRuntime.withJsonParser(jsonParser -> jsonParser.parseResource(
+            new InputStreamReader(buffer.toInputStream(), StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Buffer for one entry resource, reused across the entries of a request.
+     */
+    private static final class EntryBuffer extends ByteArrayOutputStream {
+
+        private final int maxBytes;
+
+        EntryBuffer(int maxBytes) {
+            super(Math.min(maxBytes, 8192));
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public void write(int b) {
+            ensureCapacity(1);
+            super.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            ensureCapacity(len);
+            super.write(b, off, len);
+        }
+
+        private void ensureCapacity(int len) {
+            if (count + len > maxBytes) {
+                throw new DataFormatException("Bundle entry exceeds " + maxBytes + " bytes");
+            }
+        }
+
+        InputStream toInputStream() {
+            return new ByteArrayInputStream(buf, 0, count);
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.smartbridge.core.flow;
+
+import com.smartbridge.core.model.ucs.UCSClient;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Stores a 64-bit fingerprint of the mapped fields of every successfully ingested UCS client.
+ * Lets the ingestion flow skip validation, transformation and the FHIR write when UCS
+ * re-sends a client whose mapped content has not changed, e.g. after a serverVersion bump
+ * for a field the bridge does not map.
+ *
+ * Only fields read by UCSToFHIRTransformer are fingerprinted: opensrp/national id, name,
+ * gender, birth date and address. The fingerprint is salted with the mapping version, so
+ * a mapping change re-ingests every client. The store is snapshotted to disk periodically;
+ * losing recent entries only causes a redundant re-ingestion.
+ */
+@Component
+public class ClientFingerprintStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClientFingerprintStore.class);
+    // Version 1 fingerprints were unsalted and trimmed values
+    private static final int FILE_FORMAT_VERSION = 2;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final Path snapshotFile;
+    private final Map<String, Long> fingerprints = new ConcurrentHashMap<>();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    public ClientFingerprintStore(
+            @Value("${smartbridge.ingestion.fingerprint.file:data/client-fingerprints.bin}") String snapshotFile) {
+        this.snapshotFile = Paths.get(snapshotFile);
+        load();
+    }
+
+    /**
+     * Compute the fingerprint of the mapped fields of a client.
+     * Values are hashed as the transformer reads them: strings are neither trimmed nor
+     * blank-folded because they are copied to the Patient as they are, an empty national
+     * id counts as absent because it is not mapped, and gender is case-insensitive because
+     * it is matched ignoring case.
+     *
+     * @param mappingVersion Version of the mapping that transforms the client
+     */
+    public static long fingerprint(UCSClient client, String mappingVersion) {
+        long hash = mix(FNV_OFFSET_BASIS, mappingVersion);
+
+        UCSClient.UCSIdentifiers identifiers = client.getIdentifiers();
+        hash = mix(hash, identifiers != null ? identifiers.getOpensrpId() : null);
+        String nationalId = identifiers != null ? identifiers.getNationalId() : null;
+        hash = mix(hash, nationalId != null && !nationalId.isEmpty() ? nationalId : null);
+
+        UCSClient.UCSDemographics demographics = client.getDemographics();
+        hash = mix(hash, demographics != null ? demographics.getFirstName() : null);
+        hash = mix(hash, demographics != null ? demographics.getLastName() : null);
+        String gender = demographics != null ? demographics.getGender() : null;
+        hash = mix(hash, gender != null ? gender.toUpperCase() : null);
+        hash = mix(hash, demographics != null && demographics.getBirthDate() != null
+            ? demographics.getBirthDate().toString() : null);
+
+        UCSClient.UCSAddress address = demographics != null ? demographics.getAddress() : null;
+        hash = mix(hash, address != null ? "address" : null);
+        if (address != null) {
+            hash = mix(hash, address.getDistrict());
+            hash = mix(hash, address.getWard());
+            hash = mix(hash, address.getVillage());
+        }
+
+        return fmix64(hash);
+    }
+
+    /**
+     * @return true if the client was ingested before with exactly this fingerprint
+     */
+    public boolean isUnchanged(String clientId, long fingerprint) {
+        if (clientId == null) {
+            return false;
+        }
+        Long stored = fingerprints.get(clientId);
+        return stored != null && stored == fingerprint;
+    }
+
+    /**
+     * Remember the fingerprint of a successfully ingested client.
+     */
+    public void record(String clientId, long fingerprint) {
+        if (clientId == null) {
+            return;
+        }
+        Long previous = fingerprints.put(clientId, fingerprint);
+        if (previous == null || previous != fingerprint) {
+            dirty.set(true);
+        }
+    }
+
+    /**
+     * Forget a client so its next update is ingested regardless of content.
+     */
+    public void invalidate(String clientId) {
+        if (clientId != null && fingerprints.remove(clientId) != null) {
+            dirty.set(true);
+        }
+    }
+
+    public int size() {
+        return fingerprints.size();
+    }
+
+    /**
+     * Write a snapshot if anything changed since the last one.
+     */
+    @Scheduled(fixedDelayString = "${smartbridge.ingestion.fingerprint.flush-interval-ms:60000}")
+    @PreDestroy
+    public void flush() {
+        if (!dirty.getAndSet(false)) {
+            return;
+        }
+        try {
+            writeSnapshot();
+            logger.debug("Saved {} client fingerprints", fingerprints.size());
+        } catch (IOException e) {
+            dirty.set(true);
+            logger.error("Failed to save client fingerprints", e);
+        }
+    }
+
+    private void load() {
+        if (!Files.exists(snapshotFile)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile)))) {
+            int version = in.readInt();
+            if (version != FILE_FORMAT_VERSION) {
+                logger.warn("Ignoring client fingerprint snapshot with unknown format {}", version);
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String clientId = in.readUTF();
+                fingerprints.put(clientId, in.readLong());
+            }
+            logger.info("Loaded {} client fingerprints", fingerprints.size());
+        } catch (EOFException e) {
+            logger.warn("Client fingerprint snapshot is truncated, loaded {} entries", fingerprints.size());
+        } catch (IOException e) {
+            logger.warn("Could not load client fingerprints, all clients will be re-ingested", e);
+            fingerprints.clear();
+        }
+    }
+
+    private void writeSnapshot() throws IOException {
+        Path directory = snapshotFile.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        Path tempFile = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+
+        // Copy first so the count written matches the entries written
+        Map<String, Long> snapshot = Map.copyOf(fingerprints);
+        try (FileChannel channel = FileChannel.open(tempFile,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream channelOut = Channels.newOutputStream(channel);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(channelOut));
+            out.writeInt(FILE_FORMAT_VERSION);
+            out.writeInt(snapshot.size());
+            for (Map.Entry<String, Long> entry : snapshot.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue());
+            }
+            out.flush();
+            channel.force(true);
+        }
+
+        try {
+            Files.move(tempFile, snapshotFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Feed one field into a 64-bit FNV-1a hash. Each field is length-prefixed and absent
+     * fields use a distinct marker, so ("ab", "c") and ("a", "bc") hash differently.
+     */
+    private static long mix(long hash, String value) {
+        if (value == null) {
+            return mixByte(hash, (byte) 0xff);
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        hash = mixInt(hash, bytes.length);
+        for (byte b : bytes) {
+            hash = mixByte(hash, b);
+        }
+        return hash;
+    }
+
+    private static long mixInt(long hash, int value) {
+        hash = mixByte(hash, (byte) (value >>> 24));
+        hash = mixByte(hash, (byte) (value >>> 16));
+        hash = mixByte(hash, (byte) (value >>> 8));
+        return mixByte(hash, (byte) value);
+    }
+
+    private static long mixByte(long hash, byte b) {
+        return (hash ^ (b & 0xff)) * FNV_PRIME;
+    }
+
+    /**
+     * MurmurHash3 64-bit finalizer; spreads FNV's weak low-bit diffusion across the whole word.
+     */
+    private static long fmix64(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -1,9 +1,19 @@
 package com.smartbridge.core.flow;
 
 import ca.uhn.fhir.rest.api.MethodOutcome;
+import ca.uhn.fhir.rest.server.exceptions.PreconditionFailedException;
+import ca.uhn.fhir.rest.server.exceptions.ResourceGoneException;
+import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
+import ca.uhn.fhir.rest.server.exceptions.ResourceVersionConflictException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.smartbridge.core.audit.AuditLogger;
+import com.smartbridge.core.client.AsyncFHIRClient;
+import com.smartbridge.core.client.BatchingFHIRWriter;
 import com.smartbridge.core.client.FHIRClientService;
+import com.smartbridge.core.client.PatientIdentifierIndex;
+import com.smartbridge.core.concurrency.StreamingResultPublisher;
+import com.smartbridge.core.concurrency.StripedLockManager;
+import com.smartbridge.core.concurrency.UpdateCoalescer;
 import com.smartbridge.core.interfaces.TransformationException;
 import com.smartbridge.core.interfaces.TransformationService;
 import com.smartbridge.core.model.fhir.FHIRResourceWrapper;
@@ -14,25 +24,36 @@ import com.smartbridge.core.resilience.ResilientFHIRClient;
 import com.smartbridge.core.transformation.ConcurrentTransformationService;
 import com.smartbridge.core.validation.UCSClientValidator;
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.hl7.fhir.r4.model.Patient;
 import org.hl7.fhir.r4.model.Resource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.Executor;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * Ingestion Flow Service for UCS to FHIR data flow.
  * Orchestrates the complete flow: validation -> transformation -> FHIR storage.
+ * Asynchronous ingestion runs the CPU-bound and IO-bound halves on separate {@link IngestionStages}.
  * Includes performance monitoring, transaction coordination, and rollback capabilities.
  * 
  * Requirements: 3.1, 7.1
@@ -42,6 +63,8 @@ public class IngestionFlowService {
 
     private static final Logger logger = LoggerFactory.getLogger(IngestionFlowService.class);
     private static final long PERFORMANCE_THRESHOLD_MS = 5000; // 5 seconds requirement
+    private static final int CLIENT_LOCK_STRIPES = 1024;
+    private static final int DEFAULT_STREAMING_MAX_IN_FLIGHT = 256;
 
     private final UCSClientValidator ucsValidator;
     private final TransformationService transformer;
@@ -53,12 +76,27 @@ public class IngestionFlowService {
     private final ConcurrentTransformationService concurrentTransformationService;
     private final Executor transformationExecutor;
 
-    // Thread-safe tracking of in-progress transformations to prevent duplicates
-    private final Map<String, CompletableFuture<IngestionFlowResult>> inProgressTransformations = 
-        new ConcurrentHashMap<>();
+    // Per-client coalescing of asynchronous ingestions: updates arriving while a client is being
+    // written, or within the quiet period, replace each other so only the latest state is ingested
+    private final UpdateCoalescer<String, UCSClient, IngestionFlowResult> ingestionCoalescer =
+        new UpdateCoalescer<>("ingestion", this::submitIngestion);
     
-    // Read-write lock for transaction coordination
-    private final ReadWriteLock transactionLock = new ReentrantReadWriteLock();
+    // Orders FHIR writes per client: the identifier lookup and the create or update must not
+    // interleave with another write of the same client, while other clients proceed in parallel
+    private final StripedLockManager clientLocks = new StripedLockManager("ingestion-client", CLIENT_LOCK_STRIPES);
+
+    // Runs the source reads and subscriber signals of streaming ingestions, one task per active stream,
+    // so they never run on the stage or FHIR client threads completing the ingestions
+    private final ExecutorService streamingExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "ingestion-stream-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
 
     @Autowired(required = false)
     private Timer transformationTimer;
@@ -69,6 +107,35 @@ public class IngestionFlowService {
     @Autowired(required = false)
     private Counter transformationErrorCounter;
 
+    // Present only when smartbridge.fhir.batch.enabled=true
+    @Autowired(required = false)
+    private BatchingFHIRWriter batchingFHIRWriter;
+
+    @Autowired(required = false)
+    private PatientIdentifierIndex patientIdentifierIndex;
+
+    @Autowired(required = false)
+    private ClientFingerprintStore clientFingerprintStore;
+
+    @Autowired(required = false)
+    private Counter ingestionUnchangedSkippedCounter;
+
+    @Autowired(required = false)
+    private IngestionStages ingestionStages;
+
+    // Present only when smartbridge.fhir.async.enabled=true
+    @Autowired(required = false)
+    private AsyncFHIRClient asyncFHIRClient;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Value("${smartbridge.ingestion.coalesce.quiet-period-ms:0}")
+    private long coalesceQuietPeriodMs;
+
+    @Value("${smartbridge.ingestion.streaming.max-in-flight:256}")
+    private int streamingMaxInFlight;
+
     public IngestionFlowService(
             UCSClientValidator ucsValidator,
             TransformationService transformer,
@@ -91,6 +158,22 @@ public class IngestionFlowService {
         logger.info("IngestionFlowService initialized with concurrent processing support");
     }
 
+    @PostConstruct
+    public void registerLockMetrics() {
+        ingestionCoalescer.setQuietPeriodMs(coalesceQuietPeriodMs);
+        ingestionCoalescer.setFlushExecutor(transformationExecutor);
+        if (meterRegistry != null) {
+            clientLocks.bindTo(meterRegistry);
+            ingestionCoalescer.bindTo(meterRegistry);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ingestionCoalescer.shutdown();
+        streamingExecutor.shutdownNow();
+    }
+
     /**
      * Process UCS client data through the complete ingestion flow.
      * Validates, transforms, and stores data in FHIR server.
@@ -100,84 +183,208 @@ public class IngestionFlowService {
      * @return IngestionFlowResult containing the outcome and metrics
      */
     public IngestionFlowResult processIngestion(UCSClient ucsClient) {
+        return completeIngestion(prepareIngestion(ucsClient));
+    }
+
+    /**
+     * Run the CPU-bound half of the ingestion flow: validation and transformation.
+     * Clients whose mapped fields are unchanged since their last successful ingestion
+     * are marked as skipped before validation.
+     * Never throws; a failure is carried in the returned PreparedIngestion and
+     * reported when it is passed to {@link #completeIngestion(PreparedIngestion)}.
+     * 
+     * @param ucsClient The UCS client data to process
+     * @return PreparedIngestion holding the transformed resource or the failure
+     */
+    public PreparedIngestion prepareIngestion(UCSClient ucsClient) {
         String transactionId = UUID.randomUUID().toString();
         long startTime = System.currentTimeMillis();
         
         logger.info("Starting ingestion flow: transactionId={}", transactionId);
         
-        IngestionFlowResult result = new IngestionFlowResult(transactionId);
+        PreparedIngestion prepared = new PreparedIngestion(ucsClient, new IngestionFlowResult(transactionId), startTime);
+        
+        // Step 0: Skip clients whose mapped content has not changed
+        String opensrpId = ucsClient != null && ucsClient.getIdentifiers() != null
+            ? ucsClient.getIdentifiers().getOpensrpId() : null;
+        if (clientFingerprintStore != null && opensrpId != null) {
+            prepared.fingerprint = ClientFingerprintStore.fingerprint(ucsClient, transformer.getMappingVersion());
+            prepared.fingerprintKey = opensrpId;
+            if (clientFingerprintStore.isUnchanged(opensrpId, prepared.fingerprint)) {
+                prepared.skipped = true;
+                return prepared;
+            }
+        }
         
         try {
             // Step 1: Validate UCS client data
-            validateUCSClient(ucsClient, result);
+            validateUCSClient(ucsClient, prepared.result);
             
             // Step 2: Transform to FHIR
-            FHIRResourceWrapper<? extends Resource> fhirWrapper = transformToFHIR(ucsClient, result);
-            
-            // Step 3: Store in FHIR server
-            String fhirResourceId = storeInFHIR(fhirWrapper, result);
-            
-            // Step 4: Record success
-            long duration = System.currentTimeMillis() - startTime;
+            prepared.fhirWrapper = transformToFHIR(ucsClient, prepared.result);
+        } catch (Exception e) {
+            prepared.failure = e;
+        }
+        
+        return prepared;
+    }
+
+    /**
+     * Run the IO-bound half of the ingestion flow: FHIR storage, auditing and metrics.
+     * If preparation failed, only the failure handling is performed.
+     * 
+     * @param prepared The output of {@link #prepareIngestion(UCSClient)}
+     * @return IngestionFlowResult containing the outcome and metrics
+     */
+    public IngestionFlowResult completeIngestion(PreparedIngestion prepared) {
+        UCSClient ucsClient = prepared.ucsClient;
+        IngestionFlowResult result = prepared.result;
+        String transactionId = result.getTransactionId();
+        long startTime = prepared.startTime;
+        
+        if (prepared.skipped) {
             result.setSuccess(true);
-            result.setDurationMs(duration);
-            result.setFhirResourceId(fhirResourceId);
-            
-            // Log audit trail
-            auditLogger.logTransformation(
-                "UCS", "FHIR", "INGESTION",
-                getUCSClientId(ucsClient), fhirResourceId,
-                true, "Ingestion completed successfully"
-            );
-            
-            // Check performance threshold
-            if (duration > PERFORMANCE_THRESHOLD_MS) {
-                auditLogger.logPerformanceAlert(
-                    "IngestionFlowService", "ingestion_duration",
-                    duration, PERFORMANCE_THRESHOLD_MS,
-                    "Ingestion exceeded 5-second threshold"
-                );
-                logger.warn("Ingestion exceeded performance threshold: {}ms > {}ms",
-                    duration, PERFORMANCE_THRESHOLD_MS);
+            result.setSkipped(true);
+            result.setDurationMs(System.currentTimeMillis() - startTime);
+            if (ingestionUnchangedSkippedCounter != null) {
+                ingestionUnchangedSkippedCounter.increment();
             }
-            
-            // Update metrics
-            if (transformationSuccessCounter != null) {
-                transformationSuccessCounter.increment();
+            logger.debug("Ingestion skipped, client unchanged: transactionId={}, clientId={}",
+                transactionId, prepared.fingerprintKey);
+            return result;
+        }
+        
+        try {
+            if (prepared.failure != null) {
+                throw prepared.failure;
             }
             
-            logger.info("Ingestion flow completed successfully: transactionId={}, duration={}ms",
-                transactionId, duration);
+            // Step 3: Store in FHIR server, ordered with other writes of the same client
+            String fhirResourceId = clientLocks.withLock(clientLockKey(ucsClient), () -> {
+                String storedId = await(storeInFHIR(prepared.fhirWrapper, result, blockingPatientStore));
+                recordFingerprint(prepared);
+                return storedId;
+            });
             
-            return result;
+            return recordSuccess(prepared, fhirResourceId);
             
         } catch (Exception e) {
-            long duration = System.currentTimeMillis() - startTime;
-            result.setSuccess(false);
-            result.setDurationMs(duration);
-            result.setErrorMessage(e.getMessage());
-            
-            // Log error
-            logger.error("Ingestion flow failed: transactionId={}, duration={}ms, error={}",
-                transactionId, duration, e.getMessage(), e);
-            
-            // Audit error
-            auditLogger.logTransformation(
-                "UCS", "FHIR", "INGESTION",
-                getUCSClientId(ucsClient), null,
-                false, "Ingestion failed: " + e.getMessage()
+            return recordFailure(prepared, e);
+        }
+    }
+
+    /**
+     * Non-blocking variant of {@link #completeIngestion(PreparedIngestion)} used when the
+     * asynchronous FHIR client or the batching writer is enabled: no thread waits for the
+     * FHIR server to answer a create, so concurrent creates can fill a Bundle. Without the
+     * asynchronous client, updates of indexed Patients still block the calling thread.
+     * The write holds the same client lock as the blocking path until it completes, so it
+     * is ordered with synchronous ingestions of the client (NDJSON import, webhooks) and
+     * cannot create a duplicate Patient. Skipped and failed preparations complete inline.
+     * 
+     * @param prepared The output of {@link #prepareIngestion(UCSClient)}
+     * @return Future completed with the ingestion result; never completes exceptionally
+     */
+    public CompletableFuture<IngestionFlowResult> completeIngestionAsync(PreparedIngestion prepared) {
+        if (!hasNonBlockingCreate() || prepared.skipped || prepared.failure != null) {
+            return CompletableFuture.completedFuture(completeIngestion(prepared));
+        }
+        
+        PatientStore store = asyncFHIRClient != null ? asyncPatientStore : blockingPatientStore;
+        return clientLocks.withLockAsync(clientLockKey(prepared.ucsClient),
+                () -> storeInFHIR(prepared.fhirWrapper, prepared.result, store)
+                    .thenApply(fhirResourceId -> {
+                        recordFingerprint(prepared);
+                        return fhirResourceId;
+                    }),
+                transformationExecutor)
+            .thenApply(fhirResourceId -> recordSuccess(prepared, fhirResourceId))
+            .exceptionally(error -> recordFailure(prepared, unwrap(error)));
+    }
+
+    /**
+     * @return Whether Patient creates complete without a thread waiting for the FHIR server
+     */
+    public boolean hasNonBlockingCreate() {
+        return asyncFHIRClient != null || batchingFHIRWriter != null;
+    }
+
+    private void recordFingerprint(PreparedIngestion prepared) {
+        if (prepared.fingerprintKey != null) {
+            clientFingerprintStore.record(prepared.fingerprintKey, prepared.fingerprint);
+        }
+    }
+
+    /**
+     * Step 4 of the flow: record a successful ingestion in the result, audit log and metrics.
+     */
+    private IngestionFlowResult recordSuccess(PreparedIngestion prepared, String fhirResourceId) {
+        IngestionFlowResult result = prepared.result;
+        long duration = System.currentTimeMillis() - prepared.startTime;
+        result.setSuccess(true);
+        result.setDurationMs(duration);
+        result.setFhirResourceId(fhirResourceId);
+        
+        // Log audit trail
+        auditLogger.logTransformation(
+            "UCS", "FHIR", "INGESTION",
+            getUCSClientId(prepared.ucsClient), fhirResourceId,
+            true, "Ingestion completed successfully"
+        );
+        
+        // Check performance threshold
+        if (duration > PERFORMANCE_THRESHOLD_MS) {
+            auditLogger.logPerformanceAlert(
+                "IngestionFlowService", "ingestion_duration",
+                duration, PERFORMANCE_THRESHOLD_MS,
+                "Ingestion exceeded 5-second threshold"
             );
-            
-            // Update metrics
-            if (transformationErrorCounter != null) {
-                transformationErrorCounter.increment();
-            }
-            
-            // Queue for retry if appropriate
-            handleIngestionFailure(ucsClient, transactionId, e);
-            
-            return result;
+            logger.warn("Ingestion exceeded performance threshold: {}ms > {}ms",
+                duration, PERFORMANCE_THRESHOLD_MS);
+        }
+        
+        // Update metrics
+        if (transformationSuccessCounter != null) {
+            transformationSuccessCounter.increment();
+        }
+        
+        logger.info("Ingestion flow completed successfully: transactionId={}, duration={}ms",
+            result.getTransactionId(), duration);
+        
+        return result;
+    }
+
+    /**
+     * Record a failed ingestion in the result, audit log and metrics, and queue it for retry.
+     */
+    private IngestionFlowResult recordFailure(PreparedIngestion prepared, Exception e) {
+        IngestionFlowResult result = prepared.result;
+        String transactionId = result.getTransactionId();
+        long duration = System.currentTimeMillis() - prepared.startTime;
+        result.setSuccess(false);
+        result.setDurationMs(duration);
+        result.setErrorMessage(e.getMessage());
+        
+        // Log error
+        logger.error("Ingestion flow failed: transactionId={}, duration={}ms, error={}",
+            transactionId, duration, e.getMessage(), e);
+        
+        // Audit error
+        auditLogger.logTransformation(
+            "UCS", "FHIR", "INGESTION",
+            getUCSClientId(prepared.ucsClient), null,
+            false, "Ingestion failed: " + e.getMessage()
+        );
+        
+        // Update metrics
+        if (transformationErrorCounter != null) {
+            transformationErrorCounter.increment();
         }
+        
+        // Queue for retry if appropriate
+        handleIngestionFailure(prepared.ucsClient, transactionId, e);
+        
+        return result;
     }
 
     /**
@@ -269,33 +476,72 @@ public class IngestionFlowService {
 
     /**
      * Store FHIR resource in HAPI FHIR server.
+     * The same steps run on the blocking and the asynchronous FHIR client; with the
+     * blocking store every step completes on the calling thread.
+     * 
+     * @return Future completed with the stored resource id, or with an IngestionFlowException
      */
-    private String storeInFHIR(FHIRResourceWrapper<? extends Resource> fhirWrapper,
-                               IngestionFlowResult result) {
+    private CompletableFuture<String> storeInFHIR(FHIRResourceWrapper<? extends Resource> fhirWrapper,
+                                                  IngestionFlowResult result, PatientStore store) {
         
         logger.debug("Storing FHIR resource in HAPI FHIR server");
         
-        try {
-            Resource resource = fhirWrapper.getResource();
-            
-            if (!(resource instanceof Patient)) {
-                throw new IngestionFlowException(
-                    "Only Patient resources supported in ingestion flow",
-                    "UNSUPPORTED_RESOURCE_TYPE"
-                );
+        Resource resource = fhirWrapper.getResource();
+        
+        if (!(resource instanceof Patient)) {
+            return CompletableFuture.failedFuture(storageFailure("CREATE", new IngestionFlowException(
+                "Only Patient resources supported in ingestion flow",
+                "UNSUPPORTED_RESOURCE_TYPE"
+            )));
+        }
+        
+        if (patientIdentifierIndex != null && !patientIdentifierIndex.isReady()) {
+            // Creating before the rebuild finishes would duplicate Patients that already exist;
+            // the failure queues the client for retry
+            return CompletableFuture.failedFuture(new IngestionFlowException(
+                "Patient identifier index is still rebuilding",
+                "IDENTIFIER_INDEX_NOT_READY"
+            ));
+        }
+        
+        Patient patient = (Patient) resource;
+        PatientIdentifierIndex.IndexEntry existing = lookupIndexedPatient(patient);
+        String[] operation = {existing != null ? "UPDATE" : "CREATE"};
+        CompletableFuture<MethodOutcome> write;
+        
+        if (existing != null) {
+            write = updateIndexedPatient(patient, existing, store).exceptionallyCompose(e -> {
+                if (!hasCause(e, ResourceNotFoundException.class, ResourceGoneException.class)) {
+                    return CompletableFuture.failedFuture(e);
+                }
+                logger.warn("Indexed Patient {} no longer exists on FHIR server, creating it again",
+                    existing.getFhirId());
+                patientIdentifierIndex.remove(patient);
+                patient.setId((String) null);
+                operation[0] = "CREATE";
+                return store.create(patient);
+            });
+        } else {
+            write = store.create(patient);
+        }
+        
+        return write.handle((outcome, error) -> {
+            if (error != null) {
+                throw storageFailure(operation[0], unwrap(error));
             }
             
-            Patient patient = (Patient) resource;
-            MethodOutcome outcome = resilientFHIRClient.createPatient(patient);
-            
             String resourceId = outcome.getId() != null ? 
                 outcome.getId().getIdPart() : null;
             
             if (resourceId == null) {
-                throw new IngestionFlowException(
+                throw storageFailure(operation[0], new IngestionFlowException(
                     "FHIR resource creation did not return resource ID",
                     "FHIR_STORAGE_FAILED"
-                );
+                ));
+            }
+            
+            if (patientIdentifierIndex != null) {
+                patientIdentifierIndex.record(patient, outcome.getId());
             }
             
             result.setFhirStorageCompleted(true);
@@ -303,28 +549,160 @@ public class IngestionFlowService {
             
             // Log FHIR operation
             auditLogger.logFHIROperation(
-                "CREATE", "Patient", resourceId,
+                operation[0], "Patient", resourceId,
                 fhirClient.getServerBaseUrl(),
-                true, "Patient resource created via ingestion flow"
+                true, "Patient resource " + ("UPDATE".equals(operation[0]) ? "updated" : "created") + " via ingestion flow"
             );
             
             return resourceId;
-            
-        } catch (Exception e) {
-            String errorMsg = "FHIR storage failed: " + e.getMessage();
-            logger.error(errorMsg, e);
-            
-            // Log FHIR operation failure
-            auditLogger.logFHIROperation(
-                "CREATE", "Patient", null,
-                fhirClient.getServerBaseUrl(),
-                false, "Failed to create Patient: " + e.getMessage()
-            );
-            
-            throw new IngestionFlowException(errorMsg, "FHIR_STORAGE_FAILED", e);
+        });
+    }
+
+    /**
+     * Log and audit a failed FHIR write, returning the exception to fail the flow with.
+     */
+    private IngestionFlowException storageFailure(String operation, Exception e) {
+        String errorMsg = "FHIR storage failed: " + e.getMessage();
+        logger.error(errorMsg, e);
+        
+        // Log FHIR operation failure
+        auditLogger.logFHIROperation(
+            operation, "Patient", null,
+            fhirClient.getServerBaseUrl(),
+            false, "Failed to " + operation.toLowerCase() + " Patient: " + e.getMessage()
+        );
+        
+        return new IngestionFlowException(errorMsg, "FHIR_STORAGE_FAILED", e);
+    }
+
+    /**
+     * Find the FHIR id of an already stored Patient by its business identifiers.
+     */
+    private PatientIdentifierIndex.IndexEntry lookupIndexedPatient(Patient patient) {
+        if (patientIdentifierIndex == null) {
+            return null;
         }
+        return patientIdentifierIndex.lookup(patient);
     }
 
+    /**
+     * Update an indexed Patient conditional on its indexed version. If the Patient was changed
+     * on the server since it was indexed, refresh the version once and retry.
+     */
+    private CompletableFuture<MethodOutcome> updateIndexedPatient(Patient patient,
+            PatientIdentifierIndex.IndexEntry existing, PatientStore store) {
+        patient.setId(existing.getFhirId());
+        return store.update(patient, existing.getVersionId()).exceptionallyCompose(e -> {
+            if (!hasCause(e, PreconditionFailedException.class, ResourceVersionConflictException.class)) {
+                return CompletableFuture.failedFuture(e);
+            }
+            logger.debug("Indexed version {} of Patient {} is stale, refreshing",
+                existing.getVersionId(), existing.getFhirId());
+            return store.read(existing.getFhirId())
+                .thenCompose(current -> store.update(patient, current.getMeta().getVersionId()));
+        });
+    }
+
+    @SafeVarargs
+    private static boolean hasCause(Throwable error, Class<? extends Throwable>... types) {
+        for (Throwable current = error; current != null; current = current.getCause()) {
+            for (Class<? extends Throwable> type : types) {
+                if (type.isInstance(current)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Await a store started on the blocking client, rethrowing its failure unwrapped.
+     */
+    private static <T> T await(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    private static Exception unwrap(Throwable error) {
+        Throwable cause = error;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof Exception) {
+            return (Exception) cause;
+        }
+        return new CompletionException(cause);
+    }
+
+    /**
+     * The FHIR calls made while storing a Patient.
+     */
+    private interface PatientStore {
+        CompletableFuture<MethodOutcome> create(Patient patient);
+        CompletableFuture<MethodOutcome> update(Patient patient, String expectedVersionId);
+        CompletableFuture<Patient> read(String patientId);
+    }
+
+    /**
+     * Blocking calls through the resilient client; the returned futures are already complete.
+     * Creates go through the batching writer when one is configured, whose future only
+     * completes once this caller's Bundle entry has a response.
+     */
+    private final PatientStore blockingPatientStore = new PatientStore() {
+        @Override
+        public CompletableFuture<MethodOutcome> create(Patient patient) {
+            if (batchingFHIRWriter != null) {
+                return batchingFHIRWriter.createPatient(patient);
+            }
+            return call(() -> resilientFHIRClient.createPatient(patient));
+        }
+
+        @Override
+        public CompletableFuture<MethodOutcome> update(Patient patient, String expectedVersionId) {
+            return call(() -> resilientFHIRClient.updatePatient(patient, expectedVersionId));
+        }
+
+        @Override
+        public CompletableFuture<Patient> read(String patientId) {
+            return call(() -> resilientFHIRClient.getPatient(patientId));
+        }
+
+        private <T> CompletableFuture<T> call(Callable<T> operation) {
+            try {
+                return CompletableFuture.completedFuture(operation.call());
+            } catch (Exception e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+    };
+
+    /**
+     * Non-blocking calls through the asynchronous client. Creates still go through the
+     * batching writer when one is configured.
+     */
+    private final PatientStore asyncPatientStore = new PatientStore() {
+        @Override
+        public CompletableFuture<MethodOutcome> create(Patient patient) {
+            if (batchingFHIRWriter != null) {
+                return batchingFHIRWriter.createPatient(patient);
+            }
+            return asyncFHIRClient.createPatient(patient);
+        }
+
+        @Override
+        public CompletableFuture<MethodOutcome> update(Patient patient, String expectedVersionId) {
+            return asyncFHIRClient.updatePatient(patient, expectedVersionId);
+        }
+
+        @Override
+        public CompletableFuture<Patient> read(String patientId) {
+            return asyncFHIRClient.getPatient(patientId);
+        }
+    };
+
     /**
      * Handle ingestion failure by queuing for retry.
      */
@@ -388,6 +766,14 @@ public class IngestionFlowService {
         );
     }
 
+    /**
+     * Key for per-client write ordering; clients without an opensrp id are not locked.
+     */
+    private String clientLockKey(UCSClient ucsClient) {
+        return ucsClient != null && ucsClient.getIdentifiers() != null
+            ? ucsClient.getIdentifiers().getOpensrpId() : null;
+    }
+
     /**
      * Get UCS client identifier for logging.
      */
@@ -416,32 +802,9 @@ public class IngestionFlowService {
 
         List<CompletableFuture<IngestionFlowResult>> futures = new ArrayList<>();
 
-        // Submit all ingestion tasks
+        // Submit all ingestion tasks; repeated clients coalesce to their latest state
         for (UCSClient ucsClient : ucsClients) {
-            String clientId = getUCSClientId(ucsClient);
-            
-            // Check if transformation is already in progress for this client
-            CompletableFuture<IngestionFlowResult> existingFuture = inProgressTransformations.get(clientId);
-            if (existingFuture != null && !existingFuture.isDone()) {
-                logger.info("Transformation already in progress for client: {}", clientId);
-                futures.add(existingFuture);
-                continue;
-            }
-
-            // Submit new transformation task
-            CompletableFuture<IngestionFlowResult> future = CompletableFuture.supplyAsync(() -> {
-                return processIngestion(ucsClient);
-            }, transformationExecutor);
-
-            // Track in-progress transformation
-            inProgressTransformations.put(clientId, future);
-            
-            // Clean up tracking when complete
-            future.whenComplete((result, throwable) -> {
-                inProgressTransformations.remove(clientId);
-            });
-
-            futures.add(future);
+            futures.add(processIngestionAsync(ucsClient));
         }
 
         // Wait for all ingestions to complete
@@ -471,61 +834,110 @@ public class IngestionFlowService {
         return results;
     }
 
+    /**
+     * Stream UCS clients through the ingestion flow, publishing each result as soon as its
+     * ingestion completes. Clients are read from the source only as the subscriber requests
+     * results, and at most smartbridge.ingestion.streaming.max-in-flight are in progress,
+     * so arbitrarily long sources are ingested with bounded memory. Failures are published
+     * as unsuccessful results and do not end the stream.
+     * 
+     * @param ucsClients Source of UCS clients, read once
+     * @return Publisher of ingestion results in completion order; accepts one subscriber
+     */
+    public Flow.Publisher<IngestionFlowResult> processIngestionStreaming(Iterator<UCSClient> ucsClients) {
+        int maxInFlight = streamingMaxInFlight > 0 ? streamingMaxInFlight : DEFAULT_STREAMING_MAX_IN_FLIGHT;
+        return new StreamingResultPublisher<>("Streaming ingestion", ucsClients, maxInFlight,
+            (index, ucsClient) -> processIngestionAsync(ucsClient),
+            (index, ucsClient, error) -> {
+                logger.error("Streaming ingestion failed for client {}", getUCSClientId(ucsClient), error);
+                IngestionFlowResult result = new IngestionFlowResult(UUID.randomUUID().toString());
+                result.setSuccess(false);
+                result.setErrorMessage(error.getMessage());
+                return result;
+            },
+            streamingExecutor);
+    }
+
+    /**
+     * Stream UCS clients through the ingestion flow.
+     * The stream is consumed lazily and is not closed.
+     * 
+     * @see #processIngestionStreaming(Iterator)
+     */
+    public Flow.Publisher<IngestionFlowResult> processIngestionStreaming(Stream<UCSClient> ucsClients) {
+        return processIngestionStreaming(ucsClients.iterator());
+    }
+
     /**
      * Process ingestion asynchronously and return a CompletableFuture.
      * Allows non-blocking concurrent processing.
      * 
+     * While the same client is being written or waiting out the coalescing quiet period,
+     * a newer update replaces the pending one and both callers receive the result of
+     * ingesting the newer state.
+     * 
      * @param ucsClient The UCS client to process
      * @return CompletableFuture containing the ingestion result
      */
     public CompletableFuture<IngestionFlowResult> processIngestionAsync(UCSClient ucsClient) {
-        String clientId = getUCSClientId(ucsClient);
-        
-        // Check if transformation is already in progress
-        CompletableFuture<IngestionFlowResult> existingFuture = inProgressTransformations.get(clientId);
-        if (existingFuture != null && !existingFuture.isDone()) {
-            logger.info("Transformation already in progress for client: {}, returning existing future", clientId);
-            return existingFuture;
-        }
-
-        // Submit new transformation task
-        CompletableFuture<IngestionFlowResult> future = CompletableFuture.supplyAsync(() -> {
-            return processIngestion(ucsClient);
-        }, transformationExecutor);
-
-        // Track in-progress transformation
-        inProgressTransformations.put(clientId, future);
-        
-        // Clean up tracking when complete
-        future.whenComplete((result, throwable) -> {
-            inProgressTransformations.remove(clientId);
-        });
+        return ingestionCoalescer.submit(clientLockKey(ucsClient), ucsClient);
+    }
 
-        return future;
+    /**
+     * Run the flow through the prepare stage and then the store stage, so validation and
+     * transformation never wait behind FHIR writes for a thread. Unchanged clients finish
+     * in the prepare stage. Without configured stages the whole flow runs on the
+     * transformation executor. With the asynchronous FHIR client enabled the write is
+     * started straight from the prepare stage; with the batching writer the store stage
+     * only queues the create and does not wait for its Bundle.
+     */
+    private CompletableFuture<IngestionFlowResult> submitIngestion(UCSClient ucsClient) {
+        if (asyncFHIRClient != null) {
+            // The FHIR write needs no thread of its own, so there is no store stage
+            CompletableFuture<PreparedIngestion> prepared = ingestionStages != null
+                ? ingestionStages.getPrepareStage().submit(() -> prepareIngestion(ucsClient))
+                : CompletableFuture.supplyAsync(() -> prepareIngestion(ucsClient), transformationExecutor);
+            return prepared.thenCompose(this::completeIngestionAsync);
+        }
+        if (ingestionStages == null) {
+            if (batchingFHIRWriter != null) {
+                CompletableFuture<PreparedIngestion> prepared =
+                    CompletableFuture.supplyAsync(() -> prepareIngestion(ucsClient), transformationExecutor);
+                return prepared.thenCompose(this::completeIngestionAsync);
+            }
+            return CompletableFuture.supplyAsync(() -> processIngestion(ucsClient), transformationExecutor);
+        }
+        return ingestionStages.getPrepareStage().submit(() -> prepareIngestion(ucsClient))
+            .thenCompose(prepared -> {
+                if (prepared.isSkipped()) {
+                    return CompletableFuture.completedFuture(completeIngestion(prepared));
+                }
+                if (batchingFHIRWriter != null) {
+                    // The store thread is free again once the create is queued for the next Bundle
+                    return ingestionStages.getStoreStage().submit(() -> completeIngestionAsync(prepared))
+                        .thenCompose(Function.identity());
+                }
+                return ingestionStages.getStoreStage().submit(() -> completeIngestion(prepared));
+            });
     }
 
     /**
-     * Check if a transformation is currently in progress for a given client.
-     * Thread-safe check using concurrent map.
+     * Check if a transformation is currently in progress or waiting for a given client.
      * 
      * @param clientId The UCS client identifier
      * @return true if transformation is in progress, false otherwise
      */
     public boolean isTransformationInProgress(String clientId) {
-        CompletableFuture<IngestionFlowResult> future = inProgressTransformations.get(clientId);
-        return future != null && !future.isDone();
+        return ingestionCoalescer.isActive(clientId);
     }
 
     /**
-     * Get the number of transformations currently in progress.
-     * Thread-safe count using concurrent map.
+     * Get the number of clients with a transformation in progress or waiting.
      * 
      * @return Number of in-progress transformations
      */
     public int getInProgressTransformationCount() {
-        return (int) inProgressTransformations.values().stream()
-            .filter(future -> !future.isDone())
-            .count();
+        return ingestionCoalescer.getActiveKeyCount();
     }
 
     /**
@@ -540,6 +952,7 @@ public class IngestionFlowService {
         private boolean validationPassed;
         private boolean transformationCompleted;
         private boolean fhirStorageCompleted;
+        private boolean skipped;
 
         public IngestionFlowResult(String transactionId) {
             this.transactionId = transactionId;
@@ -565,6 +978,34 @@ public class IngestionFlowService {
         public void setFhirStorageCompleted(boolean fhirStorageCompleted) { 
             this.fhirStorageCompleted = fhirStorageCompleted; 
         }
+        public boolean isSkipped() { return skipped; }
+        public void setSkipped(boolean skipped) { this.skipped = skipped; }
+    }
+
+    /**
+     * Intermediate state between the validate/transform and store halves of the flow.
+     * Lets pipelined callers run the two halves on different threads.
+     */
+    public static class PreparedIngestion {
+        private final UCSClient ucsClient;
+        private final IngestionFlowResult result;
+        private final long startTime;
+        private FHIRResourceWrapper<? extends Resource> fhirWrapper;
+        private Exception failure;
+        private String fingerprintKey;
+        private long fingerprint;
+        private boolean skipped;
+
+        private PreparedIngestion(UCSClient ucsClient, IngestionFlowResult result, long startTime) {
+            this.ucsClient = ucsClient;
+            this.result = result;
+            this.startTime = startTime;
+        }
+
+        public UCSClient getUcsClient() { return ucsClient; }
+        public IngestionFlowResult getResult() { return result; }
+        public boolean isFailed() { return failure != null; }
+        public boolean isSkipped() { return skipped; }
     }
 
     /**
@@ -0,0 +1,223 @@
+package com.smartbridge.core.flow;
+
+import com.smartbridge.core.concurrency.VirtualThreads;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * One stage of the staged ingestion flow: a fixed-size thread pool behind a bounded queue.
+ * When the queue is full, submitting blocks until space frees up, so a slow downstream
+ * stage pushes back on the stage feeding it instead of buffering without limit.
+ *
+ * An IO-bound stage can run on virtual threads instead. The thread count then becomes a
+ * permit count: at most that many tasks run, at most the queue capacity more wait, and
+ * submitting beyond that blocks just as with a platform pool.
+ */
+public class IngestionStage {
+
+    private final String name;
+    private final int threads;
+    private final int queueCapacity;
+    private final ExecutorService executor;
+    // Tasks admitted and not yet finished: at most the thread count running plus the queue capacity waiting
+    private final Semaphore admission;
+    // Only used on virtual threads, where the executor itself does not bound concurrency
+    private final Semaphore running;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder serviceNanos = new LongAdder();
+    private volatile Timer serviceTimer;
+
+    IngestionStage(String name, int threads, int queueCapacity) {
+        this(name, threads, queueCapacity, false);
+    }
+
+    IngestionStage(String name, int threads, int queueCapacity, boolean virtualThreads) {
+        this.name = name;
+        this.threads = Math.max(1, threads);
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.admission = new Semaphore(this.threads + this.queueCapacity);
+
+        if (virtualThreads) {
+            this.executor = VirtualThreads.newVirtualThreadPerTaskExecutor("ingestion-" + name + "-");
+            this.running = new Semaphore(this.threads, true);
+            return;
+        }
+
+        // A worker releases its permit just before taking the next task, so the pool queue is
+        // sized for every admitted task and the admission semaphore alone enforces the bound
+        AtomicInteger counter = new AtomicInteger(1);
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(this.threads, this.threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(this.threads + this.queueCapacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, "ingestion-" + name + "-" + counter.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+        pool.prestartAllCoreThreads();
+        this.executor = pool;
+        this.running = null;
+    }
+
+    /**
+     * Run a task on this stage. Blocks while the stage queue is full.
+     *
+     * @return Future completed with the task result, or exceptionally if it threw, was
+     *         rejected or was still queued when the stage shut down
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        if (executor.isShutdown()) {
+            future.completeExceptionally(new RejectedExecutionException("Ingestion stage " + name + " is shut down"));
+            return future;
+        }
+        try {
+            admission.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.completeExceptionally(
+                new RejectedExecutionException("Interrupted waiting for ingestion stage " + name, e));
+            return future;
+        }
+        queued.incrementAndGet();
+        try {
+            executor.execute(new StageTask<>(task, future));
+        } catch (RejectedExecutionException e) {
+            queued.decrementAndGet();
+            admission.release();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * A submitted task and the future waiting for it.
+     */
+    private final class StageTask<T> implements Runnable {
+        private final Supplier<T> task;
+        private final CompletableFuture<T> future;
+
+        StageTask(Supplier<T> task, CompletableFuture<T> future) {
+            this.task = task;
+            this.future = future;
+        }
+
+        @Override
+        public void run() {
+            if (running != null) {
+                try {
+                    running.acquire();
+                } catch (InterruptedException e) {
+                    fail(new RejectedExecutionException("Ingestion stage " + name + " shut down before the task ran", e));
+                    return;
+                }
+            }
+            queued.decrementAndGet();
+            active.incrementAndGet();
+
+            // Everything is released before completing, so dependents run inline neither hold
+            // this stage's permits nor count as its service time
+            long start = System.nanoTime();
+            T value = null;
+            Throwable failure = null;
+            try {
+                value = task.get();
+            } catch (Throwable t) {
+                failure = t;
+            }
+            recordServiceTime(System.nanoTime() - start);
+            active.decrementAndGet();
+            release(running);
+            admission.release();
+
+            if (failure != null) {
+                future.completeExceptionally(failure);
+            } else {
+                future.complete(value);
+            }
+        }
+
+        /**
+         * Give up on a task that never started.
+         */
+        void fail(RejectedExecutionException error) {
+            queued.decrementAndGet();
+            admission.release();
+            future.completeExceptionally(error);
+        }
+    }
+
+    /**
+     * Publish queue depth, busy threads and service time, tagged with the stage name.
+     */
+    void bindTo(MeterRegistry meterRegistry) {
+        Gauge.builder("smart_bridge_ingestion_stage_queue_depth", queued, AtomicInteger::get)
+            .description("Tasks waiting in the ingestion stage queue")
+            .tag("stage", name)
+            .register(meterRegistry);
+        Gauge.builder("smart_bridge_ingestion_stage_active_threads", active, AtomicInteger::get)
+            .description("Ingestion stage threads currently running a task")
+            .tag("stage", name)
+            .register(meterRegistry);
+        serviceTimer = Timer.builder("smart_bridge_ingestion_stage_service_time")
+            .description("Time an ingestion stage spends on one task, excluding queue wait")
+            .tag("stage", name)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Stop the stage. Running tasks are interrupted and tasks still queued fail their futures.
+     */
+    void shutdown() {
+        for (Runnable runnable : executor.shutdownNow()) {
+            if (runnable instanceof StageTask) {
+                ((StageTask<?>) runnable).fail(
+                    new RejectedExecutionException("Ingestion stage " + name + " shut down before the task ran"));
+            }
+        }
+    }
+
+    public String getName() { return name; }
+    public int getThreads() { return threads; }
+    public int getQueueCapacity() { return queueCapacity; }
+    public boolean isVirtualThreads() { return running != null; }
+    public int getQueueDepth() { return queued.get(); }
+    public int getActiveCount() { return active.get(); }
+    public long getCompletedCount() { return completed.sum(); }
+
+    /**
+     * @return Mean time per task in milliseconds, excluding queue wait
+     */
+    public double getMeanServiceTimeMs() {
+        long count = completed.sum();
+        return count == 0 ? 0 : serviceNanos.sum() / 1_000_000.0 / count;
+    }
+
+    private void recordServiceTime(long nanos) {
+        completed.increment();
+        serviceNanos.add(nanos);
+        Timer timer = serviceTimer;
+        if (timer != null) {
+            timer.record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static void release(Semaphore semaphore) {
+        if (semaphore != null) {
+            semaphore.release();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.smartbridge.core.flow;
+
+import com.smartbridge.core.concurrency.VirtualThreads;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * The stages of the asynchronous ingestion flow.
+ * The prepare stage (fingerprint check, validation, transformation) is CPU-bound and sized
+ * to the core count. The store stage (FHIR write, audit, retry queueing) is IO-bound and
+ * sized to the concurrency the FHIR server should see. With virtual threads enabled on
+ * Java 21 the store stage runs on virtual threads, its thread count acting as a FHIR
+ * concurrency cap.
+ */
+@Component
+public class IngestionStages {
+
+    private static final Logger logger = LoggerFactory.getLogger(IngestionStages.class);
+
+    private final IngestionStage prepareStage;
+    private final IngestionStage storeStage;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    public IngestionStages(
+            @Value("${smartbridge.ingestion.stages.prepare.threads:0}") int prepareThreads,
+            @Value("${smartbridge.ingestion.stages.prepare.queue-capacity:1000}") int prepareQueueCapacity,
+            @Value("${smartbridge.ingestion.stages.store.threads:16}") int storeThreads,
+            @Value("${smartbridge.ingestion.stages.store.queue-capacity:1000}") int storeQueueCapacity,
+            @Value("${smartbridge.concurrent.virtual-threads-enabled:false}") boolean virtualThreads) {
+        int cpuThreads = prepareThreads > 0 ? prepareThreads : Runtime.getRuntime().availableProcessors();
+        boolean virtualStore = virtualThreads && VirtualThreads.isSupported();
+        if (virtualThreads && !virtualStore) {
+            logger.warn("Virtual threads requested but not supported on Java {}, store stage uses a platform pool",
+                Runtime.version().feature());
+        }
+        this.prepareStage = new IngestionStage("prepare", cpuThreads, prepareQueueCapacity);
+        this.storeStage = new IngestionStage("store", storeThreads, storeQueueCapacity, virtualStore);
+        logger.info("Ingestion stages initialized: prepare={} threads/{} queued, store={} {}/{} queued",
+            prepareStage.getThreads(), prepareStage.getQueueCapacity(), storeStage.getThreads(),
+            virtualStore ? "virtual-thread permits" : "threads", storeStage.getQueueCapacity());
+    }
+
+    @PostConstruct
+    public void registerMetrics() {
+        if (meterRegistry != null) {
+            prepareStage.bindTo(meterRegistry);
+            storeStage.bindTo(meterRegistry);
+        }
+    }
+
+    public IngestionStage getPrepareStage() {
+        return prepareStage;
+    }
+
+    public IngestionStage getStoreStage() {
+        return storeStage;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        prepareStage.shutdown();
+        storeStage.shutdown();
+    }
+}
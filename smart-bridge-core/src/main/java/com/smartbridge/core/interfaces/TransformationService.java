@@ -28,6 +28,12 @@ public interface TransformationService {
      */
     UCSClient transformFHIRToUCS(FHIRResourceWrapper<? extends Resource> fhirWrapper) throws TransformationException;
 
+    /**
+     * Version of the UCS to FHIR mapping in use. Changes whenever the same UCS client
+     * would be transformed to a different resource.
+     */
+    String getMappingVersion();
+
     /**
      * Validate UCS Client data against schema.
      * 
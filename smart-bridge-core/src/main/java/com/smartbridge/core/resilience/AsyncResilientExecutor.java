@@ -0,0 +1,233 @@
+package com.smartbridge.core.resilience;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaking, retries and a concurrency limit for calls that complete asynchronously.
+ * Unlike {@link RetryPolicy#execute} no thread waits: a retry is scheduled on the
+ * executor after its backoff delay, and a call over the concurrency limit is queued and
+ * started when an earlier call completes. Each attempt takes its own slot, so a call
+ * waiting out its backoff does not hold one. Queued attempts are started on the executor,
+ * never on the thread completing the earlier call, and the circuit breaker is consulted
+ * again when they start.
+ *
+ * Only failures matching the transient-failure predicate (e.g. IO errors, 5xx responses)
+ * count against the circuit breaker and are retried. Other failures, such as a 404 or a
+ * version conflict, are returned to the caller as they are.
+ */
+public class AsyncResilientExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncResilientExecutor.class);
+
+    private final String name;
+    private final CircuitBreaker circuitBreaker;
+    private final RetryPolicy retryPolicy;
+    private final Predicate<Throwable> transientFailure;
+    private final int maxInFlight;
+    private final int maxQueued;
+    private final Executor executor;
+
+    private final Queue<QueuedAttempt<?>> waiting = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger draining = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder retries = new LongAdder();
+
+    /**
+     * @param name             Name for logging and error messages
+     * @param circuitBreaker   Breaker consulted before and updated after each attempt
+     * @param retryPolicy      Attempts, backoff and retry condition
+     * @param transientFailure Failures that count against the breaker and may be retried
+     * @param maxInFlight      Attempts allowed to run at once
+     * @param maxQueued        Attempts allowed to wait for a slot before calls are rejected
+     * @param executor         Executor queued attempts and retries are started on
+     */
+    public AsyncResilientExecutor(String name, CircuitBreaker circuitBreaker, RetryPolicy retryPolicy,
+                                  Predicate<Throwable> transientFailure, int maxInFlight, int maxQueued,
+                                  Executor executor) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be positive: " + maxInFlight);
+        }
+        this.name = name;
+        this.circuitBreaker = circuitBreaker;
+        this.retryPolicy = retryPolicy;
+        this.transientFailure = transientFailure;
+        this.maxInFlight = maxInFlight;
+        this.maxQueued = Math.max(0, maxQueued);
+        this.executor = executor;
+    }
+
+    /**
+     * Run an asynchronous call with circuit breaking, retries and the concurrency limit.
+     *
+     * @param call          Starts one attempt; invoked again for each retry
+     * @param operationName Operation name for logging
+     * @return Future completed with the first successful result, with the non-transient failure,
+     *         with {@link CircuitBreakerOpenException} or with {@link RetryException} once attempts run out
+     */
+    public <T> CompletableFuture<T> execute(Supplier<CompletableFuture<T>> call, String operationName) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        attempt(call, operationName, 1, result);
+        return result;
+    }
+
+    public int getInFlightCount() { return inFlight.get(); }
+    public int getQueuedCount() { return queued.get(); }
+    public long getRetryCount() { return retries.sum(); }
+    public int getMaxInFlight() { return maxInFlight; }
+
+    private <T> void attempt(Supplier<CompletableFuture<T>> call, String operationName, int attempt,
+                             CompletableFuture<T> result) {
+        if (!circuitBreaker.allowRequest()) {
+            rejectOpenCircuit(operationName, result);
+            return;
+        }
+        if (inFlight.get() >= maxInFlight && queued.get() >= maxQueued) {
+            result.completeExceptionally(new RejectedExecutionException(
+                "Too many pending " + name + " calls: " + maxInFlight + " in flight, " + maxQueued + " queued"));
+            return;
+        }
+        queued.incrementAndGet();
+
+        waiting.add(new QueuedAttempt<>(call, operationName, attempt, result));
+        drain();
+    }
+
+    private void rejectOpenCircuit(String operationName, CompletableFuture<?> result) {
+        logger.error("Circuit breaker open for {} operation: {}", name, operationName);
+        result.completeExceptionally(
+            new CircuitBreakerOpenException("Circuit breaker is open for: " + circuitBreaker.getName()));
+    }
+
+    private <T> void onFailure(Supplier<CompletableFuture<T>> call, String operationName, int attempt,
+                               CompletableFuture<T> result, Throwable error) {
+        if (!transientFailure.test(error)) {
+            // The service answered; the request itself was wrong
+            circuitBreaker.recordSuccess();
+            result.completeExceptionally(error);
+            return;
+        }
+        circuitBreaker.recordFailure();
+
+        if (!(error instanceof Exception) || !retryPolicy.isRetryable((Exception) error)) {
+            result.completeExceptionally(error);
+            return;
+        }
+        if (attempt >= retryPolicy.getMaxAttempts()) {
+            logger.error("All retry attempts failed for {} operation: {}", name, operationName);
+            result.completeExceptionally(new RetryException("All retry attempts failed for: " + name, error));
+            return;
+        }
+
+        long delayMs = retryPolicy.getDelay(attempt).toMillis();
+        logger.warn("{} operation {} failed (attempt {}/{}), retrying in {}ms: {}",
+            name, operationName, attempt, retryPolicy.getMaxAttempts(), delayMs, error.getMessage());
+        retries.increment();
+        CompletableFuture.delayedExecutor(delayMs, TimeUnit.MILLISECONDS, executor)
+            .execute(() -> attempt(call, operationName, attempt + 1, result));
+    }
+
+    /**
+     * Dispatch waiting attempts while slots are free. One thread drains at a time; a call
+     * arriving meanwhile, including a release by an attempt that completed inline, makes it
+     * loop again instead of recursing.
+     */
+    private void drain() {
+        if (draining.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            dispatchWaiting();
+            missed = draining.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void dispatchWaiting() {
+        // Only the draining thread takes slots, so the check and the increment cannot race
+        while (inFlight.get() < maxInFlight) {
+            QueuedAttempt<?> next = waiting.poll();
+            if (next == null) {
+                return;
+            }
+            queued.decrementAndGet();
+            inFlight.incrementAndGet();
+            try {
+                executor.execute(next);
+            } catch (RejectedExecutionException e) {
+                inFlight.decrementAndGet();
+                next.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void release() {
+        inFlight.decrementAndGet();
+        drain();
+    }
+
+    /**
+     * An attempt waiting for a slot, started on the executor once it has one.
+     */
+    private final class QueuedAttempt<T> implements Runnable {
+        private final Supplier<CompletableFuture<T>> call;
+        private final String operationName;
+        private final int attempt;
+        private final CompletableFuture<T> result;
+
+        QueuedAttempt(Supplier<CompletableFuture<T>> call, String operationName, int attempt,
+                      CompletableFuture<T> result) {
+            this.call = call;
+            this.operationName = operationName;
+            this.attempt = attempt;
+            this.result = result;
+        }
+
+        @Override
+        public void run() {
+            // The breaker may have opened while the attempt was queued
+            if (!circuitBreaker.allowRequest()) {
+                release();
+                rejectOpenCircuit(operationName, result);
+                return;
+            }
+            CompletableFuture<T> pending;
+            try {
+                pending = call.get();
+            } catch (RuntimeException e) {
+                pending = CompletableFuture.failedFuture(e);
+            }
+            pending.whenComplete((value, error) -> {
+                release();
+                if (error == null) {
+                    circuitBreaker.recordSuccess();
+                    result.complete(value);
+                } else {
+                    onFailure(call, operationName, attempt, result, unwrap(error));
+                }
+            });
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException)
+                && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+}
@@ -91,6 +91,31 @@ public class CircuitBreaker {
         }
     }
 
+    /**
+     * Check whether a call may proceed, for callers that cannot wrap the call in
+     * {@link #execute(Supplier)} because it completes asynchronously. Such callers
+     * report the outcome through {@link #recordSuccess()} or {@link #recordFailure()}.
+     *
+     * @return false while the circuit is open
+     */
+    public boolean allowRequest() {
+        return getState() != State.OPEN;
+    }
+
+    /**
+     * Record the success of a call admitted by {@link #allowRequest()}.
+     */
+    public void recordSuccess() {
+        onSuccess();
+    }
+
+    /**
+     * Record the failure of a call admitted by {@link #allowRequest()}.
+     */
+    public void recordFailure() {
+        onFailure();
+    }
+
     /**
      * Get current state, transitioning to HALF_OPEN if cooldown expired.
      */
@@ -54,6 +54,13 @@ public class ResilientFHIRClient {
         return executeWithResilience(() -> fhirClient.updatePatient(patient), "updatePatient");
     }
 
+    /**
+     * Update a Patient conditional on its current version with resilience patterns.
+     */
+    public MethodOutcome updatePatient(Patient patient, String expectedVersionId) throws Exception {
+        return executeWithResilience(() -> fhirClient.updatePatient(patient, expectedVersionId), "updatePatient");
+    }
+
     /**
      * Search for Patients with resilience patterns.
      */
@@ -162,6 +169,13 @@ public class ResilientFHIRClient {
         return executeWithResilience(() -> fhirClient.updateMedicationRequest(medicationRequest), "updateMedicationRequest");
     }
 
+    /**
+     * Execute a batch or transaction Bundle with resilience patterns.
+     */
+    public Bundle executeBatch(Bundle bundle) throws Exception {
+        return executeWithResilience(() -> fhirClient.executeBatch(bundle), "executeBatch");
+    }
+
     /**
      * Execute an operation with circuit breaker and retry logic.
      */
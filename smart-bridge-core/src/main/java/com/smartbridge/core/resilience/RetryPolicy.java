@@ -106,6 +106,20 @@ public class RetryPolicy {
         throw new RetryException("All retry attempts failed for: " + name, lastException);
     }
 
+    /**
+     * Check whether a failure may be retried, for callers that schedule their own retries.
+     */
+    public boolean isRetryable(Exception e) {
+        return retryCondition.test(e);
+    }
+
+    /**
+     * Delay before the retry following the given failed attempt, starting at 1.
+     */
+    public Duration getDelay(int attempt) {
+        return calculateDelay(attempt);
+    }
+
     /**
      * Calculate delay for exponential backoff.
      */
@@ -0,0 +1,112 @@
+package com.smartbridge.core.scheduling;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Poll interval that follows the observed change and error rates, bounded by a minimum and maximum.
+ *
+ * While changes arrive the interval is sized so one poll picks up about
+ * <code>targetChangesPerPoll</code> records, which shortens it during bursts. Idle polls
+ * lengthen it gradually. When the smoothed downstream error rate exceeds the threshold
+ * the interval is doubled, so a struggling FHIR server or UCS is not polled harder.
+ */
+public class AdaptiveInterval {
+
+    private static final double SMOOTHING = 0.5;
+    private static final double IDLE_GROWTH = 1.5;
+    private static final double ERROR_BACKOFF = 2.0;
+
+    private final long minMs;
+    private final long maxMs;
+    private final double targetChangesPerPoll;
+    private final double errorRateThreshold;
+    private final double jitterRatio;
+
+    private long currentMs;
+    private double changesPerSecond = -1;
+    private double errorRate;
+
+    public AdaptiveInterval(long baseMs, long minMs, long maxMs,
+                            double targetChangesPerPoll, double errorRateThreshold, double jitterRatio) {
+        if (minMs <= 0 || maxMs < minMs) {
+            throw new IllegalArgumentException("Invalid interval bounds: min=" + minMs + ", max=" + maxMs);
+        }
+        this.minMs = minMs;
+        this.maxMs = maxMs;
+        this.targetChangesPerPoll = Math.max(1, targetChangesPerPoll);
+        this.errorRateThreshold = errorRateThreshold;
+        this.jitterRatio = Math.max(0, Math.min(jitterRatio, 0.5));
+        this.currentMs = clamp(baseMs);
+    }
+
+    /**
+     * Restart adaptation from a new base interval, e.g. after polling was re-enabled.
+     */
+    public synchronized void reset(long baseMs) {
+        currentMs = clamp(baseMs);
+        changesPerSecond = -1;
+        errorRate = 0;
+    }
+
+    /**
+     * Fold in the outcome of a poll.
+     *
+     * @param outcome  What the poll found
+     * @param windowMs Time covered by the poll, i.e. since the previous poll started
+     * @return The next interval, without jitter
+     */
+    public synchronized long update(PollOutcome outcome, long windowMs) {
+        if (outcome.isSkipped()) {
+            return currentMs;
+        }
+
+        double observedErrorRate = outcome.isFailed()
+            ? 1.0
+            : outcome.getErrors() / (double) Math.max(1, outcome.getChanges());
+        errorRate = smooth(errorRate, observedErrorRate);
+
+        if (errorRate > errorRateThreshold) {
+            currentMs = clamp(Math.round(currentMs * ERROR_BACKOFF));
+        } else if (outcome.getChanges() == 0) {
+            changesPerSecond = changesPerSecond < 0 ? 0 : smooth(changesPerSecond, 0);
+            currentMs = clamp(Math.round(currentMs * IDLE_GROWTH));
+        } else {
+            double observed = outcome.getChanges() * 1000.0 / Math.max(1, windowMs);
+            changesPerSecond = changesPerSecond < 0 ? observed : smooth(changesPerSecond, observed);
+            currentMs = clamp(Math.round(targetChangesPerPoll * 1000.0 / changesPerSecond));
+        }
+        return currentMs;
+    }
+
+    /**
+     * Spread the delay uniformly by the jitter ratio, so instances started together
+     * do not poll UCS and the FHIR server in lockstep.
+     */
+    public long withJitter(long delayMs) {
+        if (jitterRatio == 0) {
+            return delayMs;
+        }
+        double factor = 1 + jitterRatio * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+        return Math.max(1, Math.round(delayMs * factor));
+    }
+
+    public synchronized long getCurrentMs() {
+        return currentMs;
+    }
+
+    public synchronized double getErrorRate() {
+        return errorRate;
+    }
+
+    public long getMinMs() { return minMs; }
+    public long getMaxMs() { return maxMs; }
+    public double getJitterRatio() { return jitterRatio; }
+
+    private long clamp(long intervalMs) {
+        return Math.max(minMs, Math.min(maxMs, intervalMs));
+    }
+
+    private static double smooth(double previous, double observed) {
+        return previous + SMOOTHING * (observed - previous);
+    }
+}
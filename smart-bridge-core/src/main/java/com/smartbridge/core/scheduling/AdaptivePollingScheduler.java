@@ -0,0 +1,224 @@
+package com.smartbridge.core.scheduling;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Runs polling tasks on intervals that adapt to what each poll finds, replacing fixed-delay
+ * <code>@Scheduled</code> polling for UCS incremental sync and FHIR change detection.
+ *
+ * Ticks are scheduled start-to-start. If a poll is still running when its next tick is due,
+ * the tick is skipped rather than queued, and the poll reschedules itself from its own outcome
+ * when it finishes. Tasks start once the application is ready.
+ */
+@Component
+public class AdaptivePollingScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptivePollingScheduler.class);
+
+    private final ScheduledExecutorService executor;
+    private final double targetChangesPerPoll;
+    private final double errorRateThreshold;
+    private final double jitterRatio;
+    private final Map<String, PollingTask> tasks = new ConcurrentHashMap<>();
+    private volatile boolean started;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    public AdaptivePollingScheduler(
+            @Value("${smartbridge.scheduling.pool-size:2}") int poolSize,
+            @Value("${smartbridge.scheduling.target-changes-per-poll:100}") double targetChangesPerPoll,
+            @Value("${smartbridge.scheduling.error-rate-threshold:0.2}") double errorRateThreshold,
+            @Value("${smartbridge.scheduling.jitter-ratio:0.1}") double jitterRatio) {
+        this.targetChangesPerPoll = targetChangesPerPoll;
+        this.errorRateThreshold = errorRateThreshold;
+        this.jitterRatio = jitterRatio;
+
+        AtomicInteger counter = new AtomicInteger(1);
+        ScheduledThreadPoolExecutor pool = new ScheduledThreadPoolExecutor(Math.max(1, poolSize), runnable -> {
+            Thread thread = new Thread(runnable, "adaptive-poller-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        pool.setRemoveOnCancelPolicy(true);
+        this.executor = pool;
+    }
+
+    /**
+     * Register a polling task. It starts when the application is ready, or immediately
+     * if the scheduler has already started.
+     *
+     * @param name   Unique task name, used in logs and metrics
+     * @param baseMs Starting interval
+     * @param minMs  Shortest interval, reached during bursts
+     * @param maxMs  Longest interval, reached when idle or when the downstream keeps failing
+     * @param poll   The poll; exceptions are treated as a failed outcome
+     */
+    public PollingTask register(String name, long baseMs, long minMs, long maxMs, Supplier<PollOutcome> poll) {
+        AdaptiveInterval interval = new AdaptiveInterval(baseMs, minMs, maxMs,
+            targetChangesPerPoll, errorRateThreshold, jitterRatio);
+        PollingTask task = new PollingTask(name, interval, poll);
+        if (tasks.putIfAbsent(name, task) != null) {
+            throw new IllegalArgumentException("Polling task already registered: " + name);
+        }
+        if (meterRegistry != null) {
+            Gauge.builder("smart_bridge_poll_interval_ms", interval, AdaptiveInterval::getCurrentMs)
+                .description("Current adaptive poll interval")
+                .tag("task", name)
+                .register(meterRegistry);
+            task.skippedCounter = Counter.builder("smart_bridge_poll_ticks_skipped_total")
+                .description("Poll ticks skipped because the previous poll was still running")
+                .tag("task", name)
+                .register(meterRegistry);
+        }
+        logger.info("Registered adaptive polling task {}: base={}ms, min={}ms, max={}ms",
+            name, interval.getCurrentMs(), minMs, maxMs);
+        if (started) {
+            task.scheduleFirst();
+        }
+        return task;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        tasks.values().forEach(PollingTask::scheduleFirst);
+    }
+
+    public PollingTask getTask(String name) {
+        return tasks.get(name);
+    }
+
+    public List<PollingTask> getTasks() {
+        return new ArrayList<>(tasks.values());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        started = false;
+        executor.shutdownNow();
+    }
+
+    /**
+     * A registered poll with its adaptive interval.
+     */
+    public class PollingTask {
+        private final String name;
+        private final AdaptiveInterval interval;
+        private final Supplier<PollOutcome> poll;
+        private final AtomicBoolean running = new AtomicBoolean();
+        private final AtomicLong runs = new AtomicLong();
+        private final AtomicLong skippedTicks = new AtomicLong();
+
+        private ScheduledFuture<?> next;
+        private volatile long lastStartedAt;
+        private volatile PollOutcome lastOutcome;
+        private Counter skippedCounter;
+
+        PollingTask(String name, AdaptiveInterval interval, Supplier<PollOutcome> poll) {
+            this.name = name;
+            this.interval = interval;
+            this.poll = poll;
+        }
+
+        public String getName() { return name; }
+        public long getCurrentIntervalMs() { return interval.getCurrentMs(); }
+        public long getRuns() { return runs.get(); }
+        public long getSkippedTicks() { return skippedTicks.get(); }
+        public PollOutcome getLastOutcome() { return lastOutcome; }
+        public boolean isRunning() { return running.get(); }
+
+        /**
+         * Restart adaptation from a new base interval and reschedule the next tick accordingly.
+         */
+        public void resetInterval(long baseMs) {
+            interval.reset(baseMs);
+            if (started && !running.get()) {
+                reschedule(interval.withJitter(interval.getCurrentMs()));
+            }
+        }
+
+        void scheduleFirst() {
+            // Stagger the first polls so tasks and instances do not all start together
+            long stagger = Math.round(interval.getCurrentMs() * interval.getJitterRatio()
+                * ThreadLocalRandom.current().nextDouble());
+            reschedule(stagger);
+        }
+
+        void tick() {
+            if (!running.compareAndSet(false, true)) {
+                skippedTicks.incrementAndGet();
+                if (skippedCounter != null) {
+                    skippedCounter.increment();
+                }
+                logger.debug("Skipping {} tick, previous poll still running", name);
+                reschedule(interval.withJitter(interval.getCurrentMs()));
+                return;
+            }
+
+            long startedAt = System.currentTimeMillis();
+            long windowMs = lastStartedAt > 0 ? startedAt - lastStartedAt : interval.getCurrentMs();
+            // Keeps the start-to-start cadence; a poll that overruns makes this tick skip
+            reschedule(interval.withJitter(interval.getCurrentMs()));
+
+            PollOutcome outcome;
+            try {
+                outcome = poll.get();
+            } catch (Exception e) {
+                logger.error("Polling task {} failed", name, e);
+                outcome = PollOutcome.failed();
+            }
+            runs.incrementAndGet();
+            lastOutcome = outcome;
+            if (!outcome.isSkipped()) {
+                lastStartedAt = startedAt;
+            }
+
+            long previousMs = interval.getCurrentMs();
+            long nextMs = interval.update(outcome, windowMs);
+            if (nextMs != previousMs) {
+                logger.debug("Polling task {} interval {}ms -> {}ms after {}", name, previousMs, nextMs, outcome);
+            }
+
+            long elapsed = System.currentTimeMillis() - startedAt;
+            running.set(false);
+            reschedule(Math.max(0, interval.withJitter(nextMs) - elapsed));
+        }
+
+        private synchronized void reschedule(long delayMs) {
+            if (next != null) {
+                next.cancel(false);
+            }
+            if (!executor.isShutdown()) {
+                next = executor.schedule(this::tick, delayMs, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.smartbridge.core.scheduling;
+
+/**
+ * Result of one poll, used by {@link AdaptiveInterval} to choose the next interval.
+ * Changes are the records the poll picked up; errors are the ones the downstream
+ * system rejected. A failed poll could not reach its source or sink at all.
+ */
+public final class PollOutcome {
+
+    private static final PollOutcome SKIPPED = new PollOutcome(0, 0, false, true);
+    private static final PollOutcome FAILED = new PollOutcome(0, 0, true, false);
+
+    private final long changes;
+    private final long errors;
+    private final boolean failed;
+    private final boolean skipped;
+
+    private PollOutcome(long changes, long errors, boolean failed, boolean skipped) {
+        this.changes = changes;
+        this.errors = errors;
+        this.failed = failed;
+        this.skipped = skipped;
+    }
+
+    public static PollOutcome of(long changes, long errors) {
+        return new PollOutcome(changes, errors, false, false);
+    }
+
+    /**
+     * The poll did not run, e.g. because polling is disabled or another run holds the source.
+     * The interval is left unchanged.
+     */
+    public static PollOutcome skipped() {
+        return SKIPPED;
+    }
+
+    public static PollOutcome failed() {
+        return FAILED;
+    }
+
+    public long getChanges() { return changes; }
+    public long getErrors() { return errors; }
+    public boolean isFailed() { return failed; }
+    public boolean isSkipped() { return skipped; }
+
+    @Override
+    public String toString() {
+        if (skipped) {
+            return "skipped";
+        }
+        return failed ? "failed" : changes + " changes, " + errors + " errors";
+    }
+}
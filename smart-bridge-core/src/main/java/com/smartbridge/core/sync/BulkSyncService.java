@@ -1,12 +1,17 @@
 package com.smartbridge.core.sync;
 
+import com.smartbridge.core.client.PatientIdentifierIndex;
 import com.smartbridge.core.flow.IngestionFlowService;
-import com.smartbridge.core.model.ucs.UCSClient;
+import com.smartbridge.core.scheduling.AdaptivePollingScheduler;
+import com.smartbridge.core.scheduling.PollOutcome;
+import com.smartbridge.core.sync.SyncPipeline.SyncPipelineResult;
+import com.smartbridge.core.sync.UCSClientPageReader.UCSClientPage;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
@@ -15,7 +20,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Service
 public class BulkSyncService {
@@ -25,19 +30,48 @@ public class BulkSyncService {
     private final String ucsBaseUrl;
     private final String username;
     private final String password;
-    private final IngestionFlowService ingestionFlowService;
     private final RestTemplate restTemplate;
+    private final UCSClientPageReader pageReader;
+    private final int pageSize;
+    private final SyncPipeline syncPipeline;
+    private final SyncCheckpointJournal checkpointJournal;
+    private final AtomicBoolean syncRunning = new AtomicBoolean();
+
+    @Autowired(required = false)
+    private PatientIdentifierIndex patientIdentifierIndex;
+
+    @Autowired(required = false)
+    private AdaptivePollingScheduler pollingScheduler;
+
+    @Value("${smartbridge.sync.enabled:true}")
+    private boolean syncEnabled = true;
+
+    @Value("${smartbridge.sync.interval-ms:300000}")
+    private long intervalMs = 300000;
+
+    @Value("${smartbridge.sync.min-interval-ms:30000}")
+    private long minIntervalMs = 30000;
+
+    @Value("${smartbridge.sync.max-interval-ms:900000}")
+    private long maxIntervalMs = 900000;
     
     public BulkSyncService(
             @Value("${smartbridge.ucs.api-url}") String ucsBaseUrl,
             @Value("${smartbridge.ucs.username:}") String username,
             @Value("${smartbridge.ucs.password:}") String password,
+            @Value("${smartbridge.sync.page-size:1000}") int pageSize,
+            @Value("${smartbridge.sync.pipeline.transform-parallelism:4}") int transformParallelism,
+            @Value("${smartbridge.sync.pipeline.store-parallelism:8}") int storeParallelism,
+            @Value("${smartbridge.sync.pipeline.queue-capacity:500}") int queueCapacity,
             IngestionFlowService ingestionFlowService) {
         this.ucsBaseUrl = ucsBaseUrl;
         this.username = username;
         this.password = password;
-        this.ingestionFlowService = ingestionFlowService;
+        this.pageSize = pageSize;
         this.restTemplate = new RestTemplate();
+        this.pageReader = new UCSClientPageReader();
+        this.syncPipeline = new SyncPipeline(ingestionFlowService, transformParallelism, storeParallelism, queueCapacity);
+        this.checkpointJournal = new SyncCheckpointJournal(Paths.get(SERVER_VERSION_FILE));
         ensureDataDirectory();
     }
     
@@ -52,105 +86,132 @@ public class BulkSyncService {
         return headers;
     }
     
-    @Scheduled(fixedDelayString = "${smartbridge.sync.interval-ms:300000}") // 5 minutes default
+    /**
+     * Make identifier index entries durable before the cursor moves past their Patients.
+     */
+    @PostConstruct
+    public void registerIndexCheckpoint() {
+        if (patientIdentifierIndex != null) {
+            checkpointJournal.setBeforePersist(patientIdentifierIndex::checkpoint);
+        }
+    }
+
+    /**
+     * Register incremental sync with the adaptive scheduler. interval-ms is the starting
+     * interval; it shortens while UCS reports changes and lengthens while idle or failing.
+     */
+    @PostConstruct
+    public void registerIncrementalSync() {
+        if (pollingScheduler == null || !syncEnabled) {
+            logger.info("Scheduled incremental sync is disabled");
+            return;
+        }
+        pollingScheduler.register("ucs-incremental-sync", intervalMs, minIntervalMs, maxIntervalMs,
+            this::pollIncrementalSync);
+    }
+
     public void incrementalSync() {
+        pollIncrementalSync();
+    }
+
+    /**
+     * Run one incremental sync and report what it found, for the adaptive scheduler.
+     */
+    PollOutcome pollIncrementalSync() {
         logger.info("Starting incremental UCS to FHIR sync");
-        long serverVersion = loadServerVersion();
-        syncFromVersion(serverVersion);
+        try {
+            SyncPipelineResult result = syncFromVersion(checkpointJournal.load(), null);
+            if (!result.isFetchCompleted() && result.getFetched() == 0) {
+                return PollOutcome.failed();
+            }
+            return PollOutcome.of(result.getFetched(), result.getFailed());
+        } catch (IllegalStateException e) {
+            logger.info("Skipping incremental sync: {}", e.getMessage());
+            return PollOutcome.skipped();
+        } catch (Exception e) {
+            logger.error("Bulk sync failed", e);
+            return PollOutcome.failed();
+        }
     }
     
     public void bulkSync() {
         logger.info("Starting bulk UCS to FHIR sync from scratch");
-        syncFromVersion(0L);
-    }
-    
-    private void syncFromVersion(long serverVersion) {
         try {
-            String url = ucsBaseUrl + "/rest/client/getAll?serverVersion=" + serverVersion;
-            logger.info("Fetching clients from UCS: {}", url);
-            
-            HttpHeaders headers = createAuthHeaders();
-            HttpEntity<Void> request = new HttpEntity<>(headers);
-            
-            ResponseEntity<Map> response = restTemplate.exchange(url, HttpMethod.GET, request, Map.class);
-            
-            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-                Map<String, Object> body = response.getBody();
-                List<Map<String, Object>> clients = (List<Map<String, Object>>) body.get("clients");
-                
-                if (clients != null && !clients.isEmpty()) {
-                    logger.info("Received {} clients from UCS", clients.size());
-                    
-                    int successCount = 0;
-                    int errorCount = 0;
-                    long maxServerVersion = serverVersion;
-                    
-                    for (Map<String, Object> clientData : clients) {
-                        try {
-                            UCSClient ucsClient = mapToUCSClient(clientData);
-                            ingestionFlowService.processIngestion(ucsClient);
-                            successCount++;
-                            
-                            // Track max serverVersion
-                            Object sv = clientData.get("serverVersion");
-                            if (sv != null) {
-                                long clientVersion = Long.parseLong(sv.toString());
-                                maxServerVersion = Math.max(maxServerVersion, clientVersion);
-                            }
-                        } catch (Exception e) {
-                            logger.error("Failed to sync client: {}", clientData.get("baseEntityId"), e);
-                            errorCount++;
-                        }
-                    }
-                    
-                    saveServerVersion(maxServerVersion);
-                    logger.info("Sync complete: {} success, {} errors, serverVersion={}", 
-                        successCount, errorCount, maxServerVersion);
-                } else {
-                    logger.info("No new clients to sync");
-                }
-            }
+            syncFromVersion(0L, null);
+        } catch (IllegalStateException e) {
+            logger.info("Skipping bulk sync: {}", e.getMessage());
         } catch (Exception e) {
             logger.error("Bulk sync failed", e);
         }
     }
-    
-    private UCSClient mapToUCSClient(Map<String, Object> data) {
-        UCSClient.UCSIdentifiers identifiers = new UCSClient.UCSIdentifiers();
-        identifiers.setOpensrpId((String) data.get("baseEntityId"));
-        
-        UCSClient.UCSDemographics demographics = new UCSClient.UCSDemographics();
-        demographics.setFirstName((String) data.get("firstName"));
-        demographics.setLastName((String) data.get("lastName"));
-        demographics.setGender((String) data.get("gender"));
-        
-        UCSClient client = new UCSClient();
-        client.setIdentifiers(identifiers);
-        client.setDemographics(demographics);
-        return client;
+
+    /**
+     * Run a sync on behalf of a job, reporting progress to it.
+     * Bulk jobs start from serverVersion 0, incremental jobs from the last checkpoint.
+     *
+     * @throws IllegalStateException if another sync is running or the identifier index is not ready
+     */
+    public SyncPipelineResult runJob(SyncJob job) {
+        long serverVersion = job.getType() == SyncJob.Type.BULK ? 0L : checkpointJournal.load();
+        logger.info("Starting {} sync job {} from serverVersion {}", job.getType(), job.getId(), serverVersion);
+        return syncFromVersion(serverVersion, job);
+    }
+
+    /**
+     * @return true while a scheduled sync or a sync job is running
+     */
+    public boolean isSyncRunning() {
+        return syncRunning.get();
     }
     
-    private long loadServerVersion() {
+    private SyncPipelineResult syncFromVersion(long serverVersion, SyncJob job) {
+        // Syncing before the index is rebuilt would create duplicates of existing Patients
+        if (patientIdentifierIndex != null && !patientIdentifierIndex.isReady()) {
+            throw new IllegalStateException("Patient identifier index is still rebuilding");
+        }
+        // Two runs would share the checkpoint journal and fetch the same pages twice
+        if (!syncRunning.compareAndSet(false, true)) {
+            throw new IllegalStateException("Another sync is already running");
+        }
         try {
-            Path path = Paths.get(SERVER_VERSION_FILE);
-            if (Files.exists(path)) {
-                String content = Files.readString(path).trim();
-                return Long.parseLong(content);
+            // The journal persists the serverVersion page by page as pages fully complete
+            SyncPipelineResult result = syncPipeline.run(this::fetchPage, checkpointJournal, serverVersion, pageSize, job);
+
+            if (result.getFetched() == 0 && result.isFetchCompleted()) {
+                logger.info("No new clients to sync");
             }
-        } catch (IOException | NumberFormatException e) {
-            logger.warn("Could not load server version, starting from 0", e);
+
+            if (result.getFetched() > 0) {
+                logger.info("Sync complete: {} success, {} unchanged, {} errors, pages={}, serverVersion={}",
+                    result.getSucceeded(), result.getSkipped(), result.getFailed(), result.getPages(),
+                    result.getCheckpointVersion());
+            }
+            if (!result.isFetchCompleted()) {
+                logger.error("Bulk sync stopped early", result.getFetchFailure());
+            }
+            return result;
+        } finally {
+            syncRunning.set(false);
         }
-        return 0L;
     }
-    
-    private void saveServerVersion(long version) {
-        try {
-            Path path = Paths.get(SERVER_VERSION_FILE);
-            Files.writeString(path, String.valueOf(version));
-            logger.debug("Saved serverVersion: {}", version);
-        } catch (IOException e) {
-            logger.error("Failed to save server version", e);
+
+    /**
+     * Fetch one page of clients starting at the given serverVersion.
+     * The response body is parsed as a stream, so at most one page of clients is held in memory.
+     */
+    private UCSClientPage fetchPage(long serverVersion) {
+        String url = ucsBaseUrl + "/rest/client/getAll?serverVersion=" + serverVersion;
+        if (pageSize > 0) {
+            url += "&limit=" + pageSize;
         }
+        logger.info("Fetching clients from UCS: {}", url);
+
+        HttpHeaders headers = createAuthHeaders();
+        UCSClientPage page = restTemplate.execute(url, HttpMethod.GET,
+            request -> request.getHeaders().putAll(headers),
+            response -> pageReader.readPage(response.getBody(), serverVersion));
+
+        return page != null ? page : new UCSClientPage(List.of(), serverVersion, null);
     }
     
     private void ensureDataDirectory() {
@@ -0,0 +1,504 @@
+package com.smartbridge.core.sync;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.smartbridge.core.client.PatientIdentifierIndex;
+import com.smartbridge.core.flow.IngestionFlowService;
+import com.smartbridge.core.flow.IngestionFlowService.IngestionFlowResult;
+import com.smartbridge.core.model.ucs.UCSClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Offline import of UCS client exports in newline-delimited JSON (one client object per line).
+ * Used to onboard a region from a UCS dump without paging through the REST API.
+ *
+ * The file is memory-mapped and split at line boundaries into chunks that are processed in
+ * parallel, each record going through {@link IngestionFlowService#processIngestion}. The byte
+ * offset reached in each chunk is checkpointed to a <code>.progress</code> file next to the
+ * export, so an interrupted import resumes where it stopped instead of starting over.
+ *
+ * Only files inside the configured import directory can be imported.
+ */
+@Service
+public class NdjsonImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NdjsonImportService.class);
+    private static final String PROGRESS_SUFFIX = ".progress";
+    private static final int SCAN_BUFFER_SIZE = 8192;
+
+    private final IngestionFlowService ingestionFlowService;
+    private final Path importDirectory;
+    private final int parallelism;
+    private final long maxChunkBytes;
+    private final int checkpointInterval;
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final UCSClientPageReader pageReader = new UCSClientPageReader(jsonFactory);
+
+    @Autowired(required = false)
+    private PatientIdentifierIndex patientIdentifierIndex;
+
+    public NdjsonImportService(
+            IngestionFlowService ingestionFlowService,
+            @Value("${smartbridge.import.directory:data/import}") String importDirectory,
+            @Value("${smartbridge.import.parallelism:0}") int parallelism,
+            @Value("${smartbridge.import.max-chunk-bytes:268435456}") long maxChunkBytes,
+            @Value("${smartbridge.import.checkpoint-interval:1000}") int checkpointInterval) {
+        if (maxChunkBytes < 1 || maxChunkBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Import chunk size must be between 1 byte and 2GB");
+        }
+        this.ingestionFlowService = ingestionFlowService;
+        this.importDirectory = Paths.get(importDirectory).toAbsolutePath().normalize();
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.maxChunkBytes = maxChunkBytes;
+        this.checkpointInterval = Math.max(1, checkpointInterval);
+    }
+
+    /**
+     * Import an export file, resuming from its progress file if one matches the file.
+     *
+     * @param fileName File name relative to the import directory
+     * @param restart Ignore any saved progress and import the whole file again
+     * @param job Job to report progress to and take pause/cancel requests from, or null
+     * @return Counts for this run; records imported by earlier runs are not included
+     * @throws IllegalArgumentException if the file is outside the import directory or missing
+     * @throws IllegalStateException if the identifier index is not ready
+     * @throws IOException if the file cannot be read
+     */
+    public NdjsonImportResult importFile(String fileName, boolean restart, SyncJob job) throws IOException {
+        // Importing before the index is rebuilt would create duplicates of existing Patients
+        if (patientIdentifierIndex != null && !patientIdentifierIndex.isReady()) {
+            throw new IllegalStateException("Patient identifier index is still rebuilding");
+        }
+        Path file = resolveImportFile(fileName);
+        Path progressFile = file.resolveSibling(file.getFileName() + PROGRESS_SUFFIX);
+        long startTime = System.currentTimeMillis();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long lastModified = Files.getLastModifiedTime(file).toMillis();
+
+            ImportProgress progress = restart ? null : ImportProgress.load(progressFile, size, lastModified);
+            if (progress == null) {
+                progress = new ImportProgress(progressFile, size, lastModified, splitAtLines(channel, size));
+                progress.save();
+            }
+
+            long resumedFrom = progress.getCommittedBytes();
+            if (resumedFrom > 0) {
+                logger.info("Resuming import of {} at {} of {} bytes", file.getFileName(), resumedFrom, size);
+            } else {
+                logger.info("Importing {} ({} bytes) in {} chunks", file.getFileName(), size, progress.getChunkCount());
+            }
+
+            RunCounters counters = new RunCounters();
+            ExecutorService pool = Executors.newFixedThreadPool(
+                Math.min(parallelism, Math.max(1, progress.getChunkCount())), namedThreadFactory());
+            List<Future<?>> workers = new ArrayList<>();
+            try {
+                for (int chunk = 0; chunk < progress.getChunkCount(); chunk++) {
+                    int index = chunk;
+                    ImportProgress chunkProgress = progress;
+                    workers.add(pool.submit(() -> {
+                        importChunk(channel, chunkProgress, index, counters, job);
+                        return null;
+                    }));
+                }
+                awaitWorkers(workers);
+            } finally {
+                pool.shutdownNow();
+                saveProgress(progress);
+                if (job != null) {
+                    job.recordCursor(progress.getCommittedBytes());
+                    job.recordCheckpoint(progress.getCommittedBytes());
+                }
+            }
+
+            NdjsonImportResult result = new NdjsonImportResult(file.getFileName().toString(),
+                counters.records.get(), counters.succeeded.get(), counters.failed.get(), counters.skipped.get(),
+                counters.malformed.get(), resumedFrom, progress.getCommittedBytes(), size,
+                System.currentTimeMillis() - startTime);
+
+            logger.info("Import of {} {}: {} records ({} success, {} unchanged, {} errors, {} malformed), {}/{} bytes in {}ms",
+                result.getFileName(), result.isComplete() ? "complete" : "stopped", result.getRecords(),
+                result.getSucceeded(), result.getSkipped(), result.getFailed(), result.getMalformed(),
+                result.getCommittedBytes(), size, result.getDurationMs());
+            return result;
+        }
+    }
+
+    /**
+     * Resolve a file name against the import directory, rejecting anything that escapes it.
+     */
+    Path resolveImportFile(String fileName) throws IOException {
+        if (fileName == null || fileName.isBlank()) {
+            throw new IllegalArgumentException("Import file name is required");
+        }
+        Path file = importDirectory.resolve(fileName).normalize();
+        if (!file.startsWith(importDirectory) || !Files.isRegularFile(file)) {
+            throw new IllegalArgumentException("No import file " + fileName + " in " + importDirectory);
+        }
+        // Symlinks inside the directory must not point outside it either
+        if (!file.toRealPath().startsWith(importDirectory.toRealPath())) {
+            throw new IllegalArgumentException("Import file " + fileName + " resolves outside " + importDirectory);
+        }
+        return file;
+    }
+
+    private void importChunk(FileChannel channel, ImportProgress progress, int chunk,
+                             RunCounters counters, SyncJob job) throws IOException {
+        long position = progress.getCommitted(chunk);
+        long end = progress.getEnd(chunk);
+        if (position >= end) {
+            return;
+        }
+
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, end - position);
+        byte[] line = new byte[1024];
+        int sinceCheckpoint = 0;
+
+        while (buffer.hasRemaining()) {
+            if (job != null && !job.awaitRunnable()) {
+                break;
+            }
+
+            int lineStart = buffer.position();
+            int lineEnd = lineStart;
+            while (lineEnd < buffer.limit() && buffer.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            int next = Math.min(lineEnd + 1, buffer.limit());
+            int length = lineEnd - lineStart;
+            if (length > 0 && buffer.get(lineEnd - 1) == '\r') {
+                length--;
+            }
+
+            if (length > 0) {
+                if (line.length < length) {
+                    line = new byte[Math.max(length, line.length * 2)];
+                }
+                buffer.get(lineStart, line, 0, length);
+                importLine(line, length, position + lineStart, counters, job);
+            }
+
+            buffer.position(next);
+            progress.setCommitted(chunk, position + next);
+            if (++sinceCheckpoint >= checkpointInterval) {
+                saveProgress(progress);
+                sinceCheckpoint = 0;
+                if (job != null) {
+                    long committedBytes = progress.getCommittedBytes();
+                    job.recordCursor(committedBytes);
+                    job.recordCheckpoint(committedBytes);
+                }
+            }
+        }
+    }
+
+    /**
+     * Save the committed offsets once the identifier index entries of the records before
+     * them are durable, so a resumed import never skips records missing from the index.
+     */
+    private void saveProgress(ImportProgress progress) {
+        if (patientIdentifierIndex != null) {
+            patientIdentifierIndex.checkpoint();
+        }
+        progress.save();
+    }
+
+    private void importLine(byte[] line, int length, long offset, RunCounters counters, SyncJob job) {
+        if (job != null) {
+            job.recordFetched(1);
+        }
+        UCSClient client;
+        try (JsonParser parser = jsonFactory.createParser(line, 0, length)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("line is not a JSON object");
+            }
+            client = pageReader.readClient(parser).getClient();
+        } catch (IOException e) {
+            logger.warn("Skipping malformed record at byte {}: {}", offset, e.getMessage());
+            counters.malformed.incrementAndGet();
+            if (job != null) {
+                job.recordFailed();
+            }
+            return;
+        }
+
+        counters.records.incrementAndGet();
+        try {
+            // Failed records are queued for retry by the ingestion flow, like during a sync
+            IngestionFlowResult result = ingestionFlowService.processIngestion(client);
+            if (result.isSkipped()) {
+                counters.skipped.incrementAndGet();
+                if (job != null) {
+                    job.recordSkipped();
+                }
+            } else if (result.isSuccess()) {
+                counters.succeeded.incrementAndGet();
+                if (job != null) {
+                    job.recordSucceeded();
+                }
+            } else {
+                counters.failed.incrementAndGet();
+                if (job != null) {
+                    job.recordFailed();
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.error("Failed to import record at byte {}", offset, e);
+            counters.failed.incrementAndGet();
+            if (job != null) {
+                job.recordFailed();
+            }
+        }
+    }
+
+    /**
+     * Split the file into chunks that each start at the beginning of a line.
+     * Uses at least one chunk per worker, and more when chunks would exceed the mapping limit.
+     */
+    private List<long[]> splitAtLines(FileChannel channel, long size) throws IOException {
+        long chunkCount = Math.max(parallelism, (size + maxChunkBytes - 1) / maxChunkBytes);
+        long nominalSize = Math.max(1, size / chunkCount);
+
+        List<long[]> chunks = new ArrayList<>();
+        long start = 0;
+        while (start < size) {
+            long end = start + nominalSize >= size ? size : nextLineStart(channel, start + nominalSize, size);
+            chunks.add(new long[] {start, end});
+            start = end;
+        }
+        return chunks;
+    }
+
+    private long nextLineStart(FileChannel channel, long from, long size) throws IOException {
+        ByteBuffer scan = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        long position = from - 1;
+        while (position < size) {
+            scan.clear();
+            int read = channel.read(scan, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (scan.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private void awaitWorkers(List<Future<?>> workers) throws IOException {
+        IOException failure = null;
+        for (Future<?> worker : workers) {
+            try {
+                worker.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                logger.error("Import worker failed", e.getCause());
+                if (failure == null) {
+                    failure = e.getCause() instanceof IOException
+                        ? (IOException) e.getCause() : new IOException(e.getCause());
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static ThreadFactory namedThreadFactory() {
+        AtomicInteger counter = new AtomicInteger(1);
+        return runnable -> {
+            Thread thread = new Thread(runnable, "ndjson-import-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static class RunCounters {
+        final AtomicLong records = new AtomicLong();
+        final AtomicLong succeeded = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+        final AtomicLong skipped = new AtomicLong();
+        final AtomicLong malformed = new AtomicLong();
+    }
+
+    /**
+     * Chunk boundaries and the byte offset committed in each chunk.
+     * Saved as text: a header with the size and modification time of the export, then
+     * one <code>start end committed</code> line per chunk. A progress file that does not
+     * match the export on disk is ignored.
+     */
+    static class ImportProgress {
+        private final Path progressFile;
+        private final long fileSize;
+        private final long lastModified;
+        private final long[] starts;
+        private final long[] ends;
+        private final AtomicLongArray committed;
+        private final Object saveLock = new Object();
+
+        ImportProgress(Path progressFile, long fileSize, long lastModified, List<long[]> chunks) {
+            this.progressFile = progressFile;
+            this.fileSize = fileSize;
+            this.lastModified = lastModified;
+            this.starts = new long[chunks.size()];
+            this.ends = new long[chunks.size()];
+            this.committed = new AtomicLongArray(chunks.size());
+            for (int i = 0; i < chunks.size(); i++) {
+                long[] chunk = chunks.get(i);
+                starts[i] = chunk[0];
+                ends[i] = chunk[1];
+                committed.set(i, chunk.length > 2 ? chunk[2] : chunk[0]);
+            }
+        }
+
+        static ImportProgress load(Path progressFile, long fileSize, long lastModified) {
+            if (!Files.exists(progressFile)) {
+                return null;
+            }
+            try {
+                List<String> lines = Files.readAllLines(progressFile, StandardCharsets.UTF_8);
+                String[] header = lines.get(0).split(" ");
+                if (Long.parseLong(header[0]) != fileSize || Long.parseLong(header[1]) != lastModified) {
+                    logger.warn("Import file changed since {} was written, starting over", progressFile.getFileName());
+                    return null;
+                }
+                List<long[]> chunks = new ArrayList<>();
+                for (String line : lines.subList(1, lines.size())) {
+                    String[] fields = line.split(" ");
+                    chunks.add(new long[] {Long.parseLong(fields[0]), Long.parseLong(fields[1]), Long.parseLong(fields[2])});
+                }
+                return new ImportProgress(progressFile, fileSize, lastModified, chunks);
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Could not read import progress {}, starting over", progressFile.getFileName(), e);
+                return null;
+            }
+        }
+
+        int getChunkCount() { return starts.length; }
+        long getEnd(int chunk) { return ends[chunk]; }
+        long getCommitted(int chunk) { return committed.get(chunk); }
+
+        void setCommitted(int chunk, long offset) {
+            committed.set(chunk, offset);
+        }
+
+        /**
+         * Bytes covered by committed records across all chunks.
+         */
+        long getCommittedBytes() {
+            long total = 0;
+            for (int i = 0; i < starts.length; i++) {
+                total += committed.get(i) - starts[i];
+            }
+            return total;
+        }
+
+        void save() {
+            synchronized (saveLock) {
+                StringBuilder content = new StringBuilder();
+                content.append(fileSize).append(' ').append(lastModified).append('\n');
+                for (int i = 0; i < starts.length; i++) {
+                    content.append(starts[i]).append(' ').append(ends[i]).append(' ').append(committed.get(i)).append('\n');
+                }
+                Path tempFile = progressFile.resolveSibling(progressFile.getFileName() + ".tmp");
+                try (FileChannel channel = FileChannel.open(tempFile,
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    ByteBuffer buffer = ByteBuffer.wrap(content.toString().getBytes(StandardCharsets.UTF_8));
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                    channel.force(true);
+                } catch (IOException e) {
+                    logger.error("Failed to save import progress {}", progressFile.getFileName(), e);
+                    return;
+                }
+                try {
+                    try {
+                        Files.move(tempFile, progressFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                    } catch (AtomicMoveNotSupportedException e) {
+                        Files.move(tempFile, progressFile, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                } catch (IOException e) {
+                    logger.error("Failed to save import progress {}", progressFile.getFileName(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Outcome of an import run.
+     */
+    public static class NdjsonImportResult {
+        private final String fileName;
+        private final long records;
+        private final long succeeded;
+        private final long failed;
+        private final long skipped;
+        private final long malformed;
+        private final long resumedFromBytes;
+        private final long committedBytes;
+        private final long fileSize;
+        private final long durationMs;
+
+        public NdjsonImportResult(String fileName, long records, long succeeded, long failed, long skipped,
+                                  long malformed, long resumedFromBytes, long committedBytes, long fileSize,
+                                  long durationMs) {
+            this.fileName = fileName;
+            this.records = records;
+            this.succeeded = succeeded;
+            this.failed = failed;
+            this.skipped = skipped;
+            this.malformed = malformed;
+            this.resumedFromBytes = resumedFromBytes;
+            this.committedBytes = committedBytes;
+            this.fileSize = fileSize;
+            this.durationMs = durationMs;
+        }
+
+        public String getFileName() { return fileName; }
+        public long getRecords() { return records; }
+        public long getSucceeded() { return succeeded; }
+        public long getFailed() { return failed; }
+        public long getSkipped() { return skipped; }
+        public long getMalformed() { return malformed; }
+        public long getResumedFromBytes() { return resumedFromBytes; }
+        public long getCommittedBytes() { return committedBytes; }
+        public long getFileSize() { return fileSize; }
+        public long getDurationMs() { return durationMs; }
+        public boolean isComplete() { return committedBytes >= fileSize; }
+    }
+}
@@ -0,0 +1,236 @@
+package com.smartbridge.core.sync;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Checkpoint journal for the UCS sync cursor.
+ * Pages are registered in fetch order and their clients may complete in any order
+ * across pipeline workers. The checkpoint only advances over the longest prefix of
+ * fully completed pages, so a restart resumes at most one page behind the crash.
+ *
+ * Each advance replaces the checkpoint file atomically (write temp file, fsync,
+ * rename, fsync directory). The file keeps the plain serverVersion format of
+ * <code>data/server-version.txt</code>.
+ */
+public class SyncCheckpointJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(SyncCheckpointJournal.class);
+
+    private final Path checkpointFile;
+    private final Object persistLock = new Object();
+
+    private final Deque<PageState> pendingPages = new ArrayDeque<>();
+    private final Map<Long, PageState> pagesBySequence = new HashMap<>();
+    private long nextSequence;
+    private long committedVersion;
+    private long persistedVersion = -1L;
+    private volatile Runnable beforePersist;
+
+    public SyncCheckpointJournal(Path checkpointFile) {
+        this.checkpointFile = checkpointFile;
+    }
+
+    /**
+     * Run a task before every checkpoint write, e.g. to make state written while
+     * processing the checkpointed pages durable first.
+     */
+    public void setBeforePersist(Runnable beforePersist) {
+        this.beforePersist = beforePersist;
+    }
+
+    /**
+     * Read the last committed serverVersion from disk.
+     *
+     * @return The stored serverVersion, or 0 if none has been written yet
+     */
+    public long load() {
+        long version = 0L;
+        try {
+            if (Files.exists(checkpointFile)) {
+                version = Long.parseLong(Files.readString(checkpointFile).trim());
+            }
+        } catch (IOException | NumberFormatException e) {
+            logger.warn("Could not load server version, starting from 0", e);
+        }
+        synchronized (this) {
+            committedVersion = version;
+        }
+        synchronized (persistLock) {
+            persistedVersion = version;
+        }
+        return version;
+    }
+
+    /**
+     * Start tracking a new sync run from the given serverVersion.
+     * Pages left over from a previous run are discarded.
+     */
+    public synchronized void begin(long fromServerVersion) {
+        pendingPages.clear();
+        pagesBySequence.clear();
+        committedVersion = fromServerVersion;
+        synchronized (persistLock) {
+            // A bulk sync rewinds the cursor, so its first page must overwrite a higher stored version
+            persistedVersion = fromServerVersion;
+        }
+    }
+
+    /**
+     * Register a fetched page before its clients are handed to workers.
+     *
+     * @param maxServerVersion Highest serverVersion contained in the page
+     * @param clientCount Number of clients that will be reported via {@link #recordCompleted(long)}
+     * @return Page sequence number to pass to {@link #recordCompleted(long)}
+     */
+    public long registerPage(long maxServerVersion, int clientCount) {
+        long sequence;
+        long advanced;
+        synchronized (this) {
+            sequence = nextSequence++;
+            PageState page = new PageState(maxServerVersion, clientCount);
+            pendingPages.addLast(page);
+            pagesBySequence.put(sequence, page);
+            advanced = advance();
+        }
+        if (advanced >= 0) {
+            persist(advanced);
+        }
+        return sequence;
+    }
+
+    /**
+     * Record that one client of the given page has finished processing, successfully or not.
+     */
+    public void recordCompleted(long pageSequence) {
+        long advanced;
+        synchronized (this) {
+            PageState page = pagesBySequence.get(pageSequence);
+            if (page == null) {
+                logger.warn("Completion recorded for unknown sync page {}", pageSequence);
+                return;
+            }
+            page.remaining--;
+            if (page.remaining > 0) {
+                return;
+            }
+            pagesBySequence.remove(pageSequence);
+            advanced = advance();
+        }
+        if (advanced >= 0) {
+            persist(advanced);
+        }
+    }
+
+    /**
+     * @return The highest serverVersion below which every registered client has completed
+     */
+    public synchronized long getCommittedVersion() {
+        return committedVersion;
+    }
+
+    /**
+     * @return Number of registered pages that still have clients in flight
+     */
+    public synchronized int getPendingPageCount() {
+        return pendingPages.size();
+    }
+
+    /**
+     * Pop completed pages off the head of the queue.
+     * Must be called while holding the journal monitor.
+     *
+     * @return The new committed version, or -1 if it did not move
+     */
+    private long advance() {
+        long previous = committedVersion;
+        while (!pendingPages.isEmpty() && pendingPages.peekFirst().remaining <= 0) {
+            PageState page = pendingPages.pollFirst();
+            committedVersion = Math.max(committedVersion, page.maxServerVersion);
+        }
+        return committedVersion != previous ? committedVersion : -1L;
+    }
+
+    private void persist(long version) {
+        synchronized (persistLock) {
+            // Another worker may already have written a newer checkpoint
+            if (version <= persistedVersion) {
+                return;
+            }
+            Runnable hook = beforePersist;
+            if (hook != null) {
+                hook.run();
+            }
+            try {
+                writeAtomically(String.valueOf(version));
+                persistedVersion = version;
+                logger.debug("Saved serverVersion: {}", version);
+            } catch (IOException e) {
+                logger.error("Failed to save server version", e);
+            }
+        }
+    }
+
+    private void writeAtomically(String content) throws IOException {
+        Path directory = checkpointFile.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        Path tempFile = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(tempFile,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+
+        try {
+            Files.move(tempFile, checkpointFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, checkpointFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        if (directory != null) {
+            syncDirectory(directory);
+        }
+    }
+
+    /**
+     * Flush the directory entry so the rename survives a power loss.
+     * Not every platform allows opening a directory; that case is ignored.
+     */
+    private void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            logger.trace("Directory fsync not supported for {}", directory);
+        }
+    }
+
+    private static class PageState {
+        final long maxServerVersion;
+        int remaining;
+
+        PageState(long maxServerVersion, int remaining) {
+            this.maxServerVersion = maxServerVersion;
+            this.remaining = remaining;
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.smartbridge.core.sync;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A single bulk sync, incremental sync or file import submitted through {@link SyncJobManager}.
+ * Tracks progress counters and the current UCS cursor, and carries the pause and
+ * cancel requests that {@link SyncPipeline} checks between pages and clients.
+ */
+public class SyncJob {
+
+    public enum Type { BULK, INCREMENTAL, IMPORT }
+
+    public enum State {
+        QUEUED, RUNNING, PAUSED, CANCELLING, COMPLETED, FAILED, CANCELLED;
+
+        public boolean isTerminal() {
+            return this == COMPLETED || this == FAILED || this == CANCELLED;
+        }
+    }
+
+    private final String id;
+    private final Type type;
+    private final String source;
+    private final Instant createdAt = Instant.now();
+
+    private final AtomicLong fetched = new AtomicLong();
+    private final AtomicLong succeeded = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong pages = new AtomicLong();
+
+    private State state = State.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile long cursor = -1L;
+    private volatile long checkpointVersion = -1L;
+    private volatile Long total;
+    private volatile String error;
+
+    // Time spent paused is excluded from throughput
+    private long pausedMillis;
+    private long pausedSince;
+
+    public SyncJob(String id, Type type) {
+        this(id, type, null);
+    }
+
+    /**
+     * @param source Import file name for {@link Type#IMPORT} jobs, null otherwise
+     */
+    public SyncJob(String id, Type type, String source) {
+        this.id = id;
+        this.type = type;
+        this.source = source;
+    }
+
+    public String getId() { return id; }
+    public Type getType() { return type; }
+    public String getSource() { return source; }
+    public Instant getCreatedAt() { return createdAt; }
+    public Instant getStartedAt() { return startedAt; }
+    public Instant getFinishedAt() { return finishedAt; }
+    public long getFetched() { return fetched.get(); }
+    public long getSucceeded() { return succeeded.get(); }
+    public long getFailed() { return failed.get(); }
+    public long getSkipped() { return skipped.get(); }
+    public long getPages() { return pages.get(); }
+    public long getCursor() { return cursor; }
+    public long getCheckpointVersion() { return checkpointVersion; }
+    public Long getTotal() { return total; }
+    public String getError() { return error; }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Clients that finished the pipeline, whether stored, unchanged or failed.
+     */
+    public long getProcessed() {
+        return succeeded.get() + failed.get() + skipped.get();
+    }
+
+    /**
+     * Processed clients per second of running time, excluding time spent paused.
+     */
+    public double getThroughputPerSecond() {
+        long runningMillis = getRunningMillis();
+        return runningMillis > 0 ? getProcessed() * 1000.0 / runningMillis : 0.0;
+    }
+
+    /**
+     * Estimated seconds until completion, or null while UCS has not reported a total
+     * or nothing has been processed yet.
+     */
+    public Long getEstimatedSecondsRemaining() {
+        Long knownTotal = total;
+        double throughput = getThroughputPerSecond();
+        if (knownTotal == null || throughput <= 0 || getState().isTerminal()) {
+            return null;
+        }
+        long remaining = Math.max(0L, knownTotal - getProcessed());
+        return (long) Math.ceil(remaining / throughput);
+    }
+
+    /**
+     * Ask a running job to pause. Each stage stops after the client it is working on;
+     * queued clients stay queued until the job is resumed.
+     *
+     * @return false if the job is not running
+     */
+    public synchronized boolean pause() {
+        if (state != State.RUNNING) {
+            return false;
+        }
+        state = State.PAUSED;
+        pausedSince = System.currentTimeMillis();
+        return true;
+    }
+
+    /**
+     * @return false if the job is not paused
+     */
+    public synchronized boolean resume() {
+        if (state != State.PAUSED) {
+            return false;
+        }
+        state = State.RUNNING;
+        pausedMillis += System.currentTimeMillis() - pausedSince;
+        notifyAll();
+        return true;
+    }
+
+    /**
+     * Ask the job to stop. Clients in flight are abandoned; the checkpoint only covers
+     * fully completed pages, so the next incremental sync picks them up again.
+     *
+     * @return false if the job has already finished
+     */
+    public synchronized boolean cancel() {
+        if (state.isTerminal() || state == State.CANCELLING) {
+            return false;
+        }
+        if (state == State.PAUSED) {
+            pausedMillis += System.currentTimeMillis() - pausedSince;
+        }
+        state = State.CANCELLING;
+        notifyAll();
+        return true;
+    }
+
+    public synchronized boolean isCancelRequested() {
+        return state == State.CANCELLING || state == State.CANCELLED;
+    }
+
+    /**
+     * Block while the job is paused.
+     *
+     * @return true if work may continue, false if the job was cancelled or the thread interrupted
+     */
+    public synchronized boolean awaitRunnable() {
+        try {
+            while (state == State.PAUSED) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return !isCancelRequested();
+    }
+
+    synchronized boolean markStarted() {
+        if (state != State.QUEUED) {
+            return false;
+        }
+        state = State.RUNNING;
+        startedAt = Instant.now();
+        return true;
+    }
+
+    synchronized void markFinished(String failure) {
+        if (state.isTerminal()) {
+            return;
+        }
+        if (state == State.PAUSED) {
+            pausedMillis += System.currentTimeMillis() - pausedSince;
+        }
+        if (state == State.CANCELLING) {
+            state = State.CANCELLED;
+        } else if (failure != null) {
+            state = State.FAILED;
+        } else {
+            state = State.COMPLETED;
+        }
+        error = failure;
+        finishedAt = Instant.now();
+        notifyAll();
+    }
+
+    void recordPage(long maxServerVersion, int clients, Long reportedTotal) {
+        pages.incrementAndGet();
+        recordFetched(clients);
+        recordCursor(maxServerVersion);
+        // UCS reports the clients remaining after the requested serverVersion; the first page sees the whole job
+        if (total == null && reportedTotal != null) {
+            total = reportedTotal;
+        }
+    }
+
+    void recordFetched(int clients) {
+        fetched.addAndGet(clients);
+    }
+
+    /**
+     * @param position UCS serverVersion for syncs, byte offset for imports
+     */
+    void recordCursor(long position) {
+        cursor = position;
+    }
+
+    void recordSucceeded() { succeeded.incrementAndGet(); }
+    void recordFailed() { failed.incrementAndGet(); }
+    void recordSkipped() { skipped.incrementAndGet(); }
+
+    void recordCheckpoint(long serverVersion) {
+        checkpointVersion = serverVersion;
+    }
+
+    private synchronized long getRunningMillis() {
+        if (startedAt == null) {
+            return 0L;
+        }
+        long end = finishedAt != null ? finishedAt.toEpochMilli() : System.currentTimeMillis();
+        long paused = pausedMillis + (state == State.PAUSED ? end - pausedSince : 0L);
+        return end - startedAt.toEpochMilli() - paused;
+    }
+}
@@ -0,0 +1,21 @@
+package com.smartbridge.core.sync;
+
+/**
+ * Exception thrown when a sync job is submitted while another sync is running.
+ */
+public class SyncJobConflictException extends RuntimeException {
+
+    private final String activeJobId;
+
+    public SyncJobConflictException(String message, String activeJobId) {
+        super(message);
+        this.activeJobId = activeJobId;
+    }
+
+    /**
+     * @return Id of the job that is running, or null if a scheduled sync holds the lock
+     */
+    public String getActiveJobId() {
+        return activeJobId;
+    }
+}
@@ -0,0 +1,220 @@
+package com.smartbridge.core.sync;
+
+import com.smartbridge.core.sync.NdjsonImportService.NdjsonImportResult;
+import com.smartbridge.core.sync.SyncPipeline.SyncPipelineResult;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs manually triggered bulk syncs, incremental syncs and file imports as background jobs.
+ * Jobs run one at a time on a dedicated thread, so API callers get a job id back
+ * immediately instead of holding a servlet thread for the length of the sync.
+ * A job submitted while another job or the scheduled sync is running is rejected.
+ */
+@Service
+public class SyncJobManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(SyncJobManager.class);
+
+    private final BulkSyncService bulkSyncService;
+    private final int retainedJobs;
+    private final ExecutorService executor;
+
+    // Insertion ordered so the oldest finished jobs are evicted first
+    private final Map<String, SyncJob> jobs = new LinkedHashMap<>();
+    private SyncJob activeJob;
+
+    @Autowired(required = false)
+    private NdjsonImportService ndjsonImportService;
+
+    public SyncJobManager(BulkSyncService bulkSyncService,
+                          @Value("${smartbridge.sync.jobs.retained:50}") int retainedJobs) {
+        this.bulkSyncService = bulkSyncService;
+        this.retainedJobs = retainedJobs;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sync-job-runner");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Submit a sync job.
+     *
+     * @return The queued job
+     * @throws SyncJobConflictException if a job or a scheduled sync is already running
+     */
+    public synchronized SyncJob submit(SyncJob.Type type) {
+        if (type == SyncJob.Type.IMPORT) {
+            throw new IllegalArgumentException("Import jobs need a file, use submitImport");
+        }
+        rejectIfBusy();
+        if (bulkSyncService.isSyncRunning()) {
+            throw new SyncJobConflictException("A scheduled sync is already running", null);
+        }
+        SyncJob job = new SyncJob(UUID.randomUUID().toString(), type);
+        return start(job, () -> runSync(job));
+    }
+
+    /**
+     * Submit an import of an NDJSON export from the import directory.
+     * Imports do not touch the sync checkpoint, so they may overlap the scheduled sync.
+     *
+     * @param fileName File name relative to the import directory
+     * @param restart Ignore saved progress and import the whole file again
+     * @return The queued job
+     * @throws IllegalArgumentException if the file is not in the import directory
+     * @throws SyncJobConflictException if another job is running
+     * @throws IllegalStateException if NDJSON import is not available
+     */
+    public synchronized SyncJob submitImport(String fileName, boolean restart) throws IOException {
+        if (ndjsonImportService == null) {
+            throw new IllegalStateException("NDJSON import is not available");
+        }
+        ndjsonImportService.resolveImportFile(fileName);
+        rejectIfBusy();
+        SyncJob job = new SyncJob(UUID.randomUUID().toString(), SyncJob.Type.IMPORT, fileName);
+        return start(job, () -> runImport(job, restart));
+    }
+
+    /**
+     * @return The job, or null if it is unknown or has been evicted
+     */
+    public synchronized SyncJob getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    /**
+     * @return Retained jobs, oldest first
+     */
+    public synchronized List<SyncJob> getJobs() {
+        return new ArrayList<>(jobs.values());
+    }
+
+    public synchronized SyncJob getActiveJob() {
+        return activeJob;
+    }
+
+    /**
+     * Cancel the running job and stop accepting new ones.
+     */
+    @PreDestroy
+    public void shutdown() {
+        SyncJob running = getActiveJob();
+        if (running != null) {
+            running.cancel();
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void rejectIfBusy() {
+        if (activeJob != null) {
+            throw new SyncJobConflictException("Sync job " + activeJob.getId() + " is already running",
+                activeJob.getId());
+        }
+    }
+
+    private SyncJob start(SyncJob job, JobTask task) {
+        activeJob = job;
+        jobs.put(job.getId(), job);
+        evictFinishedJobs();
+
+        executor.execute(() -> run(job, task));
+        logger.info("Submitted {} sync job {}", job.getType(), job.getId());
+        return job;
+    }
+
+    private void run(SyncJob job, JobTask task) {
+        if (!job.markStarted()) {
+            // Cancelled while queued
+            job.markFinished(null);
+            release(job);
+            return;
+        }
+
+        String failure = null;
+        try {
+            failure = task.run();
+        } catch (Exception e) {
+            logger.error("Sync job {} failed", job.getId(), e);
+            failure = describe(e);
+        } finally {
+            job.markFinished(failure);
+            release(job);
+        }
+
+        logger.info("Sync job {} {}: {} processed ({} success, {} unchanged, {} errors) in {} pages",
+            job.getId(), job.getState(), job.getProcessed(), job.getSucceeded(), job.getSkipped(),
+            job.getFailed(), job.getPages());
+    }
+
+    private String runSync(SyncJob job) {
+        SyncPipelineResult result = bulkSyncService.runJob(job);
+        if (!result.isFetchCompleted() && !job.isCancelRequested()) {
+            return "Fetch from UCS failed: " + describe(result.getFetchFailure());
+        }
+        return null;
+    }
+
+    private String runImport(SyncJob job, boolean restart) throws IOException {
+        NdjsonImportResult result = ndjsonImportService.importFile(job.getSource(), restart, job);
+        if (!result.isComplete() && !job.isCancelRequested()) {
+            return "Import stopped at byte " + result.getCommittedBytes() + " of " + result.getFileSize();
+        }
+        return null;
+    }
+
+    private synchronized void release(SyncJob job) {
+        if (activeJob == job) {
+            activeJob = null;
+        }
+        evictFinishedJobs();
+    }
+
+    private void evictFinishedJobs() {
+        Iterator<SyncJob> iterator = jobs.values().iterator();
+        while (jobs.size() > retainedJobs && iterator.hasNext()) {
+            if (iterator.next().getState().isTerminal()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Work of a job; returns a failure description, or null on success or cancellation.
+     */
+    @FunctionalInterface
+    private interface JobTask {
+        String run() throws Exception;
+    }
+
+    private static String describe(Throwable throwable) {
+        if (throwable == null) {
+            return "unknown error";
+        }
+        return throwable.getMessage() != null ? throwable.getMessage() : throwable.getClass().getSimpleName();
+    }
+}
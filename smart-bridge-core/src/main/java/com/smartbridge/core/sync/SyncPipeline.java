@@ -0,0 +1,451 @@
+package com.smartbridge.core.sync;
+
+import com.smartbridge.core.flow.IngestionFlowService;
+import com.smartbridge.core.flow.IngestionFlowService.IngestionFlowResult;
+import com.smartbridge.core.flow.IngestionFlowService.PreparedIngestion;
+import com.smartbridge.core.model.ucs.UCSClient;
+import com.smartbridge.core.sync.UCSClientPageReader.UCSClientPage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Three-stage sync pipeline: fetch, transform and FHIR store.
+ * Stages are connected by bounded queues, so when the FHIR server slows down the
+ * store queue fills, the transform workers block, and finally the fetcher stops
+ * requesting pages instead of buffering the backlog on the heap.
+ *
+ * The fetch stage runs on the calling thread; transform and store stages run on
+ * worker pools that live for the duration of a single run. Every client is tagged
+ * with its page so the {@link SyncCheckpointJournal} can advance the cursor as
+ * soon as all clients of the oldest outstanding pages have completed.
+ *
+ * When the ingestion flow creates Patients without blocking (batching writer or
+ * asynchronous FHIR client), a store worker only starts each write and moves on, so up to
+ * the queue capacity of writes are in flight and can share FHIR Bundles.
+ *
+ * When a {@link SyncJob} is supplied, progress is reported to it and every stage
+ * honours its pause and cancel requests between pages and clients.
+ */
+public class SyncPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(SyncPipeline.class);
+    private static final long POLL_INTERVAL_MS = 100;
+
+    private final IngestionFlowService ingestionFlowService;
+    private final int transformParallelism;
+    private final int storeParallelism;
+    private final int queueCapacity;
+
+    public SyncPipeline(IngestionFlowService ingestionFlowService,
+                        int transformParallelism, int storeParallelism, int queueCapacity) {
+        if (transformParallelism < 1 || storeParallelism < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("Pipeline parallelism and queue capacity must be at least 1");
+        }
+        this.ingestionFlowService = ingestionFlowService;
+        this.transformParallelism = transformParallelism;
+        this.storeParallelism = storeParallelism;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Source of UCS client pages for the fetch stage.
+     */
+    @FunctionalInterface
+    public interface PageFetcher {
+        UCSClientPage fetchPage(long serverVersion) throws Exception;
+    }
+
+    /**
+     * Run the pipeline until the fetcher is exhausted or fails.
+     * Returns only after every fetched client has been transformed and stored (or failed).
+     *
+     * @param fetcher Page source
+     * @param journal Checkpoint journal that is advanced page by page as clients complete
+     * @param fromServerVersion serverVersion to start fetching from
+     * @param pageSize Requested page size; a shorter page ends the run. 0 means a single unpaged request
+     * @return Counts and the serverVersion reached by fully processed pages
+     */
+    public SyncPipelineResult run(PageFetcher fetcher, SyncCheckpointJournal journal,
+                                  long fromServerVersion, int pageSize) {
+        return run(fetcher, journal, fromServerVersion, pageSize, null);
+    }
+
+    /**
+     * Run the pipeline on behalf of a sync job.
+     *
+     * @param job Job to report progress to and take pause/cancel requests from, or null
+     * @see #run(PageFetcher, SyncCheckpointJournal, long, int)
+     */
+    public SyncPipelineResult run(PageFetcher fetcher, SyncCheckpointJournal journal,
+                                  long fromServerVersion, int pageSize, SyncJob job) {
+        long startTime = System.currentTimeMillis();
+        RunState state = new RunState(queueCapacity, journal, job);
+        journal.begin(fromServerVersion);
+
+        ExecutorService transformPool = Executors.newFixedThreadPool(transformParallelism, namedThreadFactory("sync-transform-"));
+        ExecutorService storePool = Executors.newFixedThreadPool(storeParallelism, namedThreadFactory("sync-store-"));
+
+        List<Future<?>> transformWorkers = new ArrayList<>();
+        List<Future<?>> storeWorkers = new ArrayList<>();
+        for (int i = 0; i < transformParallelism; i++) {
+            transformWorkers.add(transformPool.submit(() -> runTransformWorker(state)));
+        }
+        for (int i = 0; i < storeParallelism; i++) {
+            storeWorkers.add(storePool.submit(() -> runStoreWorker(state)));
+        }
+
+        int pages = 0;
+        Exception fetchFailure = null;
+
+        try {
+            long cursor = fromServerVersion;
+            while (state.awaitRunnable()) {
+                UCSClientPage page = fetcher.fetchPage(cursor);
+                pages++;
+
+                if (page.isEmpty()) {
+                    break;
+                }
+
+                logger.info("Received page {} with {} clients from UCS", pages, page.size());
+
+                long maxServerVersion = page.getMaxServerVersion();
+                long pageSequence = journal.registerPage(maxServerVersion, page.size());
+                if (job != null) {
+                    job.recordPage(maxServerVersion, page.size(), page.getTotal());
+                }
+                for (UCSClient client : page.getClients()) {
+                    if (!state.put(state.transformQueue, new WorkItem(client, pageSequence))) {
+                        break;
+                    }
+                    state.fetched.incrementAndGet();
+                }
+
+                if (pageSize <= 0 || page.size() < pageSize) {
+                    break;
+                }
+                if (maxServerVersion <= cursor) {
+                    logger.warn("UCS page did not advance serverVersion past {}, stopping paged fetch", cursor);
+                    break;
+                }
+                cursor = maxServerVersion;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fetchFailure = e;
+        } catch (Exception e) {
+            logger.error("Fetch stage failed after {} pages, draining in-flight clients", pages, e);
+            fetchFailure = e;
+        }
+
+        try {
+            state.fetchDone = true;
+            awaitWorkers(transformWorkers);
+            state.transformDone = true;
+            awaitWorkers(storeWorkers);
+            state.awaitStoreWrites();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Sync pipeline interrupted, abandoning in-flight clients");
+            if (fetchFailure == null) {
+                fetchFailure = e;
+            }
+        } finally {
+            transformPool.shutdownNow();
+            storePool.shutdownNow();
+        }
+
+        long duration = System.currentTimeMillis() - startTime;
+        SyncPipelineResult result = new SyncPipelineResult(
+            pages, state.fetched.get(), state.succeeded.get(), state.failed.get(), state.skipped.get(),
+            journal.getCommittedVersion(), duration, fetchFailure);
+
+        if (state.isCancelled()) {
+            logger.info("Sync pipeline cancelled after {} pages, serverVersion={}", pages, result.getCheckpointVersion());
+        } else if (result.getFetched() > 0) {
+            logger.info("Sync pipeline finished: fetched={}, success={}, unchanged={}, errors={}, pages={}, duration={}ms, throughput={}/s",
+                result.getFetched(), result.getSucceeded(), result.getSkipped(), result.getFailed(), pages, duration,
+                String.format("%.1f", result.getThroughputPerSecond()));
+        }
+        return result;
+    }
+
+    private void runTransformWorker(RunState state) {
+        try {
+            while (state.awaitRunnable()) {
+                WorkItem item = state.transformQueue.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (item == null) {
+                    if (state.fetchDone && state.transformQueue.isEmpty()) {
+                        return;
+                    }
+                    continue;
+                }
+
+                try {
+                    item.prepared = ingestionFlowService.prepareIngestion(item.client);
+                } catch (RuntimeException e) {
+                    logger.error("Failed to transform client: {}", clientId(item.client), e);
+                    state.recordFailed();
+                    state.recordCompleted(item.pageSequence);
+                    continue;
+                }
+
+                if (item.prepared.isFailed() || item.prepared.isSkipped()) {
+                    // Nothing to store; finish here to keep the store stage for FHIR work
+                    record(state, item);
+                } else if (!state.put(state.storeQueue, item)) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runStoreWorker(RunState state) {
+        boolean nonBlockingStore = ingestionFlowService.hasNonBlockingCreate();
+        try {
+            while (state.awaitRunnable()) {
+                WorkItem item = state.storeQueue.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (item == null) {
+                    if (state.transformDone && state.storeQueue.isEmpty()) {
+                        return;
+                    }
+                    continue;
+                }
+                if (nonBlockingStore) {
+                    startStore(state, item);
+                } else {
+                    record(state, item);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Start the FHIR write of an item without waiting for it, once a write slot is free.
+     */
+    private void startStore(RunState state, WorkItem item) throws InterruptedException {
+        state.storeWrites.acquire();
+        CompletableFuture<IngestionFlowResult> write;
+        try {
+            write = ingestionFlowService.completeIngestionAsync(item.prepared);
+        } catch (RuntimeException e) {
+            write = CompletableFuture.failedFuture(e);
+        }
+        write.whenComplete((result, error) -> {
+            try {
+                record(state, item, result, error);
+            } finally {
+                state.storeWrites.release();
+            }
+        });
+    }
+
+    private void record(RunState state, WorkItem item) {
+        IngestionFlowResult result = null;
+        Throwable error = null;
+        try {
+            result = ingestionFlowService.completeIngestion(item.prepared);
+        } catch (RuntimeException e) {
+            error = e;
+        }
+        record(state, item, result, error);
+    }
+
+    private void record(RunState state, WorkItem item, IngestionFlowResult result, Throwable error) {
+        try {
+            if (error != null) {
+                logger.error("Failed to sync client: {}", clientId(item.client), error);
+                state.recordFailed();
+            } else if (result.isSkipped()) {
+                state.recordSkipped();
+            } else if (result.isSuccess()) {
+                state.recordSucceeded();
+            } else {
+                state.recordFailed();
+            }
+        } finally {
+            // Failed clients are queued for retry by the ingestion flow, so they still complete the page
+            state.recordCompleted(item.pageSequence);
+        }
+    }
+
+    private void awaitWorkers(List<Future<?>> workers) throws InterruptedException {
+        for (Future<?> worker : workers) {
+            try {
+                worker.get();
+            } catch (ExecutionException e) {
+                logger.error("Sync pipeline worker terminated unexpectedly", e.getCause());
+            }
+        }
+    }
+
+    private String clientId(UCSClient client) {
+        return client != null && client.getIdentifiers() != null
+            ? client.getIdentifiers().getOpensrpId() : "unknown";
+    }
+
+    private static ThreadFactory namedThreadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger(1);
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * A client moving through the pipeline, tagged with the page it was fetched in.
+     */
+    private static class WorkItem {
+        final UCSClient client;
+        final long pageSequence;
+        PreparedIngestion prepared;
+
+        WorkItem(UCSClient client, long pageSequence) {
+            this.client = client;
+            this.pageSequence = pageSequence;
+        }
+    }
+
+    /**
+     * Queues and counters shared by the stages of a single run.
+     */
+    private static class RunState {
+        final BlockingQueue<WorkItem> transformQueue;
+        final BlockingQueue<WorkItem> storeQueue;
+        final SyncCheckpointJournal journal;
+        final SyncJob job;
+        final AtomicInteger fetched = new AtomicInteger();
+        final AtomicInteger succeeded = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        final AtomicInteger skipped = new AtomicInteger();
+        // Started and not yet completed FHIR writes, when store workers do not wait for them
+        final Semaphore storeWrites;
+        final int maxStoreWrites;
+        volatile boolean fetchDone;
+        volatile boolean transformDone;
+
+        RunState(int queueCapacity, SyncCheckpointJournal journal, SyncJob job) {
+            this.transformQueue = new ArrayBlockingQueue<>(queueCapacity);
+            this.storeQueue = new ArrayBlockingQueue<>(queueCapacity);
+            this.storeWrites = new Semaphore(queueCapacity);
+            this.maxStoreWrites = queueCapacity;
+            this.journal = journal;
+            this.job = job;
+        }
+
+        boolean awaitRunnable() {
+            return job == null || job.awaitRunnable();
+        }
+
+        boolean isCancelled() {
+            return job != null && job.isCancelRequested();
+        }
+
+        /**
+         * Hand an item to the next stage, giving up if the job is cancelled while the queue is full.
+         */
+        boolean put(BlockingQueue<WorkItem> queue, WorkItem item) throws InterruptedException {
+            while (!queue.offer(item, POLL_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+                if (isCancelled()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Wait for every started FHIR write to complete.
+         */
+        void awaitStoreWrites() throws InterruptedException {
+            storeWrites.acquire(maxStoreWrites);
+            storeWrites.release(maxStoreWrites);
+        }
+
+        void recordSucceeded() {
+            succeeded.incrementAndGet();
+            if (job != null) {
+                job.recordSucceeded();
+            }
+        }
+
+        void recordFailed() {
+            failed.incrementAndGet();
+            if (job != null) {
+                job.recordFailed();
+            }
+        }
+
+        void recordSkipped() {
+            skipped.incrementAndGet();
+            if (job != null) {
+                job.recordSkipped();
+            }
+        }
+
+        void recordCompleted(long pageSequence) {
+            journal.recordCompleted(pageSequence);
+            if (job != null) {
+                job.recordCheckpoint(journal.getCommittedVersion());
+            }
+        }
+    }
+
+    /**
+     * Outcome of a pipeline run.
+     */
+    public static class SyncPipelineResult {
+        private final int pages;
+        private final int fetched;
+        private final int succeeded;
+        private final int failed;
+        private final int skipped;
+        private final long checkpointVersion;
+        private final long durationMs;
+        private final Exception fetchFailure;
+
+        public SyncPipelineResult(int pages, int fetched, int succeeded, int failed, int skipped,
+                                  long checkpointVersion, long durationMs, Exception fetchFailure) {
+            this.pages = pages;
+            this.fetched = fetched;
+            this.succeeded = succeeded;
+            this.failed = failed;
+            this.skipped = skipped;
+            this.checkpointVersion = checkpointVersion;
+            this.durationMs = durationMs;
+            this.fetchFailure = fetchFailure;
+        }
+
+        public int getPages() { return pages; }
+        public int getFetched() { return fetched; }
+        public int getSucceeded() { return succeeded; }
+        public int getFailed() { return failed; }
+        public int getSkipped() { return skipped; }
+        public long getCheckpointVersion() { return checkpointVersion; }
+        public long getDurationMs() { return durationMs; }
+        public Exception getFetchFailure() { return fetchFailure; }
+        public boolean isFetchCompleted() { return fetchFailure == null; }
+
+        public double getThroughputPerSecond() {
+            return durationMs > 0 ? fetched * 1000.0 / durationMs : fetched;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.smartbridge.core.sync;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.smartbridge.core.model.ucs.UCSClient;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming reader for UCS <code>/rest/client/getAll</code> responses.
+ * Parses the response token by token straight into {@link UCSClient} objects,
+ * so only the clients of the current page are held on the heap instead of the
+ * whole JSON tree.
+ */
+public class UCSClientPageReader {
+
+    private final JsonFactory jsonFactory;
+
+    public UCSClientPageReader() {
+        this(new JsonFactory());
+    }
+
+    public UCSClientPageReader(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+
+    /**
+     * Read one page of clients from a getAll response body.
+     * Accepts either an object with a <code>clients</code> array or a bare array of clients.
+     *
+     * @param body The response body stream (not closed by this method)
+     * @param fromServerVersion The serverVersion the page was requested from
+     * @return The parsed page
+     * @throws IOException if the body is not valid JSON
+     */
+    public UCSClientPage readPage(InputStream body, long fromServerVersion) throws IOException {
+        List<UCSClient> clients = new ArrayList<>();
+        long maxServerVersion = fromServerVersion;
+        Long total = null;
+
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            JsonToken token = parser.nextToken();
+
+            if (token == JsonToken.START_ARRAY) {
+                maxServerVersion = readClients(parser, clients, maxServerVersion);
+            } else if (token == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.getCurrentName();
+                    JsonToken value = parser.nextToken();
+
+                    if ("clients".equals(field) && value == JsonToken.START_ARRAY) {
+                        maxServerVersion = readClients(parser, clients, maxServerVersion);
+                    } else if ("total".equals(field) && value.isNumeric()) {
+                        total = parser.getLongValue();
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            }
+        }
+
+        return new UCSClientPage(clients, maxServerVersion, total);
+    }
+
+    /**
+     * Read a single client object. The parser must be positioned on its START_OBJECT token.
+     *
+     * @param parser The parser positioned on the client object
+     * @return The client together with its serverVersion
+     * @throws IOException if the object cannot be read
+     */
+    public UCSClientRecord readClient(JsonParser parser) throws IOException {
+        UCSClient.UCSIdentifiers identifiers = new UCSClient.UCSIdentifiers();
+        UCSClient.UCSDemographics demographics = new UCSClient.UCSDemographics();
+        long serverVersion = -1L;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+
+            switch (field) {
+                case "baseEntityId":
+                    identifiers.setOpensrpId(textOrNull(parser, value));
+                    break;
+                case "firstName":
+                    demographics.setFirstName(textOrNull(parser, value));
+                    break;
+                case "lastName":
+                    demographics.setLastName(textOrNull(parser, value));
+                    break;
+                case "gender":
+                    demographics.setGender(textOrNull(parser, value));
+                    break;
+                case "serverVersion":
+                    serverVersion = readServerVersion(parser, value);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+
+        UCSClient client = new UCSClient();
+        client.setIdentifiers(identifiers);
+        client.setDemographics(demographics);
+        return new UCSClientRecord(client, serverVersion);
+    }
+
+    private long readClients(JsonParser parser, List<UCSClient> clients, long maxServerVersion)
+            throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+            if (token != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            UCSClientRecord record = readClient(parser);
+            clients.add(record.getClient());
+            maxServerVersion = Math.max(maxServerVersion, record.getServerVersion());
+        }
+        return maxServerVersion;
+    }
+
+    private String textOrNull(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (value.isScalarValue()) {
+            return parser.getText();
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    private long readServerVersion(JsonParser parser, JsonToken value) throws IOException {
+        if (value.isNumeric()) {
+            return parser.getLongValue();
+        }
+        if (value == JsonToken.VALUE_STRING) {
+            try {
+                return Long.parseLong(parser.getText().trim());
+            } catch (NumberFormatException e) {
+                return -1L;
+            }
+        }
+        parser.skipChildren();
+        return -1L;
+    }
+
+    /**
+     * A single client read from a UCS export together with its serverVersion.
+     */
+    public static class UCSClientRecord {
+        private final UCSClient client;
+        private final long serverVersion;
+
+        public UCSClientRecord(UCSClient client, long serverVersion) {
+            this.client = client;
+            this.serverVersion = serverVersion;
+        }
+
+        public UCSClient getClient() { return client; }
+        public long getServerVersion() { return serverVersion; }
+    }
+
+    /**
+     * One page of clients returned by the UCS getAll endpoint.
+     */
+    public static class UCSClientPage {
+        private final List<UCSClient> clients;
+        private final long maxServerVersion;
+        private final Long total;
+
+        public UCSClientPage(List<UCSClient> clients, long maxServerVersion, Long total) {
+            this.clients = clients;
+            this.maxServerVersion = maxServerVersion;
+            this.total = total;
+        }
+
+        public List<UCSClient> getClients() { return clients; }
+        public long getMaxServerVersion() { return maxServerVersion; }
+        public Long getTotal() { return total; }
+        public int size() { return clients.size(); }
+        public boolean isEmpty() { return clients.isEmpty(); }
+    }
+}
@@ -1,23 +1,37 @@
 package com.smartbridge.core.transformation;
 
+import com.smartbridge.core.concurrency.StreamingResultPublisher;
 import com.smartbridge.core.interfaces.TransformationException;
 import com.smartbridge.core.model.fhir.FHIRResourceWrapper;
 import com.smartbridge.core.model.ucs.UCSClient;
+import jakarta.annotation.PreDestroy;
 import org.hl7.fhir.r4.model.Resource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.Stream;
 
 /**
  * Concurrent transformation service that processes multiple transformation requests
  * simultaneously using a thread pool. Ensures thread safety and prevents data corruption
  * during concurrent operations.
  * 
+ * The batch methods run large lists on a work-stealing pool instead of one task per item:
+ * the list is split into chunks only while idle workers can steal them, results go into a
+ * preallocated per-index array, and the remaining items are skipped once the timeout elapses.
+ * The streaming methods run on the same pool but publish each result as it completes and
+ * read their source only as fast as the subscriber requests results.
+ * 
  * Requirements: 7.2 - Concurrent processing capability
  */
 @Service
@@ -25,19 +39,44 @@ public class ConcurrentTransformationService {
 
     private static final Logger logger = LoggerFactory.getLogger(ConcurrentTransformationService.class);
     private static final long DEFAULT_TIMEOUT_SECONDS = 30;
+    // Chunks per worker the batch is pre-split into; stealing balances the rest
+    private static final int CHUNKS_PER_WORKER = 4;
+    // Stop splitting while this many forked chunks are still waiting to be stolen
+    private static final int MAX_SURPLUS_CHUNKS = 2;
 
     private final UCSToFHIRTransformer ucsToFHIRTransformer;
     private final FHIRToUCSTransformer fhirToUCSTransformer;
     private final Executor transformationExecutor;
+    private final ForkJoinPool batchPool;
 
     public ConcurrentTransformationService(
             UCSToFHIRTransformer ucsToFHIRTransformer,
             FHIRToUCSTransformer fhirToUCSTransformer,
-            @Qualifier("transformationExecutor") Executor transformationExecutor) {
+            Executor transformationExecutor) {
+        this(ucsToFHIRTransformer, fhirToUCSTransformer, transformationExecutor, 0);
+    }
+
+    @Autowired
+    public ConcurrentTransformationService(
+            UCSToFHIRTransformer ucsToFHIRTransformer,
+            FHIRToUCSTransformer fhirToUCSTransformer,
+            @Qualifier("transformationExecutor") Executor transformationExecutor,
+            @Value("${smartbridge.transformation.batch.parallelism:0}") int batchParallelism) {
         this.ucsToFHIRTransformer = ucsToFHIRTransformer;
         this.fhirToUCSTransformer = fhirToUCSTransformer;
         this.transformationExecutor = transformationExecutor;
-        logger.info("ConcurrentTransformationService initialized");
+        int parallelism = batchParallelism > 0 ? batchParallelism : Runtime.getRuntime().availableProcessors();
+        this.batchPool = new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("transformation-batch-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+        logger.info("ConcurrentTransformationService initialized: batchParallelism={}", parallelism);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        batchPool.shutdownNow();
     }
 
     /**
@@ -127,6 +166,8 @@ public class ConcurrentTransformationService {
                         logger.error("Error retrieving completed transformation result", ex);
                     }
                 } else {
+                    // Queued transformations that have not started are skipped
+                    future.cancel(false);
                     results.add(TransformationResult.timeout(results.size()));
                 }
             }
@@ -225,6 +266,8 @@ public class ConcurrentTransformationService {
                         logger.error("Error retrieving completed transformation result", ex);
                     }
                 } else {
+                    // Queued transformations that have not started are skipped
+                    future.cancel(false);
                     results.add(TransformationResult.timeout(results.size()));
                 }
             }
@@ -238,6 +281,245 @@ public class ConcurrentTransformationService {
         return results;
     }
 
+    /**
+     * Transform a batch of UCS clients to FHIR resources on the work-stealing batch pool.
+     * 
+     * @param ucsClients List of UCS clients to transform
+     * @return List of transformation results, in input order
+     */
+    public List<TransformationResult<FHIRResourceWrapper<? extends Resource>>> transformUCSToFHIRBatch(
+            List<UCSClient> ucsClients) {
+        return transformUCSToFHIRBatch(ucsClients, DEFAULT_TIMEOUT_SECONDS);
+    }
+
+    /**
+     * Transform a batch of UCS clients to FHIR resources with custom timeout.
+     * Items not transformed when the timeout elapses are skipped and reported as timed out.
+     * 
+     * @param ucsClients List of UCS clients to transform
+     * @param timeoutSeconds Maximum time to spend on the batch
+     * @return List of transformation results, in input order
+     */
+    public List<TransformationResult<FHIRResourceWrapper<? extends Resource>>> transformUCSToFHIRBatch(
+            List<UCSClient> ucsClients, long timeoutSeconds) {
+        return transformBatch("UCS to FHIR", ucsClients, ucsToFHIRTransformer::transformUCSToFHIR, timeoutSeconds);
+    }
+
+    /**
+     * Transform a batch of FHIR resources to UCS clients on the work-stealing batch pool.
+     * 
+     * @param fhirWrappers List of FHIR resource wrappers to transform
+     * @return List of transformation results, in input order
+     */
+    public List<TransformationResult<UCSClient>> transformFHIRToUCSBatch(
+            List<FHIRResourceWrapper<? extends Resource>> fhirWrappers) {
+        return transformFHIRToUCSBatch(fhirWrappers, DEFAULT_TIMEOUT_SECONDS);
+    }
+
+    /**
+     * Transform a batch of FHIR resources to UCS clients with custom timeout.
+     * Items not transformed when the timeout elapses are skipped and reported as timed out.
+     * 
+     * @param fhirWrappers List of FHIR resource wrappers to transform
+     * @param timeoutSeconds Maximum time to spend on the batch
+     * @return List of transformation results, in input order
+     */
+    public List<TransformationResult<UCSClient>> transformFHIRToUCSBatch(
+            List<FHIRResourceWrapper<? extends Resource>> fhirWrappers, long timeoutSeconds) {
+        return transformBatch("FHIR to UCS", fhirWrappers, fhirToUCSTransformer::transformFHIRToUCS, timeoutSeconds);
+    }
+
+    /**
+     * Stream UCS clients through the UCS to FHIR transformation, publishing each result as
+     * soon as it completes. Clients are read from the source only as the subscriber requests
+     * results, and at most twice the batch parallelism are in progress, so arbitrarily long
+     * sources are transformed with bounded memory. Result indexes follow the source order.
+     * 
+     * @param ucsClients Source of UCS clients, read once
+     * @return Publisher of transformation results in completion order; accepts one subscriber
+     */
+    public Flow.Publisher<TransformationResult<FHIRResourceWrapper<? extends Resource>>> transformUCSToFHIRStreaming(
+            Iterator<UCSClient> ucsClients) {
+        return transformStreaming("UCS to FHIR", ucsClients, ucsToFHIRTransformer::transformUCSToFHIR);
+    }
+
+    /**
+     * Stream UCS clients through the UCS to FHIR transformation.
+     * The stream is consumed lazily and is not closed.
+     * 
+     * @see #transformUCSToFHIRStreaming(Iterator)
+     */
+    public Flow.Publisher<TransformationResult<FHIRResourceWrapper<? extends Resource>>> transformUCSToFHIRStreaming(
+            Stream<UCSClient> ucsClients) {
+        return transformUCSToFHIRStreaming(ucsClients.iterator());
+    }
+
+    /**
+     * Stream FHIR resources through the FHIR to UCS transformation, publishing each result
+     * as soon as it completes.
+     * 
+     * @param fhirWrappers Source of FHIR resource wrappers, read once
+     * @return Publisher of transformation results in completion order; accepts one subscriber
+     * @see #transformUCSToFHIRStreaming(Iterator)
+     */
+    public Flow.Publisher<TransformationResult<UCSClient>> transformFHIRToUCSStreaming(
+            Iterator<FHIRResourceWrapper<? extends Resource>> fhirWrappers) {
+        return transformStreaming("FHIR to UCS", fhirWrappers, fhirToUCSTransformer::transformFHIRToUCS);
+    }
+
+    private <S, T> Flow.Publisher<TransformationResult<T>> transformStreaming(
+            String direction, Iterator<S> items, ItemTransformation<S, T> transformation) {
+        return new StreamingResultPublisher<S, TransformationResult<T>>(
+            "Streaming " + direction + " transformation", items, batchPool.getParallelism() * 2,
+            (index, item) -> CompletableFuture.supplyAsync(
+                () -> transformItem(direction, (int) index, item, transformation), batchPool),
+            (index, item, error) -> TransformationResult.failure(
+                new TransformationException("Transformation failed: " + error.getMessage(), error), (int) index),
+            batchPool);
+    }
+
+    private <S, T> List<TransformationResult<T>> transformBatch(
+            String direction, List<S> items, ItemTransformation<S, T> transformation, long timeoutSeconds) {
+
+        if (items == null || items.isEmpty()) {
+            logger.warn("Empty or null list provided for batch {} transformation", direction);
+            return new ArrayList<>();
+        }
+
+        logger.info("Starting batch {} transformation for {} items", direction, items.size());
+        long startTime = System.currentTimeMillis();
+
+        int chunkSize = Math.max(1, items.size() / (batchPool.getParallelism() * CHUNKS_PER_WORKER));
+        Batch<S, T> batch = new Batch<>(direction, items, transformation, chunkSize);
+        ChunkTask<S, T> root = new ChunkTask<>(batch, 0, items.size());
+
+        try {
+            batchPool.submit(root).get(timeoutSeconds, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            logger.error("Batch {} transformation timed out after {} seconds, cancelling remaining items",
+                direction, timeoutSeconds);
+            batch.cancel(root);
+        } catch (InterruptedException e) {
+            logger.error("Batch {} transformation interrupted", direction, e);
+            batch.cancel(root);
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            logger.error("Error during batch {} transformation", direction, e);
+            batch.cancel(root);
+        }
+
+        // Items without a result were never started; those in progress at cancellation finish on their own
+        List<TransformationResult<T>> results = new ArrayList<>(items.size());
+        int successCount = 0;
+        for (int i = 0; i < items.size(); i++) {
+            TransformationResult<T> result = batch.results.get(i);
+            if (result == null) {
+                result = TransformationResult.timeout(i);
+            } else if (result.isSuccess()) {
+                successCount++;
+            }
+            results.add(result);
+        }
+
+        logger.info("Batch {} transformation completed: {} successful, {} failed, duration={}ms",
+            direction, successCount, items.size() - successCount, System.currentTimeMillis() - startTime);
+        return results;
+    }
+
+    /**
+     * A single item transformation, such as {@link UCSToFHIRTransformer#transformUCSToFHIR}.
+     */
+    @FunctionalInterface
+    private interface ItemTransformation<S, T> {
+        T transform(S item) throws TransformationException;
+    }
+
+    /**
+     * State shared by the chunks of one batch.
+     */
+    private static final class Batch<S, T> {
+        private final String direction;
+        private final List<S> items;
+        private final ItemTransformation<S, T> transformation;
+        private final int chunkSize;
+        private final AtomicReferenceArray<TransformationResult<T>> results;
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+
+        Batch(String direction, List<S> items, ItemTransformation<S, T> transformation, int chunkSize) {
+            this.direction = direction;
+            this.items = items;
+            this.transformation = transformation;
+            this.chunkSize = chunkSize;
+            this.results = new AtomicReferenceArray<>(items.size());
+        }
+
+        void cancel(ForkJoinTask<?> root) {
+            cancelled.set(true);
+            root.cancel(false);
+        }
+
+        TransformationResult<T> transform(int index) {
+            return transformItem(direction, index, items.get(index), transformation);
+        }
+    }
+
+    private static <S, T> TransformationResult<T> transformItem(
+            String direction, int index, S item, ItemTransformation<S, T> transformation) {
+        try {
+            return TransformationResult.success(transformation.transform(item), index);
+        } catch (TransformationException e) {
+            logger.error("{} transformation failed for item {}: {}", direction, index + 1, e.getMessage());
+            return TransformationResult.failure(e, index);
+        } catch (RuntimeException e) {
+            logger.error("{} transformation failed for item {}", direction, index + 1, e);
+            return TransformationResult.failure(
+                new TransformationException("Transformation failed: " + e.getMessage(), e), index);
+        }
+    }
+
+    /**
+     * Transforms the items in [from, to). Right halves are forked off while the range is
+     * larger than a chunk and few forked chunks are waiting, so splitting adapts to how
+     * many workers are idle.
+     */
+    private static final class ChunkTask<S, T> extends RecursiveAction {
+        private final Batch<S, T> batch;
+        private final int from;
+        private final int to;
+
+        ChunkTask(Batch<S, T> batch, int from, int to) {
+            this.batch = batch;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            int end = to;
+            List<ChunkTask<S, T>> forked = null;
+            while (end - from > batch.chunkSize && getSurplusQueuedTaskCount() <= MAX_SURPLUS_CHUNKS) {
+                int mid = (from + end) >>> 1;
+                ChunkTask<S, T> right = new ChunkTask<>(batch, mid, end);
+                right.fork();
+                if (forked == null) {
+                    forked = new ArrayList<>();
+                }
+                forked.add(right);
+                end = mid;
+            }
+
+            for (int i = from; i < end && !batch.cancelled.get(); i++) {
+                batch.results.set(i, batch.transform(i));
+            }
+
+            if (forked != null) {
+                for (int i = forked.size() - 1; i >= 0; i--) {
+                    forked.get(i).join();
+                }
+            }
+        }
+    }
+
     /**
      * Result wrapper for transformation operations.
      * Contains either the successful result or error information.
@@ -7,6 +7,7 @@ import com.smartbridge.core.validation.UCSClientValidator;
 import org.hl7.fhir.r4.model.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
@@ -31,6 +32,9 @@ public class FHIRToUCSTransformer {
 
     private final UCSClientValidator ucsValidator;
 
+    @Autowired(required = false)
+    private PatientMapper patientMapper;
+
     public FHIRToUCSTransformer(UCSClientValidator ucsValidator) {
         this.ucsValidator = ucsValidator;
     }
@@ -69,15 +73,22 @@ public class FHIRToUCSTransformer {
 
         try {
             // Create UCS Client object
-            UCSClient ucsClient = new UCSClient();
+            UCSClient ucsClient;
+
+            if (patientMapper != null) {
+                // Map identifiers and demographics with the configured field mapping
+                ucsClient = patientMapper.toUCSClient(patient);
+            } else {
+                ucsClient = new UCSClient();
 
-            // Map identifiers
-            UCSClient.UCSIdentifiers identifiers = mapIdentifiers(patient);
-            ucsClient.setIdentifiers(identifiers);
+                // Map identifiers
+                UCSClient.UCSIdentifiers identifiers = mapIdentifiers(patient);
+                ucsClient.setIdentifiers(identifiers);
 
-            // Map demographics
-            UCSClient.UCSDemographics demographics = mapDemographics(patient);
-            ucsClient.setDemographics(demographics);
+                // Map demographics
+                UCSClient.UCSDemographics demographics = mapDemographics(patient);
+                ucsClient.setDemographics(demographics);
+            }
 
             // Initialize clinical data (empty for now)
             UCSClient.UCSClinicalData clinicalData = new UCSClient.UCSClinicalData();
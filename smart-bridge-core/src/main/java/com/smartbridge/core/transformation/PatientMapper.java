@@ -0,0 +1,34 @@
+package com.smartbridge.core.transformation;
+
+import com.smartbridge.core.interfaces.TransformationException;
+import com.smartbridge.core.model.ucs.UCSClient;
+import org.hl7.fhir.r4.model.Patient;
+
+/**
+ * Field mapping between UCS clients and FHIR Patients.
+ * When a mapper bean is present, the Patient transformers use it in place of their
+ * built-in identifier and demographic mapping; validation, wrapping, metadata and
+ * clinical data stay with the transformers.
+ */
+public interface PatientMapper {
+
+    /**
+     * Version of the mapping, part of the tiered validation shape fingerprint.
+     * Must change whenever the mapping produces differently shaped resources.
+     */
+    String getMappingVersion();
+
+    /**
+     * Map the identifiers and demographics of a UCS client to a new Patient.
+     *
+     * @throws TransformationException if a required field is missing
+     */
+    Patient toPatient(UCSClient client) throws TransformationException;
+
+    /**
+     * Map the identifiers and demographics of a Patient to a new UCS client.
+     *
+     * @throws TransformationException if a required field is missing
+     */
+    UCSClient toUCSClient(Patient patient) throws TransformationException;
+}
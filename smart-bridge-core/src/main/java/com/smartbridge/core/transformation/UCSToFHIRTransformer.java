@@ -6,11 +6,13 @@ import com.smartbridge.core.model.fhir.FHIRResourceBuilder;
 import com.smartbridge.core.model.fhir.FHIRResourceWrapper;
 import com.smartbridge.core.model.ucs.UCSClient;
 import com.smartbridge.core.validation.FHIRValidator;
+import com.smartbridge.core.validation.TieredFHIRValidator;
 import com.smartbridge.core.validation.UCSClientValidator;
 import org.hl7.fhir.r4.model.Patient;
 import org.hl7.fhir.r4.model.Resource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 /**
@@ -24,14 +26,22 @@ public class UCSToFHIRTransformer implements TransformationService {
     private static final Logger logger = LoggerFactory.getLogger(UCSToFHIRTransformer.class);
     
     // FHIR identifier system URIs
-    private static final String OPENSRP_ID_SYSTEM = "http://moh.go.tz/identifier/opensrp-id";
-    private static final String NATIONAL_ID_SYSTEM = "http://moh.go.tz/identifier/national-id";
+    public static final String OPENSRP_ID_SYSTEM = "http://moh.go.tz/identifier/opensrp-id";
+    public static final String NATIONAL_ID_SYSTEM = "http://moh.go.tz/identifier/national-id";
     private static final String SOURCE_SYSTEM = "UCS";
+    // Bump whenever the mapping below changes, so tiered validation re-validates every resource shape
+    static final String MAPPING_VERSION = "ucs-fhir-patient/1";
 
     private final UCSClientValidator ucsValidator;
     private final FHIRValidator fhirValidator;
     private final FHIRToUCSTransformer fhirToUCSTransformer;
 
+    @Autowired(required = false)
+    private TieredFHIRValidator tieredFHIRValidator;
+
+    @Autowired(required = false)
+    private PatientMapper patientMapper;
+
     public UCSToFHIRTransformer(UCSClientValidator ucsValidator, FHIRValidator fhirValidator, 
                                 FHIRToUCSTransformer fhirToUCSTransformer) {
         this.ucsValidator = ucsValidator;
@@ -57,26 +67,33 @@ public class UCSToFHIRTransformer implements TransformationService {
 
         logger.info("Starting UCS to FHIR transformation for client");
 
-        // Basic null checks for required fields
-        validateRequiredFields(ucsClient);
+        // Basic null checks for required fields; a field mapping enforces its own
+        if (patientMapper == null) {
+            validateRequiredFields(ucsClient);
+        }
 
         try {
-            // Build FHIR Patient resource using builder pattern
-            FHIRResourceBuilder.PatientBuilder patientBuilder = FHIRResourceBuilder.patient();
-
-            // Map identifiers
-            mapIdentifiers(ucsClient, patientBuilder);
-
-            // Map demographics
-            mapDemographics(ucsClient, patientBuilder);
-
-            // Build the patient resource
-            Patient patient = patientBuilder.build();
+            Patient patient;
+            if (patientMapper != null) {
+                // Map identifiers and demographics with the configured field mapping
+                patient = patientMapper.toPatient(ucsClient);
+            } else {
+                // Build FHIR Patient resource using builder pattern
+                FHIRResourceBuilder.PatientBuilder patientBuilder = FHIRResourceBuilder.patient();
+
+                // Map identifiers
+                mapIdentifiers(ucsClient, patientBuilder);
+
+                // Map demographics
+                mapDemographics(ucsClient, patientBuilder);
+
+                // Build the patient resource
+                patient = patientBuilder.build();
+            }
 
             // Validate FHIR resource
-            boolean fhirValid = validateFHIRResource(patient);
-            if (!fhirValid) {
-                FHIRValidator.FHIRValidationResult result = fhirValidator.validate(patient);
+            FHIRValidator.FHIRValidationResult result = validatePatient(patient);
+            if (!result.isValid()) {
                 throw new TransformationException("FHIR Patient validation failed: " + result.getErrorMessage());
             }
 
@@ -101,6 +118,16 @@ public class UCSToFHIRTransformer implements TransformationService {
         }
     }
 
+    /**
+     * Validate a built Patient once, through the tiered validator when it is available.
+     */
+    private FHIRValidator.FHIRValidationResult validatePatient(Patient patient) {
+        if (tieredFHIRValidator != null) {
+            return tieredFHIRValidator.validate(patient, getMappingVersion());
+        }
+        return fhirValidator.validate(patient);
+    }
+
     /**
      * Validate required fields are present in UCS Client.
      * This is a basic validation for Java objects, separate from JSON schema validation.
@@ -217,6 +244,14 @@ public class UCSToFHIRTransformer implements TransformationService {
         }
     }
 
+    /**
+     * @return The version of the mapping engine when one is configured, otherwise of the built-in mapping
+     */
+    @Override
+    public String getMappingVersion() {
+        return patientMapper != null ? patientMapper.getMappingVersion() : MAPPING_VERSION;
+    }
+
     /**
      * Transform FHIR R4 resource back to UCS Client format.
      * Delegates to FHIRToUCSTransformer for reverse transformation.
@@ -0,0 +1,423 @@
+package com.smartbridge.core.validation;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Validator compiled from the UCS Client JSON schema that checks the Java objects directly,
+ * instead of serializing them to a JSON tree for the networknt validator.
+ *
+ * Schema properties are bound at startup to the getters of the fields carrying the same
+ * {@link JsonProperty} name, and every keyword becomes a precomputed check, so a valid
+ * client is validated without allocating. Values are judged as Jackson would serialize them
+ * with dates as ISO strings, and errors use the networknt message formats, so both paths
+ * report the same messages.
+ *
+ * Only the keywords the UCS schema uses are supported; {@link #compile(JsonNode, Class)}
+ * rejects any other so {@link UCSClientValidator} can fall back to the schema path.
+ */
+final class CompiledUCSClientValidator {
+
+    private static final Set<String> ANNOTATIONS = Set.of(
+        "$schema", "$id", "$comment", "title", "description", "default", "examples");
+    private static final Set<String> KEYWORDS = Set.of(
+        "type", "required", "properties", "items", "minLength", "enum", "pattern");
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private final SchemaNode root;
+
+    private CompiledUCSClientValidator(SchemaNode root) {
+        this.root = root;
+    }
+
+    /**
+     * Compile a schema for the given root type.
+     *
+     * @throws IllegalArgumentException if the schema uses a keyword or construct that is not supported
+     */
+    static CompiledUCSClientValidator compile(JsonNode schema, Class<?> rootType) {
+        return new CompiledUCSClientValidator(compileNode(schema, rootType, "$"));
+    }
+
+    /**
+     * @return Error messages joined with "; ", or null if the object is valid
+     */
+    String validate(Object value) {
+        StringBuilder errors = root.check(value, -1, null);
+        return errors != null ? errors.toString() : null;
+    }
+
+    private static final class SchemaNode {
+        private final String path;
+        private final String[] types;
+        private final String expectedTypes;
+        private final int minLength;
+        private final String[] enumValues;
+        private final String enumText;
+        private final Pattern pattern;
+        private final boolean patternAcceptsIsoDate;
+        private final boolean patternAcceptsIsoDateTime;
+        private final String[] missingRequired;
+        private final Property[] properties;
+        private final SchemaNode items;
+
+        SchemaNode(String path, String[] types, int minLength, String[] enumValues, Pattern pattern,
+                   String[] missingRequired, Property[] properties, SchemaNode items) {
+            this.path = path;
+            this.types = types;
+            this.expectedTypes = types == null ? null
+                : types.length == 1 ? types[0] : "[" + String.join(", ", types) + "]";
+            this.minLength = minLength;
+            this.enumValues = enumValues;
+            this.enumText = enumValues == null ? null : "[" + String.join(", ", enumValues) + "]";
+            this.pattern = pattern;
+            this.patternAcceptsIsoDate = pattern != null
+                && acceptsAll(pattern, "0000-01-01", "2024-06-15", "9999-12-31");
+            this.patternAcceptsIsoDateTime = pattern != null
+                && acceptsAll(pattern, "0000-01-01T00:00:00", "2024-06-15T12:30:45.5", "9999-12-31T23:59:59.999999999");
+            this.missingRequired = missingRequired;
+            this.properties = properties;
+            this.items = items;
+        }
+
+        /**
+         * @param index  Array index of the value when checking items, else -1
+         * @param errors Errors so far, or null while there are none
+         * @return Errors including this node's, or null while there are none
+         */
+        StringBuilder check(Object value, int index, StringBuilder errors) {
+            String type = jsonType(value);
+            if (types != null && !matchesType(type)) {
+                errors = error(errors, pathOf(index), types.length == 1
+                    ? ": " + type + " found, " + expectedTypes + " expected"
+                    : ": " + type + " found, but " + expectedTypes + " is required");
+            }
+
+            if ("string".equals(type)) {
+                if (minLength > 0 && codePoints(textOf(value)) < minLength) {
+                    errors = error(errors, pathOf(index), ": must be at least " + minLength + " characters long");
+                }
+                if (pattern != null && !matchesPattern(value)) {
+                    errors = error(errors, pathOf(index), ": does not match the regex pattern " + pattern.pattern());
+                }
+            }
+            if (enumValues != null && !inEnum(value, type)) {
+                errors = error(errors, pathOf(index), ": does not have a value in the enumeration " + enumText);
+            }
+
+            if ("object".equals(type)) {
+                for (String name : missingRequired) {
+                    errors = error(errors, pathOf(index), "." + name + ": is missing but it is required");
+                }
+                for (Property property : properties) {
+                    errors = property.schema.check(property.getter.apply(value), -1, errors);
+                }
+            } else if (items != null && "array".equals(type)) {
+                errors = checkItems(value, errors);
+            }
+            return errors;
+        }
+
+        private StringBuilder checkItems(Object value, StringBuilder errors) {
+            if (value instanceof List && value instanceof java.util.RandomAccess) {
+                List<?> list = (List<?>) value;
+                for (int i = 0; i < list.size(); i++) {
+                    errors = items.check(list.get(i), i, errors);
+                }
+            } else if (value instanceof Collection) {
+                int i = 0;
+                for (Object item : (Collection<?>) value) {
+                    errors = items.check(item, i++, errors);
+                }
+            } else if (value instanceof Object[]) {
+                Object[] array = (Object[]) value;
+                for (int i = 0; i < array.length; i++) {
+                    errors = items.check(array[i], i, errors);
+                }
+            } else {
+                int length = java.lang.reflect.Array.getLength(value);
+                for (int i = 0; i < length; i++) {
+                    errors = items.check(java.lang.reflect.Array.get(value, i), i, errors);
+                }
+            }
+            return errors;
+        }
+
+        private boolean matchesType(String type) {
+            for (String expected : types) {
+                if (expected.equals(type) || ("number".equals(expected) && "integer".equals(type))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean matchesPattern(Object value) {
+            // ISO renders of years 0-9999 have a fixed shape, checked against the pattern at compile time
+            if (value instanceof LocalDate && patternAcceptsIsoDate && inIsoYearRange(((LocalDate) value).getYear())) {
+                return true;
+            }
+            if (value instanceof LocalDateTime && patternAcceptsIsoDateTime
+                    && inIsoYearRange(((LocalDateTime) value).getYear())) {
+                return true;
+            }
+            return pattern.matcher(textOf(value)).find();
+        }
+
+        private boolean inEnum(Object value, String type) {
+            if (!"string".equals(type)) {
+                return false;
+            }
+            String text = textOf(value);
+            for (String allowed : enumValues) {
+                if (allowed.equals(text)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private String pathOf(int index) {
+            return index < 0 ? path : path + "[" + index + "]";
+        }
+    }
+
+    private static final class Property {
+        private final Function<Object, Object> getter;
+        private final SchemaNode schema;
+
+        Property(Function<Object, Object> getter, SchemaNode schema) {
+            this.getter = getter;
+            this.schema = schema;
+        }
+    }
+
+    private static SchemaNode compileNode(JsonNode schema, Class<?> javaType, String path) {
+        if (!schema.isObject()) {
+            throw new IllegalArgumentException("Unsupported schema at " + path + ": " + schema.getNodeType());
+        }
+        Iterator<String> names = schema.fieldNames();
+        while (names.hasNext()) {
+            String keyword = names.next();
+            if (!KEYWORDS.contains(keyword) && !ANNOTATIONS.contains(keyword)) {
+                throw new IllegalArgumentException("Unsupported schema keyword '" + keyword + "' at " + path);
+            }
+        }
+
+        String[] types = null;
+        if (schema.has("type")) {
+            types = textValues(schema.get("type"), path + " type");
+        }
+        int minLength = schema.has("minLength") ? schema.get("minLength").asInt() : -1;
+        String[] enumValues = schema.has("enum") ? textValues(schema.get("enum"), path + " enum") : null;
+        Pattern pattern = schema.has("pattern") ? Pattern.compile(schema.get("pattern").asText()) : null;
+
+        List<String> missingRequired = new ArrayList<>();
+        List<Property> properties = new ArrayList<>();
+        if (schema.has("properties") || schema.has("required")) {
+            Map<String, Method> getters = gettersByJsonName(javaType, path);
+            if (schema.has("required")) {
+                for (String name : textValues(schema.get("required"), path + " required")) {
+                    if (!getters.containsKey(name)) {
+                        missingRequired.add(name);
+                    }
+                }
+            }
+            if (schema.has("properties")) {
+                Iterator<Map.Entry<String, JsonNode>> fields = schema.get("properties").fields();
+                while (fields.hasNext()) {
+                    Map.Entry<String, JsonNode> field = fields.next();
+                    Method getter = getters.get(field.getKey());
+                    if (getter == null) {
+                        // Never present in the serialized object, so never validated
+                        continue;
+                    }
+                    properties.add(new Property(bindGetter(getter),
+                        compileNode(field.getValue(), getter.getReturnType(), path + "." + field.getKey())));
+                }
+            }
+        }
+
+        SchemaNode items = null;
+        if (schema.has("items")) {
+            JsonNode itemSchema = schema.get("items");
+            if (itemSchema.has("properties") || itemSchema.has("required") || itemSchema.has("items")) {
+                throw new IllegalArgumentException("Unsupported nested item schema at " + path);
+            }
+            items = compileNode(itemSchema, Object.class, path);
+        }
+
+        return new SchemaNode(path, types, minLength, enumValues, pattern,
+            missingRequired.toArray(new String[0]), properties.toArray(new Property[0]), items);
+    }
+
+    /**
+     * Map JSON property names to getters, the way Jackson names the fields of the UCS model.
+     */
+    private static Map<String, Method> gettersByJsonName(Class<?> javaType, String path) {
+        if (javaType == Object.class || Map.class.isAssignableFrom(javaType)) {
+            throw new IllegalArgumentException("Cannot bind object schema at " + path + " to " + javaType.getName());
+        }
+        Map<String, Method> getters = new java.util.LinkedHashMap<>();
+        for (Class<?> type = javaType; type != null && type != Object.class; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                JsonProperty annotation = field.getAnnotation(JsonProperty.class);
+                if (annotation == null) {
+                    continue;
+                }
+                String jsonName = annotation.value().isEmpty() ? field.getName() : annotation.value();
+                Method getter = findGetter(javaType, field.getName());
+                if (getter != null) {
+                    getters.putIfAbsent(jsonName, getter);
+                }
+            }
+        }
+        return getters;
+    }
+
+    private static Method findGetter(Class<?> type, String fieldName) {
+        String suffix = Character.toUpperCase(fieldName.charAt(0)) + fieldName.substring(1);
+        for (String prefix : new String[] {"get", "is"}) {
+            try {
+                return type.getMethod(prefix + suffix);
+            } catch (NoSuchMethodException e) {
+                // Try the next prefix
+            }
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Function<Object, Object> bindGetter(Method method) {
+        try {
+            MethodHandle handle = LOOKUP.unreflect(method);
+            CallSite site = LambdaMetafactory.metafactory(LOOKUP, "apply",
+                MethodType.methodType(Function.class),
+                MethodType.methodType(Object.class, Object.class),
+                handle,
+                MethodType.methodType(MethodType.methodType(method.getReturnType()).wrap().returnType(),
+                    method.getDeclaringClass()));
+            return (Function<Object, Object>) site.getTarget().invoke();
+        } catch (Throwable e) {
+            throw new IllegalStateException("Failed to bind getter " + method, e);
+        }
+    }
+
+    private static String[] textValues(JsonNode node, String what) {
+        if (node.isTextual()) {
+            return new String[] {node.asText()};
+        }
+        if (!node.isArray()) {
+            throw new IllegalArgumentException("Unsupported " + what + ": " + node);
+        }
+        String[] values = new String[node.size()];
+        for (int i = 0; i < values.length; i++) {
+            if (!node.get(i).isTextual()) {
+                throw new IllegalArgumentException("Unsupported non-string value in " + what + ": " + node.get(i));
+            }
+            values[i] = node.get(i).asText();
+        }
+        return values;
+    }
+
+    /**
+     * @return JSON type name of a value as serialized by the UCS Client ObjectMapper
+     */
+    private static String jsonType(Object value) {
+        if (value == null) {
+            return "null";
+        }
+        if (value instanceof String || value instanceof Character || value instanceof Enum
+                || value instanceof TemporalAccessor || value instanceof java.util.Date
+                || value instanceof java.util.Calendar || value instanceof byte[] || value instanceof char[]) {
+            return "string";
+        }
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte
+                || value instanceof BigInteger || value instanceof AtomicInteger || value instanceof AtomicLong) {
+            return "integer";
+        }
+        if (value instanceof Number) {
+            return "number";
+        }
+        if (value instanceof Boolean) {
+            return "boolean";
+        }
+        if (value instanceof Collection || value.getClass().isArray()) {
+            return "array";
+        }
+        return "object";
+    }
+
+    /**
+     * @return Text of a string-typed value; only the String case is free of allocation
+     */
+    private static String textOf(Object value) {
+        if (value instanceof String) {
+            return (String) value;
+        }
+        if (value instanceof Enum) {
+            return ((Enum<?>) value).name();
+        }
+        if (value instanceof byte[]) {
+            return java.util.Base64.getEncoder().encodeToString((byte[]) value);
+        }
+        if (value instanceof char[]) {
+            return new String((char[]) value);
+        }
+        if (value instanceof LocalDateTime) {
+            // LocalDateTime.toString() drops zero seconds, Jackson's ISO format does not
+            return DateTimeFormatter.ISO_LOCAL_DATE_TIME.format((LocalDateTime) value);
+        }
+        return value.toString();
+    }
+
+    private static int codePoints(String text) {
+        return text.codePointCount(0, text.length());
+    }
+
+    private static boolean inIsoYearRange(int year) {
+        return year >= 0 && year <= 9999;
+    }
+
+    private static boolean acceptsAll(Pattern pattern, String... samples) {
+        for (String sample : samples) {
+            if (!pattern.matcher(sample).find()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static StringBuilder error(StringBuilder errors, String path, String message) {
+        if (errors == null) {
+            errors = new StringBuilder(64);
+        } else {
+            errors.append("; ");
+        }
+        return errors.append(path).append(message);
+    }
+}
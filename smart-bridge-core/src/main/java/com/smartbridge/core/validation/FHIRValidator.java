@@ -2,10 +2,12 @@ package com.smartbridge.core.validation;
 
 import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.validation.FhirValidator;
+import com.smartbridge.core.fhir.FHIRRuntime;
 import ca.uhn.fhir.validation.ValidationResult;
 import org.hl7.fhir.r4.model.Resource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
@@ -24,8 +26,13 @@ public class FHIRValidator {
     private final FhirValidator validator;
 
     public FHIRValidator() {
-        this.fhirContext = FhirContext.forR4();
-        this.validator = fhirContext.newValidator();
+        this(FHIRRuntime.getDefault());
+    }
+
+    @Autowired
+    public FHIRValidator(FHIRRuntime fhirRuntime) {
+        this.fhirContext = fhirRuntime.getContext();
+        this.validator = fhirRuntime.getValidator();
     }
 
     /**
@@ -0,0 +1,91 @@
+package com.smartbridge.core.validation;
+
+import org.hl7.fhir.r4.model.Base;
+import org.hl7.fhir.r4.model.BaseDateTimeType;
+import org.hl7.fhir.r4.model.BooleanType;
+import org.hl7.fhir.r4.model.CodeType;
+import org.hl7.fhir.r4.model.Enumeration;
+import org.hl7.fhir.r4.model.IdType;
+import org.hl7.fhir.r4.model.Property;
+import org.hl7.fhir.r4.model.Resource;
+import org.hl7.fhir.r4.model.UriType;
+
+/**
+ * 64-bit fingerprint of the shape of a FHIR resource: which elements are present, how often,
+ * and the values that decide validity regardless of the record, i.e. codes, URIs such as
+ * identifier systems, booleans and date precisions. Free-text and numeric values, dates and
+ * resource ids are only recorded as present, so two patients differing only in names,
+ * identifier values or birth dates share a shape.
+ */
+final class ResourceShape {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private ResourceShape() {
+    }
+
+    /**
+     * @param mappingVersion Version of the mapping that produced the resource, part of the fingerprint
+     */
+    static long fingerprint(Resource resource, String mappingVersion) {
+        long hash = mix(FNV_OFFSET_BASIS, mappingVersion);
+        return mixElement(hash, resource);
+    }
+
+    private static long mixElement(long hash, Base element) {
+        hash = mix(hash, element.fhirType());
+        if (element.isPrimitive()) {
+            hash = mix(hash, shapeValue(element));
+        }
+        for (Property property : element.children()) {
+            if (!property.hasValues()) {
+                continue;
+            }
+            hash = mix(hash, property.getName());
+            hash = mixInt(hash, property.getValues().size());
+            for (Base value : property.getValues()) {
+                hash = mixElement(hash, value);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * @return The part of a primitive value that belongs to the shape
+     */
+    private static String shapeValue(Base primitive) {
+        if (!primitive.hasPrimitiveValue()) {
+            return null;
+        }
+        if (primitive instanceof IdType) {
+            return "";
+        }
+        if (primitive instanceof Enumeration || primitive instanceof CodeType
+                || primitive instanceof UriType || primitive instanceof BooleanType) {
+            return primitive.primitiveValue();
+        }
+        if (primitive instanceof BaseDateTimeType) {
+            return ((BaseDateTimeType) primitive).getPrecision().name();
+        }
+        return "";
+    }
+
+    private static long mix(long hash, String value) {
+        if (value == null) {
+            return (hash ^ 0xff) * FNV_PRIME;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+        // Separator so adjacent values cannot run into each other
+        return (hash ^ 0xfe) * FNV_PRIME;
+    }
+
+    private static long mixInt(long hash, int value) {
+        for (int i = 0; i < 4; i++) {
+            hash = (hash ^ ((value >>> (i * 8)) & 0xff)) * FNV_PRIME;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,126 @@
+package com.smartbridge.core.validation;
+
+import org.hl7.fhir.r4.model.Address;
+import org.hl7.fhir.r4.model.HumanName;
+import org.hl7.fhir.r4.model.Identifier;
+import org.hl7.fhir.r4.model.MedicationRequest;
+import org.hl7.fhir.r4.model.Observation;
+import org.hl7.fhir.r4.model.Patient;
+import org.hl7.fhir.r4.model.Resource;
+import org.hl7.fhir.r4.model.Task;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Cheap structural checks of the FHIR resources the bridge produces: required elements,
+ * and identifiers, names and addresses that carry content. The rules for each resource type
+ * are compiled into an array of checks once, so a check costs a few getter calls.
+ *
+ * This is the first tier of {@link TieredFHIRValidator}; it rejects resources the full HAPI
+ * validation would reject without replacing it.
+ */
+public final class StructuralFHIRValidator {
+
+    /**
+     * A single structural rule.
+     *
+     * @return Error message, or null if the resource satisfies the rule
+     */
+    @FunctionalInterface
+    interface Rule<R extends Resource> extends Function<R, String> {
+    }
+
+    private final Map<Class<? extends Resource>, Rule<Resource>[]> rules = Map.of(
+        Patient.class, compile(patientRules()),
+        Observation.class, compile(observationRules()),
+        Task.class, compile(taskRules()),
+        MedicationRequest.class, compile(medicationRequestRules())
+    );
+
+    /**
+     * Check a resource against the rules of its type. Types without rules pass.
+     */
+    public FHIRValidator.FHIRValidationResult validate(Resource resource) {
+        if (resource == null) {
+            return FHIRValidator.FHIRValidationResult.invalid("Resource cannot be null");
+        }
+        Rule<Resource>[] checks = rules.get(resource.getClass());
+        if (checks == null) {
+            return FHIRValidator.FHIRValidationResult.valid();
+        }
+        List<String> errors = null;
+        for (Rule<Resource> check : checks) {
+            String error = check.apply(resource);
+            if (error != null) {
+                if (errors == null) {
+                    errors = new ArrayList<>(2);
+                }
+                errors.add("ERROR: " + error);
+            }
+        }
+        return errors == null ? FHIRValidator.FHIRValidationResult.valid()
+            : FHIRValidator.FHIRValidationResult.invalid(errors);
+    }
+
+    private static List<Rule<Patient>> patientRules() {
+        return List.of(
+            patient -> {
+                for (Identifier identifier : patient.getIdentifier()) {
+                    if (!identifier.hasValue()) {
+                        return "Patient.identifier must have a value";
+                    }
+                }
+                return null;
+            },
+            patient -> {
+                for (HumanName name : patient.getName()) {
+                    if (!name.hasGiven() && !name.hasFamily() && !name.hasText()) {
+                        return "Patient.name must have a given name, family name or text";
+                    }
+                }
+                return null;
+            },
+            patient -> {
+                for (Address address : patient.getAddress()) {
+                    if (address.isEmpty()) {
+                        return "Patient.address must not be empty";
+                    }
+                }
+                return null;
+            }
+        );
+    }
+
+    private static List<Rule<Observation>> observationRules() {
+        return List.of(
+            observation -> observation.hasStatus() ? null : "Observation.status is required",
+            observation -> observation.hasCode() ? null : "Observation.code is required"
+        );
+    }
+
+    private static List<Rule<Task>> taskRules() {
+        return List.of(
+            task -> task.hasStatus() ? null : "Task.status is required",
+            task -> task.hasIntent() ? null : "Task.intent is required"
+        );
+    }
+
+    private static List<Rule<MedicationRequest>> medicationRequestRules() {
+        return List.of(
+            request -> request.hasStatus() ? null : "MedicationRequest.status is required",
+            request -> request.hasIntent() ? null : "MedicationRequest.intent is required",
+            request -> request.hasMedication() ? null : "MedicationRequest.medication[x] is required",
+            request -> request.hasSubject() ? null : "MedicationRequest.subject is required"
+        );
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <R extends Resource> Rule<Resource>[] compile(List<Rule<R>> typedRules) {
+        return typedRules.stream()
+            .map(rule -> (Rule<Resource>) resource -> rule.apply((R) resource))
+            .toArray(Rule[]::new);
+    }
+}
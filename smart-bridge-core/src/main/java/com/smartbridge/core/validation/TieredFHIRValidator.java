@@ -0,0 +1,166 @@
+package com.smartbridge.core.validation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.hl7.fhir.r4.model.Resource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tiered FHIR validation for resources produced by the bridge's own mappings.
+ *
+ * Every resource gets the {@link StructuralFHIRValidator} checks. The full HAPI validation
+ * of {@link FHIRValidator} then only runs for resources whose {@link ResourceShape} was not
+ * seen valid before under the same mapping version, plus a random sample of the rest, so
+ * value-level errors in a known shape still surface. Invalid results are never cached.
+ *
+ * The shape cache is cleared when it reaches its maximum size; the number of distinct
+ * shapes a mapping produces is small, so this only happens after many mapping versions.
+ */
+@Component
+public class TieredFHIRValidator {
+
+    private static final Logger logger = LoggerFactory.getLogger(TieredFHIRValidator.class);
+
+    private final FHIRValidator fullValidator;
+    private final StructuralFHIRValidator structuralValidator = new StructuralFHIRValidator();
+    private final double sampleRate;
+    private final int cacheSize;
+
+    // Shapes that passed full validation, keyed by fingerprint including the mapping version
+    private final Map<Long, Boolean> validShapes = new ConcurrentHashMap<>();
+
+    private final AtomicLong structuralRejections = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong fullValidations = new AtomicLong();
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    private Counter structuralRejectedCounter;
+    private Counter cacheHitCounter;
+    private Counter fullValidationCounter;
+
+    @Autowired
+    public TieredFHIRValidator(
+            FHIRValidator fullValidator,
+            @Value("${smartbridge.validation.fhir.sample-rate:0.01}") double sampleRate,
+            @Value("${smartbridge.validation.fhir.cache-size:10000}") int cacheSize) {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("FHIR validation sample rate must be between 0 and 1");
+        }
+        this.fullValidator = fullValidator;
+        this.sampleRate = sampleRate;
+        this.cacheSize = Math.max(1, cacheSize);
+    }
+
+    @PostConstruct
+    void registerMetrics() {
+        if (meterRegistry == null) {
+            return;
+        }
+        structuralRejectedCounter = Counter.builder("smart_bridge_fhir_validation_total")
+            .description("FHIR resources validated, by deciding tier")
+            .tag("tier", "structural")
+            .register(meterRegistry);
+        cacheHitCounter = Counter.builder("smart_bridge_fhir_validation_total")
+            .description("FHIR resources validated, by deciding tier")
+            .tag("tier", "cached")
+            .register(meterRegistry);
+        fullValidationCounter = Counter.builder("smart_bridge_fhir_validation_total")
+            .description("FHIR resources validated, by deciding tier")
+            .tag("tier", "full")
+            .register(meterRegistry);
+        Gauge.builder("smart_bridge_fhir_validation_cached_shapes", validShapes, Map::size)
+            .description("Resource shapes known to pass full FHIR validation")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Validate a resource without a mapping version.
+     */
+    public FHIRValidator.FHIRValidationResult validate(Resource resource) {
+        return validate(resource, null);
+    }
+
+    /**
+     * Validate a resource produced by the given version of a mapping.
+     * A new mapping version never reuses shapes validated under another one.
+     *
+     * @param resource       The FHIR resource to validate
+     * @param mappingVersion Version of the mapping that built the resource, or null
+     * @return FHIRValidationResult of the tier that decided
+     */
+    public FHIRValidator.FHIRValidationResult validate(Resource resource, String mappingVersion) {
+        FHIRValidator.FHIRValidationResult structural = structuralValidator.validate(resource);
+        if (!structural.isValid()) {
+            structuralRejections.incrementAndGet();
+            increment(structuralRejectedCounter);
+            logger.warn("FHIR resource failed structural validation: {}", structural.getErrorMessage());
+            return structural;
+        }
+
+        long shape = ResourceShape.fingerprint(resource, mappingVersion);
+        boolean known = validShapes.containsKey(shape);
+        if (known && (sampleRate == 0 || ThreadLocalRandom.current().nextDouble() >= sampleRate)) {
+            cacheHits.incrementAndGet();
+            increment(cacheHitCounter);
+            return structural;
+        }
+
+        fullValidations.incrementAndGet();
+        increment(fullValidationCounter);
+        FHIRValidator.FHIRValidationResult result = fullValidator.validate(resource);
+        if (result.isValid()) {
+            if (!known) {
+                if (validShapes.size() >= cacheSize) {
+                    validShapes.clear();
+                }
+                validShapes.put(shape, Boolean.TRUE);
+            }
+        } else if (known) {
+            logger.warn("Sampled FHIR validation failed for a {} shape that passed before: {}",
+                resource.fhirType(), result.getErrorMessage());
+        }
+        return result;
+    }
+
+    /**
+     * Forget all validated shapes, e.g. after the FHIR profiles changed.
+     */
+    public void clearCache() {
+        validShapes.clear();
+    }
+
+    public int getCachedShapeCount() {
+        return validShapes.size();
+    }
+
+    public long getStructuralRejections() {
+        return structuralRejections.get();
+    }
+
+    public long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    public long getFullValidations() {
+        return fullValidations.get();
+    }
+
+    private static void increment(Counter counter) {
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+}
@@ -18,6 +18,8 @@ import java.util.stream.Collectors;
 /**
  * Validator for UCS Client data using JSON Schema validation.
  * Validates UCS Client objects against the defined JSON schema to ensure data integrity.
+ * Objects are checked by a validator compiled from the same schema, without serializing
+ * them to JSON; the networknt schema path remains for JSON input and as a fallback.
  */
 @Component
 public class UCSClientValidator {
@@ -27,32 +29,46 @@ public class UCSClientValidator {
 
     private final JsonSchema schema;
     private final ObjectMapper objectMapper;
+    private final CompiledUCSClientValidator compiledValidator;
 
     public UCSClientValidator() {
         this.objectMapper = new ObjectMapper();
         this.objectMapper.findAndRegisterModules(); // Register JSR310 module for date/time
         this.objectMapper.disable(com.fasterxml.jackson.databind.SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
-        this.schema = loadSchema();
+        JsonNode schemaNode = loadSchema();
+        this.schema = JsonSchemaFactory.getInstance(SpecVersion.VersionFlag.V7).getSchema(schemaNode);
+        this.compiledValidator = compileSchema(schemaNode);
     }
 
     /**
      * Load the UCS Client JSON schema from resources.
      */
-    private JsonSchema loadSchema() {
-        try {
-            InputStream schemaStream = getClass().getResourceAsStream(SCHEMA_PATH);
+    private JsonNode loadSchema() {
+        try (InputStream schemaStream = getClass().getResourceAsStream(SCHEMA_PATH)) {
             if (schemaStream == null) {
                 throw new IllegalStateException("UCS Client schema not found at: " + SCHEMA_PATH);
             }
             
-            JsonSchemaFactory factory = JsonSchemaFactory.getInstance(SpecVersion.VersionFlag.V7);
-            return factory.getSchema(schemaStream);
+            return objectMapper.readTree(schemaStream);
         } catch (Exception e) {
             logger.error("Failed to load UCS Client schema", e);
             throw new IllegalStateException("Failed to initialize UCS Client validator", e);
         }
     }
 
+    /**
+     * Compile the schema into a direct object validator, or return null to use the schema path
+     * when the schema uses something the compiler does not support.
+     */
+    private CompiledUCSClientValidator compileSchema(JsonNode schemaNode) {
+        try {
+            return CompiledUCSClientValidator.compile(schemaNode, UCSClient.class);
+        } catch (IllegalArgumentException e) {
+            logger.warn("UCS Client schema cannot be compiled, validating through JSON: {}", e.getMessage());
+            return null;
+        }
+    }
+
     /**
      * Validate a UCS Client object against the JSON schema.
      * 
@@ -63,6 +79,31 @@ public class UCSClientValidator {
         if (client == null) {
             return ValidationResult.invalid("UCS Client object cannot be null");
         }
+        if (compiledValidator == null) {
+            return validateWithSchema(client);
+        }
+
+        try {
+            String errorMessage = compiledValidator.validate(client);
+            if (errorMessage == null) {
+                logger.debug("UCS Client validation successful");
+                return ValidationResult.valid();
+            }
+            logger.warn("UCS Client validation failed: {}", errorMessage);
+            return ValidationResult.invalid(errorMessage);
+        } catch (Exception e) {
+            logger.error("Error during UCS Client validation", e);
+            return ValidationResult.invalid("Validation error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Validate a UCS Client object by serializing it to JSON and running the schema validator.
+     */
+    ValidationResult validateWithSchema(UCSClient client) {
+        if (client == null) {
+            return ValidationResult.invalid("UCS Client object cannot be null");
+        }
 
         try {
             // Convert UCSClient to JsonNode for schema validation
@@ -153,6 +194,8 @@ public class UCSClientValidator {
      * Result of a validation operation.
      */
     public static class ValidationResult {
+        private static final ValidationResult VALID = new ValidationResult(true, null);
+
         private final boolean valid;
         private final String errorMessage;
 
@@ -162,7 +205,7 @@ public class UCSClientValidator {
         }
 
         public static ValidationResult valid() {
-            return new ValidationResult(true, null);
+            return VALID;
         }
 
         public static ValidationResult invalid(String errorMessage) {
@@ -0,0 +1,243 @@
+package com.smartbridge.core.audit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AsyncAuditWriter.
+ * Verifies batching and ordering, the overflow policies and lag measurement.
+ */
+class AsyncAuditWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private AsyncAuditWriter writer;
+    private final List<AuditRecord> written = Collections.synchronizedList(new ArrayList<>());
+    private final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+
+    @AfterEach
+    void tearDown() {
+        if (writer != null) {
+            writer.stop();
+        }
+    }
+
+    @Test
+    @Timeout(10)
+    void testAppend_WritesAllRecordsInOrderInBatches() {
+        writer = new AsyncAuditWriter(1024, 16, AsyncAuditWriter.OverflowPolicy.BLOCK, null);
+        writer.addSink(this::capture);
+        for (int i = 0; i < 100; i++) {
+            writer.append(transformation(i));
+        }
+
+        writer.start();
+        writer.stop();
+
+        assertEquals(100, written.size());
+        for (int i = 0; i < 100; i++) {
+            assertTrue(written.get(i).getLine().contains("SourceId=source-" + i + " "));
+        }
+        assertTrue(batchSizes.stream().allMatch(size -> size <= 16));
+        assertEquals(100, writer.getWrittenCount());
+        assertEquals(0, writer.getBufferDepth());
+    }
+
+    @Test
+    @Timeout(10)
+    void testAppend_ConcurrentProducersLoseNothing() throws InterruptedException {
+        writer = new AsyncAuditWriter(64, 32, AsyncAuditWriter.OverflowPolicy.BLOCK, null);
+        writer.addSink(this::capture);
+        writer.start();
+
+        List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < 4; p++) {
+            Thread producer = new Thread(() -> {
+                for (int i = 0; i < 2500; i++) {
+                    writer.append(transformation(i));
+                }
+            });
+            producers.add(producer);
+            producer.start();
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        writer.stop();
+
+        // The buffer is far smaller than the load, so producers had to wait for the writer
+        assertEquals(10_000, written.size());
+        assertEquals(0, writer.getDroppedCount());
+    }
+
+    @Test
+    void testAppend_DropPolicyCountsDiscardedRecords() {
+        writer = new AsyncAuditWriter(4, 16, AsyncAuditWriter.OverflowPolicy.DROP, null);
+        writer.addSink(this::capture);
+        for (int i = 0; i < 10; i++) {
+            writer.append(transformation(i));
+        }
+
+        assertEquals(4, writer.getBufferDepth());
+        assertEquals(6, writer.getDroppedCount());
+
+        writer.start();
+        writer.stop();
+        assertEquals(4, written.size());
+        assertTrue(written.get(3).getLine().contains("SourceId=source-3 "));
+    }
+
+    @Test
+    void testAppend_SpillPolicyReplaysOverflowFromDisk() throws Exception {
+        Path spillFile = tempDir.resolve("audit-spill.log");
+        writer = new AsyncAuditWriter(4, 16, AsyncAuditWriter.OverflowPolicy.SPILL, spillFile);
+        writer.addSink(this::capture);
+        for (int i = 0; i < 10; i++) {
+            writer.append(transformation(i));
+        }
+
+        assertEquals(6, writer.getSpilledCount());
+        assertEquals(6, Files.readAllLines(spillFile).size());
+
+        writer.start();
+        writer.stop();
+
+        assertEquals(10, written.size());
+        assertEquals(0, writer.getDroppedCount());
+        assertFalse(Files.exists(spillFile));
+        String spilledLine = written.stream()
+            .filter(record -> record.getLine().contains("SourceId=source-9 "))
+            .findFirst().orElseThrow().getLine();
+        assertTrue(spilledLine.startsWith("TRANSFORMATION | "));
+    }
+
+    @Test
+    void testStart_ReplaysSpillFileLeftByPreviousRun() throws Exception {
+        Path spillFile = tempDir.resolve("audit-spill.log");
+        Files.write(spillFile, List.of("SECURITY\tSECURITY | 2024-01-01 00:00:00.000 | LOGIN | UserId=u1"));
+        writer = new AsyncAuditWriter(4, 16, AsyncAuditWriter.OverflowPolicy.SPILL, spillFile);
+        writer.addSink(this::capture);
+
+        writer.start();
+        writer.stop();
+
+        assertEquals(1, written.size());
+        assertEquals(AuditRecord.Type.SECURITY, written.get(0).getType());
+        assertTrue(written.get(0).getLine().contains("UserId=u1"));
+    }
+
+    @Test
+    void testStart_FinishesReplayCutShortByPreviousRun() throws Exception {
+        Path spillFile = tempDir.resolve("audit-spill.log");
+        Path replayFile = tempDir.resolve("audit-spill.log.replaying");
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            lines.add("SECURITY\tSECURITY | 2024-01-01 00:00:00.000 | LOGIN | UserId=u" + i);
+        }
+        Files.write(replayFile, lines);
+        Files.write(spillFile, List.of("SECURITY\tSECURITY | 2024-01-01 00:00:01.000 | LOGOUT | UserId=u0"));
+        writer = new AsyncAuditWriter(4, 16, AsyncAuditWriter.OverflowPolicy.SPILL, spillFile);
+        writer.addSink(this::capture);
+
+        writer.start();
+        writer.stop();
+
+        // The interrupted replay goes first, in batches, then the newer spill file
+        assertEquals(41, written.size());
+        assertTrue(written.get(0).getLine().contains("UserId=u0"));
+        assertTrue(written.get(40).getLine().contains("LOGOUT"));
+        assertEquals(List.of(16, 16, 8, 1), batchSizes);
+        assertFalse(Files.exists(replayFile));
+        assertFalse(Files.exists(spillFile));
+    }
+
+    @Test
+    void testReplay_SinkFailureKeepsSpilledRecords() throws Exception {
+        Path spillFile = tempDir.resolve("audit-spill.log");
+        Files.write(spillFile, List.of("SECURITY\tSECURITY | 2024-01-01 00:00:00.000 | LOGIN | UserId=u1"));
+        writer = new AsyncAuditWriter(4, 16, AsyncAuditWriter.OverflowPolicy.SPILL, spillFile);
+        writer.addSink(batch -> {
+            throw new IllegalStateException("disk full");
+        });
+
+        writer.start();
+        writer.stop();
+
+        assertEquals(1, writer.getFailedBatchCount());
+        assertEquals(1, Files.readAllLines(tempDir.resolve("audit-spill.log.replaying")).size());
+
+        // The next run replays the kept records
+        writer = new AsyncAuditWriter(4, 16, AsyncAuditWriter.OverflowPolicy.SPILL, spillFile);
+        writer.addSink(this::capture);
+        writer.start();
+        writer.stop();
+
+        assertEquals(1, written.size());
+        assertTrue(written.get(0).getLine().contains("UserId=u1"));
+    }
+
+    @Test
+    @Timeout(10)
+    void testWriteBatch_MeasuresLagAndSurvivesSinkFailure() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        writer = new AsyncAuditWriter(16, 16, AsyncAuditWriter.OverflowPolicy.BLOCK, null);
+        writer.addSink(batch -> {
+            throw new IllegalStateException("disk full");
+        });
+        writer.addSink(batch -> {
+            capture(batch);
+            done.countDown();
+        });
+        writer.append(transformation(0));
+        Thread.sleep(50);
+
+        writer.start();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        writer.stop();
+
+        assertEquals(1, written.size());
+        assertEquals(1, writer.getFailedBatchCount());
+        assertTrue(writer.getLastLagMs() >= 50, "lag: " + writer.getLastLagMs());
+    }
+
+    @Test
+    void testAuditRecord_FormatsLikeSynchronousLogging() {
+        Map<String, String> context = new LinkedHashMap<>();
+        context.put("patient", "p1");
+        context.put("attempt", "2");
+
+        AuditRecord error = new AuditRecord(AuditRecord.Type.ERROR, "Ingestion", "store", "E1", "failed", context);
+        AuditRecord alert = new AuditRecord(AuditRecord.Type.PERFORMANCE_ALERT, "FHIR", "latency", 1234.5678, 1000.0, "slow");
+
+        assertTrue(error.getLine().matches(
+            "ERROR \\| \\d{4}-\\d{2}-\\d{2} \\d{2}:\\d{2}:\\d{2}\\.\\d{3} \\| Ingestion \\| store \\| ErrorCode=E1 \\| Message=failed \\| Context=patient=p1 attempt=2"),
+            error.getLine());
+        assertTrue(alert.getLine().endsWith("| FHIR | Metric=latency | Value=1234.57 | Threshold=1000.00 | Details=slow"),
+            alert.getLine());
+    }
+
+    private void capture(List<AuditRecord> batch) {
+        batchSizes.add(batch.size());
+        written.addAll(batch);
+    }
+
+    private static AuditRecord transformation(int i) {
+        return new AuditRecord(AuditRecord.Type.TRANSFORMATION,
+            "UCS", "FHIR", "transform", "source-" + i, "target-" + i, true, "ok");
+    }
+}
@@ -0,0 +1,69 @@
+package com.smartbridge.core.audit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Context-load tests for the audit chain beans.
+ * Verifies Spring can construct the persistent chain store with the default configuration.
+ */
+class AuditChainContextLoadTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testDefaultConfiguration_StartsWithSegmentedStore() {
+        runner().run(context -> {
+            assertNull(context.getStartupFailure());
+            assertInstanceOf(SegmentedAuditChainStore.class, context.getBean(AuditChainStore.class));
+            assertNotNull(context.getBean(AuditService.class));
+        });
+    }
+
+    @Test
+    void testPersistenceDisabled_StartsWithoutSegmentedStore() {
+        runner().withPropertyValues("smartbridge.audit.chain.persistent=false").run(context -> {
+            assertNull(context.getStartupFailure());
+            assertTrue(context.getBeansOfType(SegmentedAuditChainStore.class).isEmpty());
+            assertNotNull(context.getBean(AuditService.class));
+        });
+    }
+
+    @Test
+    void testGeneratedCheckpointKey_OwnerOnlyAndReused() throws Exception {
+        Path keyFile = tempDir.resolve("keys/checkpoint.key");
+        runner().run(context -> {
+            AuditService auditService = context.getBean(AuditService.class);
+            auditService.logTransformation("user1", "UCS", "FHIR", "CREATE", "client-1", "patient-1", true, "created");
+            assertTrue(auditService.verifyAuditIntegrity(1, 1));
+        });
+
+        assertTrue(Files.exists(keyFile));
+        if (keyFile.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            assertEquals(PosixFilePermissions.fromString("rw-------"), Files.getPosixFilePermissions(keyFile));
+        }
+        String key = Files.readString(keyFile);
+
+        // A restart verifies the persisted chain with the same key
+        runner().run(context -> assertTrue(context.getBean(AuditService.class).verifyAuditIntegrity(1, 1)));
+        assertEquals(key, Files.readString(keyFile));
+    }
+
+    private ApplicationContextRunner runner() {
+        return new ApplicationContextRunner()
+            .withUserConfiguration(AuditLogger.class, SegmentedAuditChainStore.class, AuditService.class)
+            .withPropertyValues(
+                "smartbridge.audit.chain.directory=" + tempDir.resolve("chain"),
+                "smartbridge.audit.chain.checkpoint-key-file=" + tempDir.resolve("keys/checkpoint.key"),
+                "smartbridge.audit.chain.segment-size-mb=1",
+                "smartbridge.audit.chain.entries-per-segment=1024");
+    }
+}
@@ -0,0 +1,150 @@
+package com.smartbridge.core.audit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AuditChainVerifier.
+ * Verifies checkpoint signing, chunked parallel verification and tamper detection.
+ */
+class AuditChainVerifierTest {
+
+    private static final byte[] KEY = "test-checkpoint-key".getBytes(StandardCharsets.UTF_8);
+    private static final int INTERVAL = 100;
+
+    private final InMemoryAuditChainStore store = new InMemoryAuditChainStore();
+    private final AuditChainVerifier verifier = new AuditChainVerifier(store, KEY, INTERVAL, 4);
+
+    @AfterEach
+    void tearDown() {
+        verifier.shutdown();
+    }
+
+    @Test
+    void testVerify_IntactChainInParallelChunks() {
+        appendChain(store, verifier, 1, 1000, "entry-");
+
+        AuditVerificationReport report = verifier.verify(1, 1000);
+
+        assertTrue(report.isValid());
+        assertEquals(10, report.getChunks());
+        assertEquals(1000, report.getEntryCount());
+        assertTrue(report.getEntriesPerSecond() > 0);
+    }
+
+    @Test
+    void testVerify_RangeTouchesOnlyItsChunks() {
+        appendChain(store, verifier, 1, 1000, "entry-");
+
+        AuditVerificationReport report = verifier.verify(150, 420);
+
+        assertTrue(report.isValid());
+        // 101-200, 201-300, 301-400 and 401-500
+        assertEquals(4, report.getChunks());
+        assertEquals(271, report.getEntryCount());
+    }
+
+    @Test
+    void testVerify_DetectsAlteredEntry() {
+        appendChain(store, verifier, 1, 1000, "entry-");
+        InMemoryAuditChainStore tampered = copyWith(store, 555, "forged");
+
+        AuditChainVerifier tamperedVerifier = new AuditChainVerifier(tampered, KEY, INTERVAL, 4);
+        try {
+            assertFalse(tamperedVerifier.verify(1, 1000).isValid());
+            assertFalse(tamperedVerifier.verify(555, 555).isValid());
+            // Chunks not touching the altered entry still verify
+            assertTrue(tamperedVerifier.verify(1, 500).isValid());
+            assertTrue(tamperedVerifier.verify(601, 1000).isValid());
+        } finally {
+            tamperedVerifier.shutdown();
+        }
+    }
+
+    @Test
+    void testVerify_DetectsRewrittenChainThroughCheckpoints() {
+        appendChain(store, verifier, 1, 1000, "entry-");
+
+        // Rewrite entry 555 and re-hash everything after it, without the checkpoint key
+        InMemoryAuditChainStore rewritten = new InMemoryAuditChainStore();
+        String previous = AuditChainStore.GENESIS_HASH;
+        for (long seq = 1; seq <= 1000; seq++) {
+            String entry = seq == 555 ? "forged" : store.read(seq).getEntry();
+            String hash = AuditChainVerifier.computeHash(seq, entry, previous);
+            rewritten.append(seq, hash, entry);
+            if (store.getCheckpoint(seq) != null) {
+                rewritten.putCheckpoint(seq, store.getCheckpoint(seq));
+            }
+            previous = hash;
+        }
+
+        AuditChainVerifier rewrittenVerifier = new AuditChainVerifier(rewritten, KEY, INTERVAL, 4);
+        try {
+            assertFalse(rewrittenVerifier.verify(1, 1000).isValid());
+            assertFalse(rewrittenVerifier.verify(601, 700).isValid());
+            assertTrue(rewrittenVerifier.verify(1, 500).isValid());
+        } finally {
+            rewrittenVerifier.shutdown();
+        }
+    }
+
+    @Test
+    void testVerify_RejectsCheckpointSignedWithOtherKey() {
+        appendChain(store, verifier, 1, 300, "entry-");
+        AuditChainVerifier otherKey = new AuditChainVerifier(store, "other".getBytes(StandardCharsets.UTF_8), INTERVAL, 1);
+        try {
+            assertTrue(otherKey.verify(1, 99).isValid());
+            assertFalse(otherKey.verify(1, 300).isValid());
+        } finally {
+            otherKey.shutdown();
+        }
+    }
+
+    @Test
+    void testAuditService_WritesCheckpointsAndReportsThroughput() {
+        AuditService service = new AuditService(new AuditLogger(), store);
+        for (int i = 0; i < 2500; i++) {
+            service.logSecurityEvent("LOGIN", "user-" + i, "User " + i, "10.0.0.1", true, "ok");
+        }
+
+        assertNotNull(store.getCheckpoint(AuditService.DEFAULT_CHECKPOINT_INTERVAL));
+        assertNull(store.getCheckpoint(AuditService.DEFAULT_CHECKPOINT_INTERVAL + 1));
+
+        AuditVerificationReport report = service.verifyAuditTrail(1, 2500);
+        assertTrue(report.isValid());
+        assertEquals(3, report.getChunks());
+        assertTrue(service.getLastVerificationEntriesPerSecond() > 0);
+        assertFalse(service.verifyAuditTrail(0, 10).isValid());
+        service.shutdown();
+    }
+
+    private static void appendChain(InMemoryAuditChainStore store, AuditChainVerifier verifier,
+                                    long from, long to, String prefix) {
+        String previous = store.getLastHash();
+        for (long seq = from; seq <= to; seq++) {
+            String entry = prefix + seq;
+            String hash = AuditChainVerifier.computeHash(seq, entry, previous);
+            store.append(seq, hash, entry);
+            if (verifier.isCheckpoint(seq)) {
+                store.putCheckpoint(seq, verifier.sign(seq, hash));
+            }
+            previous = hash;
+        }
+    }
+
+    private static InMemoryAuditChainStore copyWith(InMemoryAuditChainStore source, long seqNum, String entry) {
+        InMemoryAuditChainStore copy = new InMemoryAuditChainStore();
+        for (long seq = 1; seq <= source.getLastSequence(); seq++) {
+            AuditChainStore.Entry original = source.read(seq);
+            copy.append(seq, original.getHash(), seq == seqNum ? entry : original.getEntry());
+            if (source.getCheckpoint(seq) != null) {
+                copy.putCheckpoint(seq, source.getCheckpoint(seq));
+            }
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,236 @@
+package com.smartbridge.core.audit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SegmentedAuditChainStore.
+ * Verifies lookups across segments, recovery after restart, retention and
+ * AuditService continuing and verifying a persisted chain.
+ */
+class SegmentedAuditChainStoreTest {
+
+    private static final int SEGMENT_BYTES = 64 * 1024;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testAppendAndRead_AcrossSegments() throws Exception {
+        SegmentedAuditChainStore store = newStore(100, 0);
+
+        for (long seq = 1; seq <= 1000; seq++) {
+            store.append(seq, hash(seq), "entry-" + seq);
+        }
+
+        assertEquals(10, store.getSegmentCount());
+        assertEquals(1, store.getFirstSequence());
+        assertEquals(1000, store.getLastSequence());
+        for (long seq = 1; seq <= 1000; seq++) {
+            AuditChainStore.Entry entry = store.read(seq);
+            assertEquals(seq, entry.getSeqNum());
+            assertEquals(hash(seq), entry.getHash());
+            assertEquals("entry-" + seq, entry.getEntry());
+        }
+        assertNull(store.read(0));
+        assertNull(store.read(1001));
+        assertEquals(hash(1000), store.getLastHash());
+    }
+
+    @Test
+    void testAppend_RollsWhenSegmentIsFull() throws Exception {
+        SegmentedAuditChainStore store = newStore(100_000, 0);
+        String largeEntry = "x".repeat(10_000);
+
+        for (long seq = 1; seq <= 20; seq++) {
+            store.append(seq, hash(seq), largeEntry + seq);
+        }
+
+        // About six entries of 10KB fit in a 64KB segment
+        assertTrue(store.getSegmentCount() >= 3, "segments: " + store.getSegmentCount());
+        assertEquals(largeEntry + 13, store.read(13).getEntry());
+        assertThrows(IllegalArgumentException.class,
+            () -> store.append(21, hash(21), "x".repeat(SEGMENT_BYTES)));
+    }
+
+    @Test
+    void testAppend_RejectsOutOfOrderSequence() throws Exception {
+        SegmentedAuditChainStore store = newStore(100, 0);
+        store.append(1, hash(1), "entry-1");
+
+        assertThrows(IllegalArgumentException.class, () -> store.append(3, hash(3), "entry-3"));
+        assertThrows(IllegalArgumentException.class, () -> store.append(1, hash(1), "entry-1"));
+        assertEquals(1, store.getLastSequence());
+    }
+
+    @Test
+    void testReopen_RestoresChain() throws Exception {
+        SegmentedAuditChainStore store = newStore(100, 0);
+        for (long seq = 1; seq <= 250; seq++) {
+            store.append(seq, hash(seq), "entry-" + seq);
+        }
+        store.close();
+
+        SegmentedAuditChainStore reopened = newStore(100, 0);
+        assertEquals(250, reopened.getLastSequence());
+        assertEquals(hash(250), reopened.getLastHash());
+        assertEquals("entry-42", reopened.read(42).getEntry());
+
+        reopened.append(251, hash(251), "entry-251");
+        assertEquals("entry-251", reopened.read(251).getEntry());
+        assertEquals(3, reopened.getSegmentCount());
+    }
+
+    @Test
+    void testRetention_DeletesOldestSegments() throws Exception {
+        SegmentedAuditChainStore store = newStore(100, 3);
+
+        for (long seq = 1; seq <= 1000; seq++) {
+            store.append(seq, hash(seq), "entry-" + seq);
+        }
+
+        assertEquals(3, store.getSegmentCount());
+        // The retained segments and the anchor
+        assertEquals(4, segmentFiles().size());
+        assertEquals(701, store.getFirstSequence());
+        assertNull(store.read(700));
+        assertEquals(hash(700), store.getHash(700));
+        assertNull(store.getHash(699));
+        assertEquals("entry-701", store.read(701).getEntry());
+    }
+
+    @Test
+    void testCheckpoints_PersistedAndPrunedWithSegments() throws Exception {
+        SegmentedAuditChainStore store = newStore(100, 3);
+        for (long seq = 1; seq <= 500; seq++) {
+            store.append(seq, hash(seq), "entry-" + seq);
+            if (seq % 50 == 0) {
+                store.putCheckpoint(seq, "signature-" + seq);
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> store.putCheckpoint(501, "signature-501"));
+
+        SegmentedAuditChainStore reopened = newStore(100, 3);
+        assertEquals("signature-450", reopened.getCheckpoint(450));
+        assertNull(reopened.getCheckpoint(451));
+
+        for (long seq = 501; seq <= 600; seq++) {
+            reopened.append(seq, hash(seq), "entry-" + seq);
+            if (seq % 50 == 0) {
+                reopened.putCheckpoint(seq, "signature-" + seq);
+            }
+        }
+        reopened.append(601, hash(601), "entry-601");
+        // Only the segments from 401 onwards and their checkpoints are retained, plus the anchor at 400
+        assertEquals("signature-400", reopened.getCheckpoint(400));
+        assertNull(reopened.getCheckpoint(350));
+        assertEquals("signature-450", reopened.getCheckpoint(450));
+        assertEquals("signature-550", reopened.getCheckpoint(550));
+        assertEquals(6, segmentFiles().size());
+    }
+
+    @Test
+    void testAuditService_ContinuesAndVerifiesPersistedChain() throws Exception {
+        AuditService service = new AuditService(new AuditLogger(), newStore(100, 0));
+        for (int i = 0; i < 150; i++) {
+            service.logSecurityEvent("LOGIN", "user-" + i, "User " + i, "10.0.0.1", true, "ok");
+        }
+        String lastHash = service.getHashForSequence(150);
+
+        AuditService restarted = new AuditService(new AuditLogger(), newStore(100, 0));
+        assertEquals(150, restarted.getCurrentSequenceNumber());
+        assertEquals(lastHash, restarted.getHashForSequence(150));
+
+        restarted.logSecurityEvent("LOGOUT", "user-0", "User 0", "10.0.0.1", true, "ok");
+        assertEquals(151, restarted.getCurrentSequenceNumber());
+        assertTrue(restarted.verifyAuditIntegrity(1, 151));
+    }
+
+    @Test
+    void testAuditService_VerifiesRetainedChainAfterRetention() throws Exception {
+        AuditService service = new AuditService(new AuditLogger(), newStore(100, 3));
+        ReflectionTestUtils.setField(service, "checkpointInterval", 50);
+        ReflectionTestUtils.setField(service, "checkpointKey", "test-checkpoint-key");
+        for (int i = 0; i < 450; i++) {
+            service.logSecurityEvent("LOGIN", "user-" + i, "User " + i, "10.0.0.1", true, "ok");
+        }
+
+        SegmentedAuditChainStore store = newStore(100, 3);
+        assertEquals(201, store.getFirstSequence());
+        AuditService restarted = new AuditService(new AuditLogger(), store);
+        ReflectionTestUtils.setField(restarted, "checkpointInterval", 50);
+        ReflectionTestUtils.setField(restarted, "checkpointKey", "test-checkpoint-key");
+
+        for (AuditService audit : List.of(service, restarted)) {
+            // The oldest retained chunk starts from the anchored hash and checkpoint of entry 200
+            assertTrue(audit.verifyAuditIntegrity(201, 450));
+            assertTrue(audit.verifyAuditIntegrity(201, 210));
+            AuditVerificationReport pruned = audit.verifyAuditTrail(1, 450);
+            assertFalse(pruned.isValid());
+            assertEquals(0, pruned.getChunks());
+        }
+    }
+
+    @Test
+    void testAuditService_DetectsTamperedEntryOnDisk() throws Exception {
+        AuditService service = new AuditService(new AuditLogger(), newStore(100, 0));
+        for (int i = 0; i < 10; i++) {
+            service.logSecurityEvent("LOGIN", "user-" + i, "User " + i, "10.0.0.1", true, "ok");
+        }
+
+        Path segment = segmentFiles().get(0);
+        byte[] content = Files.readAllBytes(segment);
+        int offset = indexOf(content, "UserId=user-5|".getBytes());
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.seek(offset + "UserId=user-".length());
+            file.write('9');
+        }
+
+        AuditService reopened = new AuditService(new AuditLogger(), newStore(100, 0));
+        assertTrue(reopened.verifyAuditIntegrity(1, 5));
+        assertFalse(reopened.verifyAuditIntegrity(1, 10));
+        // Entry 6 was altered; the entries after it still link to its stored hash
+        assertFalse(reopened.verifyAuditIntegrity(6, 6));
+        assertTrue(reopened.verifyAuditIntegrity(7, 10));
+    }
+
+    private SegmentedAuditChainStore newStore(int entriesPerSegment, int maxSegments) {
+        return new SegmentedAuditChainStore(tempDir, SEGMENT_BYTES, entriesPerSegment, maxSegments, null);
+    }
+
+    private List<Path> segmentFiles() throws Exception {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static String hash(long seq) throws Exception {
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(Long.toString(seq).getBytes());
+        return Base64.getEncoder().encodeToString(digest);
+    }
+
+    private static int indexOf(byte[] content, byte[] pattern) {
+        outer:
+        for (int i = 0; i <= content.length - pattern.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (content[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        throw new AssertionError("pattern not found");
+    }
+}
@@ -0,0 +1,189 @@
+package com.smartbridge.core.client;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.rest.api.MethodOutcome;
+import ca.uhn.fhir.rest.server.exceptions.PreconditionFailedException;
+import com.smartbridge.core.resilience.CircuitBreaker;
+import com.smartbridge.core.resilience.RetryPolicy;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.hl7.fhir.r4.model.Patient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AsyncFHIRClient against an in-process HTTP server.
+ * Verifies request encoding, status mapping, retries and concurrency on few threads.
+ */
+class AsyncFHIRClientTest {
+
+    private static final FhirContext FHIR_CONTEXT = FhirContext.forR4();
+
+    private HttpServer server;
+    private AsyncFHIRClient client;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicReference<String> lastAuthorization = new AtomicReference<>();
+    private final AtomicReference<String> lastIfMatch = new AtomicReference<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (client != null) {
+            client.close();
+        }
+        server.stop(0);
+    }
+
+    @Test
+    @Timeout(10)
+    void testCreatePatient_ReturnsIdFromLocation() throws Exception {
+        server.createContext("/fhir/Patient", exchange -> {
+            recordHeaders(exchange);
+            exchange.getResponseHeaders().add("Location", baseUrl() + "/Patient/123/_history/1");
+            respond(exchange, 201, exchange.getRequestBody().readAllBytes());
+        });
+        client = newClient(2, 10, AsyncFHIRClient.basicAuthorization("user", "secret"));
+
+        MethodOutcome outcome = client.createPatient(new Patient().setActive(true)).get(5, TimeUnit.SECONDS);
+
+        assertTrue(outcome.getCreated());
+        assertEquals("123", outcome.getId().getIdPart());
+        assertEquals("1", outcome.getId().getVersionIdPart());
+        assertEquals(AsyncFHIRClient.basicAuthorization("user", "secret"), lastAuthorization.get());
+    }
+
+    @Test
+    @Timeout(10)
+    void testUpdatePatient_SendsIfMatchAndMapsPreconditionFailed() {
+        server.createContext("/fhir/Patient/123", exchange -> {
+            recordHeaders(exchange);
+            exchange.getRequestBody().readAllBytes();
+            respond(exchange, 412, "{\"resourceType\":\"OperationOutcome\"}".getBytes(StandardCharsets.UTF_8));
+        });
+        client = newClient(2, 10, null);
+        Patient patient = new Patient();
+        patient.setId("123");
+
+        CompletableFuture<MethodOutcome> result = client.updatePatient(patient, "4");
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertTrue(error.getCause() instanceof PreconditionFailedException);
+        assertEquals("W/\"4\"", lastIfMatch.get());
+        // A 412 is an answer, not an outage: no retry
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    @Timeout(10)
+    void testGetPatient_RetriesServerErrors() throws Exception {
+        server.createContext("/fhir/Patient/123", exchange -> {
+            if (requests.incrementAndGet() < 3) {
+                respond(exchange, 503, new byte[0]);
+                return;
+            }
+            Patient patient = new Patient();
+            patient.setId("123");
+            respond(exchange, 200, FHIR_CONTEXT.newJsonParser().encodeResourceToString(patient)
+                .getBytes(StandardCharsets.UTF_8));
+        });
+        client = newClient(2, 10, null);
+
+        Patient patient = client.getPatient("123").get(5, TimeUnit.SECONDS);
+
+        assertEquals("123", patient.getIdElement().getIdPart());
+        assertEquals(3, requests.get());
+        assertEquals(2, client.getRetryCount());
+    }
+
+    @Test
+    @Timeout(30)
+    void testCreatePatient_KeepsManyRequestsInFlightOnTwoThreads() throws Exception {
+        AtomicInteger concurrent = new AtomicInteger();
+        AtomicInteger maxConcurrent = new AtomicInteger();
+        server.createContext("/fhir/Patient", exchange -> {
+            maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+            exchange.getRequestBody().readAllBytes();
+            sleep(200);
+            concurrent.decrementAndGet();
+            exchange.getResponseHeaders().add("Location", baseUrl() + "/Patient/" + requests.incrementAndGet());
+            respond(exchange, 201, new byte[0]);
+        });
+        client = newClient(2, 100, null);
+
+        List<CompletableFuture<MethodOutcome>> results = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            results.add(client.createPatient(new Patient()));
+        }
+        CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).get(25, TimeUnit.SECONDS);
+
+        assertEquals(300, requests.get());
+        // Two client threads, yet up to the in-flight limit of requests were open at once
+        assertTrue(maxConcurrent.get() > 2, "max concurrent requests: " + maxConcurrent.get());
+        assertTrue(maxConcurrent.get() <= 100, "max concurrent requests: " + maxConcurrent.get());
+        assertEquals(0, client.getInFlightCount());
+    }
+
+    private AsyncFHIRClient newClient(int threads, int maxInFlight, String authorization) {
+        return new AsyncFHIRClient(baseUrl(), FHIR_CONTEXT, authorization, Duration.ofSeconds(5),
+            threads, maxInFlight, 1000,
+            new CircuitBreaker("FHIR", 5, Duration.ofSeconds(30), 1),
+            new RetryPolicy.Builder("FHIR")
+                .maxAttempts(3)
+                .initialDelay(Duration.ofMillis(10))
+                .maxDelay(Duration.ofMillis(50))
+                .build());
+    }
+
+    private String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/fhir";
+    }
+
+    private void recordHeaders(HttpExchange exchange) {
+        requests.incrementAndGet();
+        lastAuthorization.set(exchange.getRequestHeaders().getFirst("Authorization"));
+        lastIfMatch.set(exchange.getRequestHeaders().getFirst("If-Match"));
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "application/fhir+json");
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        if (body.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+        exchange.close();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.smartbridge.core.client;
+
+import ca.uhn.fhir.rest.api.MethodOutcome;
+import com.smartbridge.core.resilience.ResilientFHIRClient;
+import com.smartbridge.core.transformation.UCSToFHIRTransformer;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Patient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for BatchingFHIRWriter.
+ * Verifies size and linger flushing and per-entry fan-out of Bundle responses.
+ */
+@ExtendWith(MockitoExtension.class)
+class BatchingFHIRWriterTest {
+
+    @Mock
+    private ResilientFHIRClient resilientFHIRClient;
+
+    private BatchingFHIRWriter writer;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        lenient().when(resilientFHIRClient.executeBatch(any())).thenAnswer(invocation ->
+            respond(invocation.getArgument(0), -1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
+    @Test
+    void testSubmit_FlushesWhenBatchIsFull() throws Exception {
+        writer = new BatchingFHIRWriter(resilientFHIRClient, 3, Duration.ofSeconds(30), Bundle.BundleType.BATCH, 1);
+
+        CompletableFuture<MethodOutcome> first = writer.createPatient(new Patient());
+        CompletableFuture<MethodOutcome> second = writer.createPatient(new Patient());
+        CompletableFuture<MethodOutcome> third = writer.createPatient(new Patient());
+
+        assertEquals("Patient/p0", first.get(5, TimeUnit.SECONDS).getId().toUnqualifiedVersionless().getValue());
+        assertEquals("p1", second.get(5, TimeUnit.SECONDS).getId().getIdPart());
+        assertEquals("p2", third.get(5, TimeUnit.SECONDS).getId().getIdPart());
+
+        ArgumentCaptor<Bundle> captor = ArgumentCaptor.forClass(Bundle.class);
+        verify(resilientFHIRClient, times(1)).executeBatch(captor.capture());
+        Bundle sent = captor.getValue();
+        assertEquals(Bundle.BundleType.BATCH, sent.getType());
+        assertEquals(3, sent.getEntry().size());
+        assertEquals(Bundle.HTTPVerb.POST, sent.getEntryFirstRep().getRequest().getMethod());
+        assertEquals("Patient", sent.getEntryFirstRep().getRequest().getUrl());
+    }
+
+    @Test
+    void testSubmit_PatientCreateIsConditionalOnIdentifier() throws Exception {
+        writer = new BatchingFHIRWriter(resilientFHIRClient, 2, Duration.ofSeconds(30), Bundle.BundleType.BATCH, 1);
+        Patient patient = new Patient();
+        patient.addIdentifier().setSystem(UCSToFHIRTransformer.NATIONAL_ID_SYSTEM).setValue("NID 1");
+        patient.addIdentifier().setSystem(UCSToFHIRTransformer.OPENSRP_ID_SYSTEM).setValue("OPENSRP-1");
+
+        writer.createPatient(patient).get(5, TimeUnit.SECONDS);
+        writer.createPatient(new Patient()).get(5, TimeUnit.SECONDS);
+
+        ArgumentCaptor<Bundle> captor = ArgumentCaptor.forClass(Bundle.class);
+        verify(resilientFHIRClient).executeBatch(captor.capture());
+        assertEquals("identifier=http%3A%2F%2Fmoh.go.tz%2Fidentifier%2Fopensrp-id|OPENSRP-1",
+            captor.getValue().getEntry().get(0).getRequest().getIfNoneExist());
+        // Without an identifier there is nothing to match on, so the create stays unconditional
+        assertFalse(captor.getValue().getEntry().get(1).getRequest().hasIfNoneExist());
+    }
+
+    @Test
+    void testSubmit_FlushesAfterLinger() throws Exception {
+        writer = new BatchingFHIRWriter(resilientFHIRClient, 100, Duration.ofMillis(20), Bundle.BundleType.BATCH, 1);
+
+        CompletableFuture<MethodOutcome> first = writer.createPatient(new Patient());
+        CompletableFuture<MethodOutcome> second = writer.createPatient(new Patient());
+
+        assertNotNull(first.get(5, TimeUnit.SECONDS).getId());
+        assertNotNull(second.get(5, TimeUnit.SECONDS).getId());
+        verify(resilientFHIRClient, times(1)).executeBatch(any());
+        assertEquals(0, writer.getPendingCount());
+    }
+
+    @Test
+    void testSubmit_FailedEntryOnlyFailsItsCaller() throws Exception {
+        when(resilientFHIRClient.executeBatch(any())).thenAnswer(invocation ->
+            respond(invocation.getArgument(0), 1));
+        writer = new BatchingFHIRWriter(resilientFHIRClient, 2, Duration.ofSeconds(30), Bundle.BundleType.BATCH, 1);
+
+        CompletableFuture<MethodOutcome> ok = writer.createPatient(new Patient());
+        CompletableFuture<MethodOutcome> rejected = writer.createPatient(new Patient());
+
+        assertNotNull(ok.get(5, TimeUnit.SECONDS).getId());
+        ExecutionException e = assertThrows(ExecutionException.class, () -> rejected.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(FHIRClientException.class, e.getCause());
+        assertTrue(e.getCause().getMessage().contains("400"));
+    }
+
+    @Test
+    void testSubmit_RequestFailureFailsAllCallers() throws Exception {
+        when(resilientFHIRClient.executeBatch(any())).thenThrow(new FHIRClientException("server down"));
+        writer = new BatchingFHIRWriter(resilientFHIRClient, 2, Duration.ofSeconds(30), Bundle.BundleType.TRANSACTION, 1);
+
+        CompletableFuture<MethodOutcome> first = writer.createPatient(new Patient());
+        CompletableFuture<MethodOutcome> second = writer.createPatient(new Patient());
+
+        assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+        assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testClose_FlushesPendingWrites() throws Exception {
+        writer = new BatchingFHIRWriter(resilientFHIRClient, 100, Duration.ofSeconds(30), Bundle.BundleType.BATCH, 1);
+
+        CompletableFuture<MethodOutcome> pending = writer.createPatient(new Patient());
+        writer.close();
+
+        assertTrue(pending.isDone());
+        assertNotNull(pending.get().getId());
+        assertTrue(writer.createPatient(new Patient()).isCompletedExceptionally());
+    }
+
+    @Test
+    void testConstructor_RejectsUnsupportedBundleType() {
+        assertThrows(IllegalArgumentException.class, () ->
+            new BatchingFHIRWriter(resilientFHIRClient, 10, Duration.ofMillis(10), Bundle.BundleType.COLLECTION, 1));
+    }
+
+    /**
+     * Build a batch-response Bundle, optionally rejecting the entry at failIndex.
+     */
+    private Bundle respond(Bundle request, int failIndex) {
+        Bundle response = new Bundle();
+        response.setType(Bundle.BundleType.BATCHRESPONSE);
+        for (int i = 0; i < request.getEntry().size(); i++) {
+            Bundle.BundleEntryResponseComponent entryResponse = response.addEntry().getResponse();
+            if (i == failIndex) {
+                entryResponse.setStatus("400 Bad Request");
+            } else {
+                entryResponse.setStatus("201 Created").setLocation("Patient/p" + i + "/_history/1");
+            }
+        }
+        return response;
+    }
+}
@@ -0,0 +1,194 @@
+package com.smartbridge.core.client;
+
+import com.smartbridge.core.transformation.UCSToFHIRTransformer;
+import org.hl7.fhir.r4.model.IdType;
+import org.hl7.fhir.r4.model.Patient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for PatientIdentifierIndex.
+ * Verifies log persistence, replay, tombstones and cold-start rebuild from a FHIR scan.
+ */
+class PatientIdentifierIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    private FHIRClientService fhirClient;
+    private Path logFile;
+
+    @BeforeEach
+    void setUp() {
+        fhirClient = mock(FHIRClientService.class);
+        logFile = tempDir.resolve("patient-identifier-index.log");
+    }
+
+    @Test
+    void testRecord_PersistsAcrossRestart() {
+        PatientIdentifierIndex index = newIndex();
+        when(fhirClient.isConfigured()).thenReturn(false);
+        index.initialize();
+
+        index.record(patient("opensrp-1", "national-1"), new IdType("Patient", "p1", "3"));
+
+        PatientIdentifierIndex reloaded = newIndex();
+        reloaded.initialize();
+        assertTrue(reloaded.isReady());
+        PatientIdentifierIndex.IndexEntry entry =
+            reloaded.lookup(UCSToFHIRTransformer.NATIONAL_ID_SYSTEM, "national-1");
+        assertEquals("p1", entry.getFhirId());
+        assertEquals("3", entry.getVersionId());
+        assertEquals("p1", reloaded.lookup(patient("opensrp-1", null)).getFhirId());
+        verify(fhirClient, never()).scanPatientsByIdentifierSystem(any(), anyInt(), any());
+    }
+
+    @Test
+    void testRecord_LatestVersionWinsOnReplay() {
+        PatientIdentifierIndex index = newIndex();
+        when(fhirClient.isConfigured()).thenReturn(false);
+        index.initialize();
+
+        Patient patient = patient("opensrp-1", null);
+        index.record(patient, new IdType("Patient", "p1", "1"));
+        index.record(patient, new IdType("Patient", "p1", "2"));
+
+        PatientIdentifierIndex reloaded = newIndex();
+        reloaded.initialize();
+        assertEquals("2", reloaded.lookup(patient).getVersionId());
+    }
+
+    @Test
+    void testRemove_TombstoneSurvivesReplay() {
+        PatientIdentifierIndex index = newIndex();
+        when(fhirClient.isConfigured()).thenReturn(false);
+        index.initialize();
+
+        Patient patient = patient("opensrp-1", null);
+        index.record(patient, new IdType("Patient", "p1", "1"));
+        index.remove(patient);
+
+        PatientIdentifierIndex reloaded = newIndex();
+        reloaded.initialize();
+        assertNull(reloaded.lookup(patient));
+        assertEquals(0, reloaded.size());
+    }
+
+    @Test
+    void testInitialize_RebuildsFromServerScanWhenLogMissing() throws Exception {
+        when(fhirClient.isConfigured()).thenReturn(true);
+        doAnswer(invocation -> {
+            Consumer<Patient> consumer = invocation.getArgument(2);
+            Patient scanned = patient("opensrp-9", null);
+            scanned.setId(new IdType("Patient", "p9", "7"));
+            consumer.accept(scanned);
+            return 1;
+        }).when(fhirClient).scanPatientsByIdentifierSystem(eq(UCSToFHIRTransformer.OPENSRP_ID_SYSTEM), anyInt(), any());
+
+        PatientIdentifierIndex index = newIndex();
+        index.initialize();
+
+        assertTrue(index.awaitReady(5000));
+        PatientIdentifierIndex.IndexEntry entry = index.lookup(UCSToFHIRTransformer.OPENSRP_ID_SYSTEM, "opensrp-9");
+        assertEquals("p9", entry.getFhirId());
+        assertEquals("7", entry.getVersionId());
+        assertTrue(Files.exists(logFile));
+    }
+
+    @Test
+    void testRebuild_KeepsNewerVersionRecordedDuringScan() {
+        PatientIdentifierIndex index = newIndex();
+        Patient patient = patient("opensrp-1", null);
+        index.record(patient, new IdType("Patient", "p1", "5"));
+        doAnswer(invocation -> {
+            Consumer<Patient> consumer = invocation.getArgument(2);
+            Patient scanned = patient("opensrp-1", null);
+            scanned.setId(new IdType("Patient", "p1", "4"));
+            consumer.accept(scanned);
+            return 1;
+        }).when(fhirClient).scanPatientsByIdentifierSystem(any(), anyInt(), any());
+
+        index.rebuildFromServer();
+
+        assertTrue(index.isReady());
+        assertEquals("5", index.lookup(patient).getVersionId());
+    }
+
+    @Test
+    void testRebuild_FailedScanLeavesIndexNotReadyAndKeepsLogging() throws Exception {
+        when(fhirClient.scanPatientsByIdentifierSystem(any(), anyInt(), any()))
+            .thenThrow(new RuntimeException("FHIR server unavailable"));
+        PatientIdentifierIndex index = newIndex();
+
+        assertFalse(index.rebuildFromServer());
+
+        assertFalse(index.isReady());
+        assertFalse(index.awaitReady(50));
+        index.record(patient("opensrp-1", null), new IdType("Patient", "p1", "1"));
+        index.checkpoint();
+        assertTrue(Files.readString(logFile).contains("opensrp-1\tp1\t1"));
+        index.close();
+
+        // The incomplete log is replayed on restart but the scan runs again before the index is ready
+        doReturn(0).when(fhirClient).scanPatientsByIdentifierSystem(any(), anyInt(), any());
+        when(fhirClient.isConfigured()).thenReturn(true);
+        PatientIdentifierIndex restarted = newIndex();
+        restarted.initialize();
+
+        assertTrue(restarted.awaitReady(5000));
+        assertEquals("p1", restarted.lookup(UCSToFHIRTransformer.OPENSRP_ID_SYSTEM, "opensrp-1").getFhirId());
+        verify(fhirClient, times(3)).scanPatientsByIdentifierSystem(any(), anyInt(), any());
+        assertFalse(Files.exists(tempDir.resolve("patient-identifier-index.log.rebuilding")));
+    }
+
+    @Test
+    void testCheckpoint_AppendedEntriesOnDisk() throws Exception {
+        PatientIdentifierIndex index = newIndex();
+        when(fhirClient.isConfigured()).thenReturn(false);
+        index.initialize();
+
+        index.record(patient("opensrp-1", null), new IdType("Patient", "p1", "1"));
+        index.checkpoint();
+
+        assertTrue(Files.readString(logFile).contains("opensrp-1\tp1\t1"));
+        index.close();
+        // Closed indexes ignore further checkpoints
+        index.checkpoint();
+    }
+
+    @Test
+    void testLookup_IgnoresUnindexedSystems() {
+        PatientIdentifierIndex index = newIndex();
+        Patient patient = new Patient();
+        patient.addIdentifier().setSystem("http://example.org/other").setValue("x");
+
+        index.record(patient, new IdType("Patient", "p1", "1"));
+
+        assertNull(index.lookup(patient));
+        assertEquals(0, index.size());
+    }
+
+    private PatientIdentifierIndex newIndex() {
+        return new PatientIdentifierIndex(fhirClient, logFile.toString(), 100);
+    }
+
+    private Patient patient(String opensrpId, String nationalId) {
+        Patient patient = new Patient();
+        patient.addIdentifier().setSystem(UCSToFHIRTransformer.OPENSRP_ID_SYSTEM).setValue(opensrpId);
+        if (nationalId != null) {
+            patient.addIdentifier().setSystem(UCSToFHIRTransformer.NATIONAL_ID_SYSTEM).setValue(nationalId);
+        }
+        return patient;
+    }
+}
@@ -0,0 +1,216 @@
+package com.smartbridge.core.concurrency;
+
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for DownstreamLimitedExecutor and VirtualThreads.
+ * Verifies that concurrency is capped by permits rather than by the delegate's threads.
+ */
+class DownstreamLimitedExecutorTest {
+
+    @Test
+    @Timeout(10)
+    void testExecute_CapsConcurrencyAtPermits() throws Exception {
+        // The delegate has far more threads than the downstream allows
+        DownstreamLimitedExecutor executor =
+            new DownstreamLimitedExecutor("fhir", 3, 30, Executors.newFixedThreadPool(20));
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(30);
+
+        try {
+            for (int i = 0; i < 30; i++) {
+                executor.execute(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    sleep(5);
+                    running.decrementAndGet();
+                    done.countDown();
+                });
+            }
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertEquals(3, maxRunning.get());
+            assertEquals(0, executor.getActiveCount());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @Timeout(10)
+    void testExecute_BeyondQueueCapacityRunsInCaller() throws Exception {
+        DownstreamLimitedExecutor executor =
+            new DownstreamLimitedExecutor("fhir", 1, 1, Executors.newFixedThreadPool(4));
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicReference<String> callerRan = new AtomicReference<>();
+
+        try {
+            executor.execute(() -> {
+                started.countDown();
+                await(release);
+            });
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            // Waits for the permit on the delegate
+            executor.execute(() -> { });
+
+            Thread producer = new Thread(() -> executor.execute(
+                () -> callerRan.set(Thread.currentThread().getName())), "producer");
+            producer.start();
+            // The producer blocks until a permit frees up instead of queueing more work
+            producer.join(200);
+            assertTrue(producer.isAlive());
+
+            release.countDown();
+            producer.join(5000);
+            assertEquals("producer", callerRan.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @Timeout(10)
+    void testExecute_NestedSubmitAtCapacityRunsInHoldingTask() throws Exception {
+        // Every permit and admission is held by a task that submits another one
+        DownstreamLimitedExecutor executor =
+            new DownstreamLimitedExecutor("fhir", 2, 0, Executors.newFixedThreadPool(2));
+        CountDownLatch allStarted = new CountDownLatch(2);
+        CountDownLatch done = new CountDownLatch(2);
+        AtomicInteger nestedInOuterThread = new AtomicInteger();
+
+        try {
+            for (int i = 0; i < 2; i++) {
+                executor.execute(() -> {
+                    allStarted.countDown();
+                    await(allStarted);
+                    Thread outer = Thread.currentThread();
+                    executor.execute(() -> {
+                        if (Thread.currentThread() == outer) {
+                            nestedInOuterThread.incrementAndGet();
+                        }
+                    });
+                    done.countDown();
+                });
+            }
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertEquals(2, nestedInOuterThread.get());
+            assertEquals(0, executor.getActiveCount());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @Timeout(10)
+    void testExecute_InterruptedWhileWaitingStillRunsTask() throws Exception {
+        ExecutorService delegate = Executors.newFixedThreadPool(2);
+        DownstreamLimitedExecutor executor = new DownstreamLimitedExecutor("fhir", 1, 1, delegate);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch ran = new CountDownLatch(1);
+        AtomicReference<Boolean> interrupted = new AtomicReference<>();
+
+        executor.execute(() -> {
+            started.countDown();
+            awaitUninterruptibly(release);
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        executor.execute(() -> {
+            interrupted.set(Thread.currentThread().isInterrupted());
+            ran.countDown();
+        });
+
+        // Interrupts the task waiting for the permit
+        delegate.shutdownNow();
+        release.countDown();
+
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+        assertTrue(interrupted.get());
+    }
+
+    @Test
+    void testExecute_AfterShutdownIsRejected() {
+        DownstreamLimitedExecutor executor =
+            new DownstreamLimitedExecutor("ucs", 1, 0, Executors.newSingleThreadExecutor());
+        executor.shutdown();
+
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> { }));
+    }
+
+    @Test
+    void testConstructor_RejectsNonPositiveLimit() {
+        ExecutorService delegate = Executors.newSingleThreadExecutor();
+        try {
+            assertThrows(IllegalArgumentException.class, () -> new DownstreamLimitedExecutor("fhir", 0, 10, delegate));
+            assertThrows(IllegalArgumentException.class, () -> new DownstreamLimitedExecutor("fhir", 1, -1, delegate));
+        } finally {
+            delegate.shutdown();
+        }
+    }
+
+    @Test
+    void testVirtualThreads_UnsupportedJvmFailsClearly() {
+        Assumptions.assumeFalse(VirtualThreads.isSupported());
+
+        assertThrows(UnsupportedOperationException.class,
+            () -> VirtualThreads.newVirtualThreadPerTaskExecutor("test-"));
+    }
+
+    @Test
+    @Timeout(10)
+    void testVirtualThreads_RunsTasksOnNamedVirtualThreads() throws Exception {
+        Assumptions.assumeTrue(VirtualThreads.isSupported());
+        ExecutorService executor = VirtualThreads.newVirtualThreadPerTaskExecutor("vt-test-");
+        AtomicReference<String> name = new AtomicReference<>();
+
+        try {
+            executor.submit(() -> name.set(Thread.currentThread().getName())).get();
+            assertEquals("vt-test-0", name.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.smartbridge.core.concurrency;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Throughput of IO-bound tasks on the platform transformation pool versus virtual threads
+ * capped by a downstream semaphore. Each task blocks for a fixed latency, like a HAPI FHIR
+ * or UCS REST call; one operation is a batch of such tasks.
+ *
+ * The virtual mode needs a Java 21 runtime. Run with:
+ * <pre>
+ * mvn -pl smart-bridge-core test-compile exec:java \
+ *     -Dexec.classpathScope=test -Dexec.mainClass=com.smartbridge.core.concurrency.IoExecutorBenchmark
+ * </pre>
+ * On Java 17 pass <code>-p mode=platform</code> to JMH, or the virtual trials fail in setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class IoExecutorBenchmark {
+
+    /** platform: a fixed pool with one thread per downstream permit; virtual: virtual threads behind permits */
+    @Param({"platform", "virtual"})
+    public String mode;
+
+    /** Simulated downstream latency per call */
+    @Param({"5"})
+    public int latencyMs;
+
+    /** Concurrency the downstream accepts: the platform pool size and the virtual mode's permits */
+    @Param({"64"})
+    public int downstreamPermits;
+
+    @Param({"1000"})
+    public int tasksPerOperation;
+
+    private Executor executor;
+    private Runnable shutdown;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if ("virtual".equals(mode)) {
+            if (!VirtualThreads.isSupported()) {
+                throw new IllegalStateException("Virtual mode needs Java 21, run with -p mode=platform");
+            }
+            DownstreamLimitedExecutor limited = new DownstreamLimitedExecutor("fhir", downstreamPermits,
+                tasksPerOperation, VirtualThreads.newVirtualThreadPerTaskExecutor("bench-vt-"));
+            executor = limited;
+            shutdown = limited::shutdown;
+        } else {
+            ExecutorService pool = new ThreadPoolExecutor(downstreamPermits, downstreamPermits, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>());
+            executor = pool;
+            shutdown = pool::shutdownNow;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        shutdown.run();
+    }
+
+    @Benchmark
+    public void blockingCalls() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(tasksPerOperation);
+        long latencyNanos = TimeUnit.MILLISECONDS.toNanos(latencyMs);
+        for (int i = 0; i < tasksPerOperation; i++) {
+            executor.execute(() -> {
+                LockSupport.parkNanos(latencyNanos);
+                done.countDown();
+            });
+        }
+        done.await();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(IoExecutorBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
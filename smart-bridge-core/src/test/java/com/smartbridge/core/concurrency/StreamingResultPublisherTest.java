@@ -0,0 +1,314 @@
+package com.smartbridge.core.concurrency;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for StreamingResultPublisher.
+ * Verifies demand-bounded pulling, in-flight limits, failure mapping and termination.
+ */
+class StreamingResultPublisherTest {
+
+    // Runs the publisher's signals on the calling thread, so tests can assert synchronously
+    private static final Executor DIRECT = Runnable::run;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testSubscribe_EmitsEveryResultAndCompletes() throws Exception {
+        StreamingResultPublisher<Integer, String> publisher = new StreamingResultPublisher<>("test",
+            IntStream.range(0, 10_000).iterator(), 16,
+            (index, item) -> CompletableFuture.supplyAsync(() -> "r" + item, executor),
+            (index, item, error) -> "failed " + item, executor);
+        RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE);
+
+        publisher.subscribe(subscriber);
+
+        assertTrue(subscriber.done.await(10, TimeUnit.SECONDS));
+        assertTrue(subscriber.completed);
+        assertNull(subscriber.error);
+        assertEquals(10_000, subscriber.results.size());
+        assertEquals(10_000, subscriber.results.stream().distinct().count());
+    }
+
+    @Test
+    void testRequest_PullsOnlyRequestedItems() {
+        CountingIterator source = new CountingIterator(1_000_000);
+        StreamingResultPublisher<Integer, String> publisher = new StreamingResultPublisher<>("test", source, 16,
+            (index, item) -> CompletableFuture.completedFuture("r" + item),
+            (index, item, error) -> "failed " + item, DIRECT);
+        RecordingSubscriber subscriber = new RecordingSubscriber(3);
+
+        publisher.subscribe(subscriber);
+
+        assertEquals(List.of("r0", "r1", "r2"), subscriber.results);
+        assertEquals(3, source.pulled.get());
+
+        subscriber.subscription.request(2);
+
+        assertEquals(5, subscriber.results.size());
+        assertEquals(5, source.pulled.get());
+        assertFalse(subscriber.completed);
+    }
+
+    @Test
+    void testRequest_NeverExceedsMaxInFlight() {
+        CountingIterator source = new CountingIterator(100);
+        List<CompletableFuture<String>> started = Collections.synchronizedList(new ArrayList<>());
+        StreamingResultPublisher<Integer, String> publisher = new StreamingResultPublisher<>("test", source, 4,
+            (index, item) -> {
+                CompletableFuture<String> future = new CompletableFuture<>();
+                started.add(future);
+                return future;
+            },
+            (index, item, error) -> "failed " + item, DIRECT);
+        RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE);
+
+        publisher.subscribe(subscriber);
+        assertEquals(4, started.size());
+
+        started.get(2).complete("done");
+
+        assertEquals(List.of("done"), subscriber.results);
+        assertEquals(5, started.size());
+        assertEquals(5, source.pulled.get());
+    }
+
+    @Test
+    void testSignals_RunOnPublisherExecutor() throws Exception {
+        ExecutorService publisherExecutor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "publisher"));
+        List<CompletableFuture<String>> started = Collections.synchronizedList(new ArrayList<>());
+        List<String> threads = Collections.synchronizedList(new ArrayList<>());
+        Iterator<Integer> source = new CountingIterator(3) {
+            @Override
+            public Integer next() {
+                threads.add("next:" + Thread.currentThread().getName());
+                return super.next();
+            }
+        };
+        StreamingResultPublisher<Integer, String> publisher = new StreamingResultPublisher<>("test", source, 1,
+            (index, item) -> {
+                CompletableFuture<String> future = new CompletableFuture<>();
+                started.add(future);
+                return future;
+            },
+            (index, item, error) -> "failed " + item, publisherExecutor);
+        RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE) {
+            @Override
+            public void onNext(String item) {
+                threads.add("onNext:" + Thread.currentThread().getName());
+                super.onNext(item);
+            }
+        };
+
+        try {
+            publisher.subscribe(subscriber);
+            for (int i = 0; i < 3; i++) {
+                while (started.size() <= i) {
+                    Thread.sleep(5);
+                }
+                CompletableFuture<String> future = started.get(i);
+                Thread completer = new Thread(() -> future.complete("done"), "store-io");
+                completer.start();
+                completer.join();
+            }
+
+            assertTrue(subscriber.done.await(10, TimeUnit.SECONDS));
+            assertEquals(3, subscriber.results.size());
+            assertEquals(6, threads.size());
+            assertTrue(threads.stream().allMatch(thread -> thread.endsWith(":publisher")), threads.toString());
+        } finally {
+            publisherExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testRejectedExecution_SignalsError() {
+        StreamingResultPublisher<Integer, String> publisher = new StreamingResultPublisher<>("test",
+            IntStream.range(0, 10).iterator(), 8,
+            (index, item) -> CompletableFuture.completedFuture("r" + item),
+            (index, item, error) -> "failed " + item,
+            runnable -> { throw new RejectedExecutionException("shut down"); });
+        RecordingSubscriber subscriber = new RecordingSubscriber(1);
+
+        publisher.subscribe(subscriber);
+
+        assertTrue(subscriber.error instanceof RejectedExecutionException);
+        assertTrue(subscriber.results.isEmpty());
+    }
+
+    @Test
+    void testFailedItems_DeliveredAsMappedResults() {
+        StreamingResultPublisher<Integer, String> publisher = new StreamingResultPublisher<>("test",
+            IntStream.range(0, 6).iterator(), 2,
+            (index, item) -> {
+                if (item == 1) {
+                    throw new IllegalStateException("thrown");
+                }
+                if (item == 3) {
+                    return CompletableFuture.failedFuture(new IllegalArgumentException("failed"));
+                }
+                return CompletableFuture.completedFuture("r" + item);
+            },
+            (index, item, error) -> index + ":" + error.getMessage(), DIRECT);
+        RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE);
+
+        publisher.subscribe(subscriber);
+
+        assertEquals(List.of("r0", "1:thrown", "r2", "3:failed", "r4", "r5"), subscriber.results);
+        assertTrue(subscriber.completed);
+    }
+
+    @Test
+    void testSourceFailure_SignalsErrorAfterStartedItems() {
+        Iterator<Integer> source = new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                if (next == 3) {
+                    throw new IllegalStateException("cursor closed");
+                }
+                return true;
+            }
+
+            @Override
+            public Integer next() {
+                return next++;
+            }
+        };
+        StreamingResultPublisher<Integer, String> publisher = new StreamingResultPublisher<>("test", source, 8,
+            (index, item) -> CompletableFuture.completedFuture("r" + item),
+            (index, item, error) -> "failed " + item, DIRECT);
+        RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE);
+
+        publisher.subscribe(subscriber);
+
+        assertEquals(List.of("r0", "r1", "r2"), subscriber.results);
+        assertEquals("cursor closed", subscriber.error.getMessage());
+        assertFalse(subscriber.completed);
+    }
+
+    @Test
+    void testCancel_StopsPullingAndDelivering() {
+        CountingIterator source = new CountingIterator(100);
+        StreamingResultPublisher<Integer, String> publisher = new StreamingResultPublisher<>("test", source, 8,
+            (index, item) -> CompletableFuture.completedFuture("r" + item),
+            (index, item, error) -> "failed " + item, DIRECT);
+        RecordingSubscriber subscriber = new RecordingSubscriber(2);
+
+        publisher.subscribe(subscriber);
+        subscriber.subscription.cancel();
+        subscriber.subscription.request(10);
+
+        assertEquals(2, subscriber.results.size());
+        assertEquals(2, source.pulled.get());
+        assertFalse(subscriber.completed);
+    }
+
+    @Test
+    void testInvalidRequest_SignalsError() {
+        StreamingResultPublisher<Integer, String> publisher = new StreamingResultPublisher<>("test",
+            IntStream.range(0, 10).iterator(), 8,
+            (index, item) -> CompletableFuture.completedFuture("r" + item),
+            (index, item, error) -> "failed " + item, DIRECT);
+        RecordingSubscriber subscriber = new RecordingSubscriber(0);
+
+        publisher.subscribe(subscriber);
+
+        assertTrue(subscriber.error instanceof IllegalArgumentException);
+        assertTrue(subscriber.results.isEmpty());
+    }
+
+    @Test
+    void testSecondSubscriber_Rejected() {
+        StreamingResultPublisher<Integer, String> publisher = new StreamingResultPublisher<>("test",
+            IntStream.range(0, 10).iterator(), 8,
+            (index, item) -> CompletableFuture.completedFuture("r" + item),
+            (index, item, error) -> "failed " + item, DIRECT);
+        publisher.subscribe(new RecordingSubscriber(1));
+        RecordingSubscriber second = new RecordingSubscriber(1);
+
+        publisher.subscribe(second);
+
+        assertTrue(second.error instanceof IllegalStateException);
+        assertTrue(second.results.isEmpty());
+    }
+
+    private static class CountingIterator implements Iterator<Integer> {
+        private final int size;
+        private final AtomicInteger pulled = new AtomicInteger();
+
+        CountingIterator(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return pulled.get() < size;
+        }
+
+        @Override
+        public Integer next() {
+            return pulled.getAndIncrement();
+        }
+    }
+
+    private static class RecordingSubscriber implements Flow.Subscriber<String> {
+        private final long initialRequest;
+        private final List<String> results = Collections.synchronizedList(new ArrayList<>());
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile Flow.Subscription subscription;
+        private volatile boolean completed;
+        private volatile Throwable error;
+
+        RecordingSubscriber(long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(initialRequest);
+        }
+
+        @Override
+        public void onNext(String item) {
+            results.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+            done.countDown();
+        }
+    }
+}
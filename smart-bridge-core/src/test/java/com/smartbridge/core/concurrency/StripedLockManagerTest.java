@@ -0,0 +1,245 @@
+package com.smartbridge.core.concurrency;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit and stress tests for StripedLockManager.
+ * Verifies that one key is serialized while distinct keys proceed in parallel.
+ */
+class StripedLockManagerTest {
+
+    private static final int WORKERS = 16;
+    private static final int OPERATIONS_PER_WORKER = 20;
+    private static final long WORK_MS = 5;
+
+    @Test
+    void testConstructor_RoundsStripesUpToPowerOfTwo() {
+        assertEquals(1, new StripedLockManager("test", 1).getStripeCount());
+        assertEquals(16, new StripedLockManager("test", 16).getStripeCount());
+        assertEquals(1024, new StripedLockManager("test", 1000).getStripeCount());
+    }
+
+    @Test
+    void testStripeFor_SameKeyAlwaysMapsToSameStripe() {
+        StripedLockManager locks = new StripedLockManager("test", 64);
+
+        assertSame(locks.stripeFor("client-1"), locks.stripeFor(new String("client-1")));
+    }
+
+    @Test
+    @Timeout(10)
+    void testWithLock_SerializesSameKey() throws Exception {
+        StripedLockManager locks = new StripedLockManager("test", 64);
+        int[] counter = new int[1];
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 10_000; j++) {
+                        // Non-atomic read-modify-write loses updates unless the lock serializes it
+                        locks.withLock("client-1", () -> counter[0]++);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(80_000, counter[0]);
+        assertEquals(80_000, locks.getAcquisitions());
+    }
+
+    @Test
+    void testWithLock_NullKeyRunsWithoutLocking() {
+        StripedLockManager locks = new StripedLockManager("test", 4);
+
+        assertEquals("done", locks.withLock(null, () -> "done"));
+        assertEquals(0, locks.getAcquisitions());
+    }
+
+    @Test
+    void testWithLock_ReleasesLockWhenActionThrows() {
+        StripedLockManager locks = new StripedLockManager("test", 4);
+
+        assertThrows(IllegalStateException.class, () -> locks.withLock("client-1", () -> {
+            throw new IllegalStateException("boom");
+        }));
+        assertFalse(locks.stripeFor("client-1").isLocked());
+    }
+
+    @Test
+    @Timeout(10)
+    void testWithLock_RecordsContention() throws Exception {
+        StripedLockManager locks = new StripedLockManager("test", 4);
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> locks.withLock("client-1", () -> {
+            held.countDown();
+            awaitQuietly(release);
+            return null;
+        }));
+        holder.start();
+        assertTrue(held.await(5, TimeUnit.SECONDS));
+
+        Thread waiter = new Thread(() -> locks.withLock("client-1", () -> null));
+        waiter.start();
+        Thread.sleep(50);
+        release.countDown();
+        holder.join();
+        waiter.join();
+
+        assertEquals(2, locks.getAcquisitions());
+        assertEquals(1, locks.getContendedAcquisitions());
+        assertEquals(0.5, locks.getContentionRatio(), 0.001);
+        assertTrue(locks.getTotalWaitMs() > 0);
+    }
+
+    @Test
+    @Timeout(10)
+    void testWithLockAsync_HoldsLockUntilFutureCompletes() throws Exception {
+        StripedLockManager locks = new StripedLockManager("test", 4);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CompletableFuture<String> write = new CompletableFuture<>();
+
+        try {
+            CompletableFuture<String> async = locks.withLockAsync("client-1", () -> write, executor);
+            assertTrue(locks.stripeFor("client-1").isLocked());
+
+            // A blocking caller of the same client waits for the asynchronous write
+            CountDownLatch blockedRan = new CountDownLatch(1);
+            Thread blocking = new Thread(() -> locks.withLock("client-1", () -> {
+                blockedRan.countDown();
+                return null;
+            }));
+            blocking.start();
+            assertFalse(blockedRan.await(100, TimeUnit.MILLISECONDS));
+
+            write.complete("stored");
+            assertEquals("stored", async.get(5, TimeUnit.SECONDS));
+            assertTrue(blockedRan.await(5, TimeUnit.SECONDS));
+            blocking.join();
+            assertFalse(locks.stripeFor("client-1").isLocked());
+            assertEquals(1, locks.getContendedAcquisitions());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @Timeout(10)
+    void testWithLockAsync_WaitsForBlockingHolderWithoutAThread() throws Exception {
+        StripedLockManager locks = new StripedLockManager("test", 4);
+        ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "lock-handover"));
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> locks.withLock("client-1", () -> {
+            held.countDown();
+            awaitQuietly(release);
+            return null;
+        }));
+
+        try {
+            holder.start();
+            assertTrue(held.await(5, TimeUnit.SECONDS));
+
+            CompletableFuture<String> async = locks.withLockAsync("client-1",
+                () -> CompletableFuture.completedFuture(Thread.currentThread().getName()), executor);
+            assertFalse(async.isDone());
+
+            release.countDown();
+            assertEquals("lock-handover", async.get(5, TimeUnit.SECONDS));
+            holder.join();
+            assertFalse(locks.stripeFor("client-1").isLocked());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testWithLockAsync_ReleasesLockWhenActionFails() {
+        StripedLockManager locks = new StripedLockManager("test", 4);
+
+        CompletableFuture<Object> thrown = locks.withLockAsync("client-1", () -> {
+            throw new IllegalStateException("boom");
+        }, Runnable::run);
+        CompletableFuture<Object> failed = locks.withLockAsync("client-1",
+            () -> CompletableFuture.failedFuture(new IllegalStateException("FHIR down")), Runnable::run);
+
+        assertTrue(thrown.isCompletedExceptionally());
+        assertTrue(failed.isCompletedExceptionally());
+        assertFalse(locks.stripeFor("client-1").isLocked());
+    }
+
+    @Test
+    @Timeout(30)
+    void testStress_DistinctKeysScaleWhileOneKeySerializes() throws Exception {
+        StripedLockManager locks = new StripedLockManager("test", 1024);
+
+        // Every worker on one client: the old global lock's behaviour
+        long singleKeyMs = runWorkers(locks, worker -> "client-hot");
+        // Every worker on its own client: should overlap almost completely
+        long distinctKeysMs = runWorkers(locks, worker -> "client-" + worker);
+
+        long serialMs = WORKERS * OPERATIONS_PER_WORKER * WORK_MS;
+        assertTrue(singleKeyMs >= serialMs, "single key took " + singleKeyMs + "ms");
+        assertTrue(distinctKeysMs * 2 < singleKeyMs,
+            "distinct keys took " + distinctKeysMs + "ms vs " + singleKeyMs + "ms for one key");
+    }
+
+    private long runWorkers(StripedLockManager locks, IntFunction<String> keyForWorker)
+            throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(WORKERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int w = 0; w < WORKERS; w++) {
+                String key = keyForWorker.apply(w);
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < OPERATIONS_PER_WORKER; i++) {
+                        // Held across a simulated FHIR write, as in the ingestion flow
+                        locks.withLock(key, () -> {
+                            Thread.sleep(WORK_MS);
+                            return null;
+                        });
+                    }
+                    return null;
+                }));
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
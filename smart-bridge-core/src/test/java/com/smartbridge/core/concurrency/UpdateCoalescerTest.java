@@ -0,0 +1,229 @@
+package com.smartbridge.core.concurrency;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for UpdateCoalescer.
+ * Verifies that rapid updates to one key are written once with the latest state.
+ */
+class UpdateCoalescerTest {
+
+    private final List<String> written = new CopyOnWriteArrayList<>();
+    private final List<CompletableFuture<String>> writes = new CopyOnWriteArrayList<>();
+    private final List<String> writerThreads = new CopyOnWriteArrayList<>();
+    private final UpdateCoalescer<String, String, String> coalescer = new UpdateCoalescer<>("test", update -> {
+        written.add(update);
+        writerThreads.add(Thread.currentThread().getName());
+        CompletableFuture<String> write = new CompletableFuture<>();
+        writes.add(write);
+        return write;
+    });
+
+    @AfterEach
+    void tearDown() {
+        coalescer.shutdown();
+    }
+
+    @Test
+    void testSubmit_WritesImmediatelyWithoutQuietPeriod() {
+        CompletableFuture<String> result = coalescer.submit("client-1", "v1");
+
+        assertEquals(List.of("v1"), written);
+        assertTrue(coalescer.isActive("client-1"));
+
+        writes.get(0).complete("stored-v1");
+        assertEquals("stored-v1", result.join());
+        assertFalse(coalescer.isActive("client-1"));
+        assertEquals(0, coalescer.getActiveKeyCount());
+    }
+
+    @Test
+    @Timeout(10)
+    void testSubmit_UpdatesDuringWriteCoalesceToLatest() throws Exception {
+        CompletableFuture<String> first = coalescer.submit("client-1", "v1");
+        CompletableFuture<String> second = coalescer.submit("client-1", "v2");
+        CompletableFuture<String> third = coalescer.submit("client-1", "v3");
+        CompletableFuture<String> fourth = coalescer.submit("client-1", "v4");
+
+        // Nothing more is written while v1 is in flight
+        assertEquals(List.of("v1"), written);
+
+        writes.get(0).complete("stored-v1");
+        assertEquals("stored-v1", first.join());
+        awaitWrites(2);
+        assertEquals(List.of("v1", "v4"), written);
+        assertFalse(second.isDone());
+
+        writes.get(1).complete("stored-v4");
+        assertEquals("stored-v4", second.join());
+        assertEquals("stored-v4", third.join());
+        assertEquals("stored-v4", fourth.join());
+        assertEquals(4, coalescer.getSubmittedCount());
+        assertEquals(2, coalescer.getCoalescedCount());
+        assertFalse(coalescer.isActive("client-1"));
+    }
+
+    @Test
+    @Timeout(10)
+    void testSubmit_QuietPeriodWritesOnlyLatestUpdate() throws Exception {
+        coalescer.setQuietPeriodMs(200);
+
+        CompletableFuture<String> first = coalescer.submit("client-1", "v1");
+        CompletableFuture<String> second = coalescer.submit("client-1", "v2");
+        CompletableFuture<String> third = coalescer.submit("client-1", "v3");
+        assertTrue(written.isEmpty());
+
+        while (writes.isEmpty()) {
+            Thread.sleep(10);
+        }
+        writes.get(0).complete("stored-v3");
+
+        assertEquals("stored-v3", first.get(5, TimeUnit.SECONDS));
+        assertEquals("stored-v3", second.get(5, TimeUnit.SECONDS));
+        assertEquals("stored-v3", third.get(5, TimeUnit.SECONDS));
+        assertEquals(List.of("v3"), written);
+        assertEquals(2, coalescer.getCoalescedCount());
+    }
+
+    @Test
+    void testSubmit_DistinctKeysAreWrittenIndependently() {
+        coalescer.submit("client-1", "a1");
+        coalescer.submit("client-2", "b1");
+
+        assertEquals(List.of("a1", "b1"), written);
+        assertEquals(2, coalescer.getActiveKeyCount());
+        assertEquals(0, coalescer.getCoalescedCount());
+    }
+
+    @Test
+    void testSubmit_NullKeyIsNeverCoalesced() {
+        coalescer.submit(null, "v1");
+        coalescer.submit(null, "v2");
+
+        assertEquals(List.of("v1", "v2"), written);
+        assertEquals(0, coalescer.getActiveKeyCount());
+    }
+
+    @Test
+    @Timeout(10)
+    void testSubmit_FailedWriteFailsAllCoalescedCallers() throws Exception {
+        CompletableFuture<String> first = coalescer.submit("client-1", "v1");
+        CompletableFuture<String> second = coalescer.submit("client-1", "v2");
+        CompletableFuture<String> third = coalescer.submit("client-1", "v3");
+
+        writes.get(0).complete("stored-v1");
+        awaitWrites(2);
+        writes.get(1).completeExceptionally(new IllegalStateException("FHIR down"));
+
+        assertEquals("stored-v1", first.join());
+        ExecutionException error = assertThrows(ExecutionException.class, second::get);
+        assertTrue(error.getCause() instanceof IllegalStateException);
+        assertThrows(ExecutionException.class, third::get);
+        awaitInactive("client-1");
+
+        // The key is usable again after the failure
+        coalescer.submit("client-1", "v4");
+        assertEquals(List.of("v1", "v3", "v4"), written);
+    }
+
+    @Test
+    @Timeout(10)
+    void testSubmit_NextWriteNeverStartsOnCompletingThread() throws Exception {
+        coalescer.submit("client-1", "v1");
+        CompletableFuture<String> second = coalescer.submit("client-1", "v2");
+
+        Thread completer = new Thread(() -> writes.get(0).complete("stored-v1"), "store-io");
+        completer.start();
+        completer.join();
+        awaitWrites(2);
+        writes.get(1).complete("stored-v2");
+
+        assertEquals("stored-v2", second.get(5, TimeUnit.SECONDS));
+        assertEquals("coalescer-test", writerThreads.get(1));
+    }
+
+    @Test
+    @Timeout(10)
+    void testFlushExecutor_SlowWriterDoesNotDelayOtherKeys() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> blockingWritten = new CopyOnWriteArrayList<>();
+        // Blocks like a writer waiting for room in a bounded stage
+        UpdateCoalescer<String, String, String> blocking = new UpdateCoalescer<>("blocking", update -> {
+            if (update.startsWith("slow")) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            blockingWritten.add(update);
+            return CompletableFuture.completedFuture("stored-" + update);
+        });
+        ExecutorService flushExecutor = Executors.newCachedThreadPool();
+        blocking.setQuietPeriodMs(50);
+        blocking.setFlushExecutor(flushExecutor);
+
+        try {
+            CompletableFuture<String> slow = blocking.submit("client-1", "slow-v1");
+            Thread.sleep(100);
+            CompletableFuture<String> fast = blocking.submit("client-2", "fast-v1");
+
+            assertEquals("stored-fast-v1", fast.get(5, TimeUnit.SECONDS));
+            assertFalse(slow.isDone());
+
+            release.countDown();
+            assertEquals("stored-slow-v1", slow.get(5, TimeUnit.SECONDS));
+            assertEquals(List.of("fast-v1", "slow-v1"), blockingWritten);
+        } finally {
+            release.countDown();
+            blocking.shutdown();
+            flushExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testShutdown_FailsUnwrittenUpdates() {
+        CompletableFuture<String> first = coalescer.submit("client-1", "v1");
+        CompletableFuture<String> second = coalescer.submit("client-1", "v2");
+        coalescer.setQuietPeriodMs(60_000);
+        CompletableFuture<String> waiting = coalescer.submit("client-2", "b1");
+
+        coalescer.shutdown();
+
+        ExecutionException error = assertThrows(ExecutionException.class, second::get);
+        assertTrue(error.getCause() instanceof IllegalStateException);
+        assertThrows(ExecutionException.class, waiting::get);
+        assertTrue(coalescer.submit("client-3", "c1").isCompletedExceptionally());
+
+        // The write already in flight still completes its caller
+        writes.get(0).complete("stored-v1");
+        assertEquals("stored-v1", first.join());
+        assertEquals(List.of("v1"), written);
+        assertEquals(0, coalescer.getActiveKeyCount());
+    }
+
+    private void awaitWrites(int count) throws InterruptedException {
+        while (writes.size() < count) {
+            Thread.sleep(5);
+        }
+    }
+
+    private void awaitInactive(String key) throws InterruptedException {
+        while (coalescer.isActive(key)) {
+            Thread.sleep(5);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.smartbridge.core.config;
 
+import com.smartbridge.core.concurrency.DownstreamLimitedExecutor;
+import com.smartbridge.core.concurrency.VirtualThreads;
 import org.junit.jupiter.api.Test;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
@@ -80,4 +82,27 @@ class ConcurrentProcessingConfigTest {
         assertEquals(120, config.getTransformationKeepAliveSeconds());
         assertEquals("custom-transform-", config.getTransformationThreadNamePrefix());
     }
+
+    @Test
+    void testVirtualThreadExecutorsWhenEnabled() {
+        ConcurrentProcessingConfig config = new ConcurrentProcessingConfig();
+        config.setVirtualThreadsEnabled(true);
+        config.setFhirMaxConcurrency(40);
+        config.setUcsMaxConcurrency(8);
+
+        Executor transformation = config.transformationExecutor();
+        Executor reverseSync = config.reverseSyncExecutor();
+
+        if (VirtualThreads.isSupported()) {
+            assertEquals(40, ((DownstreamLimitedExecutor) transformation).getMaxConcurrency());
+            assertEquals(100, ((DownstreamLimitedExecutor) transformation).getQueueCapacity());
+            assertEquals("ucs", ((DownstreamLimitedExecutor) reverseSync).getDownstream());
+            ((DownstreamLimitedExecutor) transformation).shutdown();
+            ((DownstreamLimitedExecutor) reverseSync).shutdown();
+        } else {
+            // Older JVMs keep the platform pools
+            assertTrue(transformation instanceof ThreadPoolTaskExecutor);
+            assertTrue(reverseSync instanceof ThreadPoolTaskExecutor);
+        }
+    }
 }
@@ -0,0 +1,162 @@
+package com.smartbridge.core.export;
+
+import com.smartbridge.core.client.FHIRClientException;
+import com.smartbridge.core.client.FHIRClientService;
+import com.smartbridge.core.transformation.UCSToFHIRTransformer;
+import org.hl7.fhir.r4.model.Patient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for BulkExportService.
+ * Verifies gzip NDJSON sharding, _since propagation and the job lifecycle.
+ */
+class BulkExportServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private FHIRClientService fhirClient;
+    private BulkExportService service;
+
+    @BeforeEach
+    void setUp() {
+        fhirClient = mock(FHIRClientService.class);
+        // Shards roll over after roughly two Patients
+        service = new BulkExportService(fhirClient, tempDir.toString(), "Patient", 200, 50, 24, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    @Timeout(10)
+    void testKickOff_WritesGzipShardsWithAllResources() throws Exception {
+        Date since = new Date(1_700_000_000_000L);
+        scanReturns(5);
+
+        BulkExportJob job = service.kickOff(List.of(), since);
+        awaitFinished(job);
+
+        assertEquals(BulkExportJob.State.COMPLETED, job.getState());
+        assertNotNull(job.getTransactionTime());
+        assertEquals(5, job.getExported());
+        assertTrue(job.getOutputs().size() > 1, "expected several shards");
+        assertEquals(5, job.getOutputs().stream().mapToLong(BulkExportJob.ExportFile::getCount).sum());
+        verify(fhirClient).scanResourcesUpdatedSince(eq(Patient.class),
+            eq(UCSToFHIRTransformer.OPENSRP_ID_SYSTEM), eq(since), eq(50), any());
+
+        List<String> lines = job.getOutputs().stream()
+            .flatMap(file -> readGzipLines(service.resolveOutputFile(job.getId(), file.getFileName())).stream())
+            .collect(Collectors.toList());
+        assertEquals(5, lines.size());
+        assertTrue(lines.get(0).startsWith("{\"resourceType\":\"Patient\""));
+        assertFalse(lines.get(0).contains("\n"));
+        try (var files = Files.list(tempDir.resolve(job.getId()))) {
+            assertTrue(files.noneMatch(path -> path.toString().endsWith(".part")));
+        }
+    }
+
+    @Test
+    void testKickOff_RejectsUnsupportedType() {
+        assertThrows(IllegalArgumentException.class, () -> service.kickOff(List.of("Observation"), null));
+    }
+
+    @Test
+    @Timeout(10)
+    void testResolveOutputFile_OnlyServesManifestFiles() throws Exception {
+        scanReturns(1);
+        BulkExportJob job = service.kickOff(List.of("Patient"), null);
+        awaitFinished(job);
+
+        assertNotNull(service.resolveOutputFile(job.getId(), "Patient-001.ndjson.gz"));
+        assertNull(service.resolveOutputFile(job.getId(), "../../etc/passwd"));
+        assertNull(service.resolveOutputFile("unknown", "Patient-001.ndjson.gz"));
+    }
+
+    @Test
+    @Timeout(10)
+    void testRun_ScanFailureMarksJobFailedAndRemovesFiles() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<Patient> consumer = invocation.getArgument(4);
+            consumer.accept(patient(0));
+            throw new FHIRClientException("server down");
+        }).when(fhirClient).scanResourcesUpdatedSince(eq(Patient.class), any(), any(), anyInt(), any());
+
+        BulkExportJob job = service.kickOff(null, null);
+        awaitFinished(job);
+
+        assertEquals(BulkExportJob.State.FAILED, job.getState());
+        assertEquals("server down", job.getError());
+        assertFalse(Files.exists(tempDir.resolve(job.getId())));
+    }
+
+    @Test
+    @Timeout(10)
+    void testDelete_RemovesJobAndFiles() throws Exception {
+        scanReturns(3);
+        BulkExportJob job = service.kickOff(null, null);
+        awaitFinished(job);
+
+        assertTrue(service.delete(job.getId()));
+
+        assertNull(service.getJob(job.getId()));
+        assertFalse(Files.exists(tempDir.resolve(job.getId())));
+        assertFalse(service.delete(job.getId()));
+    }
+
+    private void scanReturns(int count) {
+        doAnswer(invocation -> {
+            Consumer<Patient> consumer = invocation.getArgument(4);
+            for (int i = 0; i < count; i++) {
+                consumer.accept(patient(i));
+            }
+            return count;
+        }).when(fhirClient).scanResourcesUpdatedSince(eq(Patient.class), any(), any(), anyInt(), any());
+    }
+
+    private Patient patient(int index) {
+        Patient patient = new Patient();
+        patient.setId("p" + index);
+        patient.addIdentifier().setSystem(UCSToFHIRTransformer.OPENSRP_ID_SYSTEM).setValue("opensrp-" + index);
+        patient.addName().setFamily("Family" + index).addGiven("Given" + index);
+        return patient;
+    }
+
+    private void awaitFinished(BulkExportJob job) throws InterruptedException {
+        while (!job.isFinished()) {
+            Thread.sleep(10);
+        }
+    }
+
+    private List<String> readGzipLines(Path file) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            return reader.lines().collect(Collectors.toList());
+        } catch (Exception e) {
+            throw new AssertionError("Could not read " + file, e);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.smartbridge.core.fhir;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.parser.IParser;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Patient;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for FHIRRuntime.
+ * Verifies parser pooling, concurrent parsing, shared validator and warm-up.
+ */
+class FHIRRuntimeTest {
+
+    private static final FhirContext FHIR_CONTEXT = FhirContext.forR4();
+
+    @Test
+    void testBorrowJsonParser_ReusesReleasedParser() {
+        FHIRRuntime runtime = new FHIRRuntime(FHIR_CONTEXT, 2);
+
+        IParser first = runtime.borrowJsonParser();
+        runtime.releaseJsonParser(first);
+
+        assertSame(first, runtime.borrowJsonParser());
+        assertEquals(0, runtime.getIdleParserCount());
+    }
+
+    @Test
+    void testReleaseJsonParser_DropsParsersBeyondPoolSize() {
+        FHIRRuntime runtime = new FHIRRuntime(FHIR_CONTEXT, 1);
+
+        IParser first = runtime.borrowJsonParser();
+        IParser second = runtime.borrowJsonParser();
+        runtime.releaseJsonParser(first);
+        runtime.releaseJsonParser(second);
+
+        assertNotSame(first, second);
+        assertEquals(1, runtime.getIdleParserCount());
+    }
+
+    @Test
+    void testParseJson_RoundTripsConcurrently() throws Exception {
+        FHIRRuntime runtime = new FHIRRuntime(FHIR_CONTEXT, 2);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                String id = "OPENSRP-" + i;
+                results.add(executor.submit(() -> {
+                    Patient patient = new Patient();
+                    patient.addIdentifier().setSystem("http://moh.go.tz/identifier/opensrp-id").setValue(id);
+                    String json = runtime.encodeToJson(patient);
+                    return runtime.parseJson(Patient.class, json).getIdentifierFirstRep().getValue();
+                }));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals("OPENSRP-" + i, results.get(i).get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertTrue(runtime.getIdleParserCount() <= 2);
+    }
+
+    @Test
+    void testParseJson_WithoutTypeReturnsDeclaredResource() {
+        FHIRRuntime runtime = new FHIRRuntime(FHIR_CONTEXT);
+
+        assertInstanceOf(Bundle.class, runtime.parseJson("{\"resourceType\":\"Bundle\",\"type\":\"history\"}"));
+    }
+
+    @Test
+    void testGetValidator_SharedInstance() {
+        FHIRRuntime runtime = new FHIRRuntime(FHIR_CONTEXT);
+
+        assertSame(runtime.getValidator(), runtime.getValidator());
+    }
+
+    @Test
+    @Timeout(60)
+    void testStartWarmUp_CompletesOnce() throws Exception {
+        FHIRRuntime runtime = new FHIRRuntime(FHIR_CONTEXT);
+        assertFalse(runtime.awaitWarmUp(Duration.ofMillis(1)));
+
+        assertSame(runtime.startWarmUp(), runtime.startWarmUp());
+        assertTrue(runtime.awaitWarmUp(Duration.ofSeconds(60)));
+        assertTrue(runtime.isWarmedUp());
+    }
+}
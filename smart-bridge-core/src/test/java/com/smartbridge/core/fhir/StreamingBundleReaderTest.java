@@ -0,0 +1,114 @@
+package com.smartbridge.core.fhir;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.parser.DataFormatException;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Observation;
+import org.hl7.fhir.r4.model.Patient;
+import org.hl7.fhir.r4.model.Resource;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for StreamingBundleReader.
+ * Verifies entry dispatch, skipped elements and the rejection of invalid or oversized input.
+ */
+class StreamingBundleReaderTest {
+
+    private static final FHIRRuntime FHIR_RUNTIME = new FHIRRuntime(FhirContext.forR4());
+
+    private final StreamingBundleReader reader = new StreamingBundleReader(FHIR_RUNTIME, 64 * 1024);
+
+    @Test
+    void testRead_DispatchesEntriesInOrder() throws Exception {
+        Bundle bundle = new Bundle();
+        bundle.setType(Bundle.BundleType.HISTORY);
+        for (int i = 0; i < 3; i++) {
+            Patient patient = new Patient();
+            patient.setId("patient-" + i);
+            patient.addIdentifier().setSystem("http://moh.go.tz/identifier/opensrp-id").setValue("OPENSRP-" + i);
+            bundle.addEntry().setFullUrl("Patient/patient-" + i).setResource(patient);
+        }
+        Observation observation = new Observation();
+        observation.setId("obs-1");
+        bundle.addEntry().setResource(observation);
+        // A deletion in a history Bundle carries no resource
+        bundle.addEntry().getRequest().setMethod(Bundle.HTTPVerb.DELETE).setUrl("Patient/patient-9");
+
+        List<Resource> resources = new ArrayList<>();
+        int count = reader.read(stream(FHIR_RUNTIME.encodeToJson(bundle)), resources::add);
+
+        assertEquals(4, count);
+        assertEquals(4, resources.size());
+        for (int i = 0; i < 3; i++) {
+            Patient patient = assertInstanceOf(Patient.class, resources.get(i));
+            assertEquals("patient-" + i, patient.getIdElement().getIdPart());
+            assertEquals("OPENSRP-" + i, patient.getIdentifierFirstRep().getValue());
+        }
+        assertInstanceOf(Observation.class, resources.get(3));
+    }
+
+    @Test
+    void testRead_NestedBundleEntryIsOneResource() throws Exception {
+        Bundle inner = new Bundle();
+        inner.addEntry().setResource(new Patient());
+        Bundle outer = new Bundle();
+        outer.addEntry().setResource(inner);
+
+        List<Resource> resources = new ArrayList<>();
+        reader.read(stream(FHIR_RUNTIME.encodeToJson(outer)), resources::add);
+
+        assertEquals(1, resources.size());
+        assertEquals(1, assertInstanceOf(Bundle.class, resources.get(0)).getEntry().size());
+    }
+
+    @Test
+    void testRead_EmptyBundle() throws Exception {
+        assertEquals(0, reader.read(stream("{\"resourceType\":\"Bundle\",\"type\":\"history\"}"), resource -> fail()));
+    }
+
+    @Test
+    void testRead_RejectsOtherResourceTypes() {
+        assertThrows(DataFormatException.class, () ->
+            reader.read(stream("{\"resourceType\":\"Patient\",\"entry\":[]}"), resource -> fail()));
+        assertThrows(DataFormatException.class, () ->
+            reader.read(stream("{\"entry\":[{\"resource\":{\"resourceType\":\"Patient\"}}]}"), resource -> fail()));
+        assertThrows(DataFormatException.class, () ->
+            reader.read(stream("[]"), resource -> fail()));
+    }
+
+    @Test
+    void testRead_RejectsMalformedJson() {
+        assertThrows(DataFormatException.class, () ->
+            reader.read(stream("{\"resourceType\":\"Bundle\",\"entry\":[{\"resource\":{"), resource -> { }));
+    }
+
+    @Test
+    void testRead_RejectsOversizedEntry() {
+        StreamingBundleReader small = new StreamingBundleReader(FHIR_RUNTIME, 256);
+        Patient patient = new Patient();
+        patient.addName().setText("x".repeat(1024));
+        Bundle bundle = new Bundle();
+        bundle.addEntry().setResource(new Patient());
+        bundle.addEntry().setResource(patient);
+
+        List<Resource> resources = new ArrayList<>();
+        DataFormatException e = assertThrows(DataFormatException.class, () ->
+            small.read(stream(FHIR_RUNTIME.encodeToJson(bundle)), resources::add));
+
+        assertTrue(e.getMessage().contains("256 bytes"));
+        // Entries before the oversized one were already dispatched
+        assertEquals(1, resources.size());
+    }
+
+    private static InputStream stream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
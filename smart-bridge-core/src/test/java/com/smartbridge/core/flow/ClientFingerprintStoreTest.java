@@ -0,0 +1,162 @@
+package com.smartbridge.core.flow;
+
+import com.smartbridge.core.model.ucs.UCSClient;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ClientFingerprintStore.
+ * Verifies which field changes alter the fingerprint and that snapshots survive a restart.
+ */
+class ClientFingerprintStoreTest {
+
+    private static final String MAPPING_VERSION = "ucs-fhir-patient/1";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testFingerprint_StableForEquivalentClients() {
+        UCSClient client = createClient();
+        UCSClient equivalent = createClient();
+        equivalent.getDemographics().setGender("m");
+        equivalent.getIdentifiers().setNationalId("");
+        client.getIdentifiers().setNationalId(null);
+
+        assertEquals(ClientFingerprintStore.fingerprint(client, MAPPING_VERSION), ClientFingerprintStore.fingerprint(equivalent, MAPPING_VERSION));
+    }
+
+    @Test
+    void testFingerprint_WhitespaceIsMapped() {
+        UCSClient client = createClient();
+        UCSClient padded = createClient();
+        padded.getDemographics().setFirstName("  John ");
+        UCSClient emptyVillage = createClient();
+        emptyVillage.getDemographics().getAddress().setVillage("");
+        UCSClient noVillage = createClient();
+        noVillage.getDemographics().getAddress().setVillage(null);
+
+        // The transformer copies names and address parts to the Patient as they are
+        assertNotEquals(ClientFingerprintStore.fingerprint(client, MAPPING_VERSION),
+            ClientFingerprintStore.fingerprint(padded, MAPPING_VERSION));
+        assertNotEquals(ClientFingerprintStore.fingerprint(emptyVillage, MAPPING_VERSION),
+            ClientFingerprintStore.fingerprint(noVillage, MAPPING_VERSION));
+    }
+
+    @Test
+    void testFingerprint_ChangesWithMappingVersion() {
+        UCSClient client = createClient();
+
+        assertNotEquals(ClientFingerprintStore.fingerprint(client, MAPPING_VERSION),
+            ClientFingerprintStore.fingerprint(client, "ucs-fhir-patient/2"));
+        assertNotEquals(ClientFingerprintStore.fingerprint(client, MAPPING_VERSION),
+            ClientFingerprintStore.fingerprint(client, null));
+    }
+
+    @Test
+    void testFingerprint_IgnoresUnmappedFields() {
+        UCSClient client = createClient();
+        UCSClient withMetadata = createClient();
+        UCSClient.UCSMetadata metadata = new UCSClient.UCSMetadata();
+        metadata.setSource("UCS");
+        withMetadata.setMetadata(metadata);
+
+        assertEquals(ClientFingerprintStore.fingerprint(client, MAPPING_VERSION), ClientFingerprintStore.fingerprint(withMetadata, MAPPING_VERSION));
+    }
+
+    @Test
+    void testFingerprint_ChangesWithMappedFields() {
+        long original = ClientFingerprintStore.fingerprint(createClient(), MAPPING_VERSION);
+
+        UCSClient renamed = createClient();
+        renamed.getDemographics().setLastName("Doe-Smith");
+        UCSClient born = createClient();
+        born.getDemographics().setBirthDate(LocalDate.of(1990, 1, 2));
+        UCSClient moved = createClient();
+        moved.getDemographics().getAddress().setVillage("Other");
+
+        assertNotEquals(original, ClientFingerprintStore.fingerprint(renamed, MAPPING_VERSION));
+        assertNotEquals(original, ClientFingerprintStore.fingerprint(born, MAPPING_VERSION));
+        assertNotEquals(original, ClientFingerprintStore.fingerprint(moved, MAPPING_VERSION));
+    }
+
+    @Test
+    void testFingerprint_FieldBoundariesMatter() {
+        UCSClient first = createClient();
+        first.getDemographics().setFirstName("Jo");
+        first.getDemographics().setLastName("hnDoe");
+        UCSClient second = createClient();
+        second.getDemographics().setFirstName("John");
+        second.getDemographics().setLastName("Doe");
+
+        assertNotEquals(ClientFingerprintStore.fingerprint(first, MAPPING_VERSION), ClientFingerprintStore.fingerprint(second, MAPPING_VERSION));
+    }
+
+    @Test
+    void testIsUnchanged_OnlyAfterRecord() {
+        ClientFingerprintStore store = new ClientFingerprintStore(tempDir.resolve("fp.bin").toString());
+        long fingerprint = ClientFingerprintStore.fingerprint(createClient(), MAPPING_VERSION);
+
+        assertFalse(store.isUnchanged("client-1", fingerprint));
+        store.record("client-1", fingerprint);
+        assertTrue(store.isUnchanged("client-1", fingerprint));
+        assertFalse(store.isUnchanged("client-1", fingerprint + 1));
+
+        store.invalidate("client-1");
+        assertFalse(store.isUnchanged("client-1", fingerprint));
+    }
+
+    @Test
+    void testFlush_SnapshotSurvivesRestart() {
+        Path file = tempDir.resolve("fp.bin");
+        ClientFingerprintStore store = new ClientFingerprintStore(file.toString());
+        store.record("client-1", 42L);
+        store.record("client-2", -7L);
+        store.flush();
+
+        ClientFingerprintStore reloaded = new ClientFingerprintStore(file.toString());
+        assertEquals(2, reloaded.size());
+        assertTrue(reloaded.isUnchanged("client-1", 42L));
+        assertTrue(reloaded.isUnchanged("client-2", -7L));
+        assertFalse(Files.exists(tempDir.resolve("fp.bin.tmp")));
+    }
+
+    @Test
+    void testFlush_NoWriteWhenClean() {
+        Path file = tempDir.resolve("fp.bin");
+        ClientFingerprintStore store = new ClientFingerprintStore(file.toString());
+
+        store.flush();
+
+        assertFalse(Files.exists(file));
+    }
+
+    private UCSClient createClient() {
+        UCSClient client = new UCSClient();
+
+        UCSClient.UCSIdentifiers identifiers = new UCSClient.UCSIdentifiers();
+        identifiers.setOpensrpId("client-1");
+        identifiers.setNationalId("national-1");
+        client.setIdentifiers(identifiers);
+
+        UCSClient.UCSDemographics demographics = new UCSClient.UCSDemographics();
+        demographics.setFirstName("John");
+        demographics.setLastName("Doe");
+        demographics.setGender("M");
+        demographics.setBirthDate(LocalDate.of(1990, 1, 1));
+        UCSClient.UCSAddress address = new UCSClient.UCSAddress();
+        address.setDistrict("Ilala");
+        address.setWard("Kariakoo");
+        address.setVillage("Mtaa");
+        demographics.setAddress(address);
+        client.setDemographics(demographics);
+
+        return client;
+    }
+}
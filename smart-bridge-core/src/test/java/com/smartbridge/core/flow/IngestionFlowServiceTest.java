@@ -2,7 +2,10 @@ package com.smartbridge.core.flow;
 
 import ca.uhn.fhir.rest.api.MethodOutcome;
 import com.smartbridge.core.audit.AuditLogger;
+import com.smartbridge.core.client.AsyncFHIRClient;
+import com.smartbridge.core.client.BatchingFHIRWriter;
 import com.smartbridge.core.client.FHIRClientService;
+import com.smartbridge.core.client.PatientIdentifierIndex;
 import com.smartbridge.core.interfaces.TransformationException;
 import com.smartbridge.core.model.fhir.FHIRResourceWrapper;
 import com.smartbridge.core.model.ucs.UCSClient;
@@ -11,23 +14,34 @@ import com.smartbridge.core.resilience.ResilientFHIRClient;
 import com.smartbridge.core.transformation.ConcurrentTransformationService;
 import com.smartbridge.core.transformation.UCSToFHIRTransformer;
 import com.smartbridge.core.validation.UCSClientValidator;
+import io.micrometer.core.instrument.Counter;
 import org.hl7.fhir.r4.model.IdType;
 import org.hl7.fhir.r4.model.Patient;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class IngestionFlowServiceTest {
 
+    @TempDir
+    Path tempDir;
+
     @Mock
     private UCSClientValidator ucsValidator;
 
@@ -115,6 +129,349 @@ class IngestionFlowServiceTest {
         );
     }
 
+    @Test
+    void testProcessIngestion_IndexedPatientIsUpdatedInPlace() throws Exception {
+        // Arrange
+        UCSClient ucsClient = createTestUCSClient();
+        Patient patient = createTestPatient();
+        FHIRResourceWrapper<Patient> wrapper = FHIRResourceWrapper.forPatient(
+            patient, "UCS", "test-id"
+        );
+        PatientIdentifierIndex index = mock(PatientIdentifierIndex.class);
+        ReflectionTestUtils.setField(ingestionFlowService, "patientIdentifierIndex", index);
+        
+        MethodOutcome outcome = new MethodOutcome();
+        outcome.setId(new IdType("Patient", "123", "5"));
+        
+        when(ucsValidator.validate(any(UCSClient.class)))
+            .thenReturn(UCSClientValidator.ValidationResult.valid());
+        when(transformer.transformUCSToFHIR(any(UCSClient.class)))
+            .thenReturn((FHIRResourceWrapper) wrapper);
+        when(index.isReady()).thenReturn(true);
+        when(index.lookup(any(Patient.class)))
+            .thenReturn(new PatientIdentifierIndex.IndexEntry("123", "4"));
+        when(resilientFHIRClient.updatePatient(any(Patient.class), eq("4")))
+            .thenReturn(outcome);
+        when(fhirClient.getServerBaseUrl())
+            .thenReturn("http://localhost:8080/fhir");
+        
+        // Act
+        IngestionFlowService.IngestionFlowResult result = 
+            ingestionFlowService.processIngestion(ucsClient);
+        
+        // Assert
+        assertTrue(result.isSuccess());
+        assertEquals("123", result.getFhirResourceId());
+        assertEquals("123", patient.getIdElement().getIdPart());
+        verify(resilientFHIRClient, never()).createPatient(any(Patient.class));
+        verify(index).record(patient, outcome.getId());
+        verify(auditLogger).logFHIROperation(
+            eq("UPDATE"), eq("Patient"), eq("123"),
+            anyString(), eq(true), anyString()
+        );
+    }
+
+    @Test
+    void testProcessIngestion_IndexNotReadyQueuesForRetry() throws Exception {
+        // Arrange
+        UCSClient ucsClient = createTestUCSClient();
+        Patient patient = createTestPatient();
+        FHIRResourceWrapper<Patient> wrapper = FHIRResourceWrapper.forPatient(
+            patient, "UCS", "test-id"
+        );
+        PatientIdentifierIndex index = mock(PatientIdentifierIndex.class);
+        ReflectionTestUtils.setField(ingestionFlowService, "patientIdentifierIndex", index);
+        
+        when(ucsValidator.validate(any(UCSClient.class)))
+            .thenReturn(UCSClientValidator.ValidationResult.valid());
+        when(transformer.transformUCSToFHIR(any(UCSClient.class)))
+            .thenReturn((FHIRResourceWrapper) wrapper);
+        
+        // Act
+        IngestionFlowService.IngestionFlowResult result = ingestionFlowService.processIngestion(ucsClient);
+        
+        // Assert
+        assertFalse(result.isSuccess());
+        assertTrue(result.getErrorMessage().contains("still rebuilding"));
+        verify(resilientFHIRClient, never()).createPatient(any());
+        verify(messageProducer).sendToRetryQueue(any());
+    }
+
+    @Test
+    void testProcessIngestion_FailedIndexRebuildKeepsIngestionBlocked() throws Exception {
+        // Arrange
+        UCSClient ucsClient = createTestUCSClient();
+        FHIRResourceWrapper<Patient> wrapper = FHIRResourceWrapper.forPatient(
+            createTestPatient(), "UCS", "test-id"
+        );
+        when(fhirClient.scanPatientsByIdentifierSystem(any(), anyInt(), any()))
+            .thenThrow(new RuntimeException("FHIR server unavailable"));
+        PatientIdentifierIndex index = new PatientIdentifierIndex(fhirClient,
+            tempDir.resolve("patient-identifier-index.log").toString(), 100);
+        assertFalse(index.rebuildFromServer());
+        ReflectionTestUtils.setField(ingestionFlowService, "patientIdentifierIndex", index);
+
+        when(ucsValidator.validate(any(UCSClient.class)))
+            .thenReturn(UCSClientValidator.ValidationResult.valid());
+        when(transformer.transformUCSToFHIR(any(UCSClient.class)))
+            .thenReturn((FHIRResourceWrapper) wrapper);
+
+        // Act
+        IngestionFlowService.IngestionFlowResult result = ingestionFlowService.processIngestion(ucsClient);
+
+        // Assert
+        assertFalse(result.isSuccess());
+        assertTrue(result.getErrorMessage().contains("still rebuilding"));
+        verify(resilientFHIRClient, never()).createPatient(any());
+        verify(messageProducer).sendToRetryQueue(any());
+        index.close();
+    }
+
+    @Test
+    void testProcessIngestion_UnchangedClientIsSkipped() throws Exception {
+        // Arrange
+        UCSClient ucsClient = createTestUCSClient();
+        ClientFingerprintStore fingerprintStore = mock(ClientFingerprintStore.class);
+        Counter skippedCounter = mock(Counter.class);
+        ReflectionTestUtils.setField(ingestionFlowService, "clientFingerprintStore", fingerprintStore);
+        ReflectionTestUtils.setField(ingestionFlowService, "ingestionUnchangedSkippedCounter", skippedCounter);
+        
+        when(fingerprintStore.isUnchanged(eq("test-opensrp-123"), anyLong()))
+            .thenReturn(true);
+        
+        // Act
+        IngestionFlowService.IngestionFlowResult result = 
+            ingestionFlowService.processIngestion(ucsClient);
+        
+        // Assert
+        assertTrue(result.isSuccess());
+        assertTrue(result.isSkipped());
+        verify(skippedCounter).increment();
+        verify(transformer, never()).transformUCSToFHIR(any());
+        verifyNoInteractions(ucsValidator, resilientFHIRClient, auditLogger);
+        verify(fingerprintStore, never()).record(anyString(), anyLong());
+    }
+
+    @Test
+    void testProcessIngestion_RecordsFingerprintAfterSuccess() throws Exception {
+        // Arrange
+        UCSClient ucsClient = createTestUCSClient();
+        Patient patient = createTestPatient();
+        FHIRResourceWrapper<Patient> wrapper = FHIRResourceWrapper.forPatient(
+            patient, "UCS", "test-id"
+        );
+        ClientFingerprintStore fingerprintStore = mock(ClientFingerprintStore.class);
+        ReflectionTestUtils.setField(ingestionFlowService, "clientFingerprintStore", fingerprintStore);
+        
+        MethodOutcome outcome = new MethodOutcome();
+        outcome.setId(new IdType("Patient", "123"));
+        
+        when(ucsValidator.validate(any(UCSClient.class)))
+            .thenReturn(UCSClientValidator.ValidationResult.valid());
+        when(transformer.transformUCSToFHIR(any(UCSClient.class)))
+            .thenReturn((FHIRResourceWrapper) wrapper);
+        when(transformer.getMappingVersion()).thenReturn("ucs-fhir-patient/1");
+        when(resilientFHIRClient.createPatient(any(Patient.class)))
+            .thenReturn(outcome);
+        
+        // Act
+        IngestionFlowService.IngestionFlowResult result = 
+            ingestionFlowService.processIngestion(ucsClient);
+        
+        // Assert
+        assertTrue(result.isSuccess());
+        assertFalse(result.isSkipped());
+        verify(fingerprintStore).record("test-opensrp-123",
+            ClientFingerprintStore.fingerprint(ucsClient, "ucs-fhir-patient/1"));
+    }
+
+    @Test
+    void testProcessIngestionAsync_RunsPrepareAndStoreOnSeparateStages() throws Exception {
+        // Arrange
+        UCSClient ucsClient = createTestUCSClient();
+        Patient patient = createTestPatient();
+        FHIRResourceWrapper<Patient> wrapper = FHIRResourceWrapper.forPatient(
+            patient, "UCS", "test-id"
+        );
+        IngestionStages stages = new IngestionStages(1, 10, 2, 10, false);
+        ReflectionTestUtils.setField(ingestionFlowService, "ingestionStages", stages);
+        
+        MethodOutcome outcome = new MethodOutcome();
+        outcome.setId(new IdType("Patient", "123"));
+        AtomicReference<String> transformThread = new AtomicReference<>();
+        AtomicReference<String> storeThread = new AtomicReference<>();
+        
+        when(ucsValidator.validate(any(UCSClient.class)))
+            .thenReturn(UCSClientValidator.ValidationResult.valid());
+        when(transformer.transformUCSToFHIR(any(UCSClient.class))).thenAnswer(invocation -> {
+            transformThread.set(Thread.currentThread().getName());
+            return wrapper;
+        });
+        when(resilientFHIRClient.createPatient(any(Patient.class))).thenAnswer(invocation -> {
+            storeThread.set(Thread.currentThread().getName());
+            return outcome;
+        });
+        
+        try {
+            // Act
+            IngestionFlowService.IngestionFlowResult result = 
+                ingestionFlowService.processIngestionAsync(ucsClient).get(5, TimeUnit.SECONDS);
+            
+            // Assert
+            assertTrue(result.isSuccess());
+            assertEquals("123", result.getFhirResourceId());
+            assertTrue(transformThread.get().startsWith("ingestion-prepare-"));
+            assertTrue(storeThread.get().startsWith("ingestion-store-"));
+            assertEquals(1, stages.getPrepareStage().getCompletedCount());
+            assertEquals(1, stages.getStoreStage().getCompletedCount());
+            verifyNoInteractions(transformationExecutor);
+        } finally {
+            stages.shutdown();
+        }
+    }
+
+    @Test
+    void testProcessIngestionAsync_WritesThroughAsyncClientWithoutStoreStage() throws Exception {
+        // Arrange
+        UCSClient ucsClient = createTestUCSClient();
+        Patient patient = createTestPatient();
+        FHIRResourceWrapper<Patient> wrapper = FHIRResourceWrapper.forPatient(
+            patient, "UCS", "test-id"
+        );
+        IngestionStages stages = new IngestionStages(1, 10, 2, 10, false);
+        AsyncFHIRClient asyncFHIRClient = mock(AsyncFHIRClient.class);
+        ReflectionTestUtils.setField(ingestionFlowService, "ingestionStages", stages);
+        ReflectionTestUtils.setField(ingestionFlowService, "asyncFHIRClient", asyncFHIRClient);
+        
+        MethodOutcome outcome = new MethodOutcome();
+        outcome.setId(new IdType("Patient", "123"));
+        CompletableFuture<MethodOutcome> write = new CompletableFuture<>();
+        
+        when(ucsValidator.validate(any(UCSClient.class)))
+            .thenReturn(UCSClientValidator.ValidationResult.valid());
+        when(transformer.transformUCSToFHIR(any(UCSClient.class)))
+            .thenReturn((FHIRResourceWrapper) wrapper);
+        when(asyncFHIRClient.createPatient(any(Patient.class))).thenReturn(write);
+        
+        try {
+            // Act
+            CompletableFuture<IngestionFlowService.IngestionFlowResult> future =
+                ingestionFlowService.processIngestionAsync(ucsClient);
+            
+            // The prepare stage is free again while the FHIR write is still open
+            verify(asyncFHIRClient, timeout(5000)).createPatient(patient);
+            assertFalse(future.isDone());
+            assertEquals(0, stages.getPrepareStage().getActiveCount());
+            
+            write.complete(outcome);
+            IngestionFlowService.IngestionFlowResult result = future.get(5, TimeUnit.SECONDS);
+            
+            // Assert
+            assertTrue(result.isSuccess());
+            assertTrue(result.isFhirStorageCompleted());
+            assertEquals("123", result.getFhirResourceId());
+            assertEquals(0, stages.getStoreStage().getCompletedCount());
+            verify(resilientFHIRClient, never()).createPatient(any());
+        } finally {
+            stages.shutdown();
+        }
+    }
+
+    @Test
+    void testProcessIngestionAsync_BatchedCreateFreesStoreStage() throws Exception {
+        // Arrange
+        UCSClient ucsClient = createTestUCSClient();
+        Patient patient = createTestPatient();
+        FHIRResourceWrapper<Patient> wrapper = FHIRResourceWrapper.forPatient(
+            patient, "UCS", "test-id"
+        );
+        IngestionStages stages = new IngestionStages(1, 10, 1, 10, false);
+        BatchingFHIRWriter batchingFHIRWriter = mock(BatchingFHIRWriter.class);
+        ReflectionTestUtils.setField(ingestionFlowService, "ingestionStages", stages);
+        ReflectionTestUtils.setField(ingestionFlowService, "batchingFHIRWriter", batchingFHIRWriter);
+        
+        MethodOutcome outcome = new MethodOutcome();
+        outcome.setId(new IdType("Patient", "123"));
+        CompletableFuture<MethodOutcome> entry = new CompletableFuture<>();
+        
+        when(ucsValidator.validate(any(UCSClient.class)))
+            .thenReturn(UCSClientValidator.ValidationResult.valid());
+        when(transformer.transformUCSToFHIR(any(UCSClient.class)))
+            .thenReturn((FHIRResourceWrapper) wrapper);
+        when(batchingFHIRWriter.createPatient(any(Patient.class))).thenReturn(entry);
+        
+        try {
+            // Act
+            CompletableFuture<IngestionFlowService.IngestionFlowResult> future =
+                ingestionFlowService.processIngestionAsync(ucsClient);
+            
+            // The single store thread is free while the entry waits for its Bundle
+            verify(batchingFHIRWriter, timeout(5000)).createPatient(patient);
+            while (stages.getStoreStage().getCompletedCount() < 1) {
+                Thread.sleep(5);
+            }
+            assertFalse(future.isDone());
+            assertEquals(0, stages.getStoreStage().getActiveCount());
+            
+            entry.complete(outcome);
+            IngestionFlowService.IngestionFlowResult result = future.get(5, TimeUnit.SECONDS);
+            
+            // Assert
+            assertTrue(result.isSuccess());
+            assertEquals("123", result.getFhirResourceId());
+            verify(resilientFHIRClient, never()).createPatient(any());
+        } finally {
+            stages.shutdown();
+        }
+    }
+
+    @Test
+    void testProcessIngestion_WaitsForAsyncWriteOfSameClient() throws Exception {
+        // Arrange
+        UCSClient ucsClient = createTestUCSClient();
+        Patient patient = createTestPatient();
+        FHIRResourceWrapper<Patient> wrapper = FHIRResourceWrapper.forPatient(
+            patient, "UCS", "test-id"
+        );
+        IngestionStages stages = new IngestionStages(1, 10, 2, 10, false);
+        AsyncFHIRClient asyncFHIRClient = mock(AsyncFHIRClient.class);
+        ReflectionTestUtils.setField(ingestionFlowService, "ingestionStages", stages);
+        ReflectionTestUtils.setField(ingestionFlowService, "asyncFHIRClient", asyncFHIRClient);
+        
+        MethodOutcome outcome = new MethodOutcome();
+        outcome.setId(new IdType("Patient", "123"));
+        CompletableFuture<MethodOutcome> write = new CompletableFuture<>();
+        
+        when(ucsValidator.validate(any(UCSClient.class)))
+            .thenReturn(UCSClientValidator.ValidationResult.valid());
+        when(transformer.transformUCSToFHIR(any(UCSClient.class)))
+            .thenReturn((FHIRResourceWrapper) wrapper);
+        when(asyncFHIRClient.createPatient(any(Patient.class))).thenReturn(write);
+        when(resilientFHIRClient.createPatient(any(Patient.class))).thenReturn(outcome);
+        
+        try {
+            CompletableFuture<IngestionFlowService.IngestionFlowResult> asyncResult =
+                ingestionFlowService.processIngestionAsync(ucsClient);
+            verify(asyncFHIRClient, timeout(5000)).createPatient(patient);
+            
+            // Act: a synchronous ingestion of the same client, e.g. from the sync pipeline
+            CompletableFuture<IngestionFlowService.IngestionFlowResult> syncResult =
+                CompletableFuture.supplyAsync(() -> ingestionFlowService.processIngestion(ucsClient));
+            
+            // Assert: it does not write while the asynchronous write is open
+            Thread.sleep(200);
+            assertFalse(syncResult.isDone());
+            verify(resilientFHIRClient, never()).createPatient(any());
+            
+            write.complete(outcome);
+            assertTrue(asyncResult.get(5, TimeUnit.SECONDS).isSuccess());
+            assertTrue(syncResult.get(5, TimeUnit.SECONDS).isSuccess());
+            verify(resilientFHIRClient).createPatient(any());
+        } finally {
+            stages.shutdown();
+        }
+    }
+
     @Test
     void testProcessIngestion_ValidationFailure() throws Exception {
         // Arrange
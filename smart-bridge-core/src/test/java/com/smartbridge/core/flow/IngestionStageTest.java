@@ -0,0 +1,140 @@
+package com.smartbridge.core.flow;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for IngestionStage.
+ * Verifies bounded-queue backpressure, failure propagation and service-time accounting.
+ */
+class IngestionStageTest {
+
+    private IngestionStage stage;
+
+    @AfterEach
+    void tearDown() {
+        if (stage != null) {
+            stage.shutdown();
+        }
+    }
+
+    @Test
+    @Timeout(10)
+    void testSubmit_RunsOnStageThread() throws Exception {
+        stage = new IngestionStage("cpu", 2, 4);
+
+        String thread = stage.submit(() -> Thread.currentThread().getName()).get();
+
+        assertTrue(thread.startsWith("ingestion-cpu-"));
+        assertEquals(1, stage.getCompletedCount());
+        assertTrue(stage.getMeanServiceTimeMs() >= 0);
+    }
+
+    @Test
+    @Timeout(10)
+    void testSubmit_FailurePropagatesToFuture() throws Exception {
+        stage = new IngestionStage("io", 1, 1);
+
+        CompletableFuture<Object> future = stage.submit(() -> {
+            throw new IllegalStateException("FHIR down");
+        });
+
+        ExecutionException error = assertThrows(ExecutionException.class, future::get);
+        assertEquals("FHIR down", error.getCause().getMessage());
+        assertEquals(1, stage.getCompletedCount());
+    }
+
+    @Test
+    @Timeout(10)
+    void testSubmit_BlocksWhileQueueIsFull() throws Exception {
+        stage = new IngestionStage("io", 1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+
+        stage.submit(() -> {
+            started.countDown();
+            await(release);
+            return 1;
+        });
+        started.await();
+        stage.submit(() -> 2);
+        assertEquals(1, stage.getQueueDepth());
+
+        AtomicBoolean thirdSubmitted = new AtomicBoolean();
+        Thread producer = new Thread(() -> {
+            stage.submit(() -> 3);
+            thirdSubmitted.set(true);
+        });
+        producer.start();
+        producer.join(200);
+
+        // One running, one queued: the third submit waits for space
+        assertFalse(thirdSubmitted.get());
+
+        release.countDown();
+        producer.join(5000);
+        assertTrue(thirdSubmitted.get());
+        while (stage.getCompletedCount() < 3) {
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    void testSubmit_AfterShutdownFailsFuture() {
+        stage = new IngestionStage("cpu", 1, 1);
+        stage.shutdown();
+
+        CompletableFuture<Integer> future = stage.submit(() -> 1);
+
+        assertTrue(future.isCompletedExceptionally());
+    }
+
+    @Test
+    @Timeout(10)
+    void testShutdown_FailsQueuedTasksAndReleasesBlockedSubmitters() throws Exception {
+        stage = new IngestionStage("io", 1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+
+        CompletableFuture<Integer> runningTask = stage.submit(() -> {
+            started.countDown();
+            await(new CountDownLatch(1));
+            return 1;
+        });
+        started.await();
+        CompletableFuture<Integer> queuedTask = stage.submit(() -> 2);
+
+        AtomicReference<CompletableFuture<Integer>> blockedTask = new AtomicReference<>();
+        Thread producer = new Thread(() -> blockedTask.set(stage.submit(() -> 3)));
+        producer.start();
+        producer.join(200);
+        assertNull(blockedTask.get());
+
+        stage.shutdown();
+        producer.join(5000);
+
+        ExecutionException queuedError = assertThrows(ExecutionException.class, queuedTask::get);
+        assertInstanceOf(RejectedExecutionException.class, queuedError.getCause());
+        assertTrue(blockedTask.get().isCompletedExceptionally());
+        assertEquals(1, runningTask.get());
+        assertEquals(0, stage.getQueueDepth());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.smartbridge.core.resilience;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AsyncResilientExecutor.
+ * Verifies retries, circuit breaking and the in-flight limit without blocking threads.
+ */
+class AsyncResilientExecutorTest {
+
+    private CircuitBreaker circuitBreaker;
+    private RetryPolicy retryPolicy;
+
+    @BeforeEach
+    void setUp() {
+        circuitBreaker = new CircuitBreaker("Test", 3, Duration.ofMinutes(1), 1);
+        retryPolicy = new RetryPolicy.Builder("Test")
+            .maxAttempts(3)
+            .initialDelay(Duration.ofMillis(10))
+            .maxDelay(Duration.ofMillis(100))
+            .build();
+    }
+
+    @Test
+    @Timeout(5)
+    void testExecute_RetriesTransientFailureUntilSuccess() throws Exception {
+        AsyncResilientExecutor executor = newExecutor(10, 10);
+        AtomicInteger attempts = new AtomicInteger();
+
+        CompletableFuture<String> result = executor.execute(() -> attempts.incrementAndGet() < 3
+            ? CompletableFuture.failedFuture(new IOException("connection reset"))
+            : CompletableFuture.completedFuture("stored"), "create");
+
+        assertEquals("stored", result.get(5, TimeUnit.SECONDS));
+        assertEquals(3, attempts.get());
+        assertEquals(2, executor.getRetryCount());
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    @Timeout(5)
+    void testExecute_FailsWithRetryExceptionWhenAttemptsRunOut() {
+        AsyncResilientExecutor executor = newExecutor(10, 10);
+        AtomicInteger attempts = new AtomicInteger();
+
+        CompletableFuture<String> result = executor.execute(() -> {
+            attempts.incrementAndGet();
+            return CompletableFuture.failedFuture(new IOException("timeout"));
+        }, "create");
+
+        ExecutionException error = assertThrows(ExecutionException.class, result::get);
+        assertTrue(error.getCause() instanceof RetryException);
+        assertTrue(error.getCause().getCause() instanceof IOException);
+        assertEquals(3, attempts.get());
+        // Three transient failures reach the breaker's threshold
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    void testExecute_DoesNotRetryOrCountNonTransientFailure() {
+        AsyncResilientExecutor executor = newExecutor(10, 10);
+        AtomicInteger attempts = new AtomicInteger();
+
+        CompletableFuture<String> result = executor.execute(() -> {
+            attempts.incrementAndGet();
+            return CompletableFuture.failedFuture(new IllegalArgumentException("HTTP 412"));
+        }, "update");
+
+        ExecutionException error = assertThrows(ExecutionException.class, result::get);
+        assertTrue(error.getCause() instanceof IllegalArgumentException);
+        assertEquals(1, attempts.get());
+        assertEquals(0, circuitBreaker.getMetrics().getConsecutiveFailures());
+    }
+
+    @Test
+    void testExecute_OpenCircuitRejectsWithoutCalling() {
+        AsyncResilientExecutor executor = newExecutor(10, 10);
+        for (int i = 0; i < 3; i++) {
+            circuitBreaker.recordFailure();
+        }
+        AtomicInteger attempts = new AtomicInteger();
+
+        CompletableFuture<String> result = executor.execute(() -> {
+            attempts.incrementAndGet();
+            return CompletableFuture.completedFuture("stored");
+        }, "create");
+
+        ExecutionException error = assertThrows(ExecutionException.class, result::get);
+        assertTrue(error.getCause() instanceof CircuitBreakerOpenException);
+        assertEquals(0, attempts.get());
+    }
+
+    @Test
+    void testExecute_QueuesCallsBeyondInFlightLimit() {
+        AsyncResilientExecutor executor = newExecutor(2, 100);
+        List<CompletableFuture<String>> calls = new ArrayList<>();
+        List<CompletableFuture<String>> results = new ArrayList<>();
+
+        for (int i = 0; i < 10; i++) {
+            results.add(executor.execute(() -> {
+                CompletableFuture<String> call = new CompletableFuture<>();
+                calls.add(call);
+                return call;
+            }, "create"));
+        }
+
+        // Only two calls started; the rest wait without a thread
+        assertEquals(2, calls.size());
+        assertEquals(2, executor.getInFlightCount());
+        assertEquals(8, executor.getQueuedCount());
+
+        calls.get(0).complete("first");
+        assertEquals("first", results.get(0).join());
+        assertEquals(3, calls.size());
+        assertEquals(2, executor.getInFlightCount());
+        assertEquals(7, executor.getQueuedCount());
+
+        for (int i = 1; i < 10; i++) {
+            calls.get(i).complete("call-" + i);
+        }
+        assertEquals("call-9", results.get(9).join());
+        assertEquals(0, executor.getInFlightCount());
+        assertEquals(0, executor.getQueuedCount());
+    }
+
+    @Test
+    void testExecute_RejectsWhenQueueIsFull() {
+        AsyncResilientExecutor executor = newExecutor(1, 1);
+
+        executor.execute(CompletableFuture::new, "create");
+        executor.execute(CompletableFuture::new, "create");
+        CompletableFuture<Object> rejected = executor.execute(CompletableFuture::new, "create");
+
+        ExecutionException error = assertThrows(ExecutionException.class, rejected::get);
+        assertTrue(error.getCause() instanceof RejectedExecutionException);
+    }
+
+    @Test
+    @Timeout(10)
+    void testExecute_SynchronousCompletionsDoNotRecurse() {
+        AsyncResilientExecutor executor = newExecutor(1, 100_000);
+        CompletableFuture<String> first = new CompletableFuture<>();
+        executor.execute(() -> first, "create");
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            results.add(executor.execute(() -> CompletableFuture.completedFuture("stored"), "create"));
+        }
+
+        // Each queued call completes inline and frees the slot for the next one
+        first.complete("first");
+
+        assertTrue(results.stream().allMatch(result -> "stored".equals(result.join())));
+        assertEquals(0, executor.getInFlightCount());
+        assertEquals(0, executor.getQueuedCount());
+    }
+
+    @Test
+    void testExecute_QueuedCallRejectedWhenCircuitOpensBeforeItStarts() {
+        AsyncResilientExecutor executor = newExecutor(1, 10);
+        CompletableFuture<String> first = new CompletableFuture<>();
+        executor.execute(() -> first, "create");
+        AtomicInteger attempts = new AtomicInteger();
+        CompletableFuture<String> queued = executor.execute(() -> {
+            attempts.incrementAndGet();
+            return CompletableFuture.completedFuture("stored");
+        }, "create");
+
+        for (int i = 0; i < 3; i++) {
+            circuitBreaker.recordFailure();
+        }
+        first.complete("first");
+
+        ExecutionException error = assertThrows(ExecutionException.class, queued::get);
+        assertTrue(error.getCause() instanceof CircuitBreakerOpenException);
+        assertEquals(0, attempts.get());
+        assertEquals(0, executor.getInFlightCount());
+    }
+
+    @Test
+    @Timeout(5)
+    void testExecute_QueuedCallStartsOnExecutor() throws Exception {
+        ExecutorService pool = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "resilience-pool"));
+        try {
+            AsyncResilientExecutor executor = new AsyncResilientExecutor("Test", circuitBreaker, retryPolicy,
+                error -> error instanceof IOException, 1, 10, pool);
+            CompletableFuture<String> first = new CompletableFuture<>();
+            executor.execute(() -> first, "create");
+            CompletableFuture<String> queued = executor.execute(
+                () -> CompletableFuture.completedFuture(Thread.currentThread().getName()), "create");
+
+            first.complete("first");
+
+            assertEquals("resilience-pool", queued.get(5, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private AsyncResilientExecutor newExecutor(int maxInFlight, int maxQueued) {
+        return new AsyncResilientExecutor("Test", circuitBreaker, retryPolicy,
+            error -> error instanceof IOException, maxInFlight, maxQueued, Runnable::run);
+    }
+}
@@ -0,0 +1,135 @@
+package com.smartbridge.core.scheduling;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AdaptiveInterval and AdaptivePollingScheduler.
+ * Verifies interval adaptation to change and error rates, jitter bounds and tick skipping.
+ */
+class AdaptivePollingSchedulerTest {
+
+    private AdaptivePollingScheduler scheduler;
+
+    @AfterEach
+    void tearDown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    void testInterval_ShortensToMatchChangeRate() {
+        AdaptiveInterval interval = new AdaptiveInterval(60_000, 1_000, 600_000, 100, 0.2, 0);
+
+        // 600 changes over 60s = 10/s, so 100 changes arrive every 10s
+        assertEquals(10_000, interval.update(PollOutcome.of(600, 0), 60_000));
+    }
+
+    @Test
+    void testInterval_GrowsWhileIdleUpToMax() {
+        AdaptiveInterval interval = new AdaptiveInterval(60_000, 1_000, 100_000, 100, 0.2, 0);
+
+        assertEquals(90_000, interval.update(PollOutcome.of(0, 0), 60_000));
+        assertEquals(100_000, interval.update(PollOutcome.of(0, 0), 90_000));
+    }
+
+    @Test
+    void testInterval_BacksOffOnDownstreamErrors() {
+        AdaptiveInterval interval = new AdaptiveInterval(10_000, 1_000, 600_000, 100, 0.2, 0);
+
+        // Half of the changes were rejected downstream, so poll less instead of more
+        assertEquals(20_000, interval.update(PollOutcome.of(1000, 500), 10_000));
+        assertEquals(40_000, interval.update(PollOutcome.failed(), 20_000));
+    }
+
+    @Test
+    void testInterval_SkippedOutcomeKeepsInterval() {
+        AdaptiveInterval interval = new AdaptiveInterval(30_000, 1_000, 600_000, 100, 0.2, 0);
+
+        assertEquals(30_000, interval.update(PollOutcome.skipped(), 30_000));
+    }
+
+    @Test
+    void testInterval_ClampsToMin() {
+        AdaptiveInterval interval = new AdaptiveInterval(30_000, 5_000, 600_000, 100, 0.2, 0);
+
+        assertEquals(5_000, interval.update(PollOutcome.of(100_000, 0), 30_000));
+    }
+
+    @Test
+    void testJitter_StaysWithinRatio() {
+        AdaptiveInterval interval = new AdaptiveInterval(10_000, 1_000, 600_000, 100, 0.2, 0.1);
+
+        for (int i = 0; i < 1000; i++) {
+            long delay = interval.withJitter(10_000);
+            assertTrue(delay >= 9_000 && delay <= 11_000, "delay out of range: " + delay);
+        }
+    }
+
+    @Test
+    @Timeout(10)
+    void testScheduler_SkipsTicksWhilePollIsRunning() throws Exception {
+        scheduler = new AdaptivePollingScheduler(2, 100, 0.2, 0);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger concurrent = new AtomicInteger();
+        AtomicInteger maxConcurrent = new AtomicInteger();
+
+        AdaptivePollingScheduler.PollingTask task = scheduler.register("slow", 20, 20, 20, () -> {
+            maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                concurrent.decrementAndGet();
+            }
+            return PollOutcome.of(1, 0);
+        });
+        scheduler.start();
+
+        while (task.getSkippedTicks() < 2) {
+            Thread.sleep(10);
+        }
+        release.countDown();
+        while (task.getRuns() < 3) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(1, maxConcurrent.get());
+        assertTrue(task.getSkippedTicks() >= 2);
+    }
+
+    @Test
+    @Timeout(10)
+    void testScheduler_PollExceptionCountsAsFailure() throws Exception {
+        scheduler = new AdaptivePollingScheduler(1, 100, 0.2, 0);
+        AdaptivePollingScheduler.PollingTask task = scheduler.register("failing", 10, 10, 40, () -> {
+            throw new IllegalStateException("UCS unavailable");
+        });
+        scheduler.start();
+
+        while (task.getRuns() < 2) {
+            Thread.sleep(5);
+        }
+
+        assertTrue(task.getLastOutcome().isFailed());
+        assertTrue(task.getCurrentIntervalMs() > 10);
+    }
+
+    @Test
+    void testRegister_RejectsDuplicateName() {
+        scheduler = new AdaptivePollingScheduler(1, 100, 0.2, 0);
+        scheduler.register("sync", 1_000, 1_000, 1_000, () -> PollOutcome.of(0, 0));
+
+        assertThrows(IllegalArgumentException.class,
+            () -> scheduler.register("sync", 1_000, 1_000, 1_000, () -> PollOutcome.of(0, 0)));
+    }
+}
@@ -0,0 +1,174 @@
+package com.smartbridge.core.sync;
+
+import com.smartbridge.core.client.PatientIdentifierIndex;
+import com.smartbridge.core.flow.IngestionFlowService;
+import com.smartbridge.core.flow.IngestionFlowService.IngestionFlowResult;
+import com.smartbridge.core.model.ucs.UCSClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for NdjsonImportService.
+ * Verifies line-aligned chunking, byte-offset resume and confinement to the import directory.
+ */
+class NdjsonImportServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path importDir;
+    private IngestionFlowService ingestionFlowService;
+    private Queue<String> imported;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        importDir = Files.createDirectories(tempDir.resolve("import"));
+        imported = new ConcurrentLinkedQueue<>();
+        ingestionFlowService = mock(IngestionFlowService.class);
+        when(ingestionFlowService.processIngestion(any())).thenAnswer(invocation -> {
+            UCSClient client = invocation.getArgument(0);
+            imported.add(client.getIdentifiers().getOpensrpId());
+            return result(true);
+        });
+    }
+
+    @Test
+    @Timeout(10)
+    void testImportFile_ImportsEveryLineAcrossChunks() throws Exception {
+        writeExport("clients.ndjson", 200);
+        // Small chunks force many line-aligned splits across four workers
+        NdjsonImportService service = new NdjsonImportService(ingestionFlowService, importDir.toString(), 4, 512, 10);
+
+        NdjsonImportService.NdjsonImportResult result = service.importFile("clients.ndjson", false, null);
+
+        assertTrue(result.isComplete());
+        assertEquals(200, result.getRecords());
+        assertEquals(200, result.getSucceeded());
+        assertEquals(expectedIds(200), imported.stream().sorted().collect(Collectors.toList()));
+    }
+
+    @Test
+    @Timeout(10)
+    void testImportFile_ResumesFromSavedOffset() throws Exception {
+        writeExport("clients.ndjson", 50);
+        NdjsonImportService service = new NdjsonImportService(ingestionFlowService, importDir.toString(), 1, 1 << 20, 1);
+        SyncJob job = new SyncJob("job-1", SyncJob.Type.IMPORT, "clients.ndjson");
+        job.markStarted();
+        when(ingestionFlowService.processIngestion(any())).thenAnswer(invocation -> {
+            UCSClient client = invocation.getArgument(0);
+            imported.add(client.getIdentifiers().getOpensrpId());
+            if (imported.size() == 20) {
+                job.cancel();
+            }
+            return result(true);
+        });
+
+        NdjsonImportService.NdjsonImportResult first = service.importFile("clients.ndjson", false, job);
+        assertFalse(first.isComplete());
+        assertEquals(20, first.getRecords());
+        assertEquals(first.getCommittedBytes(), job.getCursor());
+
+        NdjsonImportService.NdjsonImportResult second = service.importFile("clients.ndjson", false, null);
+
+        assertTrue(second.isComplete());
+        assertEquals(first.getCommittedBytes(), second.getResumedFromBytes());
+        assertEquals(30, second.getRecords());
+        assertEquals(expectedIds(50), imported.stream().sorted().collect(Collectors.toList()));
+    }
+
+    @Test
+    @Timeout(10)
+    void testImportFile_RestartIgnoresSavedProgress() throws Exception {
+        writeExport("clients.ndjson", 5);
+        NdjsonImportService service = new NdjsonImportService(ingestionFlowService, importDir.toString(), 2, 1 << 20, 1);
+
+        service.importFile("clients.ndjson", false, null);
+        NdjsonImportService.NdjsonImportResult again = service.importFile("clients.ndjson", false, null);
+        NdjsonImportService.NdjsonImportResult restarted = service.importFile("clients.ndjson", true, null);
+
+        assertEquals(0, again.getRecords());
+        assertEquals(5, restarted.getRecords());
+        verify(ingestionFlowService, times(10)).processIngestion(any());
+    }
+
+    @Test
+    @Timeout(10)
+    void testImportFile_SkipsMalformedAndBlankLines() throws Exception {
+        String content = "{\"baseEntityId\":\"a\",\"serverVersion\":1}\r\n"
+            + "\n"
+            + "{not json\n"
+            + "[1,2]\n"
+            + "{\"baseEntityId\":\"b\"}";
+        Files.writeString(importDir.resolve("mixed.ndjson"), content, StandardCharsets.UTF_8);
+        NdjsonImportService service = new NdjsonImportService(ingestionFlowService, importDir.toString(), 1, 1 << 20, 100);
+
+        NdjsonImportService.NdjsonImportResult result = service.importFile("mixed.ndjson", false, null);
+
+        assertTrue(result.isComplete());
+        assertEquals(2, result.getRecords());
+        assertEquals(2, result.getMalformed());
+        assertEquals(List.of("a", "b"), imported.stream().sorted().collect(Collectors.toList()));
+    }
+
+    @Test
+    void testImportFile_RejectsFilesOutsideImportDirectory() throws Exception {
+        Files.writeString(tempDir.resolve("secret.ndjson"), "{}\n");
+        NdjsonImportService service = new NdjsonImportService(ingestionFlowService, importDir.toString(), 1, 1 << 20, 100);
+
+        assertThrows(IllegalArgumentException.class, () -> service.importFile("../secret.ndjson", false, null));
+        assertThrows(IllegalArgumentException.class, () -> service.importFile(tempDir.resolve("secret.ndjson").toString(), false, null));
+        assertThrows(IllegalArgumentException.class, () -> service.importFile("missing.ndjson", false, null));
+        verifyNoInteractions(ingestionFlowService);
+    }
+
+    @Test
+    void testImportFile_WaitsForIdentifierIndex() throws Exception {
+        writeExport("clients.ndjson", 20);
+        PatientIdentifierIndex index = mock(PatientIdentifierIndex.class);
+        NdjsonImportService service = new NdjsonImportService(ingestionFlowService, importDir.toString(), 1, 1 << 20, 5);
+        ReflectionTestUtils.setField(service, "patientIdentifierIndex", index);
+
+        assertThrows(IllegalStateException.class, () -> service.importFile("clients.ndjson", false, null));
+        verifyNoInteractions(ingestionFlowService);
+
+        when(index.isReady()).thenReturn(true);
+        service.importFile("clients.ndjson", false, null);
+
+        // Every saved offset is preceded by a sync of the index entries it covers
+        verify(index, atLeast(4)).checkpoint();
+        assertEquals(20, imported.size());
+    }
+
+    private void writeExport(String fileName, int count) throws Exception {
+        String content = IntStream.range(0, count)
+            .mapToObj(i -> String.format("{\"baseEntityId\":\"client-%03d\",\"firstName\":\"Name %d\",\"serverVersion\":%d}", i, i, i))
+            .collect(Collectors.joining("\n", "", "\n"));
+        Files.writeString(importDir.resolve(fileName), content, StandardCharsets.UTF_8);
+    }
+
+    private List<String> expectedIds(int count) {
+        return IntStream.range(0, count).mapToObj(i -> String.format("client-%03d", i)).collect(Collectors.toList());
+    }
+
+    private IngestionFlowResult result(boolean success) {
+        IngestionFlowResult result = new IngestionFlowResult("tx");
+        result.setSuccess(success);
+        return result;
+    }
+}
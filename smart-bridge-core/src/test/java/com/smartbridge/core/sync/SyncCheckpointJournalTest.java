@@ -0,0 +1,120 @@
+package com.smartbridge.core.sync;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SyncCheckpointJournal.
+ * Verifies contiguous advancement across out-of-order page completion and durable persistence.
+ */
+class SyncCheckpointJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path checkpointFile;
+    private SyncCheckpointJournal journal;
+
+    @BeforeEach
+    void setUp() {
+        checkpointFile = tempDir.resolve("server-version.txt");
+        journal = new SyncCheckpointJournal(checkpointFile);
+    }
+
+    @Test
+    void testLoad_MissingFileStartsAtZero() {
+        assertEquals(0L, journal.load());
+    }
+
+    @Test
+    void testLoad_ReadsExistingCheckpoint() throws IOException {
+        Files.writeString(checkpointFile, "1234\n");
+
+        assertEquals(1234L, journal.load());
+        assertEquals(1234L, journal.getCommittedVersion());
+    }
+
+    @Test
+    void testRecordCompleted_AdvancesOnlyOverContiguousPages() throws IOException {
+        journal.begin(0L);
+        long first = journal.registerPage(100L, 2);
+        long second = journal.registerPage(200L, 1);
+        long third = journal.registerPage(300L, 1);
+
+        // Later pages finish first and must not move the checkpoint
+        journal.recordCompleted(third);
+        journal.recordCompleted(second);
+        assertEquals(0L, journal.getCommittedVersion());
+        assertFalse(Files.exists(checkpointFile));
+
+        journal.recordCompleted(first);
+        assertEquals(0L, journal.getCommittedVersion());
+
+        // Completing the head page releases all finished pages behind it
+        journal.recordCompleted(first);
+        assertEquals(300L, journal.getCommittedVersion());
+        assertEquals(0, journal.getPendingPageCount());
+        assertEquals("300", Files.readString(checkpointFile));
+    }
+
+    @Test
+    void testBeforePersist_RunsBeforeCheckpointIsWritten() throws IOException {
+        List<Boolean> fileExistedAtHook = new ArrayList<>();
+        journal.setBeforePersist(() -> fileExistedAtHook.add(Files.exists(checkpointFile)));
+        journal.begin(0L);
+        long page = journal.registerPage(100L, 1);
+
+        journal.recordCompleted(page);
+
+        assertEquals(List.of(false), fileExistedAtHook);
+        assertEquals("100", Files.readString(checkpointFile).trim());
+    }
+
+    @Test
+    void testRegisterPage_EmptyPageCompletesImmediately() throws IOException {
+        journal.begin(50L);
+        journal.registerPage(75L, 0);
+
+        assertEquals(75L, journal.getCommittedVersion());
+        assertEquals("75", Files.readString(checkpointFile));
+    }
+
+    @Test
+    void testBegin_BulkSyncRewindsStoredVersion() throws IOException {
+        Files.writeString(checkpointFile, "5000");
+        journal.load();
+
+        journal.begin(0L);
+        long page = journal.registerPage(1000L, 1);
+        journal.recordCompleted(page);
+
+        assertEquals("1000", Files.readString(checkpointFile));
+    }
+
+    @Test
+    void testPersist_LeavesNoTempFileAndSurvivesReload() {
+        journal.begin(0L);
+        long page = journal.registerPage(42L, 1);
+        journal.recordCompleted(page);
+
+        assertFalse(Files.exists(tempDir.resolve("server-version.txt.tmp")));
+        assertEquals(42L, new SyncCheckpointJournal(checkpointFile).load());
+    }
+
+    @Test
+    void testRecordCompleted_UnknownPageIgnored() {
+        journal.begin(10L);
+        journal.recordCompleted(99L);
+
+        assertEquals(10L, journal.getCommittedVersion());
+    }
+}
@@ -0,0 +1,183 @@
+package com.smartbridge.core.sync;
+
+import com.smartbridge.core.sync.SyncPipeline.SyncPipelineResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for SyncJobManager and SyncJob.
+ * Verifies background execution, duplicate rejection and the pause/resume/cancel lifecycle.
+ */
+class SyncJobManagerTest {
+
+    private BulkSyncService bulkSyncService;
+    private SyncJobManager manager;
+    private CountDownLatch started;
+    private CountDownLatch release;
+
+    @BeforeEach
+    void setUp() {
+        started = new CountDownLatch(1);
+        release = new CountDownLatch(1);
+        bulkSyncService = mock(BulkSyncService.class);
+        when(bulkSyncService.runJob(any())).thenAnswer(invocation -> {
+            SyncJob job = invocation.getArgument(0);
+            job.recordPage(100L, 10, 40L);
+            for (int i = 0; i < 10; i++) {
+                job.recordSucceeded();
+            }
+            started.countDown();
+            release.await();
+            return new SyncPipelineResult(1, 10, 10, 0, 0, 100L, 10L, null);
+        });
+        manager = new SyncJobManager(bulkSyncService, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        manager.shutdown();
+    }
+
+    @Test
+    @Timeout(10)
+    void testSubmit_RunsInBackgroundAndCompletes() throws Exception {
+        SyncJob job = manager.submit(SyncJob.Type.BULK);
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertEquals(SyncJob.State.RUNNING, job.getState());
+        assertSame(job, manager.getActiveJob());
+        assertEquals(40L, job.getTotal());
+        assertEquals(100L, job.getCursor());
+
+        release.countDown();
+        awaitTerminal(job);
+
+        assertEquals(SyncJob.State.COMPLETED, job.getState());
+        assertEquals(10, job.getProcessed());
+        assertNull(job.getEstimatedSecondsRemaining());
+        assertSame(job, manager.getJob(job.getId()));
+        assertNull(manager.getActiveJob());
+    }
+
+    @Test
+    @Timeout(10)
+    void testSubmit_RejectsConcurrentJob() throws Exception {
+        SyncJob running = manager.submit(SyncJob.Type.BULK);
+        started.await(5, TimeUnit.SECONDS);
+
+        SyncJobConflictException e = assertThrows(SyncJobConflictException.class,
+            () -> manager.submit(SyncJob.Type.INCREMENTAL));
+        assertEquals(running.getId(), e.getActiveJobId());
+    }
+
+    @Test
+    void testSubmit_RejectsWhileScheduledSyncRuns() {
+        when(bulkSyncService.isSyncRunning()).thenReturn(true);
+
+        SyncJobConflictException e = assertThrows(SyncJobConflictException.class,
+            () -> manager.submit(SyncJob.Type.BULK));
+        assertNull(e.getActiveJobId());
+        verify(bulkSyncService, never()).runJob(any());
+    }
+
+    @Test
+    void testSubmitImport_RejectedWhenImportNotAvailable() {
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+            () -> manager.submitImport("export.ndjson", false));
+        assertEquals("NDJSON import is not available", e.getMessage());
+        assertNull(manager.getActiveJob());
+    }
+
+    @Test
+    @Timeout(10)
+    void testRunJob_FailureMarksJobFailed() throws Exception {
+        when(bulkSyncService.runJob(any())).thenThrow(new IllegalStateException("Another sync is already running"));
+
+        SyncJob job = manager.submit(SyncJob.Type.INCREMENTAL);
+        awaitTerminal(job);
+
+        assertEquals(SyncJob.State.FAILED, job.getState());
+        assertEquals("Another sync is already running", job.getError());
+    }
+
+    @Test
+    @Timeout(10)
+    void testCancel_RunningJobEndsCancelled() throws Exception {
+        SyncJob job = manager.submit(SyncJob.Type.BULK);
+        started.await(5, TimeUnit.SECONDS);
+
+        assertTrue(job.cancel());
+        assertEquals(SyncJob.State.CANCELLING, job.getState());
+        assertFalse(job.awaitRunnable());
+        release.countDown();
+        awaitTerminal(job);
+
+        assertEquals(SyncJob.State.CANCELLED, job.getState());
+        assertFalse(job.cancel());
+    }
+
+    @Test
+    void testPauseResume_OnlyValidTransitions() {
+        SyncJob job = new SyncJob("job-1", SyncJob.Type.BULK);
+
+        assertFalse(job.pause());
+        job.markStarted();
+        assertFalse(job.resume());
+        assertTrue(job.pause());
+        assertEquals(SyncJob.State.PAUSED, job.getState());
+        assertFalse(job.pause());
+        assertTrue(job.resume());
+        assertTrue(job.awaitRunnable());
+    }
+
+    @Test
+    void testEstimatedSecondsRemaining_UnknownWithoutTotal() {
+        SyncJob job = new SyncJob("job-1", SyncJob.Type.INCREMENTAL);
+        job.markStarted();
+        job.recordPage(10L, 5, null);
+        job.recordSucceeded();
+
+        assertNull(job.getTotal());
+        assertNull(job.getEstimatedSecondsRemaining());
+    }
+
+    @Test
+    @Timeout(10)
+    void testFinishedJobsAreEvictedBeyondRetention() throws Exception {
+        release.countDown();
+        SyncJob first = manager.submit(SyncJob.Type.INCREMENTAL);
+        awaitTerminal(first);
+        awaitIdle();
+        SyncJob second = manager.submit(SyncJob.Type.INCREMENTAL);
+        awaitTerminal(second);
+        awaitIdle();
+        SyncJob third = manager.submit(SyncJob.Type.INCREMENTAL);
+        awaitTerminal(third);
+        awaitIdle();
+
+        assertNull(manager.getJob(first.getId()));
+        assertEquals(2, manager.getJobs().size());
+    }
+
+    private void awaitTerminal(SyncJob job) throws InterruptedException {
+        while (!job.getState().isTerminal()) {
+            Thread.sleep(10);
+        }
+    }
+
+    private void awaitIdle() throws InterruptedException {
+        while (manager.getActiveJob() != null) {
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.smartbridge.core.sync;
+
+import com.smartbridge.core.flow.IngestionFlowService;
+import com.smartbridge.core.flow.IngestionFlowService.IngestionFlowResult;
+import com.smartbridge.core.flow.IngestionFlowService.PreparedIngestion;
+import com.smartbridge.core.model.ucs.UCSClient;
+import com.smartbridge.core.sync.UCSClientPageReader.UCSClientPage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for SyncPipeline.
+ * Verifies that all fetched clients flow through transform and store, that the
+ * bounded queues throttle the fetcher, and that fetch failures drain cleanly.
+ */
+class SyncPipelineTest {
+
+    @TempDir
+    Path tempDir;
+
+    private IngestionFlowService ingestionFlowService;
+    private SyncCheckpointJournal journal;
+    private PreparedIngestion preparedOk;
+    private PreparedIngestion preparedFailed;
+
+    @BeforeEach
+    void setUp() {
+        preparedOk = mock(PreparedIngestion.class);
+        preparedFailed = mock(PreparedIngestion.class);
+        when(preparedFailed.isFailed()).thenReturn(true);
+
+        journal = new SyncCheckpointJournal(tempDir.resolve("server-version.txt"));
+        ingestionFlowService = mock(IngestionFlowService.class);
+        when(ingestionFlowService.prepareIngestion(any())).thenAnswer(invocation -> prepared(false));
+        when(ingestionFlowService.completeIngestion(any())).thenAnswer(invocation -> result(true));
+    }
+
+    @Test
+    @Timeout(10)
+    void testRun_ProcessesAllPages() {
+        SyncPipeline pipeline = new SyncPipeline(ingestionFlowService, 2, 3, 4);
+        List<UCSClientPage> pages = List.of(page(10, 100), page(10, 200), page(3, 250));
+
+        SyncPipeline.SyncPipelineResult result = pipeline.run(pagesFrom(pages), journal, 0L, 10);
+
+        assertTrue(result.isFetchCompleted());
+        assertEquals(3, result.getPages());
+        assertEquals(23, result.getFetched());
+        assertEquals(23, result.getSucceeded());
+        assertEquals(0, result.getFailed());
+        assertEquals(250L, result.getCheckpointVersion());
+        verify(ingestionFlowService, times(23)).prepareIngestion(any());
+        verify(ingestionFlowService, times(23)).completeIngestion(any());
+    }
+
+    @Test
+    @Timeout(10)
+    void testRun_FailedPreparationSkipsStoreQueue() {
+        when(ingestionFlowService.prepareIngestion(any())).thenAnswer(invocation -> prepared(true));
+        when(ingestionFlowService.completeIngestion(any())).thenAnswer(invocation -> result(false));
+        SyncPipeline pipeline = new SyncPipeline(ingestionFlowService, 1, 1, 2);
+
+        SyncPipeline.SyncPipelineResult result = pipeline.run(pagesFrom(List.of(page(5, 10))), journal, 0L, 10);
+
+        assertEquals(5, result.getFetched());
+        assertEquals(0, result.getSucceeded());
+        assertEquals(5, result.getFailed());
+    }
+
+    @Test
+    @Timeout(10)
+    void testRun_SlowStoreThrottlesFetcher() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger prepares = new AtomicInteger();
+        when(ingestionFlowService.prepareIngestion(any())).thenAnswer(invocation -> {
+            prepares.incrementAndGet();
+            return prepared(false);
+        });
+        when(ingestionFlowService.completeIngestion(any())).thenAnswer(invocation -> {
+            release.await();
+            return result(true);
+        });
+
+        SyncPipeline pipeline = new SyncPipeline(ingestionFlowService, 1, 1, 2);
+        CompletableFuture<SyncPipeline.SyncPipelineResult> run = CompletableFuture.supplyAsync(
+            () -> pipeline.run(pagesFrom(List.of(page(50, 10))), journal, 0L, 100));
+
+        Thread.sleep(500);
+        // One client held by the store worker, two queued for store, one held by the transform worker
+        assertTrue(prepares.get() <= 4, "transform stage ran ahead of the store stage: " + prepares.get());
+        assertFalse(run.isDone());
+
+        release.countDown();
+        SyncPipeline.SyncPipelineResult result = run.get(5, TimeUnit.SECONDS);
+        assertEquals(50, result.getSucceeded());
+    }
+
+    @Test
+    @Timeout(10)
+    void testRun_NonBlockingStoreKeepsWritesInFlight() throws Exception {
+        List<CompletableFuture<IngestionFlowResult>> writes = new CopyOnWriteArrayList<>();
+        when(ingestionFlowService.hasNonBlockingCreate()).thenReturn(true);
+        when(ingestionFlowService.completeIngestionAsync(any())).thenAnswer(invocation -> {
+            CompletableFuture<IngestionFlowResult> write = new CompletableFuture<>();
+            writes.add(write);
+            return write;
+        });
+
+        SyncPipeline pipeline = new SyncPipeline(ingestionFlowService, 1, 1, 4);
+        CompletableFuture<SyncPipeline.SyncPipelineResult> run = CompletableFuture.supplyAsync(
+            () -> pipeline.run(pagesFrom(List.of(page(10, 100))), journal, 0L, 100));
+
+        // A single store worker starts as many writes as the queue capacity allows
+        while (writes.size() < 4) {
+            Thread.sleep(5);
+        }
+        Thread.sleep(100);
+        assertEquals(4, writes.size());
+        assertFalse(run.isDone());
+
+        for (int completed = 0; completed < 10; completed++) {
+            while (writes.size() <= completed) {
+                Thread.sleep(5);
+            }
+            writes.get(completed).complete(result(true));
+        }
+        SyncPipeline.SyncPipelineResult result = run.get(5, TimeUnit.SECONDS);
+        assertEquals(10, result.getSucceeded());
+        assertEquals(100L, result.getCheckpointVersion());
+        verify(ingestionFlowService, never()).completeIngestion(any());
+    }
+
+    @Test
+    @Timeout(10)
+    void testRun_FetchFailureDrainsAndKeepsCompletedCheckpoint() throws Exception {
+        SyncPipeline pipeline = new SyncPipeline(ingestionFlowService, 2, 2, 4);
+        AtomicInteger calls = new AtomicInteger();
+        SyncPipeline.PageFetcher fetcher = serverVersion -> {
+            if (calls.getAndIncrement() == 0) {
+                return page(10, 100);
+            }
+            throw new IllegalStateException("UCS unavailable");
+        };
+
+        SyncPipeline.SyncPipelineResult result = pipeline.run(fetcher, journal, 0L, 10);
+
+        assertFalse(result.isFetchCompleted());
+        assertEquals(10, result.getSucceeded());
+        assertEquals(100L, result.getCheckpointVersion());
+        assertEquals("100", Files.readString(tempDir.resolve("server-version.txt")));
+    }
+
+    @Test
+    @Timeout(10)
+    void testRun_ReportsProgressToJob() {
+        SyncPipeline pipeline = new SyncPipeline(ingestionFlowService, 2, 2, 4);
+        SyncJob job = new SyncJob("job-1", SyncJob.Type.BULK);
+        job.markStarted();
+        UCSClientPage first = page(10, 100);
+        List<UCSClientPage> pages = List.of(
+            new UCSClientPage(first.getClients(), first.getMaxServerVersion(), 13L), page(3, 150));
+
+        pipeline.run(pagesFrom(pages), journal, 0L, 10, job);
+
+        assertEquals(13, job.getFetched());
+        assertEquals(13, job.getSucceeded());
+        assertEquals(2, job.getPages());
+        assertEquals(13L, job.getTotal());
+        assertEquals(150L, job.getCursor());
+        assertEquals(150L, job.getCheckpointVersion());
+    }
+
+    @Test
+    @Timeout(10)
+    void testRun_CancelledJobStopsFetching() {
+        SyncJob job = new SyncJob("job-1", SyncJob.Type.BULK);
+        job.markStarted();
+        when(ingestionFlowService.completeIngestion(any())).thenAnswer(invocation -> {
+            job.cancel();
+            return result(true);
+        });
+        SyncPipeline pipeline = new SyncPipeline(ingestionFlowService, 1, 1, 2);
+        // An endless UCS: only the cancel request can end this run
+        SyncPipeline.PageFetcher fetcher = serverVersion -> page(10, serverVersion + 10);
+
+        SyncPipeline.SyncPipelineResult result = pipeline.run(fetcher, journal, 0L, 10, job);
+
+        assertTrue(result.isFetchCompleted());
+        assertTrue(result.getFetched() < 100, "fetched " + result.getFetched());
+        assertTrue(result.getCheckpointVersion() < 10L, "a page was committed without all its clients");
+    }
+
+    @Test
+    @Timeout(10)
+    void testRun_PausedJobHoldsWorkUntilResumed() throws Exception {
+        SyncJob job = new SyncJob("job-1", SyncJob.Type.BULK);
+        job.markStarted();
+        job.pause();
+        SyncPipeline pipeline = new SyncPipeline(ingestionFlowService, 1, 1, 2);
+
+        CompletableFuture<SyncPipeline.SyncPipelineResult> run = CompletableFuture.supplyAsync(
+            () -> pipeline.run(pagesFrom(List.of(page(5, 10))), journal, 0L, 10, job));
+
+        Thread.sleep(300);
+        assertFalse(run.isDone());
+        verify(ingestionFlowService, never()).prepareIngestion(any());
+
+        job.resume();
+        assertEquals(5, run.get(5, TimeUnit.SECONDS).getSucceeded());
+    }
+
+    @Test
+    void testConstructor_RejectsInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new SyncPipeline(ingestionFlowService, 0, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new SyncPipeline(ingestionFlowService, 1, 1, 0));
+    }
+
+    private SyncPipeline.PageFetcher pagesFrom(List<UCSClientPage> pages) {
+        AtomicInteger index = new AtomicInteger();
+        return serverVersion -> index.get() < pages.size()
+            ? pages.get(index.getAndIncrement())
+            : new UCSClientPage(List.of(), serverVersion, null);
+    }
+
+    private UCSClientPage page(int size, long maxServerVersion) {
+        List<UCSClient> clients = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            UCSClient client = new UCSClient();
+            UCSClient.UCSIdentifiers identifiers = new UCSClient.UCSIdentifiers();
+            identifiers.setOpensrpId("client-" + maxServerVersion + "-" + i);
+            client.setIdentifiers(identifiers);
+            clients.add(client);
+        }
+        return new UCSClientPage(clients, maxServerVersion, null);
+    }
+
+    private PreparedIngestion prepared(boolean failed) {
+        return failed ? preparedFailed : preparedOk;
+    }
+
+    private IngestionFlowResult result(boolean success) {
+        IngestionFlowResult result = new IngestionFlowResult("tx");
+        result.setSuccess(success);
+        return result;
+    }
+}
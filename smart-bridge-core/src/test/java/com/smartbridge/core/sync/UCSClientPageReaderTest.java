@@ -0,0 +1,88 @@
+package com.smartbridge.core.sync;
+
+import com.smartbridge.core.model.ucs.UCSClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for UCSClientPageReader.
+ * Verifies streaming parsing of UCS getAll responses into UCSClient objects.
+ */
+class UCSClientPageReaderTest {
+
+    private UCSClientPageReader reader;
+
+    @BeforeEach
+    void setUp() {
+        reader = new UCSClientPageReader();
+    }
+
+    @Test
+    void testReadPage_ClientsObject() throws IOException {
+        String json = "{\"clients\":[" +
+            "{\"baseEntityId\":\"c-1\",\"firstName\":\"Amina\",\"lastName\":\"Juma\",\"gender\":\"F\",\"serverVersion\":15}," +
+            "{\"baseEntityId\":\"c-2\",\"firstName\":\"Baraka\",\"lastName\":\"Mushi\",\"gender\":\"M\",\"serverVersion\":\"27\"}" +
+            "],\"total\":2}";
+
+        UCSClientPageReader.UCSClientPage page = reader.readPage(stream(json), 10L);
+
+        assertEquals(2, page.size());
+        assertEquals(27L, page.getMaxServerVersion());
+        assertEquals(2L, page.getTotal());
+
+        UCSClient first = page.getClients().get(0);
+        assertEquals("c-1", first.getIdentifiers().getOpensrpId());
+        assertEquals("Amina", first.getDemographics().getFirstName());
+        assertEquals("Juma", first.getDemographics().getLastName());
+        assertEquals("F", first.getDemographics().getGender());
+    }
+
+    @Test
+    void testReadPage_BareArray() throws IOException {
+        String json = "[{\"baseEntityId\":\"c-1\",\"serverVersion\":3}]";
+
+        UCSClientPageReader.UCSClientPage page = reader.readPage(stream(json), 0L);
+
+        assertEquals(1, page.size());
+        assertEquals(3L, page.getMaxServerVersion());
+        assertNull(page.getTotal());
+    }
+
+    @Test
+    void testReadPage_SkipsUnmappedNestedFields() throws IOException {
+        String json = "{\"meta\":{\"a\":[1,2,{\"b\":null}]},\"clients\":[" +
+            "{\"baseEntityId\":\"c-1\",\"attributes\":{\"x\":\"y\"},\"addresses\":[{\"district\":\"D\"}]," +
+            "\"firstName\":null,\"serverVersion\":8}]}";
+
+        UCSClientPageReader.UCSClientPage page = reader.readPage(stream(json), 0L);
+
+        assertEquals(1, page.size());
+        assertEquals("c-1", page.getClients().get(0).getIdentifiers().getOpensrpId());
+        assertNull(page.getClients().get(0).getDemographics().getFirstName());
+        assertEquals(8L, page.getMaxServerVersion());
+    }
+
+    @Test
+    void testReadPage_EmptyResponseKeepsCursor() throws IOException {
+        UCSClientPageReader.UCSClientPage page = reader.readPage(stream("{\"clients\":[]}"), 42L);
+
+        assertTrue(page.isEmpty());
+        assertEquals(42L, page.getMaxServerVersion());
+    }
+
+    @Test
+    void testReadPage_InvalidJson() {
+        assertThrows(IOException.class, () -> reader.readPage(stream("{\"clients\":[{"), 0L));
+    }
+
+    private InputStream stream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
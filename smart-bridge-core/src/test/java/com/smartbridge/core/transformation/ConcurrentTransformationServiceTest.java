@@ -14,8 +14,13 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -59,6 +64,151 @@ class ConcurrentTransformationServiceTest {
         verifyNoInteractions(ucsToFHIRTransformer);
     }
 
+    @Test
+    void testTransformUCSToFHIRBatch_ResultsInInputOrder() throws Exception {
+        // Arrange
+        when(ucsToFHIRTransformer.transformUCSToFHIR(any())).thenAnswer(invocation -> {
+            UCSClient client = invocation.getArgument(0);
+            String id = client.getIdentifiers().getOpensrpId();
+            if (id.endsWith("7")) {
+                throw new TransformationException("Invalid client " + id);
+            }
+            return FHIRResourceWrapper.forPatient(new Patient(), "UCS", id);
+        });
+        List<UCSClient> clients = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            clients.add(client("OSR-" + i));
+        }
+
+        // Act
+        List<ConcurrentTransformationService.TransformationResult<FHIRResourceWrapper<? extends Resource>>> results =
+            service.transformUCSToFHIRBatch(clients);
+
+        // Assert
+        assertEquals(1000, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            ConcurrentTransformationService.TransformationResult<FHIRResourceWrapper<? extends Resource>> result =
+                results.get(i);
+            assertEquals(i, result.getIndex());
+            assertFalse(result.isTimeout());
+            if (i % 10 == 7) {
+                assertFalse(result.isSuccess());
+                assertEquals("Invalid client OSR-" + i, result.getError().getMessage());
+            } else {
+                assertEquals("OSR-" + i, result.getResult().getOriginalId());
+            }
+        }
+        verify(ucsToFHIRTransformer, times(1000)).transformUCSToFHIR(any());
+    }
+
+    @Test
+    void testTransformUCSToFHIRBatch_UnexpectedErrorIsItemFailure() throws Exception {
+        // Arrange
+        when(ucsToFHIRTransformer.transformUCSToFHIR(any())).thenThrow(new IllegalStateException("boom"));
+
+        // Act
+        List<ConcurrentTransformationService.TransformationResult<FHIRResourceWrapper<? extends Resource>>> results =
+            service.transformUCSToFHIRBatch(List.of(client("OSR-1"), client("OSR-2")));
+
+        // Assert
+        assertEquals(2, results.size());
+        assertTrue(results.stream().noneMatch(ConcurrentTransformationService.TransformationResult::isSuccess));
+        assertTrue(results.get(0).getError().getCause() instanceof IllegalStateException);
+    }
+
+    @Test
+    void testTransformUCSToFHIRBatch_TimeoutCancelsRemainingItems() throws Exception {
+        // Arrange
+        ConcurrentTransformationService batchService =
+            new ConcurrentTransformationService(ucsToFHIRTransformer, fhirToUCSTransformer, executor, 2);
+        AtomicInteger started = new AtomicInteger();
+        when(ucsToFHIRTransformer.transformUCSToFHIR(any())).thenAnswer(invocation -> {
+            started.incrementAndGet();
+            Thread.sleep(50);
+            return FHIRResourceWrapper.forPatient(new Patient(), "UCS", "OSR");
+        });
+        List<UCSClient> clients = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            clients.add(client("OSR-" + i));
+        }
+
+        try {
+            // Act
+            List<ConcurrentTransformationService.TransformationResult<FHIRResourceWrapper<? extends Resource>>> results =
+                batchService.transformUCSToFHIRBatch(clients, 1);
+            Thread.sleep(200);
+            int startedAfterCancel = started.get();
+            Thread.sleep(300);
+
+            // Assert
+            assertEquals(200, results.size());
+            assertTrue(results.stream().anyMatch(ConcurrentTransformationService.TransformationResult::isTimeout));
+            assertTrue(startedAfterCancel < 200);
+            assertEquals(startedAfterCancel, started.get(), "transformations kept starting after the timeout");
+        } finally {
+            batchService.shutdown();
+        }
+    }
+
+    @Test
+    void testTransformUCSToFHIRStreaming_PublishesEveryResult() throws Exception {
+        // Arrange
+        when(ucsToFHIRTransformer.transformUCSToFHIR(any())).thenAnswer(invocation -> {
+            UCSClient client = invocation.getArgument(0);
+            return FHIRResourceWrapper.forPatient(new Patient(), "UCS", client.getIdentifiers().getOpensrpId());
+        });
+        List<ConcurrentTransformationService.TransformationResult<FHIRResourceWrapper<? extends Resource>>> results =
+            new ArrayList<>();
+        CountDownLatch completed = new CountDownLatch(1);
+
+        // Act
+        service.transformUCSToFHIRStreaming(IntStream.range(0, 500).mapToObj(i -> client("OSR-" + i)))
+            .subscribe(new Flow.Subscriber<>() {
+                private Flow.Subscription subscription;
+
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    this.subscription = subscription;
+                    subscription.request(1);
+                }
+
+                @Override
+                public void onNext(ConcurrentTransformationService.TransformationResult<FHIRResourceWrapper<? extends Resource>> item) {
+                    results.add(item);
+                    subscription.request(1);
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    fail(throwable);
+                }
+
+                @Override
+                public void onComplete() {
+                    completed.countDown();
+                }
+            });
+
+        // Assert
+        assertTrue(completed.await(10, TimeUnit.SECONDS));
+        assertEquals(500, results.size());
+        for (ConcurrentTransformationService.TransformationResult<FHIRResourceWrapper<? extends Resource>> result : results) {
+            assertTrue(result.isSuccess());
+            assertEquals("OSR-" + result.getIndex(), result.getResult().getOriginalId());
+        }
+    }
+
+    @Test
+    void testTransformFHIRToUCSBatch_EmptyList() {
+        // Act
+        List<ConcurrentTransformationService.TransformationResult<UCSClient>> results =
+            service.transformFHIRToUCSBatch(new ArrayList<>());
+
+        // Assert
+        assertTrue(results.isEmpty());
+        verifyNoInteractions(fhirToUCSTransformer);
+    }
+
     @Test
     void testTransformationResult_Success() {
         // Arrange
@@ -106,4 +256,10 @@ class ConcurrentTransformationServiceTest {
         assertNotNull(result.getError());
         assertEquals(2, result.getIndex());
     }
+
+    private static UCSClient client(String opensrpId) {
+        UCSClient client = new UCSClient();
+        client.setIdentifiers(new UCSClient.UCSIdentifiers(opensrpId, null));
+        return client;
+    }
 }
@@ -0,0 +1,128 @@
+package com.smartbridge.core.validation;
+
+import org.hl7.fhir.r4.model.Enumerations.AdministrativeGender;
+import org.hl7.fhir.r4.model.Observation;
+import org.hl7.fhir.r4.model.Patient;
+import org.hl7.fhir.r4.model.Resource;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for TieredFHIRValidator.
+ * Verifies structural rejection, shape caching, sampling and mapping version handling.
+ */
+class TieredFHIRValidatorTest {
+
+    private final FHIRValidator fullValidator = mock(FHIRValidator.class);
+
+    @Test
+    void testValidate_SameShapeSkipsFullValidation() {
+        when(fullValidator.validate(any(Resource.class))).thenReturn(FHIRValidator.FHIRValidationResult.valid());
+        TieredFHIRValidator validator = new TieredFHIRValidator(fullValidator, 0, 100);
+
+        assertTrue(validator.validate(patient("OPENSRP-1", "John", "male", 1990), "v1").isValid());
+        assertTrue(validator.validate(patient("OPENSRP-2", "Jane", "male", 1985), "v1").isValid());
+        assertTrue(validator.validate(patient("OPENSRP-3", "Juma", "male", 2001), "v1").isValid());
+
+        verify(fullValidator, times(1)).validate(any(Resource.class));
+        assertEquals(2, validator.getCacheHits());
+        assertEquals(1, validator.getCachedShapeCount());
+    }
+
+    @Test
+    void testValidate_DifferentShapeRunsFullValidation() {
+        when(fullValidator.validate(any(Resource.class))).thenReturn(FHIRValidator.FHIRValidationResult.valid());
+        TieredFHIRValidator validator = new TieredFHIRValidator(fullValidator, 0, 100);
+
+        validator.validate(patient("OPENSRP-1", "John", "male", 1990), "v1");
+        validator.validate(patient("OPENSRP-2", "Jane", "female", 1990), "v1");
+        Patient withoutBirthDate = patient("OPENSRP-3", "John", "male", 1990);
+        withoutBirthDate.setBirthDate(null);
+        validator.validate(withoutBirthDate, "v1");
+
+        verify(fullValidator, times(3)).validate(any(Resource.class));
+        assertEquals(3, validator.getCachedShapeCount());
+    }
+
+    @Test
+    void testValidate_NewMappingVersionRevalidates() {
+        when(fullValidator.validate(any(Resource.class))).thenReturn(FHIRValidator.FHIRValidationResult.valid());
+        TieredFHIRValidator validator = new TieredFHIRValidator(fullValidator, 0, 100);
+
+        validator.validate(patient("OPENSRP-1", "John", "male", 1990), "v1");
+        validator.validate(patient("OPENSRP-1", "John", "male", 1990), "v2");
+
+        verify(fullValidator, times(2)).validate(any(Resource.class));
+    }
+
+    @Test
+    void testValidate_InvalidResultIsNotCached() {
+        when(fullValidator.validate(any(Resource.class)))
+            .thenReturn(FHIRValidator.FHIRValidationResult.invalid("ERROR: bad"));
+        TieredFHIRValidator validator = new TieredFHIRValidator(fullValidator, 0, 100);
+
+        assertFalse(validator.validate(patient("OPENSRP-1", "John", "male", 1990), "v1").isValid());
+        assertFalse(validator.validate(patient("OPENSRP-2", "Jane", "male", 1990), "v1").isValid());
+
+        verify(fullValidator, times(2)).validate(any(Resource.class));
+        assertEquals(0, validator.getCachedShapeCount());
+    }
+
+    @Test
+    void testValidate_FullSampleRateAlwaysValidates() {
+        when(fullValidator.validate(any(Resource.class))).thenReturn(FHIRValidator.FHIRValidationResult.valid());
+        TieredFHIRValidator validator = new TieredFHIRValidator(fullValidator, 1, 100);
+
+        for (int i = 0; i < 5; i++) {
+            validator.validate(patient("OPENSRP-" + i, "John", "male", 1990), "v1");
+        }
+
+        verify(fullValidator, times(5)).validate(any(Resource.class));
+        assertEquals(0, validator.getCacheHits());
+    }
+
+    @Test
+    void testValidate_StructuralFailureSkipsFullValidation() {
+        TieredFHIRValidator validator = new TieredFHIRValidator(fullValidator, 0, 100);
+        Patient patient = patient("OPENSRP-1", "John", "male", 1990);
+        patient.addIdentifier().setSystem("http://moh.go.tz/identifier/national-id");
+
+        FHIRValidator.FHIRValidationResult result = validator.validate(patient, "v1");
+
+        assertFalse(result.isValid());
+        assertTrue(result.getErrorMessage().contains("Patient.identifier must have a value"));
+        assertFalse(validator.validate(new Observation()).isValid());
+        assertFalse(validator.validate(null).isValid());
+        verifyNoInteractions(fullValidator);
+        assertEquals(3, validator.getStructuralRejections());
+    }
+
+    @Test
+    void testValidate_CacheResetsAtMaximumSize() {
+        when(fullValidator.validate(any(Resource.class))).thenReturn(FHIRValidator.FHIRValidationResult.valid());
+        TieredFHIRValidator validator = new TieredFHIRValidator(fullValidator, 0, 2);
+
+        validator.validate(patient("OPENSRP-1", "John", "male", 1990), "v1");
+        validator.validate(patient("OPENSRP-1", "John", "female", 1990), "v1");
+        validator.validate(patient("OPENSRP-1", "John", "other", 1990), "v1");
+
+        assertEquals(1, validator.getCachedShapeCount());
+    }
+
+    private static Patient patient(String opensrpId, String given, String gender, int birthYear) {
+        Patient patient = new Patient();
+        patient.addIdentifier().setSystem("http://moh.go.tz/identifier/opensrp-id").setValue(opensrpId);
+        patient.addName().addGiven(given).setFamily("Doe");
+        patient.setGender(AdministrativeGender.fromCode(gender));
+        patient.setBirthDate(Date.from(LocalDate.of(birthYear, 1, 15).atStartOfDay(ZoneId.systemDefault()).toInstant()));
+        patient.addAddress().setDistrict("Dodoma").setCity("Makole");
+        return patient;
+    }
+}
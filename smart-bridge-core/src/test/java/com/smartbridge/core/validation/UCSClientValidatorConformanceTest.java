@@ -0,0 +1,200 @@
+package com.smartbridge.core.validation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartbridge.core.model.ucs.UCSClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Conformance tests of the compiled UCS Client validator against the networknt schema path.
+ * Both must accept and reject the same clients with the same error messages.
+ */
+class UCSClientValidatorConformanceTest {
+
+    private UCSClientValidator validator;
+
+    @BeforeEach
+    void setUp() {
+        validator = new UCSClientValidator();
+    }
+
+    @Test
+    void testValidClient_BothPathsAccept() {
+        assertConforms(validClient());
+    }
+
+    @Test
+    void testSingleMutations_SameMessages() {
+        for (Consumer<UCSClient> mutation : mutations()) {
+            UCSClient client = validClient();
+            mutation.accept(client);
+            assertConforms(client);
+        }
+    }
+
+    @Test
+    void testCombinedViolations_SameMessages() {
+        List<Consumer<UCSClient>> mutations = mutations();
+        Random random = new Random(42);
+        for (int run = 0; run < 500; run++) {
+            UCSClient client = validClient();
+            int count = 1 + random.nextInt(4);
+            for (int i = 0; i < count; i++) {
+                mutations.get(random.nextInt(mutations.size())).accept(client);
+            }
+            assertConforms(client);
+        }
+    }
+
+    @Test
+    void testEmptyClient_SameMessages() {
+        assertConforms(new UCSClient());
+    }
+
+    @Test
+    void testValidClient_DoesNotAllocate() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+
+        UCSClient client = validClient();
+        CompiledUCSClientValidator compiled = CompiledUCSClientValidator.compile(schemaNode(), UCSClient.class);
+        for (int i = 0; i < 20_000; i++) {
+            assertNull(compiled.validate(client));
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 20_000; i++) {
+            compiled.validate(client);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        // A few hundred bytes of measurement noise, against kilobytes per record for the JSON path
+        assertTrue(allocated < 4096, "Allocated " + allocated + " bytes");
+    }
+
+    @Test
+    void testUnsupportedKeyword_NotCompiled() throws Exception {
+        String schema = "{\"type\": \"object\", \"properties\": {\"identifiers\": {\"type\": \"object\", \"maxProperties\": 2}}}";
+
+        assertThrows(IllegalArgumentException.class, () -> CompiledUCSClientValidator.compile(
+            new ObjectMapper().readTree(schema), UCSClient.class));
+    }
+
+    private void assertConforms(UCSClient client) {
+        UCSClientValidator.ValidationResult compiled = validator.validate(client);
+        UCSClientValidator.ValidationResult schema = validator.validateWithSchema(client);
+
+        assertEquals(schema.isValid(), compiled.isValid(), () -> "Schema path: " + schema.getErrorMessage()
+            + ", compiled path: " + compiled.getErrorMessage());
+        assertEquals(messages(schema), messages(compiled));
+    }
+
+    private static Set<String> messages(UCSClientValidator.ValidationResult result) {
+        // Both paths report a set of messages; only the order may differ
+        return result.getErrorMessage() == null ? Set.of()
+            : new TreeSet<>(Arrays.asList(result.getErrorMessage().split("; ")));
+    }
+
+    private static JsonNode schemaNode() {
+        try (InputStream in = UCSClientValidator.class.getResourceAsStream("/schemas/ucs-client-schema.json")) {
+            return new ObjectMapper().readTree(in);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static List<Consumer<UCSClient>> mutations() {
+        List<Consumer<UCSClient>> mutations = new ArrayList<>();
+        mutations.add(client -> client.setIdentifiers(null));
+        mutations.add(client -> client.setDemographics(null));
+        mutations.add(client -> client.setMetadata(null));
+        mutations.add(client -> client.setClinicalData(null));
+        mutations.add(client -> identifiers(client).setOpensrpId(null));
+        mutations.add(client -> identifiers(client).setOpensrpId(""));
+        mutations.add(client -> identifiers(client).setNationalId(null));
+        mutations.add(client -> demographics(client).setFirstName(""));
+        mutations.add(client -> demographics(client).setLastName(null));
+        mutations.add(client -> demographics(client).setGender(null));
+        mutations.add(client -> demographics(client).setGender("X"));
+        mutations.add(client -> demographics(client).setGender("m"));
+        mutations.add(client -> demographics(client).setBirthDate(null));
+        mutations.add(client -> demographics(client).setBirthDate(LocalDate.of(12024, 1, 1)));
+        mutations.add(client -> demographics(client).setAddress(null));
+        mutations.add(client -> address(client).setWard(null));
+        mutations.add(client -> clinicalData(client).setMedications(null));
+        mutations.add(client -> clinicalData(client).getObservations().add("not an object"));
+        mutations.add(client -> clinicalData(client).getProcedures().add(42));
+        mutations.add(client -> metadata(client).setSource(""));
+        mutations.add(client -> metadata(client).setSource(null));
+        mutations.add(client -> metadata(client).setCreatedAt(null));
+        mutations.add(client -> metadata(client).setUpdatedAt(LocalDateTime.of(2024, 1, 15, 10, 0)));
+        mutations.add(client -> metadata(client).setUpdatedAt(LocalDateTime.of(-5, 1, 15, 10, 0)));
+        return mutations;
+    }
+
+    private static UCSClient.UCSIdentifiers identifiers(UCSClient client) {
+        if (client.getIdentifiers() == null) {
+            client.setIdentifiers(new UCSClient.UCSIdentifiers("OSR-12345", null));
+        }
+        return client.getIdentifiers();
+    }
+
+    private static UCSClient.UCSDemographics demographics(UCSClient client) {
+        if (client.getDemographics() == null) {
+            client.setDemographics(new UCSClient.UCSDemographics("John", "Doe", "M", LocalDate.of(1990, 5, 15), null));
+        }
+        return client.getDemographics();
+    }
+
+    private static UCSClient.UCSAddress address(UCSClient client) {
+        if (demographics(client).getAddress() == null) {
+            demographics(client).setAddress(new UCSClient.UCSAddress("Dar es Salaam", "Kinondoni", "Mwenge"));
+        }
+        return demographics(client).getAddress();
+    }
+
+    private static UCSClient.UCSClinicalData clinicalData(UCSClient client) {
+        if (client.getClinicalData() == null || client.getClinicalData().getObservations() == null
+                || client.getClinicalData().getProcedures() == null) {
+            client.setClinicalData(new UCSClient.UCSClinicalData(new ArrayList<>(), new ArrayList<>(), new ArrayList<>()));
+        }
+        return client.getClinicalData();
+    }
+
+    private static UCSClient.UCSMetadata metadata(UCSClient client) {
+        if (client.getMetadata() == null) {
+            client.setMetadata(new UCSClient.UCSMetadata(LocalDateTime.now(), LocalDateTime.now(), "UCS", null));
+        }
+        return client.getMetadata();
+    }
+
+    private static UCSClient validClient() {
+        return new UCSClient(
+            new UCSClient.UCSIdentifiers("OSR-12345", "NID-67890"),
+            new UCSClient.UCSDemographics("John", "Doe", "M", LocalDate.of(1990, 5, 15),
+                new UCSClient.UCSAddress("Dar es Salaam", "Kinondoni", "Mwenge")),
+            new UCSClient.UCSClinicalData(new ArrayList<>(), new ArrayList<>(), new ArrayList<>()),
+            new UCSClient.UCSMetadata(LocalDateTime.now(), LocalDateTime.now(), "UCS", "Patient/1"));
+    }
+}
@@ -4,25 +4,29 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.smartbridge.core.audit.AuditLogger;
 import com.smartbridge.core.client.FHIRChangeDetectionService;
 import com.smartbridge.core.client.FHIRClientService;
+import com.smartbridge.core.concurrency.StripedLockManager;
+import com.smartbridge.core.concurrency.UpdateCoalescer;
 import com.smartbridge.core.interfaces.MediatorException;
 import com.smartbridge.core.model.fhir.FHIRResourceWrapper;
 import com.smartbridge.core.model.ucs.UCSClient;
 import com.smartbridge.core.transformation.FHIRToUCSTransformer;
 import com.smartbridge.mediators.ucs.UCSApiClient;
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.hl7.fhir.r4.model.Patient;
 import org.hl7.fhir.r4.model.Resource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
 import java.util.concurrent.*;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Reverse Sync Flow Service for FHIR to UCS data flow.
@@ -35,6 +39,7 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 public class ReverseSyncFlowService {
 
     private static final Logger logger = LoggerFactory.getLogger(ReverseSyncFlowService.class);
+    private static final int RESOURCE_LOCK_STRIPES = 1024;
 
     private final FHIRChangeDetectionService changeDetectionService;
     private final FHIRToUCSTransformer transformer;
@@ -47,12 +52,14 @@ public class ReverseSyncFlowService {
     // Track processed resources to detect conflicts - thread-safe
     private final Map<String, ResourceVersion> processedResources = new ConcurrentHashMap<>();
     
-    // Thread-safe tracking of in-progress reverse syncs to prevent duplicates
-    private final Map<String, CompletableFuture<ReverseSyncFlowResult>> inProgressSyncs = 
-        new ConcurrentHashMap<>();
+    // Per-resource coalescing of asynchronous reverse syncs: changes arriving while a resource is
+    // being synced, or within the quiet period, replace each other so only the latest version is sent
+    private final UpdateCoalescer<String, Resource, ReverseSyncFlowResult> reverseSyncCoalescer =
+        new UpdateCoalescer<>("reverse-sync", this::submitReverseSync);
     
-    // Read-write lock for resource version updates
-    private final ReadWriteLock versionLock = new ReentrantReadWriteLock();
+    // Orders reverse syncs per FHIR resource: the conflict check, UCS write and version tracking
+    // of one resource must not interleave, while other resources proceed in parallel
+    private final StripedLockManager resourceLocks = new StripedLockManager("reverse-sync-resource", RESOURCE_LOCK_STRIPES);
 
     @Autowired(required = false)
     @Qualifier("reverseSyncTimer")
@@ -70,6 +77,12 @@ public class ReverseSyncFlowService {
     @Qualifier("conflictDetectedCounter")
     private Counter conflictDetectedCounter;
 
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Value("${smartbridge.reverse-sync.coalesce.quiet-period-ms:0}")
+    private long coalesceQuietPeriodMs;
+
     public ReverseSyncFlowService(
             FHIRChangeDetectionService changeDetectionService,
             FHIRToUCSTransformer transformer,
@@ -88,6 +101,21 @@ public class ReverseSyncFlowService {
         logger.info("ReverseSyncFlowService initialized with concurrent processing support");
     }
 
+    @PostConstruct
+    public void registerLockMetrics() {
+        reverseSyncCoalescer.setQuietPeriodMs(coalesceQuietPeriodMs);
+        reverseSyncCoalescer.setFlushExecutor(reverseSyncExecutor);
+        if (meterRegistry != null) {
+            resourceLocks.bindTo(meterRegistry);
+            reverseSyncCoalescer.bindTo(meterRegistry);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reverseSyncCoalescer.shutdown();
+    }
+
     /**
      * Initialize reverse sync flow by registering change listeners.
      * This sets up automatic processing of FHIR resource changes.
@@ -105,10 +133,16 @@ public class ReverseSyncFlowService {
      * Process a single FHIR resource change through the reverse sync flow.
      * Validates, transforms, and stores data in UCS system.
      * 
+     * Changes to the same resource are processed one at a time, in arrival order.
+     * 
      * @param resource The FHIR resource that changed
      * @return ReverseSyncFlowResult containing the outcome and metrics
      */
     public ReverseSyncFlowResult processReverseSync(Resource resource) {
+        return resourceLocks.withLock(resource.getIdElement().getIdPart(), () -> processReverseSyncLocked(resource));
+    }
+
+    private ReverseSyncFlowResult processReverseSyncLocked(Resource resource) {
         String transactionId = UUID.randomUUID().toString();
         long startTime = System.currentTimeMillis();
         
@@ -497,23 +531,18 @@ public class ReverseSyncFlowService {
 
     /**
      * Update tracking of processed resources to detect future conflicts.
-     * Thread-safe update using write lock.
+     * Called under the resource's lock, so updates for one resource cannot reorder.
      */
     private void updateProcessedResourceTracking(Resource resource) {
         String resourceId = resource.getIdElement().getIdPart();
         Date lastUpdated = resource.getMeta() != null ? 
             resource.getMeta().getLastUpdated() : new Date();
         
-        versionLock.writeLock().lock();
-        try {
-            ResourceVersion version = new ResourceVersion(resourceId, lastUpdated);
-            processedResources.put(resourceId, version);
-            
-            logger.debug("Updated processed resource tracking: resourceId={}, lastUpdated={}",
-                resourceId, lastUpdated);
-        } finally {
-            versionLock.writeLock().unlock();
-        }
+        ResourceVersion version = new ResourceVersion(resourceId, lastUpdated);
+        processedResources.put(resourceId, version);
+        
+        logger.debug("Updated processed resource tracking: resourceId={}, lastUpdated={}",
+            resourceId, lastUpdated);
     }
 
     /**
@@ -534,32 +563,9 @@ public class ReverseSyncFlowService {
 
         List<CompletableFuture<ReverseSyncFlowResult>> futures = new ArrayList<>();
 
-        // Submit all reverse sync tasks
+        // Submit all reverse sync tasks; repeated resources coalesce to their latest version
         for (Resource resource : resources) {
-            String resourceId = resource.getIdElement().getIdPart();
-            
-            // Check if sync is already in progress for this resource
-            CompletableFuture<ReverseSyncFlowResult> existingFuture = inProgressSyncs.get(resourceId);
-            if (existingFuture != null && !existingFuture.isDone()) {
-                logger.info("Reverse sync already in progress for resource: {}", resourceId);
-                futures.add(existingFuture);
-                continue;
-            }
-
-            // Submit new reverse sync task
-            CompletableFuture<ReverseSyncFlowResult> future = CompletableFuture.supplyAsync(() -> {
-                return processReverseSync(resource);
-            }, reverseSyncExecutor);
-
-            // Track in-progress sync
-            inProgressSyncs.put(resourceId, future);
-            
-            // Clean up tracking when complete
-            future.whenComplete((result, throwable) -> {
-                inProgressSyncs.remove(resourceId);
-            });
-
-            futures.add(future);
+            futures.add(processReverseSyncAsync(resource));
         }
 
         // Wait for all reverse syncs to complete
@@ -593,57 +599,38 @@ public class ReverseSyncFlowService {
      * Process reverse sync asynchronously and return a CompletableFuture.
      * Allows non-blocking concurrent processing.
      * 
+     * While the same resource is being synced or waiting out the coalescing quiet period,
+     * a newer version replaces the pending one and both callers receive the result of
+     * syncing the newer version.
+     * 
      * @param resource The FHIR resource to process
      * @return CompletableFuture containing the reverse sync result
      */
     public CompletableFuture<ReverseSyncFlowResult> processReverseSyncAsync(Resource resource) {
-        String resourceId = resource.getIdElement().getIdPart();
-        
-        // Check if sync is already in progress
-        CompletableFuture<ReverseSyncFlowResult> existingFuture = inProgressSyncs.get(resourceId);
-        if (existingFuture != null && !existingFuture.isDone()) {
-            logger.info("Reverse sync already in progress for resource: {}, returning existing future", resourceId);
-            return existingFuture;
-        }
-
-        // Submit new reverse sync task
-        CompletableFuture<ReverseSyncFlowResult> future = CompletableFuture.supplyAsync(() -> {
-            return processReverseSync(resource);
-        }, reverseSyncExecutor);
-
-        // Track in-progress sync
-        inProgressSyncs.put(resourceId, future);
-        
-        // Clean up tracking when complete
-        future.whenComplete((result, throwable) -> {
-            inProgressSyncs.remove(resourceId);
-        });
+        return reverseSyncCoalescer.submit(resource.getIdElement().getIdPart(), resource);
+    }
 
-        return future;
+    private CompletableFuture<ReverseSyncFlowResult> submitReverseSync(Resource resource) {
+        return CompletableFuture.supplyAsync(() -> processReverseSync(resource), reverseSyncExecutor);
     }
 
     /**
-     * Check if a reverse sync is currently in progress for a given resource.
-     * Thread-safe check using concurrent map.
+     * Check if a reverse sync is currently in progress or waiting for a given resource.
      * 
      * @param resourceId The FHIR resource identifier
      * @return true if reverse sync is in progress, false otherwise
      */
     public boolean isReverseSyncInProgress(String resourceId) {
-        CompletableFuture<ReverseSyncFlowResult> future = inProgressSyncs.get(resourceId);
-        return future != null && !future.isDone();
+        return reverseSyncCoalescer.isActive(resourceId);
     }
 
     /**
-     * Get the number of reverse syncs currently in progress.
-     * Thread-safe count using concurrent map.
+     * Get the number of resources with a reverse sync in progress or waiting.
      * 
      * @return Number of in-progress reverse syncs
      */
     public int getInProgressReverseSyncCount() {
-        return (int) inProgressSyncs.values().stream()
-            .filter(future -> !future.isDone())
-            .count();
+        return reverseSyncCoalescer.getActiveKeyCount();
     }
 
     /**
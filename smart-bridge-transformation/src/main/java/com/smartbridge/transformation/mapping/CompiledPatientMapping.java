@@ -0,0 +1,410 @@
+package com.smartbridge.transformation.mapping;
+
+import com.smartbridge.core.interfaces.TransformationException;
+import com.smartbridge.core.model.fhir.FHIRResourceWrapper;
+import com.smartbridge.core.model.ucs.UCSClient;
+import org.hl7.fhir.r4.model.Address;
+import org.hl7.fhir.r4.model.Enumerations.AdministrativeGender;
+import org.hl7.fhir.r4.model.HumanName;
+import org.hl7.fhir.r4.model.Identifier;
+import org.hl7.fhir.r4.model.Patient;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link MappingSpec} compiled into property paths and lookup arrays.
+ *
+ * All spec interpretation happens in {@link #compile(MappingSpec)}; mapping a record only
+ * calls the bound accessors and scans the small code arrays, without reflection or map
+ * lookups. Instances are immutable and safe to share between threads.
+ */
+public final class CompiledPatientMapping {
+
+    private static final String SOURCE = "FHIR";
+    private static final String TARGET = "UCS";
+
+    private final String name;
+    private final String sourceSystem;
+
+    private final PropertyPath[] identifierPaths;
+    private final String[] identifierSystems;
+    private final String[] identifierLabels;
+    private final boolean[] identifierRequired;
+    private final int primaryIdentifier;
+
+    private final PropertyPath givenName;
+    private final String givenNameLabel;
+    private final boolean givenNameRequired;
+    private final PropertyPath familyName;
+    private final String familyNameLabel;
+    private final boolean familyNameRequired;
+
+    private final PropertyPath gender;
+    private final String genderLabel;
+    private final boolean genderRequired;
+    private final String[] ucsGenderCodes;
+    private final AdministrativeGender[] fhirGenders;
+    private final AdministrativeGender defaultGender;
+    private final String[] ucsGenderByOrdinal;
+
+    private final PropertyPath birthDate;
+
+    private final PropertyPath address;
+    private final PropertyPath addressDistrict;
+    private final PropertyPath addressCity;
+    private final PropertyPath addressText;
+
+    private CompiledPatientMapping(MappingSpec spec) {
+        this.name = spec.getName();
+        this.sourceSystem = spec.getSourceSystem();
+
+        List<MappingSpec.IdentifierMapping> identifiers = spec.getIdentifiers();
+        int count = identifiers != null ? identifiers.size() : 0;
+        this.identifierPaths = new PropertyPath[count];
+        this.identifierSystems = new String[count];
+        this.identifierLabels = new String[count];
+        this.identifierRequired = new boolean[count];
+        int primary = -1;
+        for (int i = 0; i < count; i++) {
+            MappingSpec.IdentifierMapping identifier = identifiers.get(i);
+            if (identifier.getSystem() == null || identifier.getSystem().isEmpty()) {
+                throw new IllegalArgumentException("Identifier mapping " + identifier.getLabel() + " has no system");
+            }
+            identifierPaths[i] = compileField(identifier, String.class);
+            identifierSystems[i] = identifier.getSystem();
+            identifierLabels[i] = identifier.getLabel();
+            identifierRequired[i] = identifier.isRequired();
+            if (identifier.isPrimary()) {
+                primary = i;
+            }
+        }
+        this.primaryIdentifier = primary;
+
+        this.givenName = compileField(spec.getGivenName(), String.class);
+        this.givenNameLabel = labelOf(spec.getGivenName());
+        this.givenNameRequired = isRequired(spec.getGivenName());
+        this.familyName = compileField(spec.getFamilyName(), String.class);
+        this.familyNameLabel = labelOf(spec.getFamilyName());
+        this.familyNameRequired = isRequired(spec.getFamilyName());
+
+        MappingSpec.GenderMapping genderSpec = spec.getGender();
+        this.gender = compileField(genderSpec, String.class);
+        this.genderLabel = labelOf(genderSpec);
+        this.genderRequired = isRequired(genderSpec);
+        Map<String, String> codes = genderSpec != null ? genderSpec.getCodes() : Map.of();
+        this.ucsGenderCodes = new String[codes.size()];
+        this.fhirGenders = new AdministrativeGender[codes.size()];
+        this.ucsGenderByOrdinal = new String[AdministrativeGender.values().length];
+        int index = 0;
+        for (Map.Entry<String, String> code : codes.entrySet()) {
+            ucsGenderCodes[index] = code.getKey();
+            fhirGenders[index] = parseGender(code.getValue());
+            // First UCS code listed for a FHIR gender wins on the way back
+            if (ucsGenderByOrdinal[fhirGenders[index].ordinal()] == null) {
+                ucsGenderByOrdinal[fhirGenders[index].ordinal()] = code.getKey();
+            }
+            index++;
+        }
+        this.defaultGender = parseGender(genderSpec != null ? genderSpec.getDefaultCode() : "unknown");
+
+        this.birthDate = compileField(spec.getBirthDate(), LocalDate.class);
+
+        MappingSpec.AddressMapping addressSpec = spec.getAddress();
+        if (addressSpec != null && addressSpec.getPath() != null) {
+            this.address = PropertyPath.compile(UCSClient.class, addressSpec.getPath());
+            this.addressDistrict = compilePart(address, addressSpec.getDistrict());
+            this.addressCity = compilePart(address, addressSpec.getCity());
+            this.addressText = compilePart(address, addressSpec.getText());
+        } else {
+            this.address = null;
+            this.addressDistrict = null;
+            this.addressCity = null;
+            this.addressText = null;
+        }
+    }
+
+    /**
+     * Compile a mapping spec, resolving every path and code up front.
+     *
+     * @throws IllegalArgumentException if a path does not exist or has the wrong type, or a FHIR code is unknown
+     */
+    public static CompiledPatientMapping compile(MappingSpec spec) {
+        if (spec == null) {
+            throw new IllegalArgumentException("Mapping spec cannot be null");
+        }
+        return new CompiledPatientMapping(spec);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Map a UCS client to a FHIR Patient.
+     *
+     * @throws TransformationException if a required field is missing
+     */
+    public Patient toPatient(UCSClient client) throws TransformationException {
+        if (client == null) {
+            throw new TransformationException("UCS Client cannot be null");
+        }
+        Patient patient = new Patient();
+
+        for (int i = 0; i < identifierPaths.length; i++) {
+            String value = (String) identifierPaths[i].get(client);
+            if (value == null || value.isEmpty()) {
+                if (identifierRequired[i]) {
+                    throw new TransformationException(identifierLabels[i] + " is required");
+                }
+                continue;
+            }
+            Identifier identifier = new Identifier();
+            identifier.setSystem(identifierSystems[i]);
+            identifier.setValue(value);
+            patient.addIdentifier(identifier);
+        }
+
+        String given = readString(client, givenName, givenNameLabel, givenNameRequired);
+        String family = readString(client, familyName, familyNameLabel, familyNameRequired);
+        if (given != null || family != null) {
+            HumanName humanName = new HumanName();
+            if (given != null) {
+                humanName.addGiven(given);
+            }
+            if (family != null) {
+                humanName.setFamily(family);
+            }
+            patient.addName(humanName);
+        }
+
+        if (gender != null) {
+            String code = readString(client, gender, genderLabel, genderRequired);
+            patient.setGender(toFhirGender(code));
+        }
+
+        if (birthDate != null) {
+            LocalDate date = (LocalDate) birthDate.get(client);
+            if (date != null) {
+                patient.setBirthDate(Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant()));
+            }
+        }
+
+        if (address != null) {
+            Object ucsAddress = address.get(client);
+            if (ucsAddress != null) {
+                Address fhirAddress = new Address();
+                String district = readPart(ucsAddress, addressDistrict);
+                if (district != null) {
+                    fhirAddress.setDistrict(district);
+                }
+                String city = readPart(ucsAddress, addressCity);
+                if (city != null) {
+                    fhirAddress.setCity(city);
+                }
+                String text = readPart(ucsAddress, addressText);
+                if (text != null) {
+                    fhirAddress.setText(text);
+                }
+                patient.addAddress(fhirAddress);
+            }
+        }
+        return patient;
+    }
+
+    /**
+     * Map a UCS client to a FHIR Patient wrapped with the spec's source system and the primary identifier.
+     */
+    public FHIRResourceWrapper<Patient> toFHIR(UCSClient client) throws TransformationException {
+        Patient patient = toPatient(client);
+        String originalId = primaryIdentifier >= 0 ? (String) identifierPaths[primaryIdentifier].get(client) : null;
+        return FHIRResourceWrapper.forPatient(patient, sourceSystem, originalId);
+    }
+
+    /**
+     * Map a FHIR Patient back to the identifiers and demographics of a UCS client.
+     * Metadata and clinical data are not part of the field mapping and are left to the caller.
+     *
+     * @throws TransformationException if a required field is missing
+     */
+    public UCSClient toUCSClient(Patient patient) throws TransformationException {
+        if (patient == null) {
+            throw new TransformationException("FHIR resource cannot be null");
+        }
+        UCSClient client = new UCSClient();
+
+        if (identifierPaths.length > 0) {
+            if (!patient.hasIdentifier()) {
+                throw new TransformationException("FHIR Patient must have at least one identifier",
+                    SOURCE, TARGET, "MISSING_IDENTIFIER");
+            }
+            boolean[] found = new boolean[identifierPaths.length];
+            for (Identifier identifier : patient.getIdentifier()) {
+                if (!identifier.hasSystem() || !identifier.hasValue()) {
+                    continue;
+                }
+                String system = identifier.getSystem();
+                for (int i = 0; i < identifierSystems.length; i++) {
+                    if (identifierSystems[i].equals(system)) {
+                        identifierPaths[i].set(client, identifier.getValue());
+                        found[i] = true;
+                        break;
+                    }
+                }
+            }
+            for (int i = 0; i < found.length; i++) {
+                if (identifierRequired[i] && !found[i]) {
+                    throw new TransformationException("FHIR Patient must have an identifier with system: "
+                        + identifierSystems[i], SOURCE, TARGET, "MISSING_IDENTIFIER");
+                }
+            }
+        }
+
+        if (givenName != null || familyName != null) {
+            HumanName humanName = patient.hasName() ? patient.getNameFirstRep() : null;
+            if (humanName == null && (givenNameRequired || familyNameRequired)) {
+                throw new TransformationException("FHIR Patient must have at least one name",
+                    SOURCE, TARGET, "MISSING_NAME");
+            }
+            String given = humanName != null && humanName.hasGiven() ? humanName.getGiven().get(0).getValue() : null;
+            writeString(client, givenName, given, givenNameRequired,
+                "FHIR Patient name must have a given name", "MISSING_GIVEN_NAME");
+            String family = humanName != null ? humanName.getFamily() : null;
+            writeString(client, familyName, family, familyNameRequired,
+                "FHIR Patient name must have a family name", "MISSING_FAMILY_NAME");
+        }
+
+        if (gender != null) {
+            if (!patient.hasGender()) {
+                if (genderRequired) {
+                    throw new TransformationException("FHIR Patient must have a gender",
+                        SOURCE, TARGET, "MISSING_GENDER");
+                }
+            } else {
+                String code = ucsGenderByOrdinal[patient.getGender().ordinal()];
+                if (code != null) {
+                    gender.set(client, code);
+                }
+            }
+        }
+
+        if (birthDate != null && patient.hasBirthDate()) {
+            birthDate.set(client, toLocalDate(patient.getBirthDate()));
+        }
+
+        if (address != null && patient.hasAddress()) {
+            Address fhirAddress = patient.getAddressFirstRep();
+            Object ucsAddress = address.getOrCreate(client);
+            if (addressDistrict != null && fhirAddress.hasDistrict()) {
+                addressDistrict.set(ucsAddress, fhirAddress.getDistrict());
+            }
+            if (addressCity != null && fhirAddress.hasCity()) {
+                addressCity.set(ucsAddress, fhirAddress.getCity());
+            }
+            if (addressText != null && fhirAddress.hasText()) {
+                addressText.set(ucsAddress, fhirAddress.getText());
+            }
+        }
+        return client;
+    }
+
+    private AdministrativeGender toFhirGender(String code) {
+        if (code != null) {
+            for (int i = 0; i < ucsGenderCodes.length; i++) {
+                if (ucsGenderCodes[i].equalsIgnoreCase(code)) {
+                    return fhirGenders[i];
+                }
+            }
+        }
+        return defaultGender;
+    }
+
+    private static String readString(UCSClient client, PropertyPath path, String label, boolean required)
+            throws TransformationException {
+        if (path == null) {
+            return null;
+        }
+        String value = (String) path.get(client);
+        if (value == null || value.isEmpty()) {
+            if (required) {
+                throw new TransformationException(label + " is required");
+            }
+            return null;
+        }
+        return value;
+    }
+
+    private static String readPart(Object ucsAddress, PropertyPath part) {
+        return part != null ? (String) part.get(ucsAddress) : null;
+    }
+
+    private static void writeString(UCSClient client, PropertyPath path, String value, boolean required,
+                                    String message, String errorCode) throws TransformationException {
+        if (path == null) {
+            return;
+        }
+        if (value == null || value.isEmpty()) {
+            if (required) {
+                throw new TransformationException(message, SOURCE, TARGET, errorCode);
+            }
+            return;
+        }
+        path.set(client, value);
+    }
+
+    private static LocalDate toLocalDate(Date date) {
+        if (date instanceof java.sql.Date) {
+            return ((java.sql.Date) date).toLocalDate();
+        }
+        return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+
+    private static PropertyPath compileField(MappingSpec.FieldMapping field, Class<?> expectedType) {
+        if (field == null || field.getPath() == null) {
+            return null;
+        }
+        PropertyPath path = PropertyPath.compile(UCSClient.class, field.getPath());
+        requireType(path, expectedType);
+        return path;
+    }
+
+    private static PropertyPath compilePart(PropertyPath address, String relativePath) {
+        if (relativePath == null) {
+            return null;
+        }
+        PropertyPath path = PropertyPath.compile(address.getType(), relativePath);
+        requireType(path, String.class);
+        return path;
+    }
+
+    private static void requireType(PropertyPath path, Class<?> expectedType) {
+        if (path.getType() != expectedType) {
+            throw new IllegalArgumentException("Property path '" + path + "' is " + path.getType().getSimpleName()
+                + ", expected " + expectedType.getSimpleName());
+        }
+    }
+
+    private static String labelOf(MappingSpec.FieldMapping field) {
+        return field != null ? field.getLabel() : null;
+    }
+
+    private static boolean isRequired(MappingSpec.FieldMapping field) {
+        return field != null && field.isRequired();
+    }
+
+    private static AdministrativeGender parseGender(String code) {
+        AdministrativeGender gender;
+        try {
+            gender = AdministrativeGender.fromCode(code);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Unknown FHIR gender code: " + code, e);
+        }
+        if (gender == null) {
+            throw new IllegalArgumentException("FHIR gender code cannot be empty");
+        }
+        return gender;
+    }
+}
@@ -0,0 +1,132 @@
+package com.smartbridge.transformation.mapping;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Declarative UCS to FHIR Patient field mapping, read from JSON.
+ * Paths are dotted bean property paths on {@link com.smartbridge.core.model.ucs.UCSClient};
+ * address part paths are relative to the address object.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class MappingSpec {
+
+    private String name;
+    private String sourceSystem = "UCS";
+    private List<IdentifierMapping> identifiers = new ArrayList<>();
+    private FieldMapping givenName;
+    private FieldMapping familyName;
+    private GenderMapping gender;
+    private FieldMapping birthDate;
+    private AddressMapping address;
+
+    public static MappingSpec fromJson(InputStream json) throws IOException {
+        return new ObjectMapper().readValue(json, MappingSpec.class);
+    }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public String getSourceSystem() { return sourceSystem; }
+    public void setSourceSystem(String sourceSystem) { this.sourceSystem = sourceSystem; }
+
+    public List<IdentifierMapping> getIdentifiers() { return identifiers; }
+    public void setIdentifiers(List<IdentifierMapping> identifiers) { this.identifiers = identifiers; }
+
+    public FieldMapping getGivenName() { return givenName; }
+    public void setGivenName(FieldMapping givenName) { this.givenName = givenName; }
+
+    public FieldMapping getFamilyName() { return familyName; }
+    public void setFamilyName(FieldMapping familyName) { this.familyName = familyName; }
+
+    public GenderMapping getGender() { return gender; }
+    public void setGender(GenderMapping gender) { this.gender = gender; }
+
+    public FieldMapping getBirthDate() { return birthDate; }
+    public void setBirthDate(FieldMapping birthDate) { this.birthDate = birthDate; }
+
+    public AddressMapping getAddress() { return address; }
+    public void setAddress(AddressMapping address) { this.address = address; }
+
+    /**
+     * A single UCS field.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class FieldMapping {
+        private String path;
+        private String label;
+        private boolean required;
+
+        public String getPath() { return path; }
+        public void setPath(String path) { this.path = path; }
+
+        /** @return Name used in error messages, defaults to the path */
+        public String getLabel() { return label != null ? label : path; }
+        public void setLabel(String label) { this.label = label; }
+
+        public boolean isRequired() { return required; }
+        public void setRequired(boolean required) { this.required = required; }
+    }
+
+    /**
+     * A UCS field mapped to a FHIR identifier with the given system.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class IdentifierMapping extends FieldMapping {
+        private String system;
+        private boolean primary;
+
+        public String getSystem() { return system; }
+        public void setSystem(String system) { this.system = system; }
+
+        /** @return true if this identifier is the original ID of the transformed resource */
+        public boolean isPrimary() { return primary; }
+        public void setPrimary(boolean primary) { this.primary = primary; }
+    }
+
+    /**
+     * UCS gender codes mapped to FHIR AdministrativeGender codes.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class GenderMapping extends FieldMapping {
+        private Map<String, String> codes = new LinkedHashMap<>();
+        private String defaultCode = "unknown";
+
+        public Map<String, String> getCodes() { return codes; }
+        public void setCodes(Map<String, String> codes) { this.codes = codes; }
+
+        /** @return FHIR code for UCS codes not in {@link #getCodes()} */
+        public String getDefaultCode() { return defaultCode; }
+        public void setDefaultCode(String defaultCode) { this.defaultCode = defaultCode; }
+    }
+
+    /**
+     * UCS address object mapped to FHIR Address district, city and text.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class AddressMapping {
+        private String path;
+        private String district;
+        private String city;
+        private String text;
+
+        public String getPath() { return path; }
+        public void setPath(String path) { this.path = path; }
+
+        public String getDistrict() { return district; }
+        public void setDistrict(String district) { this.district = district; }
+
+        public String getCity() { return city; }
+        public void setCity(String city) { this.city = city; }
+
+        public String getText() { return text; }
+        public void setText(String text) { this.text = text; }
+    }
+}
@@ -0,0 +1,96 @@
+package com.smartbridge.transformation.mapping;
+
+import com.smartbridge.core.interfaces.TransformationException;
+import com.smartbridge.core.model.fhir.FHIRResourceWrapper;
+import com.smartbridge.core.model.ucs.UCSClient;
+import com.smartbridge.core.transformation.PatientMapper;
+import org.hl7.fhir.r4.model.Patient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+
+/**
+ * Declarative UCS to FHIR Patient mapping engine.
+ * Loads the mapping spec once at startup and compiles it, so a bad spec fails the
+ * application context instead of the first transformation.
+ *
+ * Enabled with <code>smartbridge.transformation.mapping.enabled</code>; the Patient
+ * transformers then map fields through it instead of their built-in mapping.
+ */
+@Component
+@ConditionalOnProperty(name = "smartbridge.transformation.mapping.enabled", havingValue = "true")
+public class PatientMappingEngine implements PatientMapper {
+
+    private static final Logger logger = LoggerFactory.getLogger(PatientMappingEngine.class);
+
+    private final CompiledPatientMapping patientMapping;
+
+    @Autowired
+    public PatientMappingEngine(
+            ResourceLoader resourceLoader,
+            @Value("${smartbridge.transformation.mapping.patient-spec:classpath:mapping/ucs-fhir-patient.json}")
+            String patientSpecLocation) {
+        this.patientMapping = load(resourceLoader.getResource(patientSpecLocation));
+        logger.info("Compiled patient mapping '{}' from {}", patientMapping.getName(), patientSpecLocation);
+    }
+
+    private PatientMappingEngine(CompiledPatientMapping patientMapping) {
+        this.patientMapping = patientMapping;
+    }
+
+    /**
+     * Create an engine for an already compiled mapping.
+     */
+    public static PatientMappingEngine of(CompiledPatientMapping patientMapping) {
+        if (patientMapping == null) {
+            throw new IllegalArgumentException("Patient mapping cannot be null");
+        }
+        return new PatientMappingEngine(patientMapping);
+    }
+
+    public CompiledPatientMapping getPatientMapping() {
+        return patientMapping;
+    }
+
+    @Override
+    public String getMappingVersion() {
+        return patientMapping.getName();
+    }
+
+    @Override
+    public Patient toPatient(UCSClient client) throws TransformationException {
+        return patientMapping.toPatient(client);
+    }
+
+    @Override
+    public UCSClient toUCSClient(Patient patient) throws TransformationException {
+        return patientMapping.toUCSClient(patient);
+    }
+
+    public FHIRResourceWrapper<Patient> transformUCSToFHIR(UCSClient ucsClient) throws TransformationException {
+        return patientMapping.toFHIR(ucsClient);
+    }
+
+    public UCSClient transformFHIRToUCS(Patient patient) throws TransformationException {
+        return patientMapping.toUCSClient(patient);
+    }
+
+    static CompiledPatientMapping load(Resource spec) {
+        if (!spec.exists()) {
+            throw new IllegalStateException("Patient mapping spec not found at: " + spec.getDescription());
+        }
+        try (InputStream in = spec.getInputStream()) {
+            return CompiledPatientMapping.compile(MappingSpec.fromJson(in));
+        } catch (Exception e) {
+            logger.error("Failed to load patient mapping spec {}", spec.getDescription(), e);
+            throw new IllegalStateException("Failed to initialize patient mapping engine", e);
+        }
+    }
+}
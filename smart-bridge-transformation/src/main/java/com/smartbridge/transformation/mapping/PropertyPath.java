@@ -0,0 +1,229 @@
+package com.smartbridge.transformation.mapping;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * A dotted bean property path such as <code>demographics.address.district</code>,
+ * compiled once into lambdas calling the getters, setters and constructors directly.
+ *
+ * Reflection is only used while compiling: every hop is bound through
+ * {@link LambdaMetafactory}, so reading or writing a record costs the same as
+ * hand-written accessor calls.
+ */
+public final class PropertyPath {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private final String path;
+    private final Class<?> type;
+    private final Function<Object, Object>[] getters;
+    private final BiConsumer<Object, Object>[] setters;
+    private final Supplier<Object>[] constructors;
+
+    private PropertyPath(String path, Class<?> type, Function<Object, Object>[] getters,
+                         BiConsumer<Object, Object>[] setters, Supplier<Object>[] constructors) {
+        this.path = path;
+        this.type = type;
+        this.getters = getters;
+        this.setters = setters;
+        this.constructors = constructors;
+    }
+
+    /**
+     * Resolve a path against a root type.
+     *
+     * @throws IllegalArgumentException if a property does not exist on its type
+     */
+    @SuppressWarnings("unchecked")
+    public static PropertyPath compile(Class<?> rootType, String path) {
+        if (path == null || path.isBlank()) {
+            throw new IllegalArgumentException("Property path must not be empty");
+        }
+        String[] names = path.split("\\.");
+        Function<Object, Object>[] getters = new Function[names.length];
+        BiConsumer<Object, Object>[] setters = new BiConsumer[names.length];
+        Supplier<Object>[] constructors = new Supplier[names.length];
+
+        Class<?> owner = rootType;
+        for (int i = 0; i < names.length; i++) {
+            Method getter = findGetter(owner, names[i]);
+            if (getter == null) {
+                throw new IllegalArgumentException("No property '" + names[i] + "' on "
+                    + owner.getSimpleName() + " in path '" + path + "'");
+            }
+            Class<?> propertyType = getter.getReturnType();
+            getters[i] = bindGetter(getter);
+            Method setter = findSetter(owner, names[i], propertyType);
+            setters[i] = setter != null ? bindSetter(setter) : null;
+            constructors[i] = bindConstructor(propertyType);
+            owner = propertyType;
+        }
+        return new PropertyPath(path, owner, getters, setters, constructors);
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * @return Type of the property at the end of the path
+     */
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * @return The value at the end of the path, or null if it or any object on the way is null
+     */
+    public Object get(Object root) {
+        Object value = root;
+        for (Function<Object, Object> getter : getters) {
+            if (value == null) {
+                return null;
+            }
+            value = getter.apply(value);
+        }
+        return value;
+    }
+
+    /**
+     * Set the value at the end of the path, creating missing objects on the way.
+     */
+    public void set(Object root, Object value) {
+        int last = getters.length - 1;
+        requireWritable(last);
+        setter(last).accept(parentOf(root, last), value);
+    }
+
+    /**
+     * @return The object at the end of the path, created and set if it was missing
+     */
+    public Object getOrCreate(Object root) {
+        int last = getters.length - 1;
+        return getOrCreate(parentOf(root, last), last);
+    }
+
+    private Object parentOf(Object root, int last) {
+        Object current = root;
+        for (int i = 0; i < last; i++) {
+            current = getOrCreate(current, i);
+        }
+        return current;
+    }
+
+    private Object getOrCreate(Object owner, int hop) {
+        Object value = getters[hop].apply(owner);
+        if (value == null) {
+            requireWritable(hop);
+            if (constructors[hop] == null) {
+                throw new IllegalStateException("Cannot create " + path + ": no public no-argument constructor at hop " + hop);
+            }
+            value = constructors[hop].get();
+            setter(hop).accept(owner, value);
+        }
+        return value;
+    }
+
+    private BiConsumer<Object, Object> setter(int hop) {
+        return setters[hop];
+    }
+
+    private void requireWritable(int hop) {
+        if (setters[hop] == null) {
+            throw new IllegalStateException("Property path '" + path + "' is read-only at hop " + hop);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+
+    private static Method findGetter(Class<?> owner, String name) {
+        String suffix = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        for (String prefix : new String[] {"get", "is"}) {
+            try {
+                Method method = owner.getMethod(prefix + suffix);
+                if (method.getReturnType() != void.class && !Modifier.isStatic(method.getModifiers())) {
+                    return method;
+                }
+            } catch (NoSuchMethodException e) {
+                // Try the next prefix
+            }
+        }
+        return null;
+    }
+
+    private static Method findSetter(Class<?> owner, String name, Class<?> type) {
+        try {
+            Method method = owner.getMethod("set" + Character.toUpperCase(name.charAt(0)) + name.substring(1), type);
+            return Modifier.isStatic(method.getModifiers()) ? null : method;
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Function<Object, Object> bindGetter(Method method) {
+        try {
+            MethodHandle handle = LOOKUP.unreflect(method);
+            CallSite site = LambdaMetafactory.metafactory(LOOKUP, "apply",
+                MethodType.methodType(Function.class),
+                MethodType.methodType(Object.class, Object.class),
+                handle,
+                MethodType.methodType(MethodType.methodType(method.getReturnType()).wrap().returnType(),
+                    method.getDeclaringClass()));
+            return (Function<Object, Object>) site.getTarget().invoke();
+        } catch (Throwable e) {
+            throw new IllegalStateException("Failed to bind getter " + method, e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BiConsumer<Object, Object> bindSetter(Method method) {
+        try {
+            MethodHandle handle = LOOKUP.unreflect(method);
+            CallSite site = LambdaMetafactory.metafactory(LOOKUP, "accept",
+                MethodType.methodType(BiConsumer.class),
+                MethodType.methodType(void.class, Object.class, Object.class),
+                handle,
+                MethodType.methodType(void.class, method.getDeclaringClass(),
+                    MethodType.methodType(method.getParameterTypes()[0]).wrap().returnType()));
+            return (BiConsumer<Object, Object>) site.getTarget().invoke();
+        } catch (Throwable e) {
+            throw new IllegalStateException("Failed to bind setter " + method, e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Supplier<Object> bindConstructor(Class<?> type) {
+        if (type.isPrimitive() || type.isInterface() || Modifier.isAbstract(type.getModifiers())) {
+            return null;
+        }
+        try {
+            type.getConstructor();
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+        try {
+            MethodHandle handle = LOOKUP.findConstructor(type, MethodType.methodType(void.class));
+            CallSite site = LambdaMetafactory.metafactory(LOOKUP, "get",
+                MethodType.methodType(Supplier.class),
+                MethodType.methodType(Object.class),
+                handle,
+                MethodType.methodType(type));
+            return (Supplier<Object>) site.getTarget().invoke();
+        } catch (Throwable e) {
+            throw new IllegalStateException("Failed to bind constructor of " + type.getName(), e);
+        }
+    }
+}
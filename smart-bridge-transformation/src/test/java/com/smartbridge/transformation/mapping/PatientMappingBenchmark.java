@@ -0,0 +1,110 @@
+package com.smartbridge.transformation.mapping;
+
+import com.smartbridge.core.interfaces.TransformationException;
+import com.smartbridge.core.model.fhir.FHIRResourceWrapper;
+import com.smartbridge.core.model.ucs.UCSClient;
+import com.smartbridge.core.transformation.FHIRToUCSTransformer;
+import com.smartbridge.core.transformation.UCSToFHIRTransformer;
+import com.smartbridge.core.validation.FHIRValidator;
+import com.smartbridge.core.validation.UCSClientValidator;
+import org.hl7.fhir.r4.model.Patient;
+import org.hl7.fhir.r4.model.Resource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-record cost of the compiled declarative patient mapping versus the hand-written
+ * UCSToFHIRTransformer and FHIRToUCSTransformer. Validators are replaced by pass-through
+ * subclasses so both sides measure mapping only. The hand-written FHIR to UCS side also
+ * fills metadata and empty clinical data, which the field mapping leaves to the caller.
+ *
+ * Run with:
+ * <pre>
+ * mvn -pl smart-bridge-transformation -am test-compile exec:java \
+ *     -Dexec.classpathScope=test -Dexec.mainClass=com.smartbridge.transformation.mapping.PatientMappingBenchmark
+ * </pre>
+ * Raise the root log level to WARN first, or the transformers' INFO logging dominates the hand-written side.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PatientMappingBenchmark {
+
+    private UCSToFHIRTransformer handWrittenToFhir;
+    private FHIRToUCSTransformer handWrittenToUcs;
+    private CompiledPatientMapping compiled;
+
+    private UCSClient client;
+    private FHIRResourceWrapper<Patient> wrapper;
+
+    @Setup(Level.Trial)
+    public void setUp() throws TransformationException {
+        UCSClientValidator ucsValidator = new UCSClientValidator() {
+            @Override
+            public ValidationResult validate(UCSClient client) {
+                return ValidationResult.valid();
+            }
+        };
+        FHIRValidator fhirValidator = new FHIRValidator() {
+            @Override
+            public FHIRValidationResult validate(Resource resource) {
+                return FHIRValidationResult.valid();
+            }
+        };
+        handWrittenToUcs = new FHIRToUCSTransformer(ucsValidator);
+        handWrittenToFhir = new UCSToFHIRTransformer(ucsValidator, fhirValidator, handWrittenToUcs);
+        compiled = new PatientMappingEngine(new DefaultResourceLoader(), "classpath:mapping/ucs-fhir-patient.json")
+            .getPatientMapping();
+
+        client = new UCSClient();
+        client.setIdentifiers(new UCSClient.UCSIdentifiers("OPENSRP-12345", "NID-67890"));
+        client.setDemographics(new UCSClient.UCSDemographics("John", "Doe", "M", LocalDate.of(1990, 1, 15),
+            new UCSClient.UCSAddress("Dodoma", "Makole", "Chamwino")));
+        wrapper = compiled.toFHIR(client);
+    }
+
+    @Benchmark
+    public Object handWrittenUcsToFhir() throws TransformationException {
+        return handWrittenToFhir.transformUCSToFHIR(client);
+    }
+
+    @Benchmark
+    public Object compiledUcsToFhir() throws TransformationException {
+        return compiled.toFHIR(client);
+    }
+
+    @Benchmark
+    public Object handWrittenFhirToUcs() throws TransformationException {
+        return handWrittenToUcs.transformFHIRToUCS(wrapper);
+    }
+
+    @Benchmark
+    public Object compiledFhirToUcs() throws TransformationException {
+        return compiled.toUCSClient(wrapper.getResource());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(PatientMappingBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
@@ -0,0 +1,71 @@
+package com.smartbridge.transformation.mapping;
+
+import com.smartbridge.core.model.fhir.FHIRResourceWrapper;
+import com.smartbridge.core.model.ucs.UCSClient;
+import com.smartbridge.core.transformation.FHIRToUCSTransformer;
+import com.smartbridge.core.transformation.PatientMapper;
+import com.smartbridge.core.transformation.UCSToFHIRTransformer;
+import com.smartbridge.core.validation.FHIRValidator;
+import com.smartbridge.core.validation.UCSClientValidator;
+import org.hl7.fhir.r4.model.Patient;
+import org.hl7.fhir.r4.model.Resource;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Context-load tests for the patient mapping engine.
+ * Verifies Spring can construct the engine and that the Patient transformers map through it.
+ */
+class PatientMappingContextLoadTest {
+
+    private final ApplicationContextRunner runner = new ApplicationContextRunner()
+        .withUserConfiguration(PatientMappingEngine.class, UCSClientValidator.class, FHIRValidator.class,
+            FHIRToUCSTransformer.class, UCSToFHIRTransformer.class);
+
+    @Test
+    void testMappingEnabled_TransformersUseEngine() {
+        runner.withPropertyValues("smartbridge.transformation.mapping.enabled=true").run(context -> {
+            assertNull(context.getStartupFailure());
+            PatientMappingEngine engine = context.getBean(PatientMappingEngine.class);
+            assertSame(engine, context.getBean(PatientMapper.class));
+
+            UCSClient client = createClient();
+            FHIRResourceWrapper<? extends Resource> wrapper =
+                context.getBean(UCSToFHIRTransformer.class).transformUCSToFHIR(client);
+            assertTrue(engine.toPatient(client).equalsDeep((Patient) wrapper.getResource()));
+
+            UCSClient roundTrip = context.getBean(FHIRToUCSTransformer.class).transformFHIRToUCS(wrapper);
+            assertEquals("OPENSRP-12345", roundTrip.getIdentifiers().getOpensrpId());
+            assertEquals("Doe", roundTrip.getDemographics().getLastName());
+            assertNotNull(roundTrip.getMetadata());
+        });
+    }
+
+    @Test
+    void testMappingDisabledByDefault() {
+        runner.run(context -> {
+            assertNull(context.getStartupFailure());
+            assertTrue(context.getBeansOfType(PatientMapper.class).isEmpty());
+            assertNotNull(context.getBean(UCSToFHIRTransformer.class));
+        });
+    }
+
+    @Test
+    void testMissingSpec_FailsStartup() {
+        runner.withPropertyValues("smartbridge.transformation.mapping.enabled=true",
+                "smartbridge.transformation.mapping.patient-spec=classpath:mapping/missing.json")
+            .run(context -> assertNotNull(context.getStartupFailure()));
+    }
+
+    private UCSClient createClient() {
+        UCSClient client = new UCSClient();
+        client.setIdentifiers(new UCSClient.UCSIdentifiers("OPENSRP-12345", "NID-67890"));
+        client.setDemographics(new UCSClient.UCSDemographics("John", "Doe", "M", LocalDate.of(1990, 1, 15),
+            new UCSClient.UCSAddress("Dodoma", "Makole", "Chamwino")));
+        return client;
+    }
+}
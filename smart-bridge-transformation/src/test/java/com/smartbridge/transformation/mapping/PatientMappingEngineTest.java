@@ -0,0 +1,133 @@
+package com.smartbridge.transformation.mapping;
+
+import com.smartbridge.core.interfaces.TransformationException;
+import com.smartbridge.core.model.fhir.FHIRResourceWrapper;
+import com.smartbridge.core.model.ucs.UCSClient;
+import com.smartbridge.core.transformation.FHIRToUCSTransformer;
+import com.smartbridge.core.transformation.UCSToFHIRTransformer;
+import com.smartbridge.core.validation.FHIRValidator;
+import com.smartbridge.core.validation.UCSClientValidator;
+import org.hl7.fhir.r4.model.Enumerations.AdministrativeGender;
+import org.hl7.fhir.r4.model.Patient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for PatientMappingEngine.
+ * Verifies the default mapping spec produces the same resources as the hand-written transformers.
+ */
+class PatientMappingEngineTest {
+
+    private PatientMappingEngine engine;
+    private UCSToFHIRTransformer ucsToFhir;
+    private FHIRToUCSTransformer fhirToUcs;
+
+    @BeforeEach
+    void setUp() {
+        engine = new PatientMappingEngine(new DefaultResourceLoader(), "classpath:mapping/ucs-fhir-patient.json");
+        UCSClientValidator ucsValidator = new UCSClientValidator();
+        fhirToUcs = new FHIRToUCSTransformer(ucsValidator);
+        ucsToFhir = new UCSToFHIRTransformer(ucsValidator, new FHIRValidator(), fhirToUcs);
+    }
+
+    @Test
+    void testToFHIR_MatchesHandWrittenTransformer() throws TransformationException {
+        UCSClient client = createClient("M");
+
+        FHIRResourceWrapper<Patient> compiled = engine.transformUCSToFHIR(client);
+        Patient expected = (Patient) ucsToFhir.transformUCSToFHIR(client).getResource();
+
+        assertEquals("UCS", compiled.getSourceSystem());
+        assertEquals("OPENSRP-12345", compiled.getOriginalId());
+        assertTrue(expected.equalsDeep(compiled.getResource()));
+    }
+
+    @Test
+    void testToFHIR_GenderCodes() throws TransformationException {
+        CompiledPatientMapping mapping = engine.getPatientMapping();
+
+        assertEquals(AdministrativeGender.MALE, mapping.toPatient(createClient("m")).getGender());
+        assertEquals(AdministrativeGender.FEMALE, mapping.toPatient(createClient("F")).getGender());
+        assertEquals(AdministrativeGender.OTHER, mapping.toPatient(createClient("O")).getGender());
+        assertEquals(AdministrativeGender.UNKNOWN, mapping.toPatient(createClient("X")).getGender());
+    }
+
+    @Test
+    void testToFHIR_OptionalFieldsOmitted() throws TransformationException {
+        UCSClient client = createClient("F");
+        client.getIdentifiers().setNationalId(null);
+        client.getDemographics().setBirthDate(null);
+        client.getDemographics().setAddress(null);
+
+        Patient patient = engine.getPatientMapping().toPatient(client);
+
+        assertEquals(1, patient.getIdentifier().size());
+        assertFalse(patient.hasBirthDate());
+        assertFalse(patient.hasAddress());
+    }
+
+    @Test
+    void testToFHIR_MissingRequiredField() {
+        UCSClient client = createClient("M");
+        client.getDemographics().setLastName("");
+
+        TransformationException e = assertThrows(TransformationException.class,
+            () -> engine.transformUCSToFHIR(client));
+        assertEquals("Last name is required", e.getMessage());
+        assertThrows(TransformationException.class, () -> engine.transformUCSToFHIR(null));
+    }
+
+    @Test
+    void testToUCSClient_MatchesHandWrittenTransformer() throws TransformationException {
+        UCSClient client = createClient("F");
+        FHIRResourceWrapper<Patient> wrapper = engine.transformUCSToFHIR(client);
+
+        UCSClient compiled = engine.transformFHIRToUCS(wrapper.getResource());
+        UCSClient expected = fhirToUcs.transformFHIRToUCS(wrapper);
+
+        assertEquals(expected.getIdentifiers().getOpensrpId(), compiled.getIdentifiers().getOpensrpId());
+        assertEquals(expected.getIdentifiers().getNationalId(), compiled.getIdentifiers().getNationalId());
+        assertEquals(expected.getDemographics().getFirstName(), compiled.getDemographics().getFirstName());
+        assertEquals(expected.getDemographics().getLastName(), compiled.getDemographics().getLastName());
+        assertEquals(expected.getDemographics().getGender(), compiled.getDemographics().getGender());
+        assertEquals(expected.getDemographics().getBirthDate(), compiled.getDemographics().getBirthDate());
+        assertEquals(expected.getDemographics().getAddress().getDistrict(), compiled.getDemographics().getAddress().getDistrict());
+        assertEquals(expected.getDemographics().getAddress().getWard(), compiled.getDemographics().getAddress().getWard());
+        assertEquals(expected.getDemographics().getAddress().getVillage(), compiled.getDemographics().getAddress().getVillage());
+    }
+
+    @Test
+    void testToUCSClient_MissingOpensrpId() {
+        Patient patient = new Patient();
+        patient.addIdentifier().setSystem("http://moh.go.tz/identifier/national-id").setValue("NID-1");
+
+        TransformationException e = assertThrows(TransformationException.class,
+            () -> engine.transformFHIRToUCS(patient));
+        assertEquals("MISSING_IDENTIFIER", e.getErrorCode());
+    }
+
+    @Test
+    void testCompile_InvalidSpecFails() throws Exception {
+        String json = "{\"givenName\": {\"path\": \"demographics.address\"}}";
+        MappingSpec spec = MappingSpec.fromJson(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+
+        assertThrows(IllegalArgumentException.class, () -> CompiledPatientMapping.compile(spec));
+        assertThrows(IllegalStateException.class,
+            () -> new PatientMappingEngine(new DefaultResourceLoader(), "classpath:mapping/missing.json"));
+    }
+
+    private UCSClient createClient(String gender) {
+        UCSClient client = new UCSClient();
+        client.setIdentifiers(new UCSClient.UCSIdentifiers("OPENSRP-12345", "NID-67890"));
+        client.setDemographics(new UCSClient.UCSDemographics("John", "Doe", gender, LocalDate.of(1990, 1, 15),
+            new UCSClient.UCSAddress("Dodoma", "Makole", "Chamwino")));
+        return client;
+    }
+}
@@ -0,0 +1,70 @@
+package com.smartbridge.transformation.mapping;
+
+import com.smartbridge.core.model.ucs.UCSClient;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for PropertyPath.
+ * Verifies compiled reads, writes with intermediate creation and compile-time errors.
+ */
+class PropertyPathTest {
+
+    @Test
+    void testGet_ReadsNestedProperty() {
+        UCSClient client = new UCSClient();
+        client.setDemographics(new UCSClient.UCSDemographics("John", "Doe", "M", LocalDate.of(1990, 1, 15),
+            new UCSClient.UCSAddress("Dodoma", "Makole", "Chamwino")));
+
+        assertEquals("Makole", PropertyPath.compile(UCSClient.class, "demographics.address.ward").get(client));
+        assertEquals(LocalDate.of(1990, 1, 15), PropertyPath.compile(UCSClient.class, "demographics.birthDate").get(client));
+    }
+
+    @Test
+    void testGet_NullOnTheWayReturnsNull() {
+        PropertyPath path = PropertyPath.compile(UCSClient.class, "demographics.address.district");
+
+        assertNull(path.get(new UCSClient()));
+        assertNull(path.get(null));
+    }
+
+    @Test
+    void testSet_CreatesIntermediateObjects() {
+        UCSClient client = new UCSClient();
+
+        PropertyPath.compile(UCSClient.class, "demographics.address.village").set(client, "Chamwino");
+        PropertyPath.compile(UCSClient.class, "identifiers.opensrpId").set(client, "OPENSRP-1");
+
+        assertEquals("Chamwino", client.getDemographics().getAddress().getVillage());
+        assertEquals("OPENSRP-1", client.getIdentifiers().getOpensrpId());
+    }
+
+    @Test
+    void testGetOrCreate_ReusesExistingObject() {
+        UCSClient client = new UCSClient();
+        PropertyPath address = PropertyPath.compile(UCSClient.class, "demographics.address");
+
+        Object created = address.getOrCreate(client);
+
+        assertTrue(created instanceof UCSClient.UCSAddress);
+        assertSame(created, address.getOrCreate(client));
+        assertSame(created, client.getDemographics().getAddress());
+    }
+
+    @Test
+    void testCompile_ResolvesType() {
+        assertEquals(String.class, PropertyPath.compile(UCSClient.class, "demographics.gender").getType());
+        assertEquals(UCSClient.UCSAddress.class, PropertyPath.compile(UCSClient.class, "demographics.address").getType());
+    }
+
+    @Test
+    void testCompile_UnknownPropertyFails() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+            () -> PropertyPath.compile(UCSClient.class, "demographics.middleName"));
+        assertTrue(e.getMessage().contains("middleName"));
+        assertThrows(IllegalArgumentException.class, () -> PropertyPath.compile(UCSClient.class, ""));
+    }
+}